@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Compares the gateway on platform threads and on virtual threads under the same concurrent load.
+#
+# Runs perf_tests/concurrent_clients_tests.jmx once per mode against a freshly started gateway and
+# writes a JMeter HTML report per mode to perf_tests/results/<mode>/report. Redis must be running on
+# localhost:6379 (for example via `docker compose up -d redis`).
+#
+# Usage: perf_tests/compare_thread_modes.sh [threads] [duration-seconds]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+THREADS="${1:-5000}"
+DURATION="${2:-120}"
+RESULTS_DIR="perf_tests/results"
+
+./gradlew -q bootJar
+JAR="$(ls build/libs/*-SNAPSHOT.jar | grep -v plain | head -n 1)"
+
+for MODE in platform virtual; do
+  VIRTUAL_THREADS=false
+  if [ "$MODE" = "virtual" ]; then
+    VIRTUAL_THREADS=true
+  fi
+  rm -rf "${RESULTS_DIR:?}/${MODE}"
+  mkdir -p "${RESULTS_DIR}/${MODE}"
+
+  java -Djdk.tracePinnedThreads=short -jar "$JAR" \
+    --spring.threads.virtual.enabled="$VIRTUAL_THREADS" \
+    --server.tomcat.max-connections=$((THREADS * 2)) \
+    --application.maxReqPerMinute=1000000000 \
+    > "${RESULTS_DIR}/${MODE}/gateway.log" 2>&1 &
+  GATEWAY_PID=$!
+  trap 'kill $GATEWAY_PID 2>/dev/null || true' EXIT
+
+  until curl -s -o /dev/null -X POST "http://localhost:8080/token?username=johndoe&password=johndoe"; do
+    sleep 1
+  done
+
+  jmeter -n -t perf_tests/concurrent_clients_tests.jmx \
+    -Jthreads="$THREADS" -Jduration="$DURATION" \
+    -l "${RESULTS_DIR}/${MODE}/results.jtl" \
+    -e -o "${RESULTS_DIR}/${MODE}/report"
+
+  echo "${MODE}: platform threads at end of run $(jcmd "$GATEWAY_PID" Thread.print | grep -c '^"')"
+  kill "$GATEWAY_PID"
+  wait "$GATEWAY_PID" 2>/dev/null || true
+done
@@ -0,0 +1,90 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.impl.GcraRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.SlidingWindowRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.TokenBucketRateLimitStrategy;
+import com.siddharthgawas.apigateway.support.EmbeddedRedis;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisCallback;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Redis throughput and memory per key of the token bucket, GCRA and sliding window strategies.
+ * <p>
+ * Runs against an embedded Redis server with many concurrent callers. Limits are sized so no check is
+ * ever rejected, so every call runs the full script. At the end of each trial the average
+ * {@code MEMORY USAGE} of the keys written is printed, which JMH includes in its output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+@State(Scope.Benchmark)
+public class RateLimitAlgorithmBenchmark {
+
+    private static final int REDIS_PORT = 16381;
+
+    private static final long CAPACITY = 1_000_000_000L;
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"TOKEN_BUCKET", "GCRA", "SLIDING_WINDOW"})
+    public RateLimitAlgorithm algorithm;
+
+    private EmbeddedRedis redis;
+
+    private RateLimitStrategy strategy;
+
+    private String keyPrefix;
+
+    private RateLimitProps[] props;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        redis = EmbeddedRedis.start(REDIS_PORT);
+        switch (algorithm) {
+            case GCRA -> {
+                strategy = new GcraRateLimitStrategy(redis.redisTemplate(), CAPACITY);
+                keyPrefix = RateLimitKeys.GCRA_PREFIX;
+            }
+            case SLIDING_WINDOW -> {
+                strategy = new SlidingWindowRateLimitStrategy(redis.redisTemplate(), CAPACITY);
+                keyPrefix = RateLimitKeys.SLIDING_WINDOW_PREFIX;
+            }
+            default -> {
+                strategy = new TokenBucketRateLimitStrategy(redis.redisTemplate(), CAPACITY);
+                keyPrefix = RateLimitKeys.PREFIX;
+            }
+        }
+        props = new RateLimitProps[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            props[i] = new RateLimitProps("user-" + i, "/api/resource");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        long totalBytes = 0;
+        int keys = 0;
+        for (final var prop : props) {
+            final var key = RateLimitKeys.bucketKey(keyPrefix, prop.getKey(), prop.getRoute());
+            final var usage = redis.redisTemplate().execute((RedisCallback<Object>) connection -> connection.execute(
+                    "MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8)));
+            if (usage instanceof Number bytes) {
+                totalBytes += bytes.longValue();
+                keys++;
+            }
+        }
+        System.out.printf("%n%s: %d keys, %d bytes per key%n", algorithm, keys, keys == 0 ? 0 : totalBytes / keys);
+        redis.close();
+    }
+
+    @Benchmark
+    public Boolean isQuotaExceeded() {
+        return strategy.isQuotaExceeded(props[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+    }
+}
@@ -0,0 +1,131 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import com.siddharthgawas.apigateway.security.dto.JWTAuthentication;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures the per-request overhead of {@link RateLimiterFilter} with a stub strategy that always
+ * allows, so only the filter's own work (key extraction, props, decision handling) is measured.
+ * <p>
+ * {@code doFilterWithPolicy} classifies the request, resolves its rule from a policy table and
+ * writes the rate limit headers of a decision that reports the quota, as requests through the
+ * gateway do. Run with {@code -prof gc} to check that neither path allocates per request.
+ * <p>
+ * {@code doFilterWithSecurityContext} keys authenticated requests the way the filter used to, by
+ * loading the deferred security context from its request attribute, while
+ * {@code doFilterWithPrincipal} reads the {@link RateLimitPrincipal} the authentication filter now
+ * publishes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class RateLimiterFilterBenchmark {
+
+    private RateLimiterFilter filter;
+
+    private RateLimiterFilter policyFilter;
+
+    private RateLimiterFilter securityContextFilter;
+
+    private RateLimiterFilter principalFilter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletRequest securityContextRequest;
+
+    private MockHttpServletRequest principalRequest;
+
+    private MockHttpServletResponse response;
+
+    private FilterChain filterChain;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final RateLimitStrategy allowAll = rateLimitProps -> false;
+        filter = new RateLimiterFilter(allowAll, request -> true, request -> "benchmark-user");
+        request = new MockHttpServletRequest("GET", "/api/resource");
+
+        final var routeTable = new RouteTable(List.of());
+        final var policyTable = new RateLimitPolicyTable(routeTable.descriptors(), RateLimitRule.of(100), null,
+                new ObjectMapper());
+        final var decision = new RateLimitDecision(true, 100, 99, 600, 0);
+        final RateLimitStrategy reportsQuota = new RateLimitStrategy() {
+            @Override
+            public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+                return false;
+            }
+
+            @Override
+            public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+                return decision;
+            }
+        };
+        policyFilter = new RateLimiterFilter(reportsQuota, request -> true, request -> "benchmark-user");
+        policyFilter.setPolicyTable(policyTable);
+        request.setAttribute(RouteTable.ROUTE_ATTRIBUTE, routeTable.classify("/api/resource"));
+
+        final var securityContextRepository = new RequestAttributeSecurityContextRepository();
+        securityContextFilter = new RateLimiterFilter(allowAll, request -> true, request -> Optional
+                .of(securityContextRepository.loadDeferredContext(request))
+                .map(Supplier::get)
+                .map(SecurityContext::getAuthentication)
+                .map(Principal::getName)
+                .orElse(null));
+        securityContextRequest = new MockHttpServletRequest("GET", "/api/resource");
+        final var authentication = new JWTAuthentication("benchmark-token");
+        authentication.setUserDetails(new User("benchmark-user", "", List.of()));
+        securityContextRequest.setAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME,
+                new SecurityContextImpl(authentication));
+
+        principalFilter = new RateLimiterFilter(allowAll, request -> true, request -> null);
+        principalRequest = new MockHttpServletRequest("GET", "/api/resource");
+        principalRequest.setAttribute(RateLimitPrincipal.ATTRIBUTE, new RateLimitPrincipal("benchmark-user"));
+        response = new MockHttpServletResponse();
+        filterChain = (servletRequest, servletResponse) -> {
+        };
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilter() throws ServletException, IOException {
+        filter.doFilter(request, response, filterChain);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilterWithSecurityContext() throws ServletException, IOException {
+        securityContextFilter.doFilter(securityContextRequest, response, filterChain);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilterWithPrincipal() throws ServletException, IOException {
+        principalFilter.doFilter(principalRequest, response, filterChain);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilterWithPolicy() throws ServletException, IOException {
+        policyFilter.doFilter(request, response, filterChain);
+        return response;
+    }
+}
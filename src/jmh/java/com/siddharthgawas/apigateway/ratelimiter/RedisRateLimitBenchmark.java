@@ -0,0 +1,80 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.impl.BatchingRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.TokenBucketRateLimitStrategy;
+import com.siddharthgawas.apigateway.support.EmbeddedRedis;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-request EVAL rate limit checks with micro-batched multi-key checks.
+ * <p>
+ * Runs against an embedded Redis server with many concurrent callers, which is where batching
+ * is expected to pay off. Buckets are sized so no check is ever rejected.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+@State(Scope.Benchmark)
+public class RedisRateLimitBenchmark {
+
+    private static final int REDIS_PORT = 16379;
+
+    private static final long CAPACITY = 1_000_000_000L;
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"64"})
+    public int batchSize;
+
+    @Param({"200"})
+    public long batchWindowMicros;
+
+    private EmbeddedRedis redis;
+
+    private TokenBucketRateLimitStrategy perRequestStrategy;
+
+    private BatchingRateLimitStrategy batchingStrategy;
+
+    private RateLimitProps[] props;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        redis = EmbeddedRedis.start(REDIS_PORT);
+        perRequestStrategy = new TokenBucketRateLimitStrategy(redis.redisTemplate(), CAPACITY);
+        batchingStrategy = new BatchingRateLimitStrategy(perRequestStrategy, batchSize, batchWindowMicros,
+                runnable -> {
+                    final var thread = new Thread(runnable, "benchmark-batch-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        props = new RateLimitProps[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            props[i] = new RateLimitProps("user-" + i, "/api/resource");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        batchingStrategy.close();
+        redis.close();
+    }
+
+    @Benchmark
+    public Boolean perRequestEval() {
+        return perRequestStrategy.isQuotaExceeded(nextProps());
+    }
+
+    @Benchmark
+    public Boolean batchedEval() {
+        return batchingStrategy.isQuotaExceeded(nextProps());
+    }
+
+    private RateLimitProps nextProps() {
+        return props[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+    }
+}
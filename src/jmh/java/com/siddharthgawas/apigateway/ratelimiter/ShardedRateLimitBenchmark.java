@@ -0,0 +1,72 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.impl.ShardedRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.TokenBucketRateLimitStrategy;
+import com.siddharthgawas.apigateway.support.EmbeddedRedis;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the Redis token bucket scales when buckets are sharded across several Redis nodes.
+ * <p>
+ * Starts one embedded Redis server per shard. Redis runs scripts on a single thread, so with enough
+ * concurrent callers one node saturates and throughput should grow close to linearly with the
+ * number of shards.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+@State(Scope.Benchmark)
+public class ShardedRateLimitBenchmark {
+
+    private static final int FIRST_REDIS_PORT = 16382;
+
+    private static final long CAPACITY = 1_000_000_000L;
+
+    private static final int KEY_COUNT = 4096;
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    private final List<EmbeddedRedis> servers = new ArrayList<>();
+
+    private RateLimitStrategy strategy;
+
+    private RateLimitProps[] props;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final var names = new ArrayList<String>(shards);
+        final var strategies = new ArrayList<RateLimitStrategy>(shards);
+        for (int i = 0; i < shards; i++) {
+            final var redis = EmbeddedRedis.start(FIRST_REDIS_PORT + i);
+            servers.add(redis);
+            names.add("redis://localhost:" + (FIRST_REDIS_PORT + i));
+            strategies.add(new TokenBucketRateLimitStrategy(redis.redisTemplate(), CAPACITY));
+        }
+        strategy = new ShardedRateLimitStrategy(names, strategies);
+        props = new RateLimitProps[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            props[i] = new RateLimitProps("user-" + i, "/api/resource");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (final var redis : servers) {
+            redis.close();
+        }
+        servers.clear();
+    }
+
+    @Benchmark
+    public Boolean isQuotaExceeded() {
+        return strategy.isQuotaExceeded(props[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+    }
+}
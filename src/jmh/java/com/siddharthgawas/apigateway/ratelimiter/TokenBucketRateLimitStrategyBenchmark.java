@@ -0,0 +1,45 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.impl.TokenBucketRateLimitStrategy;
+import com.siddharthgawas.apigateway.support.EmbeddedRedis;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency and allocation of a single token bucket check against an embedded Redis server.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TokenBucketRateLimitStrategyBenchmark {
+
+    private static final int REDIS_PORT = 16380;
+
+    private static final long CAPACITY = 1_000_000_000L;
+
+    private EmbeddedRedis redis;
+
+    private TokenBucketRateLimitStrategy strategy;
+
+    private RateLimitProps props;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        redis = EmbeddedRedis.start(REDIS_PORT);
+        strategy = new TokenBucketRateLimitStrategy(redis.redisTemplate(), CAPACITY);
+        props = new RateLimitProps("benchmark-user", "/api/resource");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        redis.close();
+    }
+
+    @Benchmark
+    public Boolean isQuotaExceeded() {
+        return strategy.isQuotaExceeded(props);
+    }
+}
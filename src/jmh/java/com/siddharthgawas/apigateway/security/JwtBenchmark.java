@@ -0,0 +1,71 @@
+package com.siddharthgawas.apigateway.security;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.service.impl.JWTServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JWT work done per request: extracting the bearer token, verifying it and
+ * reading the user from it, and minting new access tokens, for every signing algorithm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    @Param({"HS512", "ES256", "EDDSA"})
+    private JwtAlgorithm algorithm;
+
+    private JWTAuthenticationConverter converter;
+
+    private JWTServiceImpl jwtService;
+
+    private UserDetails user;
+
+    private String accessToken;
+
+    private MockHttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final var applicationProperties = new ApplicationProperties();
+        applicationProperties.setSecret("benchmark-secret");
+        applicationProperties.setJwtAccessTokenExpirationMs(600_000L);
+        applicationProperties.setJwtRefreshTokenExpirationMs(1_200_000L);
+        applicationProperties.setJwtIssuer("benchmark.api-gateway");
+        applicationProperties.setJwtAlgorithm(algorithm);
+        converter = new JWTAuthenticationConverter();
+        jwtService = new JWTServiceImpl(applicationProperties);
+        user = new User("benchmark-user", "", Collections.emptyList());
+        accessToken = jwtService.generateAccessToken(user);
+        request = new MockHttpServletRequest("GET", "/api/resource");
+        request.addHeader("Authorization", "Bearer " + accessToken);
+    }
+
+    @Benchmark
+    public Authentication convert() {
+        return converter.convert(request);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtService.validateToken(accessToken);
+    }
+
+    @Benchmark
+    public User getUserFromToken() {
+        return jwtService.getUserFromToken(accessToken);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(user);
+    }
+}
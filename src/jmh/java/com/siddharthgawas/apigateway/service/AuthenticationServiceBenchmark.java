@@ -0,0 +1,114 @@
+package com.siddharthgawas.apigateway.service;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.security.JwtAlgorithm;
+import com.siddharthgawas.apigateway.security.dto.TokenDetails;
+import com.siddharthgawas.apigateway.service.impl.AuthenticationServiceImpl;
+import com.siddharthgawas.apigateway.service.impl.JWTServiceImpl;
+import com.siddharthgawas.apigateway.service.impl.RedisRefreshTokenFamilyStore;
+import com.siddharthgawas.apigateway.service.impl.RedisTokenRevocationService;
+import com.siddharthgawas.apigateway.support.EmbeddedRedis;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the work behind {@code /token} and {@code /token-refresh}, for every signing algorithm.
+ * <p>
+ * {@code authenticate} includes the BCrypt check of the password; {@code mintTokenPair} isolates
+ * the two tokens every login and refresh mints. Refreshes rotate the refresh token family in an
+ * embedded Redis, so each thread presents the refresh token it was last given. The {@code Burst}
+ * variants run on eight threads to expose contention on shared state such as the token ID source.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class AuthenticationServiceBenchmark {
+
+    private static final int REDIS_PORT = 16386;
+
+    @Param({"HS512", "ES256", "EDDSA"})
+    private JwtAlgorithm algorithm;
+
+    private EmbeddedRedis redis;
+
+    private JWTServiceImpl jwtService;
+
+    private AuthenticationServiceImpl authenticationService;
+
+    private UserDetails user;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        redis = EmbeddedRedis.start(REDIS_PORT);
+        final var redisTemplate = new StringRedisTemplate(redis.connectionFactory());
+        final var applicationProperties = new ApplicationProperties();
+        applicationProperties.setSecret("benchmark-secret");
+        applicationProperties.setJwtAccessTokenExpirationMs(600_000L);
+        applicationProperties.setJwtRefreshTokenExpirationMs(1_200_000L);
+        applicationProperties.setJwtIssuer("benchmark.api-gateway");
+        applicationProperties.setJwtAlgorithm(algorithm);
+        jwtService = new JWTServiceImpl(applicationProperties);
+        authenticationService = new AuthenticationServiceImpl(new BCryptPasswordEncoder(), jwtService,
+                new RedisRefreshTokenFamilyStore(redisTemplate, applicationProperties),
+                new RedisTokenRevocationService(redisTemplate, 1_000, false, GatewayMetrics.NOOP, System::currentTimeMillis));
+        user = new User("johndoe", "", Collections.emptyList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        redis.close();
+    }
+
+    /**
+     * The refresh token a benchmark thread presents next.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private String refreshToken;
+
+        @Setup(Level.Trial)
+        public void setUp(final AuthenticationServiceBenchmark benchmark) {
+            refreshToken = benchmark.authenticationService.authenticate("johndoe", "johndoe").refreshToken();
+        }
+    }
+
+    @Benchmark
+    public TokenDetails authenticate() {
+        return authenticationService.authenticate("johndoe", "johndoe");
+    }
+
+    @Benchmark
+    public TokenDetails refreshAccessToken(final Client client) {
+        final var tokenDetails = authenticationService.refreshAccessToken(client.refreshToken);
+        client.refreshToken = tokenDetails.refreshToken();
+        return tokenDetails;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TokenDetails refreshAccessTokenBurst(final Client client) {
+        return refreshAccessToken(client);
+    }
+
+    @Benchmark
+    public void mintTokenPair(final Blackhole blackhole) {
+        blackhole.consume(jwtService.generateAccessToken(user));
+        blackhole.consume(jwtService.generateRefreshToken(user, "benchmark-family", "benchmark-token"));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void mintTokenPairBurst(final Blackhole blackhole) {
+        mintTokenPair(blackhole);
+    }
+}
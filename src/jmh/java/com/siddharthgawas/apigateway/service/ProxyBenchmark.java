@@ -0,0 +1,88 @@
+package com.siddharthgawas.apigateway.service;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import com.siddharthgawas.apigateway.service.impl.ProxyServiceImpl;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency {@link ProxyServiceImpl} adds per hop.
+ * <p>
+ * {@code direct} calls a local stub upstream with the same HTTP client the proxy uses, and
+ * {@code proxied} forwards a request to the same stub through the proxy. The difference is the
+ * cost of route matching, header rewriting and body copying.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ProxyBenchmark {
+
+    private static final byte[] RESPONSE_BODY = "{\"message\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer upstream;
+
+    private HttpClient httpClient;
+
+    private ProxyServiceImpl proxyService;
+
+    private HttpRequest directRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        upstream.setExecutor(Executors.newFixedThreadPool(4));
+        upstream.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE_BODY.length);
+            exchange.getResponseBody().write(RESPONSE_BODY);
+            exchange.close();
+        });
+        upstream.start();
+        final var upstreamUri = "http://localhost:" + upstream.getAddress().getPort();
+
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        final var route = new ApplicationProperties.Route();
+        route.setPathPrefix("/api");
+        route.setUpstreams(List.of(upstreamUri));
+        proxyService = new ProxyServiceImpl(httpClient, new RouteTable(List.of(route)), new ApplicationProperties());
+        directRequest = HttpRequest.newBuilder(URI.create(upstreamUri + "/api/resource"))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        upstream.stop(0);
+    }
+
+    @Benchmark
+    public byte[] direct() throws IOException, InterruptedException {
+        return httpClient.send(directRequest, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    public byte[] proxied() throws IOException {
+        final var request = new MockHttpServletRequest("GET", "/api/resource");
+        request.addHeader("Accept", "application/json");
+        final var response = new MockHttpServletResponse();
+        proxyService.forward(request, response, "benchmark-user");
+        return response.getContentAsByteArray();
+    }
+}
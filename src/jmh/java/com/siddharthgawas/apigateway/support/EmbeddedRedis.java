@@ -0,0 +1,58 @@
+package com.siddharthgawas.apigateway.support;
+
+import com.siddharthgawas.apigateway.configuration.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+
+/**
+ * Embedded Redis server plus a Lettuce connection to it, configured like the application.
+ * <p>
+ * Used by benchmarks that need a real Redis without an external server.
+ */
+public final class EmbeddedRedis implements AutoCloseable {
+
+    private final RedisServer redisServer;
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private EmbeddedRedis(final int port) throws IOException {
+        this.redisServer = new RedisServer(port);
+        this.redisServer.start();
+        this.connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        this.connectionFactory.afterPropertiesSet();
+        this.connectionFactory.start();
+        this.redisTemplate = RedisConfiguration.redisTemplate(connectionFactory);
+        this.redisTemplate.afterPropertiesSet();
+    }
+
+    /**
+     * Starts an embedded Redis server on the given port and connects to it.
+     *
+     * @param port the port to listen on
+     * @return the started server
+     * @throws IOException if the server cannot be started
+     */
+    public static EmbeddedRedis start(final int port) throws IOException {
+        return new EmbeddedRedis(port);
+    }
+
+    public LettuceConnectionFactory connectionFactory() {
+        return connectionFactory;
+    }
+
+    public RedisTemplate<String, Object> redisTemplate() {
+        return redisTemplate;
+    }
+
+    @Override
+    public void close() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+}
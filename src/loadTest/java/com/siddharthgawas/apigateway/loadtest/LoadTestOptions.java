@@ -0,0 +1,75 @@
+package com.siddharthgawas.apigateway.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options of a load test run, read from {@code loadTest.*} system properties.
+ *
+ * @param label          Free-form label stored in the report, e.g. a build or configuration name.
+ * @param durationSeconds Measured duration of the run.
+ * @param warmupSeconds  Duration of the unmeasured warm-up before the run.
+ * @param concurrency    Number of concurrent clients.
+ * @param targetRate     Total requests per second to pace clients at, or 0 to send as fast as possible.
+ * @param mix            Relative weight of each scenario.
+ * @param gatewayArgs    Extra command line arguments passed to the gateway.
+ * @param reportDir      Directory the report is written to.
+ */
+public record LoadTestOptions(String label,
+                             int durationSeconds,
+                             int warmupSeconds,
+                             int concurrency,
+                             int targetRate,
+                             Map<Scenario, Integer> mix,
+                             List<String> gatewayArgs,
+                             Path reportDir) {
+
+    private static final String PREFIX = "loadTest.";
+
+    /**
+     * Reads the options from system properties, falling back to defaults.
+     *
+     * @return the options
+     */
+    public static LoadTestOptions fromSystemProperties() {
+        return new LoadTestOptions(
+                property("label", "default"),
+                Integer.parseInt(property("duration", "60")),
+                Integer.parseInt(property("warmup", "10")),
+                Integer.parseInt(property("concurrency", "64")),
+                Integer.parseInt(property("rate", "0")),
+                parseMix(property("mix", "token:1,tokenRefresh:1,catchAll:18")),
+                Arrays.stream(property("gatewayArgs", "").split("\\s+"))
+                        .filter(argument -> !argument.isBlank())
+                        .toList(),
+                Path.of(property("reportDir", "build/reports/loadtest")));
+    }
+
+    private static String property(final String name, final String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+    /**
+     * Parses a mix such as {@code token:1,tokenRefresh:1,catchAll:18}.
+     */
+    private static Map<Scenario, Integer> parseMix(final String mix) {
+        final Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (final var entry : mix.split(",")) {
+            final var parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            final var weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Scenario.fromName(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix must contain at least one scenario with a positive weight");
+        }
+        return weights;
+    }
+}
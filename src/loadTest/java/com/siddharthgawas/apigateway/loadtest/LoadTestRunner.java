@@ -0,0 +1,280 @@
+package com.siddharthgawas.apigateway.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siddharthgawas.apigateway.ApiGatewayApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of the gateway.
+ * <p>
+ * Boots the gateway against an embedded Redis, drives a weighted mix of {@link Scenario scenarios} from
+ * {@code loadTest.concurrency} clients and writes latency percentiles, throughput and 429 ratios per scenario
+ * to a JSON report. When {@code loadTest.rate} is set, clients are paced and latency is measured from the
+ * intended send time, so a stalled gateway shows up in the percentiles instead of slowing the clients down.
+ * <p>
+ * Run with {@code ./gradlew loadTest -PloadTest.duration=60 -PloadTest.concurrency=64}.
+ */
+public final class LoadTestRunner {
+
+    private static final String[] USERS = {"johndoe", "janedoe"};
+
+    private static final String REFRESH_TOKEN_COOKIE = "refreshToken";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final LoadTestOptions options;
+
+    private final HttpClient httpClient;
+
+    private final URI baseUri;
+
+    private final Map<Scenario, ScenarioStats> stats = new EnumMap<>(Scenario.class);
+
+    private final Scenario[] scenarios;
+
+    private final int[] cumulativeWeights;
+
+    private LoadTestRunner(final LoadTestOptions options, final int gatewayPort) {
+        this.options = options;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUri = URI.create("http://localhost:" + gatewayPort);
+        this.scenarios = options.mix().keySet().toArray(Scenario[]::new);
+        this.cumulativeWeights = new int[scenarios.length];
+        var total = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            total += options.mix().get(scenarios[i]);
+            cumulativeWeights[i] = total;
+            stats.put(scenarios[i], new ScenarioStats());
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final var options = LoadTestOptions.fromSystemProperties();
+        final var redisPort = freePort();
+        final var redisServer = new RedisServer(redisPort);
+        redisServer.start();
+        try (ConfigurableApplicationContext context = SpringApplication.run(ApiGatewayApplication.class,
+                gatewayArguments(options, redisPort))) {
+            final var gatewayPort = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            final var report = new LoadTestRunner(options, gatewayPort).run();
+            final var reportFile = writeReport(options, report);
+            System.out.println("Load test report written to " + reportFile.toAbsolutePath());
+            System.out.println(OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(report.get("scenarios")));
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    private static String[] gatewayArguments(final LoadTestOptions options, final int redisPort) {
+        final List<String> arguments = new ArrayList<>();
+        arguments.add("--server.port=0");
+        arguments.add("--management.server.port=0");
+        arguments.add("--spring.data.redis.host=localhost");
+        arguments.add("--spring.data.redis.port=" + redisPort);
+        arguments.addAll(options.gatewayArgs());
+        return arguments.toArray(String[]::new);
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Runs the warm-up and the measured phase and returns the report.
+     */
+    private Map<String, Object> run() throws InterruptedException {
+        final var clients = new ArrayList<Client>(options.concurrency());
+        for (int i = 0; i < options.concurrency(); i++) {
+            clients.add(new Client(USERS[i % USERS.length]));
+        }
+        for (final var client : clients) {
+            client.login();
+        }
+
+        runPhase(clients, options.warmupSeconds());
+        stats.values().forEach(ScenarioStats::reset);
+
+        final var startedAt = Instant.now();
+        final var startNanos = System.nanoTime();
+        runPhase(clients, options.durationSeconds());
+        final var measuredSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        final Map<String, Object> scenarioReports = new LinkedHashMap<>();
+        stats.forEach((scenario, scenarioStats) ->
+                scenarioReports.put(scenario.reportName(), scenarioStats.toReport(measuredSeconds)));
+
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", options.label());
+        report.put("startedAt", startedAt.toString());
+        report.put("durationSeconds", measuredSeconds);
+        report.put("warmupSeconds", options.warmupSeconds());
+        report.put("concurrency", options.concurrency());
+        report.put("targetRate", options.targetRate());
+        report.put("mix", mixReport());
+        report.put("gatewayArgs", options.gatewayArgs());
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("scenarios", scenarioReports);
+        return report;
+    }
+
+    private Map<String, Integer> mixReport() {
+        final Map<String, Integer> mix = new LinkedHashMap<>();
+        options.mix().forEach((scenario, weight) -> mix.put(scenario.reportName(), weight));
+        return mix;
+    }
+
+    private void runPhase(final List<Client> clients, final int seconds) throws InterruptedException {
+        if (seconds <= 0) {
+            return;
+        }
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final var intervalNanos = options.targetRate() > 0
+                ? (long) (1e9 * options.concurrency() / options.targetRate())
+                : 0L;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final var client : clients) {
+                executor.execute(() -> client.drive(deadline, intervalNanos));
+            }
+        }
+    }
+
+    private static Path writeReport(final LoadTestOptions options,
+                                     final Map<String, Object> report) throws IOException {
+        Files.createDirectories(options.reportDir());
+        final var timestamp = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+                .withZone(ZoneOffset.UTC)
+                .format(Instant.now());
+        final var reportFile = options.reportDir().resolve(options.label() + "-" + timestamp + ".json");
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        return reportFile;
+    }
+
+    private Scenario nextScenario() {
+        final var pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return scenarios[i];
+            }
+        }
+        return scenarios[scenarios.length - 1];
+    }
+
+    /**
+     * A single simulated user holding its own access and refresh token.
+     */
+    private final class Client {
+
+        private final String username;
+
+        private String accessToken;
+
+        private String refreshToken;
+
+        private Client(final String username) {
+            this.username = username;
+        }
+
+        private void login() {
+            try {
+                final var response = httpClient.send(tokenRequest(), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 201) {
+                    throw new IllegalStateException("Login of " + username + " failed with " + response.statusCode());
+                }
+                updateTokens(response.body());
+            } catch (IOException e) {
+                throw new IllegalStateException("Login of " + username + " failed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Login of " + username + " interrupted", e);
+            }
+        }
+
+        private void drive(final long deadline, final long intervalNanos) {
+            var intendedStart = System.nanoTime();
+            while (intendedStart < deadline && !Thread.currentThread().isInterrupted()) {
+                if (intervalNanos > 0) {
+                    final var wait = intendedStart - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                } else {
+                    intendedStart = System.nanoTime();
+                }
+                send(nextScenario(), intendedStart);
+                intendedStart += intervalNanos;
+            }
+        }
+
+        private void send(final Scenario scenario, final long intendedStart) {
+            final var scenarioStats = stats.get(scenario);
+            try {
+                final var response = httpClient.send(request(scenario), HttpResponse.BodyHandlers.ofString());
+                scenarioStats.record(response.statusCode(), System.nanoTime() - intendedStart);
+                if (scenario != Scenario.CATCH_ALL && response.statusCode() == 201) {
+                    updateTokens(response.body());
+                }
+            } catch (IOException e) {
+                scenarioStats.recordError();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private HttpRequest request(final Scenario scenario) {
+            return switch (scenario) {
+                case TOKEN -> tokenRequest();
+                case TOKEN_REFRESH -> HttpRequest.newBuilder(baseUri.resolve("/token-refresh"))
+                        .header("Cookie", REFRESH_TOKEN_COOKIE + "=" + refreshToken)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build();
+                case CATCH_ALL -> HttpRequest.newBuilder(baseUri.resolve("/api/resources/"
+                                + ThreadLocalRandom.current().nextInt(100)))
+                        .header("Authorization", "Bearer " + accessToken)
+                        .GET()
+                        .build();
+            };
+        }
+
+        private HttpRequest tokenRequest() {
+            return HttpRequest.newBuilder(baseUri.resolve("/token?username=" + username + "&password=" + username))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+        }
+
+        private void updateTokens(final String body) throws IOException {
+            final var tokens = OBJECT_MAPPER.readTree(body);
+            this.accessToken = tokens.path("accessToken").asText(accessToken);
+            this.refreshToken = tokens.path("refreshToken").asText(refreshToken);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.siddharthgawas.apigateway.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Traffic scenarios driven by the load test.
+ */
+public enum Scenario {
+
+    /**
+     * Unauthenticated {@code POST /token} with username and password.
+     */
+    TOKEN("token"),
+
+    /**
+     * Unauthenticated {@code POST /token-refresh} with the client's current refresh token.
+     */
+    TOKEN_REFRESH("tokenRefresh"),
+
+    /**
+     * Authenticated request to a catch-all path with the client's access token.
+     */
+    CATCH_ALL("catchAll");
+
+    private final String reportName;
+
+    Scenario(final String reportName) {
+        this.reportName = reportName;
+    }
+
+    public String reportName() {
+        return reportName;
+    }
+
+    /**
+     * Returns the scenario with the given report name.
+     *
+     * @param name the report name, e.g. {@code tokenRefresh}
+     * @return the scenario
+     */
+    public static Scenario fromName(final String name) {
+        return Arrays.stream(values())
+                .filter(scenario -> scenario.reportName.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown scenario: " + name));
+    }
+}
@@ -0,0 +1,90 @@
+package com.siddharthgawas.apigateway.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and response counts of a single scenario.
+ */
+public final class ScenarioStats {
+
+    private static final long HIGHEST_TRACKABLE_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_LATENCY_NANOS, 3);
+
+    private final LongAdder successful = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Records a completed request.
+     *
+     * @param statusCode   the HTTP status code of the response
+     * @param latencyNanos the latency of the request
+     */
+    public void record(final int statusCode, final long latencyNanos) {
+        recorder.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_LATENCY_NANOS));
+        if (statusCode == 429) {
+            rejected.increment();
+        } else if (statusCode >= 200 && statusCode < 300) {
+            successful.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    /**
+     * Records a request that failed without a response, e.g. a connection error.
+     */
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Discards everything recorded so far, e.g. at the end of the warm-up.
+     */
+    public void reset() {
+        recorder.getIntervalHistogram();
+        successful.reset();
+        rejected.reset();
+        failed.reset();
+        errors.reset();
+    }
+
+    /**
+     * Builds the report section of this scenario.
+     *
+     * @param durationSeconds the measured duration of the run
+     * @return the report section
+     */
+    public Map<String, Object> toReport(final double durationSeconds) {
+        final Histogram histogram = recorder.getIntervalHistogram();
+        final var responses = successful.sum() + rejected.sum() + failed.sum();
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", responses + errors.sum());
+        report.put("throughputPerSecond", responses / durationSeconds);
+        report.put("successful", successful.sum());
+        report.put("rejected", rejected.sum());
+        report.put("failed", failed.sum());
+        report.put("errors", errors.sum());
+        report.put("rejectedRatio", responses == 0 ? 0.0 : (double) rejected.sum() / responses);
+        final Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("mean", histogram.getMean() / 1000.0);
+        latency.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+        latency.put("p90", histogram.getValueAtPercentile(90) / 1000.0);
+        latency.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+        latency.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+        latency.put("max", histogram.getMaxValue() / 1000.0);
+        report.put("latencyMicros", latency);
+        return report;
+    }
+}
@@ -1,10 +1,15 @@
 package com.siddharthgawas.apigateway.configuration;
 
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitAlgorithm;
+import com.siddharthgawas.apigateway.security.JwtAlgorithm;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Application properties for the API Gateway.
  * <p>
@@ -20,5 +25,47 @@ public class ApplicationProperties {
     private Long jwtAccessTokenExpirationMs;
     private Long jwtRefreshTokenExpirationMs;
     private String jwtIssuer;
+    private JwtAlgorithm jwtAlgorithm;
+    private String jwtKeyStoreFile;
+    private String jwtKeyStorePassword;
+    private String jwtSigningKeyAlias;
+    private Long jwtKeyStoreReloadSeconds;
+    private Long jwtKeyOverlapMs;
+    private Integer jwtRevocationCapacity;
+    private Long jwtRevocationRefreshSeconds;
+    private Boolean jwtRevocationFailOpen;
     private Long maxReqPerMinute;
+    private RateLimitAlgorithm rateLimitAlgorithm;
+    private Long jwtVerificationCacheSize;
+    private Long rateLimitLeaseSize;
+    private Long rateLimitLeaseOverdraft;
+    private Long rateLimitBatchSize;
+    private Long rateLimitBatchWindowMicros;
+    private Boolean rateLimitAsync;
+    private String rateLimitPolicyFile;
+    private Long rateLimitPolicyReloadSeconds;
+    private List<String> rateLimitRedisShards = new ArrayList<>();
+    private Integer rateLimitFailureThreshold;
+    private Long rateLimitCircuitOpenMs;
+    private Long rateLimitCallTimeoutMs;
+    private Integer rateLimitNodeCount;
+    private Integer rateLimitKeyCacheSize;
+    private List<Route> routes = new ArrayList<>();
+    private Long proxyConnectTimeoutMs;
+    private Long proxyResponseTimeoutMs;
+    private Boolean proxyHttp2;
+
+    /**
+     * A route of the reverse proxy, forwarding requests under a path prefix to a pool of upstreams.
+     */
+    @Setter
+    @Getter
+    public static class Route {
+        private String pathPrefix;
+        private List<String> upstreams = new ArrayList<>();
+        private Boolean stripPrefix;
+        private Boolean authenticationRequired;
+        private String rateLimitPolicy;
+        private String rateLimitGroup;
+    }
 }
@@ -0,0 +1,179 @@
+package com.siddharthgawas.apigateway.configuration;
+
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.security.JwtKeyManager;
+import com.siddharthgawas.apigateway.security.JwtKeySet;
+import com.siddharthgawas.apigateway.service.impl.RedisTokenRevocationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration class for the keys tokens are signed with.
+ * <p>
+ * When {@code application.jwtKeyStoreFile} is set, keys are loaded from that PKCS12 or JKS file,
+ * signing with the key named by {@code application.jwtSigningKeyAlias}. The file is checked for
+ * changes every {@code application.jwtKeyStoreReloadSeconds}, and keys removed from it keep
+ * verifying tokens for {@code application.jwtKeyOverlapMs}, by default the refresh token lifetime.
+ * <p>
+ * Otherwise {@code application.jwtAlgorithm} selects the key. HS512 keys are derived from
+ * {@code application.secret}, so replicas sharing the secret accept each other's tokens. ES256
+ * and EdDSA key pairs are generated on startup, which only suits a single replica.
+ * <p>
+ * Revoked access tokens are kept in Redis. Each node reloads its filter of revoked tokens every
+ * {@code application.jwtRevocationRefreshSeconds} and listens for revocations in between; the
+ * filter is sized for {@code application.jwtRevocationCapacity} revoked tokens.
+ */
+@Slf4j
+@Configuration
+public class JwtConfiguration {
+
+    private static final long DEFAULT_KEY_STORE_RELOAD_SECONDS = 60;
+
+    private static final long RETIRE_INTERVAL_SECONDS = 10;
+
+    private static final int DEFAULT_REVOCATION_CAPACITY = 100_000;
+
+    private static final long DEFAULT_REVOCATION_REFRESH_SECONDS = 30;
+
+    /**
+     * Scheduler on which the key store is polled, expired keys are retired and revoked tokens are
+     * reloaded.
+     *
+     * @return the scheduled executor service
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService jwtScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "jwt-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Manager of the signing keys.
+     *
+     * @param applicationProperties the application properties
+     * @param jwtScheduler          the scheduler the key store is polled on
+     * @return the key manager
+     */
+    @Bean
+    public JwtKeyManager jwtKeyManager(final ApplicationProperties applicationProperties,
+                                       @Qualifier("jwtScheduler")
+                                       final ScheduledExecutorService jwtScheduler) {
+        final var keyStoreFile = applicationProperties.getJwtKeyStoreFile();
+        if (!StringUtils.hasText(keyStoreFile)) {
+            return new JwtKeyManager(JwtKeyManager.configuredKey(applicationProperties));
+        }
+        final var keyManager = new JwtKeyManager(Path.of(keyStoreFile),
+                Objects.requireNonNullElse(applicationProperties.getJwtKeyStorePassword(), "").toCharArray(),
+                StringUtils.hasText(applicationProperties.getJwtSigningKeyAlias())
+                        ? applicationProperties.getJwtSigningKeyAlias() : null,
+                Objects.requireNonNullElse(applicationProperties.getJwtKeyOverlapMs(),
+                        applicationProperties.getJwtRefreshTokenExpirationMs()),
+                System::currentTimeMillis);
+        final var reloadSeconds = Objects.requireNonNullElse(
+                applicationProperties.getJwtKeyStoreReloadSeconds(), DEFAULT_KEY_STORE_RELOAD_SECONDS);
+        if (reloadSeconds > 0) {
+            jwtScheduler.scheduleWithFixedDelay(keyManager::reload, reloadSeconds, reloadSeconds,
+                    TimeUnit.SECONDS);
+        }
+        jwtScheduler.scheduleWithFixedDelay(keyManager::retireExpired, RETIRE_INTERVAL_SECONDS,
+                RETIRE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return keyManager;
+    }
+
+    /**
+     * The keys tokens are signed and verified with.
+     *
+     * @param jwtKeyManager the key manager
+     * @return the key set
+     */
+    @Bean
+    public JwtKeySet jwtKeySet(final JwtKeyManager jwtKeyManager) {
+        return jwtKeyManager.getKeySet();
+    }
+
+    /**
+     * Container delivering revocations announced by other nodes.
+     * <p>
+     * The container is started by the revocation refresh task rather than on startup, so a Redis
+     * outage does not hold up startup.
+     *
+     * @param connectionFactory the Redis connection factory
+     * @return the listener container
+     */
+    @Bean
+    public RedisMessageListenerContainer jwtRevocationListenerContainer(
+            final RedisConnectionFactory connectionFactory) {
+        final var container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setAutoStartup(false);
+        return container;
+    }
+
+    /**
+     * Service keeping revoked access tokens.
+     * <p>
+     * The filter of revoked tokens is loaded on the scheduler right away and reloaded every
+     * {@code application.jwtRevocationRefreshSeconds}; until it is loaded, every token is checked in
+     * Redis, and rejected if Redis is unavailable unless {@code application.jwtRevocationFailOpen} is set.
+     *
+     * @param applicationProperties          the application properties
+     * @param redisTemplate                  the template revoked tokens are kept with
+     * @param jwtRevocationListenerContainer the container revocations are announced on
+     * @param gatewayMetrics                 the metrics unchecked tokens are counted in
+     * @param jwtScheduler                   the scheduler revoked tokens are reloaded on
+     * @return the token revocation service
+     */
+    @Bean
+    public RedisTokenRevocationService tokenRevocationService(
+            final ApplicationProperties applicationProperties,
+            final StringRedisTemplate redisTemplate,
+            final RedisMessageListenerContainer jwtRevocationListenerContainer,
+            final GatewayMetrics gatewayMetrics,
+            @Qualifier("jwtScheduler") final ScheduledExecutorService jwtScheduler) {
+        final var revocationService = new RedisTokenRevocationService(redisTemplate,
+                Objects.requireNonNullElse(applicationProperties.getJwtRevocationCapacity(),
+                        DEFAULT_REVOCATION_CAPACITY),
+                Boolean.TRUE.equals(applicationProperties.getJwtRevocationFailOpen()),
+                gatewayMetrics,
+                System::currentTimeMillis);
+        jwtRevocationListenerContainer.addMessageListener(revocationService,
+                new ChannelTopic(RedisTokenRevocationService.CHANNEL));
+        final var refreshSeconds = Math.max(1, Objects.requireNonNullElse(
+                applicationProperties.getJwtRevocationRefreshSeconds(), DEFAULT_REVOCATION_REFRESH_SECONDS));
+        jwtScheduler.scheduleWithFixedDelay(() -> {
+            listen(jwtRevocationListenerContainer);
+            revocationService.refresh();
+        }, 0, refreshSeconds, TimeUnit.SECONDS);
+        return revocationService;
+    }
+
+    /**
+     * Starts the listener container unless it is running, retrying on the next refresh on failure.
+     */
+    private static void listen(final RedisMessageListenerContainer container) {
+        if (container.isRunning()) {
+            return;
+        }
+        try {
+            container.start();
+        } catch (RuntimeException exception) {
+            log.warn("Failed to subscribe to token revocations: {}", exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.siddharthgawas.apigateway.configuration;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * Request matcher selecting requests that arrived on the management server.
+ * <p>
+ * The port is taken from the management server once it has started, rather than from
+ * {@code management.server.port}, so a random management port ({@code 0}) is matched too. Until the
+ * management server has started no request matches.
+ */
+public class ManagementPortRequestMatcher implements RequestMatcher, ApplicationListener<WebServerInitializedEvent> {
+
+    public static final String MANAGEMENT_SERVER_NAMESPACE = "management";
+
+    private volatile int port = -1;
+
+    /**
+     * Records the port of the management server when it starts.
+     *
+     * @param event the event published by a started web server
+     */
+    @Override
+    public void onApplicationEvent(final WebServerInitializedEvent event) {
+        if (MANAGEMENT_SERVER_NAMESPACE.equals(event.getApplicationContext().getServerNamespace())) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    @Override
+    public boolean matches(final HttpServletRequest request) {
+        final var managementPort = port;
+        return managementPort > 0 && request.getLocalPort() == managementPort;
+    }
+}
@@ -0,0 +1,51 @@
+package com.siddharthgawas.apigateway.configuration;
+
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration class for the reverse proxy.
+ * <p>
+ * This class creates the HTTP client used to call upstreams. The client keeps connections to
+ * each upstream alive and reuses them across requests. It speaks HTTP/1.1 unless
+ * {@code application.proxyHttp2} is set, in which case it negotiates HTTP/2 and multiplexes
+ * requests over a single connection per upstream, falling back to HTTP/1.1 for upstreams that
+ * do not support it.
+ */
+@Configuration
+public class ProxyConfiguration {
+
+    private static final long DEFAULT_CONNECT_TIMEOUT_MS = 2_000;
+
+    /**
+     * HTTP client bean used to forward requests to upstreams.
+     * <p>
+     * When virtual threads are enabled, the client's internal tasks run on virtual threads too.
+     *
+     * @param applicationProperties the application properties
+     * @param environment           the environment used to detect virtual thread mode
+     * @return the HTTP client
+     */
+    @Bean(destroyMethod = "close")
+    public HttpClient proxyHttpClient(final ApplicationProperties applicationProperties,
+                                      final Environment environment) {
+        final var builder = HttpClient.newBuilder()
+                .version(Boolean.TRUE.equals(applicationProperties.getProxyHttp2())
+                        ? HttpClient.Version.HTTP_2
+                        : HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofMillis(Objects.requireNonNullElse(
+                        applicationProperties.getProxyConnectTimeoutMs(), DEFAULT_CONNECT_TIMEOUT_MS)));
+        if (Threading.VIRTUAL.isActive(environment)) {
+            builder.executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("proxy-client-", 0).factory()));
+        }
+        return builder.build();
+    }
+}
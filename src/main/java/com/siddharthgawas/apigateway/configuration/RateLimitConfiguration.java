@@ -0,0 +1,336 @@
+package com.siddharthgawas.apigateway.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitAlgorithm;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitPolicyTable;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitPropsCache;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimiterFilter;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import com.siddharthgawas.apigateway.ratelimiter.impl.BatchingRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.CircuitBreakerRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.GcraRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.LeasedTokenBucketRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.LocalTokenBucketRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.ShardedRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.SlidingWindowRateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.impl.TokenBucketRateLimitStrategy;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration class for rate limiting.
+ * <p>
+ * This class creates the rate limit strategy shared by the rate limiter filters.
+ * {@code application.rateLimitAlgorithm} selects a token bucket (the default), GCRA or a sliding
+ * window counter, each kept in Redis. Leasing and batching build on the token bucket and apply to
+ * it only. When {@code application.rateLimitLeaseSize} is set, requests are decided in-process from tokens
+ * leased out of the Redis token bucket. Otherwise every request is checked against Redis, either
+ * on its own or, when {@code application.rateLimitBatchSize} is set, coalesced with concurrent
+ * checks into multi-key calls.
+ * <p>
+ * Limits per route and principal tier are read from {@code application.rateLimitPolicyFile} and
+ * reloaded every {@code application.rateLimitPolicyReloadSeconds} when the file changes.
+ * <p>
+ * Buckets scale out in one of two ways. Pointing {@code spring.data.redis.cluster.nodes} at a Redis
+ * Cluster spreads them over its hash slots; every bucket is a single hash-tagged key and batches
+ * are split by slot. Listing standalone nodes in {@code application.rateLimitRedisShards} instead
+ * spreads them by a consistent hash ring in the gateway.
+ * <p>
+ * Each Redis deployment sits behind a circuit breaker. Checks that fail or take longer than
+ * {@code application.rateLimitCallTimeoutMs} count as failures, and after
+ * {@code application.rateLimitFailureThreshold} of them in a row checks are decided in-process for
+ * {@code application.rateLimitCircuitOpenMs}, each node enforcing {@code 1 / application.rateLimitNodeCount}
+ * of every quota. Keep {@code spring.data.redis.timeout} tight as well, since a blocking check cannot be
+ * abandoned before the client times out.
+ * <p>
+ * When virtual threads are enabled ({@code spring.threads.virtual.enabled}), lease refills run on
+ * a virtual thread each, so a slow Redis never queues refills behind a single platform thread.
+ */
+@Configuration
+public class RateLimitConfiguration {
+
+    private static final long IDLE_LEASE_SWEEP_INTERVAL_SECONDS = 10;
+
+    private static final long DEFAULT_POLICY_RELOAD_SECONDS = 10;
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    private static final long DEFAULT_CIRCUIT_OPEN_MS = 5000;
+
+    private static final long DEFAULT_CALL_TIMEOUT_MS = 100;
+
+    /**
+     * Scheduler used for periodic rate limit housekeeping such as evicting idle leases.
+     *
+     * @return the scheduled executor service
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService rateLimitScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "rate-limit-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executor on which lease refills call Redis.
+     * <p>
+     * Uses a virtual thread per refill when virtual threads are enabled, and a single platform thread
+     * otherwise.
+     *
+     * @param environment the environment used to detect virtual thread mode
+     * @return the executor service
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService rateLimitRefillExecutor(final Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rate-limit-refill-", 0).factory());
+        }
+        return Executors.newSingleThreadExecutor(runnable -> {
+            final var thread = new Thread(runnable, "rate-limit-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Table of the rate limit rule of every route and principal tier.
+     * <p>
+     * The policy file is loaded on startup and polled for changes afterwards. Without a policy file
+     * every route and tier uses {@code application.maxReqPerMinute}.
+     *
+     * @param routeTable            the route table the rules are compiled for
+     * @param applicationProperties the application properties
+     * @param objectMapper          the mapper the policy file is read with
+     * @param rateLimitScheduler    the scheduler the policy file is polled on
+     * @return the rate limit policy table
+     */
+    @Bean
+    public RateLimitPolicyTable rateLimitPolicyTable(final RouteTable routeTable,
+                                                     final ApplicationProperties applicationProperties,
+                                                     final ObjectMapper objectMapper,
+                                                     @Qualifier("rateLimitScheduler")
+                                                     final ScheduledExecutorService rateLimitScheduler) {
+        final var policyFile = applicationProperties.getRateLimitPolicyFile();
+        final var policyTable = new RateLimitPolicyTable(routeTable.descriptors(),
+                RateLimitRule.of(applicationProperties.getMaxReqPerMinute()),
+                StringUtils.hasText(policyFile) ? Path.of(policyFile) : null,
+                objectMapper);
+        if (StringUtils.hasText(policyFile)) {
+            policyTable.reload();
+            final var reloadSeconds = Objects.requireNonNullElse(
+                    applicationProperties.getRateLimitPolicyReloadSeconds(), DEFAULT_POLICY_RELOAD_SECONDS);
+            if (reloadSeconds > 0) {
+                rateLimitScheduler.scheduleWithFixedDelay(policyTable::reload, reloadSeconds, reloadSeconds,
+                        TimeUnit.SECONDS);
+            }
+        }
+        return policyTable;
+    }
+
+    /**
+     * Rate limit handles of authenticated users, interned on authentication and read by the rate
+     * limiter of authenticated requests.
+     *
+     * @param applicationProperties the application properties
+     * @return the cache of user rate limit handles
+     */
+    @Bean
+    public RateLimitPropsCache userRateLimitPropsCache(final ApplicationProperties applicationProperties) {
+        return new RateLimitPropsCache(Objects.requireNonNullElse(applicationProperties.getRateLimitKeyCacheSize(),
+                RateLimiterFilter.DEFAULT_CACHED_KEYS));
+    }
+
+    /**
+     * Connections to the standalone Redis nodes rate limit buckets are sharded across, empty unless
+     * {@code application.rateLimitRedisShards} is set.
+     *
+     * @param applicationProperties the application properties
+     * @param redisProperties      the Redis properties, whose command timeout the shards use too
+     * @return the Redis shards
+     */
+    @Bean(destroyMethod = "close")
+    public RateLimitRedisShards rateLimitRedisShards(final ApplicationProperties applicationProperties,
+                                                     final RedisProperties redisProperties) {
+        return RateLimitRedisShards.connect(applicationProperties.getRateLimitRedisShards(),
+                redisProperties.getTimeout());
+    }
+
+    /**
+     * Rate limit strategy bean.
+     * <p>
+     * With Redis shards configured, one strategy is built per shard and buckets are spread across
+     * them by consistent hashing. Otherwise the strategy uses the application's Redis connection,
+     * which may be a Redis Cluster.
+     *
+     * @param redisTemplate        the RedisTemplate for rate limiting
+     * @param reactiveRedisTemplate the reactive RedisTemplate for non-blocking rate limit checks
+     * @param connectionFactory    the application's Redis connection factory, used to detect cluster mode
+     * @param rateLimitRedisShards the standalone Redis nodes buckets are sharded across
+     * @param applicationProperties the application properties
+     * @param rateLimitScheduler   the scheduler for background rate limit work
+     * @param rateLimitRefillExecutor the executor on which lease refills call Redis
+     * @param gatewayMetrics       the metrics Redis calls are recorded in
+     * @return the rate limit strategy
+     */
+    @Bean
+    public RateLimitStrategy rateLimitStrategy(final RedisTemplate<String, Object> redisTemplate,
+                                               final ReactiveStringRedisTemplate reactiveRedisTemplate,
+                                               final RedisConnectionFactory connectionFactory,
+                                               final RateLimitRedisShards rateLimitRedisShards,
+                                               final ApplicationProperties applicationProperties,
+                                               @Qualifier("rateLimitScheduler")
+                                               final ScheduledExecutorService rateLimitScheduler,
+                                               @Qualifier("rateLimitRefillExecutor")
+                                               final ExecutorService rateLimitRefillExecutor,
+                                               final GatewayMetrics gatewayMetrics) {
+        if (rateLimitRedisShards.isEmpty()) {
+            final var cluster = connectionFactory instanceof LettuceConnectionFactory lettuceConnectionFactory
+                    && lettuceConnectionFactory.isClusterAware();
+            return createStrategy(redisTemplate, reactiveRedisTemplate, cluster, applicationProperties,
+                    rateLimitScheduler, rateLimitRefillExecutor, gatewayMetrics);
+        }
+        final List<RateLimitStrategy> shards = new ArrayList<>(rateLimitRedisShards.names().size());
+        for (int i = 0; i < rateLimitRedisShards.names().size(); i++) {
+            shards.add(createStrategy(rateLimitRedisShards.redisTemplates().get(i),
+                    rateLimitRedisShards.reactiveRedisTemplates().get(i), false, applicationProperties,
+                    rateLimitScheduler, rateLimitRefillExecutor, gatewayMetrics));
+        }
+        return new ShardedRateLimitStrategy(rateLimitRedisShards.names(), shards);
+    }
+
+    /**
+     * Creates the rate limit strategy of one Redis deployment, behind a circuit breaker unless
+     * {@code application.rateLimitFailureThreshold} is 0.
+     *
+     * @param redisTemplate        the RedisTemplate of the deployment
+     * @param reactiveRedisTemplate the reactive RedisTemplate of the deployment
+     * @param cluster              whether the deployment is a Redis Cluster
+     * @param applicationProperties the application properties
+     * @param rateLimitScheduler   the scheduler for background rate limit work
+     * @param rateLimitRefillExecutor the executor on which lease refills call Redis
+     * @param gatewayMetrics       the metrics Redis calls are recorded in
+     * @return the rate limit strategy
+     */
+    private RateLimitStrategy createStrategy(final RedisTemplate<String, Object> redisTemplate,
+                                             final ReactiveStringRedisTemplate reactiveRedisTemplate,
+                                             final boolean cluster,
+                                             final ApplicationProperties applicationProperties,
+                                             final ScheduledExecutorService rateLimitScheduler,
+                                             final ExecutorService rateLimitRefillExecutor,
+                                             final GatewayMetrics gatewayMetrics) {
+        final var redisStrategy = createRedisStrategy(redisTemplate, reactiveRedisTemplate, cluster,
+                applicationProperties, rateLimitScheduler, rateLimitRefillExecutor, gatewayMetrics);
+        final var failureThreshold = Objects.requireNonNullElse(applicationProperties.getRateLimitFailureThreshold(),
+                DEFAULT_FAILURE_THRESHOLD);
+        if (failureThreshold <= 0) {
+            return redisStrategy;
+        }
+        final var localStrategy = new LocalTokenBucketRateLimitStrategy(applicationProperties.getMaxReqPerMinute(),
+                Objects.requireNonNullElse(applicationProperties.getRateLimitNodeCount(), 1));
+        rateLimitScheduler.scheduleWithFixedDelay(localStrategy::evictIdleBuckets,
+                IDLE_LEASE_SWEEP_INTERVAL_SECONDS, IDLE_LEASE_SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        final var circuitBreakerStrategy = new CircuitBreakerRateLimitStrategy(redisStrategy, localStrategy,
+                failureThreshold,
+                Objects.requireNonNullElse(applicationProperties.getRateLimitCircuitOpenMs(), DEFAULT_CIRCUIT_OPEN_MS),
+                Objects.requireNonNullElse(applicationProperties.getRateLimitCallTimeoutMs(), DEFAULT_CALL_TIMEOUT_MS));
+        circuitBreakerStrategy.setMetrics(gatewayMetrics);
+        return circuitBreakerStrategy;
+    }
+
+    /**
+     * Creates the Redis backed rate limit strategy of one Redis deployment.
+     *
+     * @param redisTemplate        the RedisTemplate of the deployment
+     * @param reactiveRedisTemplate the reactive RedisTemplate of the deployment
+     * @param cluster              whether the deployment is a Redis Cluster
+     * @param applicationProperties the application properties
+     * @param rateLimitScheduler   the scheduler for background rate limit work
+     * @param rateLimitRefillExecutor the executor on which lease refills call Redis
+     * @param gatewayMetrics       the metrics Redis calls are recorded in
+     * @return the rate limit strategy
+     */
+    private RateLimitStrategy createRedisStrategy(final RedisTemplate<String, Object> redisTemplate,
+                                                  final ReactiveStringRedisTemplate reactiveRedisTemplate,
+                                                  final boolean cluster,
+                                                  final ApplicationProperties applicationProperties,
+                                                  final ScheduledExecutorService rateLimitScheduler,
+                                                  final ExecutorService rateLimitRefillExecutor,
+                                                  final GatewayMetrics gatewayMetrics) {
+        final var algorithm = Objects.requireNonNullElse(applicationProperties.getRateLimitAlgorithm(),
+                RateLimitAlgorithm.TOKEN_BUCKET);
+        if (algorithm == RateLimitAlgorithm.GCRA) {
+            final var gcraStrategy = new GcraRateLimitStrategy(redisTemplate, reactiveRedisTemplate,
+                    applicationProperties.getMaxReqPerMinute());
+            gcraStrategy.setMetrics(gatewayMetrics);
+            return gcraStrategy;
+        }
+        if (algorithm == RateLimitAlgorithm.SLIDING_WINDOW) {
+            final var slidingWindowStrategy = new SlidingWindowRateLimitStrategy(redisTemplate, reactiveRedisTemplate,
+                    applicationProperties.getMaxReqPerMinute());
+            slidingWindowStrategy.setMetrics(gatewayMetrics);
+            return slidingWindowStrategy;
+        }
+        final var tokenBucketStrategy = new TokenBucketRateLimitStrategy(redisTemplate, reactiveRedisTemplate,
+                applicationProperties.getMaxReqPerMinute());
+        tokenBucketStrategy.setMetrics(gatewayMetrics);
+        final var leaseSize = applicationProperties.getRateLimitLeaseSize();
+        if (Objects.isNull(leaseSize) || leaseSize <= 0) {
+            return getBatchingStrategyIfEnabled(tokenBucketStrategy, cluster, applicationProperties);
+        }
+        final var leasedStrategy = new LeasedTokenBucketRateLimitStrategy(tokenBucketStrategy, leaseSize,
+                Objects.requireNonNullElse(applicationProperties.getRateLimitLeaseOverdraft(), 0L),
+                rateLimitRefillExecutor);
+        rateLimitScheduler.scheduleWithFixedDelay(leasedStrategy::evictIdleLeases,
+                IDLE_LEASE_SWEEP_INTERVAL_SECONDS, IDLE_LEASE_SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return leasedStrategy;
+    }
+
+    /**
+     * Wraps the token bucket strategy in a batching strategy when batching is enabled.
+     *
+     * @param tokenBucketStrategy  the Redis token bucket strategy
+     * @param cluster              whether batches must be split by cluster hash slot
+     * @param applicationProperties the application properties
+     * @return the batching strategy, or the token bucket strategy if batching is disabled
+     */
+    private RateLimitStrategy getBatchingStrategyIfEnabled(final TokenBucketRateLimitStrategy tokenBucketStrategy,
+                                                           final boolean cluster,
+                                                           final ApplicationProperties applicationProperties) {
+        final var batchSize = applicationProperties.getRateLimitBatchSize();
+        if (Objects.isNull(batchSize) || batchSize <= 0) {
+            return tokenBucketStrategy;
+        }
+        final var batchingStrategy = new BatchingRateLimitStrategy(tokenBucketStrategy, Math.toIntExact(batchSize),
+                Objects.requireNonNullElse(applicationProperties.getRateLimitBatchWindowMicros(), 200L),
+                runnable -> {
+                    final var thread = new Thread(runnable, "rate-limit-batch-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        batchingStrategy.setGroupBySlot(cluster);
+        return batchingStrategy;
+    }
+}
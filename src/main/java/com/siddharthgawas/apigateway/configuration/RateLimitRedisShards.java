@@ -0,0 +1,147 @@
+package com.siddharthgawas.apigateway.configuration;
+
+import io.lettuce.core.RedisURI;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Connections to the standalone Redis nodes rate limit buckets are sharded across.
+ * <p>
+ * Each node is given as a Redis URI, e.g. {@code redis://:password@host:6379/0}, and gets its own
+ * Lettuce connection and templates configured like the application's. {@code rediss://} URIs connect
+ * over TLS, honouring {@code verifyPeer} and StartTLS, and the client name and timeout of a URI are
+ * applied to its connection. Sentinel and Unix socket URIs are rejected, since a shard is a single
+ * node reached over TCP. The URI is also the shard's name on the hash ring, so a node keeps its
+ * buckets as long as its URI does not change.
+ */
+@Slf4j
+public final class RateLimitRedisShards implements AutoCloseable {
+
+    private final List<String> names;
+
+    private final List<LettuceConnectionFactory> connectionFactories;
+
+    private final List<RedisTemplate<String, Object>> redisTemplates;
+
+    private final List<ReactiveStringRedisTemplate> reactiveRedisTemplates;
+
+    private RateLimitRedisShards(final List<String> uris, final Duration commandTimeout) {
+        this.names = List.copyOf(uris);
+        this.connectionFactories = new ArrayList<>(uris.size());
+        this.redisTemplates = new ArrayList<>(uris.size());
+        this.reactiveRedisTemplates = new ArrayList<>(uris.size());
+        final var redisUris = uris.stream().map(RedisURI::create).toList();
+        final var standaloneConfigurations = redisUris.stream()
+                .map(RateLimitRedisShards::standaloneConfiguration)
+                .toList();
+        for (int i = 0; i < redisUris.size(); i++) {
+            final var connectionFactory = new LettuceConnectionFactory(standaloneConfigurations.get(i),
+                    clientConfiguration(redisUris.get(i), commandTimeout));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            connectionFactories.add(connectionFactory);
+            final var redisTemplate = RedisConfiguration.redisTemplate(connectionFactory);
+            redisTemplate.afterPropertiesSet();
+            redisTemplates.add(redisTemplate);
+            reactiveRedisTemplates.add(new ReactiveStringRedisTemplate(connectionFactory));
+        }
+    }
+
+    /**
+     * Connects to the given Redis nodes.
+     *
+     * @param uris           the Redis URI of each node, or null for none
+     * @param commandTimeout the command timeout of every node, or null for the client default
+     * @return the shards, empty if no URI is given
+     */
+    public static RateLimitRedisShards connect(final List<String> uris, final Duration commandTimeout) {
+        return new RateLimitRedisShards(Objects.requireNonNullElse(uris, List.of()), commandTimeout);
+    }
+
+    public boolean isEmpty() {
+        return names.isEmpty();
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    public List<RedisTemplate<String, Object>> redisTemplates() {
+        return redisTemplates;
+    }
+
+    public List<ReactiveStringRedisTemplate> reactiveRedisTemplates() {
+        return reactiveRedisTemplates;
+    }
+
+    /**
+     * Closes the connections to every node.
+     */
+    @Override
+    public void close() {
+        for (final var connectionFactory : connectionFactories) {
+            try {
+                connectionFactory.destroy();
+            } catch (RuntimeException exception) {
+                log.warn("Failed to close rate limit shard connection: {}", exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Converts a Redis URI into the configuration of a standalone connection.
+     *
+     * @throws IllegalArgumentException if the URI names Sentinels or a Unix socket instead of a node
+     */
+    static RedisStandaloneConfiguration standaloneConfiguration(final RedisURI redisUri) {
+        if (!redisUri.getSentinels().isEmpty() || Objects.nonNull(redisUri.getSocket())) {
+            throw new IllegalArgumentException("Rate limit shard must be a standalone Redis node reached over TCP: "
+                    + redisUri);
+        }
+        final var configuration = new RedisStandaloneConfiguration(redisUri.getHost(), redisUri.getPort());
+        configuration.setDatabase(redisUri.getDatabase());
+        if (Objects.nonNull(redisUri.getUsername())) {
+            configuration.setUsername(redisUri.getUsername());
+        }
+        if (Objects.nonNull(redisUri.getPassword())) {
+            configuration.setPassword(redisUri.getPassword());
+        }
+        return configuration;
+    }
+
+    /**
+     * Converts the TLS, client name and timeout options of a Redis URI into a client configuration.
+     * <p>
+     * A timeout given in the URI takes precedence over the command timeout of every node.
+     */
+    static LettuceClientConfiguration clientConfiguration(final RedisURI redisUri, final Duration commandTimeout) {
+        final var clientConfiguration = LettuceClientConfiguration.builder();
+        if (redisUri.isSsl()) {
+            final var ssl = clientConfiguration.useSsl();
+            if (!redisUri.isVerifyPeer()) {
+                ssl.disablePeerVerification();
+            }
+            if (redisUri.isStartTls()) {
+                ssl.startTls();
+            }
+        }
+        if (Objects.nonNull(redisUri.getClientName())) {
+            clientConfiguration.clientName(redisUri.getClientName());
+        }
+        if (!RedisURI.DEFAULT_TIMEOUT_DURATION.equals(redisUri.getTimeout())) {
+            clientConfiguration.commandTimeout(redisUri.getTimeout());
+        } else if (Objects.nonNull(commandTimeout)) {
+            clientConfiguration.commandTimeout(commandTimeout);
+        }
+        return clientConfiguration.build();
+    }
+}
@@ -10,19 +10,34 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 /**
  * Configuration class for Redis.
  * <p>
- * This class sets up a RedisTemplate for serializing keys as strings and values as JSON.
+ * This class sets up a RedisTemplate for serializing keys as strings and values as JSON. Templates
+ * for connections created outside the application context are built by {@link #redisTemplate}.
  */
 @Configuration
 public class RedisConfiguration {
 
     @Bean
     public RedisTemplate<String, Object> numberRedisTemplate(final RedisConnectionFactory connectionFactory) {
+        return redisTemplate(connectionFactory);
+    }
+
+    /**
+     * Creates a RedisTemplate serializing keys as strings and values as JSON.
+     * <p>
+     * Templates created outside the application context must be initialized with
+     * {@link RedisTemplate#afterPropertiesSet()} before use.
+     *
+     * @param connectionFactory the connection factory of the template
+     * @return the template
+     */
+    public static RedisTemplate<String, Object> redisTemplate(final RedisConnectionFactory connectionFactory) {
         var redisTemplate = new RedisTemplate<String, Object>();
         configureRedisTemplate(connectionFactory, redisTemplate);
         return redisTemplate;
     }
 
-    private void configureRedisTemplate(RedisConnectionFactory connectionFactory, RedisTemplate<?, ?> redisTemplate) {
+    private static void configureRedisTemplate(RedisConnectionFactory connectionFactory,
+                                               RedisTemplate<?, ?> redisTemplate) {
         redisTemplate.setConnectionFactory(connectionFactory);
         redisTemplate.setKeySerializer(new StringRedisSerializer());
         redisTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
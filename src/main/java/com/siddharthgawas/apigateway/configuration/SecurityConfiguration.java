@@ -1,17 +1,24 @@
 package com.siddharthgawas.apigateway.configuration;
 
-import com.siddharthgawas.apigateway.controller.AuthenticationController;
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitPolicyTable;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitPropsCache;
 import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
 import com.siddharthgawas.apigateway.ratelimiter.RateLimiterFilter;
-import com.siddharthgawas.apigateway.ratelimiter.impl.TokenBucketRateLimitStrategy;
+import com.siddharthgawas.apigateway.routing.RouteClassificationFilter;
+import com.siddharthgawas.apigateway.routing.RouteRequestMatcher;
+import com.siddharthgawas.apigateway.routing.RouteTable;
 import com.siddharthgawas.apigateway.security.JWTAuthenticationConverter;
 import com.siddharthgawas.apigateway.security.JWTAuthenticationProvider;
 import com.siddharthgawas.apigateway.security.JwtAuthenticationFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.ConditionalOnManagementPort;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
@@ -26,15 +33,9 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
-import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
-import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
-import org.springframework.security.web.util.matcher.OrRequestMatcher;
-import org.springframework.security.web.util.matcher.RequestMatcher;
 
-import java.security.Principal;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.function.Function;
-import java.util.function.Supplier;
 
 /**
  * Security configuration for the API Gateway.
@@ -49,21 +50,6 @@ public class SecurityConfiguration {
     @Autowired
     private ApplicationProperties applicationProperties;
 
-    /**
-     * Request matcher for unauthenticated requests.
-     * <p>
-     * This matcher allows access to the token endpoint, token refresh endpoint, and error endpoint
-     * without authentication.
-     */
-    private final RequestMatcher unauthenticatedRequestMatcher = new OrRequestMatcher(
-            PathPatternRequestMatcher.withDefaults()
-                    .matcher(AuthenticationController.TOKEN_ENDPOINT),
-            PathPatternRequestMatcher.withDefaults()
-                    .matcher(AuthenticationController.TOKEN_REFRESH_ENDPOINT),
-            PathPatternRequestMatcher.withDefaults()
-                    .matcher("/error")
-    );
-
     /**
      * Password encoder bean for encoding passwords.
      * <p>
@@ -94,21 +80,31 @@ public class SecurityConfiguration {
      * Security filter chain bean for configuring security settings.
      * <p>
      * This method configures HTTP security, including CSRF protection, session management,
-     * exception handling, and filters for JWT authentication and rate limiting.
+     * exception handling, and filters for JWT authentication and rate limiting. Each request is
+     * classified once against the route table; authorization and all filters decide whether a
+     * request needs authentication from that classification.
      *
      * @param http the HttpSecurity object
-     * @param redisTemplate the RedisTemplate for rate limiting
+     * @param rateLimitStrategy the strategy for rate limiting
      * @param authenticationManager the authentication manager
+     * @param gatewayMetrics the metrics the filters record their decisions in
+     * @param routeTable the route table requests are classified against
+     * @param rateLimitPolicyTable the table rate limit rules are resolved from
+     * @param userRateLimitPropsCache the rate limit handles of authenticated users
      * @return the configured SecurityFilterChain
      * @throws Exception if an error occurs during configuration
      */
     @Bean
     public SecurityFilterChain filterChain(final HttpSecurity http,
-                                           final RedisTemplate<String, Object> redisTemplate,
-                                           final AuthenticationManager authenticationManager) throws Exception {
+                                           final RateLimitStrategy rateLimitStrategy,
+                                           final AuthenticationManager authenticationManager,
+                                           final GatewayMetrics gatewayMetrics,
+                                           final RouteTable routeTable,
+                                           final RateLimitPolicyTable rateLimitPolicyTable,
+                                           final RateLimitPropsCache userRateLimitPropsCache) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authorize -> authorize
-                        .requestMatchers(unauthenticatedRequestMatcher).permitAll()
+                        .requestMatchers(RouteRequestMatcher.anonymous(routeTable)).permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -117,87 +113,146 @@ public class SecurityConfiguration {
                 .exceptionHandling(customizer -> {
                     customizer.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED));
                 })
-                .addFilterBefore(jwtAuthenticationFilter(authenticationManager),
+                .addFilterBefore(jwtAuthenticationFilter(authenticationManager, gatewayMetrics, routeTable),
                         UsernamePasswordAuthenticationFilter.class)
-                .addFilterAfter(getRequestRateLimiterForAuthenticatedRequests(redisTemplate),
-                        JwtAuthenticationFilter.class)
-                .addFilterAfter(getRequestRateLimiterForUnauthenticatedRequests(redisTemplate),
-                        JwtAuthenticationFilter.class)
+                .addFilterBefore(new RouteClassificationFilter(routeTable), JwtAuthenticationFilter.class)
+                .addFilterAfter(getRequestRateLimiterForAuthenticatedRequests(rateLimitStrategy, gatewayMetrics,
+                        routeTable, rateLimitPolicyTable, userRateLimitPropsCache), JwtAuthenticationFilter.class)
+                .addFilterAfter(getRequestRateLimiterForUnauthenticatedRequests(rateLimitStrategy, gatewayMetrics,
+                        routeTable, rateLimitPolicyTable), JwtAuthenticationFilter.class)
                 .authenticationManager(authenticationManager);
         return http.build();
     }
 
+    /**
+     * Matcher of requests arriving on the management port, once the management server has started.
+     *
+     * @return the management port request matcher
+     */
+    @Bean
+    @ConditionalOnManagementPort(ManagementPortType.DIFFERENT)
+    public ManagementPortRequestMatcher managementPortRequestMatcher() {
+        return new ManagementPortRequestMatcher();
+    }
+
+    /**
+     * Security filter chain of the management port.
+     * <p>
+     * Actuator endpoints are served on {@code management.server.port}, which is kept off the public
+     * network, so requests arriving on it skip authentication and rate limiting. Requests are matched
+     * by the port the management server actually listens on, so a random management port works too.
+     * On the public port the actuator paths fall through to the catch-all route and require a token.
+     *
+     * @param http the HttpSecurity object
+     * @param managementPortRequestMatcher the matcher of requests arriving on the management port
+     * @return the configured SecurityFilterChain
+     * @throws Exception if an error occurs during configuration
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @ConditionalOnManagementPort(ManagementPortType.DIFFERENT)
+    public SecurityFilterChain managementFilterChain(final HttpSecurity http,
+                                                     final ManagementPortRequestMatcher managementPortRequestMatcher)
+            throws Exception {
+        http.securityMatcher(managementPortRequestMatcher)
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(authorize -> authorize.anyRequest().permitAll())
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                );
+        return http.build();
+    }
+
     /**
      * JWT authentication filter bean.
      * <p>
      * This filter intercepts requests to authenticate users based on JWT tokens.
      *
      * @param authenticationManager the authentication manager
+     * @param gatewayMetrics the metrics authentication decisions are recorded in
+     * @param routeTable the route table requests are classified against
      * @return the JWT authentication filter
      */
-    private JwtAuthenticationFilter jwtAuthenticationFilter(final AuthenticationManager authenticationManager) {
+    private JwtAuthenticationFilter jwtAuthenticationFilter(final AuthenticationManager authenticationManager,
+                                                            final GatewayMetrics gatewayMetrics,
+                                                            final RouteTable routeTable) {
         final var filter = new JwtAuthenticationFilter(
-                new NegatedRequestMatcher(unauthenticatedRequestMatcher),
+                RouteRequestMatcher.authenticated(routeTable),
                 authenticationManager
         );
         filter.setAuthenticationConverter(new JWTAuthenticationConverter());
+        filter.setMetrics(gatewayMetrics);
         return filter;
     }
 
     /**
      * Rate limiter filter for authenticated requests.
      * <p>
-     * This filter applies rate limiting to authenticated requests using a token bucket strategy.
+     * This filter applies rate limiting to authenticated requests, keyed by the user's rate limit
+     * handle published by the authentication filter.
      *
-     * @param redisTemplate the RedisTemplate for rate limiting
+     * @param rateLimitStrategy the strategy for rate limiting
+     * @param gatewayMetrics the metrics rate limit decisions are recorded in
+     * @param routeTable the route table requests are classified against
+     * @param rateLimitPolicyTable the table rate limit rules are resolved from
+     * @param userRateLimitPropsCache the rate limit handles of authenticated users
      * @return the rate limiter filter for authenticated requests
      */
-    private RateLimiterFilter getRequestRateLimiterForAuthenticatedRequests(final RedisTemplate<String, Object> redisTemplate) {
-        return new RateLimiterFilter(getTokenRateLimitStrategy(redisTemplate),
-                new NegatedRequestMatcher(unauthenticatedRequestMatcher),
+    private RateLimiterFilter getRequestRateLimiterForAuthenticatedRequests(final RateLimitStrategy rateLimitStrategy,
+                                                                            final GatewayMetrics gatewayMetrics,
+                                                                            final RouteTable routeTable,
+                                                                            final RateLimitPolicyTable rateLimitPolicyTable,
+                                                                            final RateLimitPropsCache userRateLimitPropsCache) {
+        final var filter = new RateLimiterFilter(rateLimitStrategy,
+                RouteRequestMatcher.authenticated(routeTable),
                 getUserIDKeyExtractor());
+        filter.setAsyncEnabled(Boolean.TRUE.equals(applicationProperties.getRateLimitAsync()));
+        filter.setMetrics(gatewayMetrics);
+        filter.setPolicyTable(rateLimitPolicyTable);
+        filter.setPropsCache(userRateLimitPropsCache);
+        return filter;
     }
 
     /**
      * Rate limiter filter for unauthenticated requests.
      * <p>
-     * This filter applies rate limiting to unauthenticated requests using a token bucket strategy.
+     * This filter applies rate limiting to unauthenticated requests, keyed by remote address.
      *
-     * @param redisTemplate the RedisTemplate for rate limiting
+     * @param rateLimitStrategy the strategy for rate limiting
+     * @param gatewayMetrics the metrics rate limit decisions are recorded in
+     * @param routeTable the route table requests are classified against
+     * @param rateLimitPolicyTable the table rate limit rules are resolved from
      * @return the rate limiter filter for unauthenticated requests
      */
-    private RateLimiterFilter getRequestRateLimiterForUnauthenticatedRequests(final RedisTemplate<String, Object> redisTemplate) {
-        return new RateLimiterFilter(getTokenRateLimitStrategy(redisTemplate), unauthenticatedRequestMatcher);
+    private RateLimiterFilter getRequestRateLimiterForUnauthenticatedRequests(final RateLimitStrategy rateLimitStrategy,
+                                                                              final GatewayMetrics gatewayMetrics,
+                                                                              final RouteTable routeTable,
+                                                                              final RateLimitPolicyTable rateLimitPolicyTable) {
+        final var filter = new RateLimiterFilter(rateLimitStrategy, RouteRequestMatcher.anonymous(routeTable));
+        filter.setAsyncEnabled(Boolean.TRUE.equals(applicationProperties.getRateLimitAsync()));
+        filter.setMetrics(gatewayMetrics);
+        filter.setPolicyTable(rateLimitPolicyTable);
+        filter.setPropsCache(new RateLimitPropsCache(Objects.requireNonNullElse(
+                applicationProperties.getRateLimitKeyCacheSize(), RateLimiterFilter.DEFAULT_CACHED_KEYS)));
+        return filter;
     }
 
     /**
      * Extracts the user ID from the security context for rate limiting.
      * <p>
-     * This method uses a custom key extractor to retrieve the user ID from the security context.
+     * Only used when the authentication filter did not publish a rate limit handle. The security
+     * context is read directly from its request attribute rather than through a deferred context.
      *
      * @return a function that extracts the user ID from the HttpServletRequest
      */
     private Function<HttpServletRequest, String> getUserIDKeyExtractor() {
-        final var securityContextRepository = new RequestAttributeSecurityContextRepository();
-        // Use a custom key extractor to get the user-id from the security context
-        return request -> Optional
-                .of(securityContextRepository.loadDeferredContext(request))
-                .map(Supplier::get)
-                .map(SecurityContext::getAuthentication)
-                .map(Principal::getName)
-                .orElse(null);
-    }
-
-    /**
-     * Token bucket rate limit strategy for Redis.
-     * <p>
-     * This method creates a token bucket rate limit strategy using Redis to manage request limits.
-     *
-     * @param redisTemplate the RedisTemplate for rate limiting
-     * @return the token bucket rate limit strategy
-     */
-    private RateLimitStrategy getTokenRateLimitStrategy(final RedisTemplate<String, Object> redisTemplate) {
-        return new TokenBucketRateLimitStrategy(redisTemplate, applicationProperties.getMaxReqPerMinute());
+        return request -> {
+            if (request.getAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME)
+                    instanceof SecurityContext context && Objects.nonNull(context.getAuthentication())) {
+                return context.getAuthentication().getName();
+            }
+            return null;
+        };
     }
 
 }
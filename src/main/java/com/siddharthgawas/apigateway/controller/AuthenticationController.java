@@ -16,7 +16,7 @@ import java.util.Optional;
 /**
  * Controller for handling authentication-related requests.
  * <p>
- * This controller provides endpoints for generating and refreshing authentication tokens.
+ * This controller provides endpoints for generating, refreshing and revoking authentication tokens.
  */
 @RestController
 public class AuthenticationController {
@@ -25,8 +25,12 @@ public class AuthenticationController {
 
     public static final String TOKEN_REFRESH_ENDPOINT = "/token-refresh";
 
+    public static final String TOKEN_REVOKE_ENDPOINT = "/token-revoke";
+
     private static final String REFRESH_TOKEN_COOKIE_NAME = "refreshToken";
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private final AuthenticationService authenticationService;
 
 
@@ -76,6 +80,38 @@ public class AuthenticationController {
                 .body(tokenResponse);
     }
 
+    /**
+     * Endpoint to revoke the access token of the request.
+     * <p>
+     * The access token is rejected from now on by every gateway node. When a refresh token is given,
+     * in the cookie or the request body, its family is revoked as well and the cookie is cleared.
+     *
+     * @param authorization the Authorization header carrying the access token
+     * @param request       the request containing the refresh token, if any
+     * @param refreshToken  the refresh token from the cookie, if any
+     * @return an empty ResponseEntity clearing the refresh token cookie
+     */
+    @PostMapping(TOKEN_REVOKE_ENDPOINT)
+    public ResponseEntity<Void> revokeToken(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                            @RequestBody(required = false) TokenRefreshRequest request,
+                                            @CookieValue(name = REFRESH_TOKEN_COOKIE_NAME, required = false)
+                                            String refreshToken) {
+        final var accessToken = authorization.startsWith(BEARER_PREFIX)
+                ? authorization.substring(BEARER_PREFIX.length()) : authorization;
+        this.authenticationService.revoke(accessToken, Optional.ofNullable(refreshToken)
+                .filter(StringUtils::hasLength)
+                .orElse(Optional.ofNullable(request).map(TokenRefreshRequest::refreshToken).orElse(null)));
+        final var clearedCookie = ResponseCookie.from(REFRESH_TOKEN_COOKIE_NAME, "")
+                .httpOnly(true)
+                .secure(true)
+                .path(TOKEN_REFRESH_ENDPOINT)
+                .maxAge(0)
+                .build();
+        return ResponseEntity.noContent()
+                .header(HttpHeaders.SET_COOKIE, clearedCookie.toString())
+                .build();
+    }
+
     /**
      * Creates a response cookie for the refresh token.
      * <p>
@@ -1,33 +1,58 @@
 package com.siddharthgawas.apigateway.controller;
 
 import com.siddharthgawas.apigateway.dto.APIResponse;
+import com.siddharthgawas.apigateway.service.ProxyService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Optional;
+
 /**
  * Controller to handle all unmatched requests.
  * <p>
  * This controller serves as a catch-all for any requests that do not match
- * other defined endpoints, providing a simple response indicating successful
- * reach to the API Gateway.
+ * other defined endpoints. Requests matching a configured route are forwarded
+ * to an upstream by the {@link ProxyService}; other requests get a simple
+ * response indicating successful reach to the API Gateway.
  */
 @RestController
 public class CatchAllController {
 
+    private final ProxyService proxyService;
+
+    @Autowired
+    public CatchAllController(ProxyService proxyService) {
+        this.proxyService = proxyService;
+    }
+
     /**
      * Handles all requests that do not match any other endpoints.
      * <p>
-     * This method returns a simple response indicating that the API Gateway
-     * has been successfully reached.
+     * This method forwards the request to the upstream of the matching route, passing on the
+     * authenticated user. If no route matches, it returns a simple response indicating that
+     * the API Gateway has been successfully reached.
      *
-     * @param request the HttpServletRequest object containing request details
-     * @return a ResponseEntity with a success message
+     * @param request  the HttpServletRequest object containing request details
+     * @param response the HttpServletResponse the upstream response is streamed to
+     * @return a ResponseEntity with a success message, or null if the response was written by the proxy
+     * @throws IOException if forwarding the request fails
      */
     @RequestMapping("/**")
-    public ResponseEntity<?> handleAll(final HttpServletRequest request) {
+    public ResponseEntity<?> handleAll(final HttpServletRequest request,
+                                       final HttpServletResponse response) throws IOException {
+        final var authenticatedUser = Optional.ofNullable(request.getUserPrincipal())
+                .map(Principal::getName)
+                .orElse(null);
+        if (proxyService.forward(request, response, authenticatedUser)) {
+            return null;
+        }
         return ResponseEntity.status(HttpStatus.OK)
                 .body(new APIResponse("Successfully reached the API Gateway"));
     }
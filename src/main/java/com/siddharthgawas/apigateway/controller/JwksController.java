@@ -0,0 +1,46 @@
+package com.siddharthgawas.apigateway.controller;
+
+import com.siddharthgawas.apigateway.security.JwtKeySet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/**
+ * Controller publishing the public keys tokens are signed with.
+ * <p>
+ * Upstreams fetch the JWKS document to verify access tokens themselves, matching the {@code kid}
+ * header of a token to a key. The document is serialized by the {@link JwtKeySet} whenever the keys
+ * change, so each request writes a precomputed byte array.
+ */
+@RestController
+public class JwksController {
+
+    public static final String JWKS_ENDPOINT = "/.well-known/jwks.json";
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic();
+
+    private final JwtKeySet keySet;
+
+    @Autowired
+    public JwksController(final JwtKeySet keySet) {
+        this.keySet = keySet;
+    }
+
+    /**
+     * Endpoint returning the JWKS document of the active public keys.
+     *
+     * @return a ResponseEntity containing the JWKS document
+     */
+    @GetMapping(JWKS_ENDPOINT)
+    public ResponseEntity<byte[]> jwks() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CACHE_CONTROL)
+                .body(keySet.jwks());
+    }
+}
@@ -0,0 +1,206 @@
+package com.siddharthgawas.apigateway.metrics;
+
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for authentication and rate limiting decisions.
+ * <p>
+ * Every combination of tags is registered up front and looked up by route id and enum ordinal, so recording
+ * on the request path neither allocates tags nor touches the registry. Each timer publishes a
+ * percentile histogram and its count doubles as the number of decisions with that outcome.
+ * <ul>
+ *     <li>{@code gateway.filter}: time spent deciding a request, tagged by {@code filter},
+ *     {@code route} template from the {@link RouteTable} and {@code outcome} (allowed, rejected or
+ *     error). Requests that were not classified are tagged with the route {@value #UNCLASSIFIED_ROUTE}.</li>
+ *     <li>{@code gateway.jwt.verification}: time spent verifying an access token, tagged by
+ *     {@code outcome}.</li>
+ *     <li>{@code gateway.ratelimit.redis}: time spent in rate limit scripts on Redis, tagged by
+ *     {@code operation} (single, batch or async) and {@code outcome} (success or error).</li>
+ *     <li>{@code gateway.ratelimit.fallback}: number of rate limit checks decided in-process because
+ *     Redis was unavailable.</li>
+ *     <li>{@code gateway.jwt.revocation.unchecked}: number of access tokens accepted without a
+ *     revocation check because Redis was unavailable before the revocation filter first loaded.</li>
+ * </ul>
+ */
+@Component
+public class GatewayMetrics {
+
+    /**
+     * Metrics recorded into a registry without backends, for components created outside the
+     * application context.
+     */
+    public static final GatewayMetrics NOOP = new GatewayMetrics(new CompositeMeterRegistry(), List.of());
+
+    static final String UNCLASSIFIED_ROUTE = "unclassified";
+
+    /**
+     * Filters that record decisions.
+     */
+    public enum Filter {
+        JWT_AUTHENTICATION("jwt_authentication"),
+        RATE_LIMITER("rate_limiter");
+
+        private final String tag;
+
+        Filter(final String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Outcome of a decision.
+     */
+    public enum Outcome {
+        ALLOWED("allowed"),
+        REJECTED("rejected"),
+        ERROR("error");
+
+        private final String tag;
+
+        Outcome(final String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Kind of rate limit call made to Redis.
+     */
+    public enum RedisOperation {
+        SINGLE("single"),
+        BATCH("batch"),
+        ASYNC("async");
+
+        private final String tag;
+
+        RedisOperation(final String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Timer[][][] filterTimers;
+
+    private final Timer[] tokenVerificationTimers;
+
+    private final Timer[][] redisTimers;
+
+    private final Counter rateLimitFallbackCounter;
+
+    private final Counter revocationUncheckedCounter;
+
+    @Autowired
+    public GatewayMetrics(final MeterRegistry meterRegistry, final RouteTable routeTable) {
+        this(meterRegistry, routeTable.descriptors());
+    }
+
+    public GatewayMetrics(final MeterRegistry meterRegistry, final List<RouteDescriptor> routes) {
+        final var routeTags = new String[routes.size() + 1];
+        for (final var route : routes) {
+            routeTags[route.id()] = route.template();
+        }
+        routeTags[routes.size()] = UNCLASSIFIED_ROUTE;
+        this.filterTimers = new Timer[Filter.values().length][routeTags.length][Outcome.values().length];
+        for (final var filter : Filter.values()) {
+            for (int route = 0; route < routeTags.length; route++) {
+                for (final var outcome : Outcome.values()) {
+                    filterTimers[filter.ordinal()][route][outcome.ordinal()] = Timer
+                            .builder("gateway.filter")
+                            .description("Time spent by gateway filters deciding a request")
+                            .tag("filter", filter.tag)
+                            .tag("route", routeTags[route])
+                            .tag("outcome", outcome.tag)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry);
+                }
+            }
+        }
+        this.tokenVerificationTimers = new Timer[Outcome.values().length];
+        for (final var outcome : Outcome.values()) {
+            tokenVerificationTimers[outcome.ordinal()] = Timer.builder("gateway.jwt.verification")
+                    .description("Time spent verifying access tokens")
+                    .tag("outcome", outcome.tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+        this.redisTimers = new Timer[RedisOperation.values().length][2];
+        for (final var operation : RedisOperation.values()) {
+            for (final var failed : new boolean[]{false, true}) {
+                redisTimers[operation.ordinal()][failed ? 1 : 0] = Timer.builder("gateway.ratelimit.redis")
+                        .description("Time spent in rate limit scripts on Redis")
+                        .tag("operation", operation.tag)
+                        .tag("outcome", failed ? "error" : "success")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry);
+            }
+        }
+        this.rateLimitFallbackCounter = Counter.builder("gateway.ratelimit.fallback")
+                .description("Rate limit checks decided in-process because Redis was unavailable")
+                .register(meterRegistry);
+        this.revocationUncheckedCounter = Counter.builder("gateway.jwt.revocation.unchecked")
+                .description("Access tokens accepted without a revocation check because Redis was unavailable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a decision made by a filter.
+     *
+     * @param filter       the filter that made the decision
+     * @param route        the route of the request, or null if it was not classified
+     * @param outcome      the outcome of the decision
+     * @param elapsedNanos the time taken to decide, in nanoseconds
+     */
+    public void recordFilter(final Filter filter, final RouteDescriptor route, final Outcome outcome,
+                             final long elapsedNanos) {
+        final var timers = filterTimers[filter.ordinal()];
+        final var unclassified = timers.length - 1;
+        final var index = Objects.isNull(route) || route.id() < 0 || route.id() >= unclassified
+                ? unclassified
+                : route.id();
+        timers[index][outcome.ordinal()].record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the verification of an access token.
+     *
+     * @param outcome      allowed for a valid token, rejected for an invalid one
+     * @param elapsedNanos the time taken to verify, in nanoseconds
+     */
+    public void recordTokenVerification(final Outcome outcome, final long elapsedNanos) {
+        tokenVerificationTimers[outcome.ordinal()].record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a rate limit call made to Redis.
+     *
+     * @param operation    the kind of call
+     * @param failed       whether the call failed
+     * @param elapsedNanos the time taken by the call, in nanoseconds
+     */
+    public void recordRedisCall(final RedisOperation operation, final boolean failed, final long elapsedNanos) {
+        redisTimers[operation.ordinal()][failed ? 1 : 0].record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a rate limit check decided in-process because Redis was unavailable.
+     */
+    public void recordRateLimitFallback() {
+        rateLimitFallbackCounter.increment();
+    }
+
+    /**
+     * Records an access token accepted without a revocation check because Redis was unavailable.
+     */
+    public void recordRevocationUnchecked() {
+        revocationUncheckedCounter.increment();
+    }
+}
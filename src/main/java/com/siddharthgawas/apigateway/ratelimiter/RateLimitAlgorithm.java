@@ -0,0 +1,19 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+/**
+ * Algorithms the Redis backed rate limit strategy can use, selected by {@code application.rateLimitAlgorithm}.
+ */
+public enum RateLimitAlgorithm {
+    /**
+     * Token bucket holding the remaining tokens and the last refill time in a hash per key.
+     */
+    TOKEN_BUCKET,
+    /**
+     * Generic cell rate algorithm holding a single theoretical arrival time per key.
+     */
+    GCRA,
+    /**
+     * Sliding window counter weighting the previous minute's count by its overlap with the window.
+     */
+    SLIDING_WINDOW
+}
@@ -0,0 +1,194 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Encodes rate limit bucket keys.
+ * <p>
+ * A bucket key is {@value #PREFIX} followed by the first 128 bits of the SHA-256 of the rate limit
+ * key and the route scope, base64url encoded and wrapped in braces. Keys therefore have a fixed
+ * length of 27 characters however long the user name, address or route template is, and cannot be
+ * made to collide by choosing a key that contains the separator.
+ * <p>
+ * The braces make the digest a Redis Cluster hash tag: the slot of a key depends only on its digest,
+ * so every key a strategy derives for the same bucket lands in the same slot, whatever the prefix.
+ * The base64url alphabet contains no braces, so the tag is always the whole digest.
+ * <p>
+ * Strategies whose state has a different Redis type use their own prefix, so switching the
+ * algorithm never makes a script read a key written by another.
+ */
+public final class RateLimitKeys {
+
+    public static final String PREFIX = "rl:";
+
+    public static final String GCRA_PREFIX = "rlg:";
+
+    public static final String SLIDING_WINDOW_PREFIX = "rlw:";
+
+    private static final int DIGEST_BYTES = 16;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int ENCODED_DIGEST_LENGTH = (DIGEST_BYTES * 4 + 2) / 3;
+
+    private static final byte[] BASE64_URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+    private static final MessageDigest SHA_256 = newSha256();
+
+    private RateLimitKeys() {
+    }
+
+    /**
+     * Returns the bucket key of a rate limit key within a route scope.
+     *
+     * @param key   the rate limit key, e.g. a user name or remote address
+     * @param route the route scope, e.g. a route template
+     * @return the bucket key
+     */
+    public static String bucketKey(final String key, final String route) {
+        return bucketKey(PREFIX, key, route);
+    }
+
+    /**
+     * Returns the bucket key of a rate limit key within a route scope, under the given prefix.
+     *
+     * @param prefix the key prefix of the strategy
+     * @param key    the rate limit key, e.g. a user name or remote address
+     * @param route  the route scope, e.g. a route template
+     * @return the bucket key
+     */
+    public static String bucketKey(final String prefix, final String key, final String route) {
+        return new String(bucketKeyBytes(prefix.getBytes(StandardCharsets.US_ASCII), key, route),
+                StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the bucket key of a rate limit key within a route scope as the bytes sent to Redis.
+     * <p>
+     * The digest is encoded straight into the key, so no intermediate string is built.
+     *
+     * @param prefix the key prefix of the strategy, as ASCII bytes
+     * @param key    the rate limit key, e.g. a user name or remote address
+     * @param route  the route scope, e.g. a route template
+     * @return the bucket key
+     */
+    public static byte[] bucketKeyBytes(final byte[] prefix, final String key, final String route) {
+        return bucketKeyBytes(prefix, key.getBytes(StandardCharsets.UTF_8), route);
+    }
+
+    /**
+     * Returns the bucket key of a rate limit key already encoded as UTF-8 within a route scope, as the
+     * bytes sent to Redis.
+     *
+     * @param prefix the key prefix of the strategy, as ASCII bytes
+     * @param key    the UTF-8 encoding of the rate limit key
+     * @param route  the route scope, e.g. a route template
+     * @return the bucket key
+     */
+    public static byte[] bucketKeyBytes(final byte[] prefix, final byte[] key, final String route) {
+        final var digest = sha256();
+        digest.update(key);
+        digest.update((byte) 0);
+        digest.update(route.getBytes(StandardCharsets.UTF_8));
+        final var hash = digest.digest();
+        final var encoded = new byte[prefix.length + ENCODED_DIGEST_LENGTH + 2];
+        System.arraycopy(prefix, 0, encoded, 0, prefix.length);
+        encoded[prefix.length] = '{';
+        encodeDigest(hash, encoded, prefix.length + 1);
+        encoded[encoded.length - 1] = '}';
+        return encoded;
+    }
+
+    /**
+     * Returns a well mixed 64-bit hash of a rate limit key within a route scope, used to pick the
+     * shard of a bucket.
+     * <p>
+     * This is a FNV-1a hash finished with a 64-bit mixer, far cheaper than the bucket key digest,
+     * since it does not need to resist chosen collisions: a collision only places two buckets on
+     * the same shard.
+     *
+     * @param key   the rate limit key, e.g. a user name or remote address
+     * @param route the route scope, e.g. a route template
+     * @return the hash
+     */
+    public static long shardHash(final String key, final String route) {
+        var hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * FNV_PRIME;
+        }
+        hash *= FNV_PRIME;
+        for (int i = 0; i < route.length(); i++) {
+            hash = (hash ^ route.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Returns a well mixed 64-bit hash of a string.
+     *
+     * @param value the string
+     * @return the hash
+     */
+    public static long hash(final String value) {
+        var hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Finalizes a hash so every input bit affects every output bit (the MurmurHash3 64-bit finalizer).
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Writes the first {@value #DIGEST_BYTES} bytes of a digest base64url encoded, without padding.
+     */
+    private static void encodeDigest(final byte[] hash, final byte[] target, final int offset) {
+        var out = offset;
+        var in = 0;
+        while (in + 3 <= DIGEST_BYTES) {
+            final var bits = (hash[in] & 0xff) << 16 | (hash[in + 1] & 0xff) << 8 | (hash[in + 2] & 0xff);
+            target[out++] = BASE64_URL[bits >>> 18];
+            target[out++] = BASE64_URL[bits >>> 12 & 0x3f];
+            target[out++] = BASE64_URL[bits >>> 6 & 0x3f];
+            target[out++] = BASE64_URL[bits & 0x3f];
+            in += 3;
+        }
+        final var last = hash[in] & 0xff;
+        target[out++] = BASE64_URL[last >>> 2];
+        target[out] = BASE64_URL[(last & 0x3) << 4];
+    }
+
+    /**
+     * Returns a fresh digest, cloned from a prototype to skip the provider lookup.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return (MessageDigest) SHA_256.clone();
+        } catch (CloneNotSupportedException e) {
+            return newSha256();
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
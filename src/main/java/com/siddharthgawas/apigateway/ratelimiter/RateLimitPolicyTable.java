@@ -0,0 +1,190 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitPolicyDocument;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Table of the rate limit rule of every route and principal tier.
+ * <p>
+ * The policy file is compiled into a {@code [route id][tier]} array, so resolving the rule of a
+ * request is an array access plus one map lookup of the principal's tier. A rule is looked up in
+ * the route's policy, then in the {@code default} policy, for the principal's tier and then for the
+ * {@code *} tier; routes and tiers no policy covers use {@code application.maxReqPerMinute}.
+ * <p>
+ * Anonymous routes always use the {@link #ANONYMOUS_TIER} tier. Authenticated principals use the
+ * tier listed for them in the policy file, or its default tier.
+ * <p>
+ * {@link #reload()} recompiles the table when the policy file has changed and swaps it in
+ * atomically, so limits change without a restart. A file that fails to load leaves the current
+ * table in place.
+ */
+@Slf4j
+public class RateLimitPolicyTable {
+
+    public static final String ANONYMOUS_TIER = "anonymous";
+
+    public static final String DEFAULT_TIER = "standard";
+
+    public static final String ANY_TIER = "*";
+
+    private final List<RouteDescriptor> routes;
+
+    private final RateLimitRule defaultRule;
+
+    private final Path policyFile;
+
+    private final ObjectMapper objectMapper;
+
+    private final int catchAllRouteId;
+
+    private volatile Snapshot snapshot;
+
+    private volatile FileTime loadedModifiedTime;
+
+    /**
+     * Constructs a RateLimitPolicyTable applying the default rule to every route until a policy
+     * file is loaded.
+     *
+     * @param routes       the routes, ordered by id
+     * @param defaultRule  the rule of routes and tiers no policy covers
+     * @param policyFile   the policy file, or null if limits are not configured per route
+     * @param objectMapper the mapper the policy file is read with
+     */
+    public RateLimitPolicyTable(final List<RouteDescriptor> routes,
+                                final RateLimitRule defaultRule,
+                                final Path policyFile,
+                                final ObjectMapper objectMapper) {
+        this.routes = List.copyOf(routes);
+        this.defaultRule = defaultRule;
+        this.policyFile = policyFile;
+        this.objectMapper = objectMapper;
+        this.catchAllRouteId = this.routes.stream()
+                .filter(route -> RouteTable.CATCH_ALL_TEMPLATE.equals(route.template()))
+                .mapToInt(RouteDescriptor::id)
+                .findFirst()
+                .orElse(-1);
+        this.snapshot = compile(new RateLimitPolicyDocument(null, null, null));
+    }
+
+    /**
+     * Resolves the rule of a request.
+     *
+     * @param route     the route of the request, or null if it was not classified
+     * @param principal the rate limit key of the request
+     * @return the rule of the route and the principal's tier
+     */
+    public RateLimitRule resolve(final RouteDescriptor route, final String principal) {
+        final var current = snapshot;
+        final var routeId = Objects.isNull(route) ? catchAllRouteId : route.id();
+        if (routeId < 0 || routeId >= current.rules().length) {
+            return defaultRule;
+        }
+        final int tier;
+        if (Objects.nonNull(route) && !route.authenticationRequired()) {
+            tier = current.anonymousTier();
+        } else {
+            tier = current.principalTiers().getOrDefault(principal, current.defaultTier());
+        }
+        return current.rules()[routeId][tier];
+    }
+
+    /**
+     * Reloads the policy file if it has changed since it was last loaded.
+     *
+     * @return true if a new table was swapped in, false otherwise
+     */
+    public boolean reload() {
+        if (Objects.isNull(policyFile)) {
+            return false;
+        }
+        try {
+            final var modifiedTime = Files.getLastModifiedTime(policyFile);
+            if (modifiedTime.equals(loadedModifiedTime)) {
+                return false;
+            }
+            final var document = objectMapper.readValue(policyFile.toFile(), RateLimitPolicyDocument.class);
+            apply(document);
+            loadedModifiedTime = modifiedTime;
+            log.info("Loaded rate limit policies from {}", policyFile);
+            return true;
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Failed to load rate limit policies from {}: {}", policyFile, exception.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Compiles the policy document and swaps it in.
+     *
+     * @param document the policy document
+     */
+    public void apply(final RateLimitPolicyDocument document) {
+        this.snapshot = compile(document);
+    }
+
+    /**
+     * Compiles the policy document into a rule per route and tier.
+     */
+    private Snapshot compile(final RateLimitPolicyDocument document) {
+        final Map<String, Map<String, RateLimitRule>> policies =
+                Objects.requireNonNullElse(document.policies(), Collections.emptyMap());
+        final Map<String, String> principalTiers =
+                Objects.requireNonNullElse(document.principalTiers(), Collections.emptyMap());
+        final var defaultTierName = Objects.requireNonNullElse(document.defaultTier(), DEFAULT_TIER);
+
+        final Map<String, Integer> tierIndex = new LinkedHashMap<>();
+        tierIndex.put(ANONYMOUS_TIER, 0);
+        tierIndex.putIfAbsent(defaultTierName, tierIndex.size());
+        policies.values().forEach(tiers -> tiers.keySet().stream()
+                .filter(tier -> !ANY_TIER.equals(tier))
+                .forEach(tier -> tierIndex.putIfAbsent(tier, tierIndex.size())));
+        principalTiers.values().forEach(tier -> tierIndex.putIfAbsent(tier, tierIndex.size()));
+
+        final var rules = new RateLimitRule[routes.size()][tierIndex.size()];
+        for (final var route : routes) {
+            final var policy = policies.get(route.rateLimitPolicy());
+            final var fallback = policies.get(RouteTable.DEFAULT_RATE_LIMIT_POLICY);
+            tierIndex.forEach((tier, index) -> rules[route.id()][index] = Objects.requireNonNullElse(
+                    ruleOf(policy, tier), Objects.requireNonNullElse(ruleOf(fallback, tier), defaultRule)));
+        }
+
+        final Map<String, Integer> principalTierIndex = new HashMap<>(principalTiers.size() * 2);
+        principalTiers.forEach((principal, tier) -> principalTierIndex.put(principal, tierIndex.get(tier)));
+        return new Snapshot(rules, principalTierIndex, tierIndex.get(ANONYMOUS_TIER), tierIndex.get(defaultTierName));
+    }
+
+    /**
+     * Returns the rule of a tier in a policy, falling back to the policy's {@code *} tier.
+     */
+    private static RateLimitRule ruleOf(final Map<String, RateLimitRule> policy, final String tier) {
+        if (Objects.isNull(policy)) {
+            return null;
+        }
+        final var rule = policy.get(tier);
+        return Objects.nonNull(rule) ? rule : policy.get(ANY_TIER);
+    }
+
+    /**
+     * A compiled policy table.
+     */
+    private record Snapshot(RateLimitRule[][] rules,
+                            Map<String, Integer> principalTiers,
+                            int anonymousTier,
+                            int defaultTier) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Handle of a rate limit key, e.g. an authenticated user name or a client address.
+ * <p>
+ * A handle holds the key, its UTF-8 encoding and the {@link RateLimitProps} of every route it has
+ * been limited on, indexed by route id with slot 0 holding requests that were not classified.
+ * Handles are interned by {@link RateLimitPropsCache}, so every request of the same key shares one
+ * handle and reuses its props, whose bucket keys are hashed once.
+ * <p>
+ * The authentication filter publishes the handle of an authenticated user as the
+ * {@link #ATTRIBUTE} request attribute, so the rate limiter reads it directly instead of loading
+ * the security context.
+ * <p>
+ * Cached props are reused only while the policy table resolves the same rule instance for them;
+ * after a policy reload the first request of each route replaces them. Races between requests of
+ * the same key only ever store equivalent props, so slots are written without locking.
+ */
+public final class RateLimitPrincipal {
+
+    public static final String ATTRIBUTE = RateLimitPrincipal.class.getName();
+
+    @Getter
+    private final String name;
+
+    private final byte[] encodedName;
+
+    private volatile RateLimitProps[] propsByRoute = new RateLimitProps[0];
+
+    /**
+     * Constructs a RateLimitPrincipal.
+     *
+     * @param name the rate limit key
+     */
+    public RateLimitPrincipal(final String name) {
+        this.name = name;
+        this.encodedName = name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the props of a request of this key, reusing the cached props when they are still current.
+     *
+     * @param route the route of the request, or null if it was not classified
+     * @param scope the rate limit scope of the route
+     * @param rule  the rule resolved for the request, or null to apply the strategy's default limit
+     * @return the props of the request
+     */
+    public RateLimitProps props(final RouteDescriptor route, final String scope, final RateLimitRule rule) {
+        final var slot = Objects.isNull(route) ? 0 : route.id() + 1;
+        var cached = propsByRoute;
+        if (slot < cached.length) {
+            final var props = cached[slot];
+            if (Objects.nonNull(props) && props.getRule() == rule && props.getRoute().equals(scope)) {
+                return props;
+            }
+        }
+        final var props = new RateLimitProps(name, encodedName, scope, rule);
+        if (slot >= cached.length) {
+            cached = Arrays.copyOf(cached, slot + 1);
+            propsByRoute = cached;
+        }
+        cached[slot] = props;
+        return props;
+    }
+}
@@ -0,0 +1,80 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the {@link RateLimitPrincipal} of every rate limit key, and through it of the
+ * {@link RateLimitProps} of every key and route.
+ * <p>
+ * A request whose key and route have been seen before is served a map lookup and an array access,
+ * and the props it gets carry a bucket key that was already hashed, so the steady-state rate limit
+ * path allocates nothing.
+ * <p>
+ * The cache holds at most {@code maxKeys} keys. When it is full it is cleared, and the keys that
+ * are still active fill it again; this bounds memory when the keys are client addresses without
+ * tracking when each key was last used.
+ */
+public class RateLimitPropsCache {
+
+    private final ConcurrentMap<String, RateLimitPrincipal> principals = new ConcurrentHashMap<>();
+
+    private final int maxKeys;
+
+    /**
+     * Constructs a RateLimitPropsCache.
+     *
+     * @param maxKeys the maximum number of keys held
+     */
+    public RateLimitPropsCache(final int maxKeys) {
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Returns the handle of a rate limit key, creating it on first use.
+     *
+     * @param key the rate limit key
+     * @return the handle of the key
+     */
+    public RateLimitPrincipal principal(final String key) {
+        final var cached = principals.get(key);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+        if (principals.size() >= maxKeys) {
+            principals.clear();
+        }
+        return principals.computeIfAbsent(key, RateLimitPrincipal::new);
+    }
+
+    /**
+     * Returns the props of a request, reusing the cached props when they are still current.
+     *
+     * @param key   the rate limit key of the request
+     * @param route the route of the request, or null if it was not classified
+     * @param scope the rate limit scope of the route
+     * @param rule  the rule resolved for the request, or null to apply the strategy's default limit
+     * @return the props of the request
+     */
+    public RateLimitProps get(final String key, final RouteDescriptor route, final String scope,
+                              final RateLimitRule rule) {
+        return principal(key).props(route, scope, rule);
+    }
+
+    /**
+     * Returns the number of keys held.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return principals.size();
+    }
+}
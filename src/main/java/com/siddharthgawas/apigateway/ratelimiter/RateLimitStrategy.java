@@ -1,13 +1,49 @@
 package com.siddharthgawas.apigateway.ratelimiter;
 
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
 import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * Interface for defining a rate limit strategy.
  * <p>
  * This interface provides a method to check if the quota for a given rate limit
- * has been exceeded based on the provided properties.
+ * has been exceeded based on the provided properties, a variant returning the full
+ * decision including the remaining quota, and a non-blocking variant that completes
+ * once the backing store has answered.
  */
 public interface RateLimitStrategy {
     Boolean isQuotaExceeded(RateLimitProps rateLimitProps);
+
+    /**
+     * Checks the quota and returns the decision.
+     * <p>
+     * The default implementation only reports whether the request is allowed; strategies that learn
+     * the remaining quota from the same call override it.
+     *
+     * @param rateLimitProps the properties containing the key and route for rate limiting
+     * @return the decision
+     */
+    default RateLimitDecision checkQuota(RateLimitProps rateLimitProps) {
+        return RateLimitDecision.of(isQuotaExceeded(rateLimitProps));
+    }
+
+    /**
+     * Checks the quota without blocking the calling thread on I/O.
+     * <p>
+     * The default implementation runs the synchronous check on the calling thread; strategies
+     * backed by a remote store override it with a non-blocking call.
+     *
+     * @param rateLimitProps the properties containing the key and route for rate limiting
+     * @return a stage completed with the decision, or exceptionally if the check failed
+     */
+    default CompletionStage<RateLimitDecision> checkQuotaAsync(RateLimitProps rateLimitProps) {
+        try {
+            return CompletableFuture.completedFuture(checkQuota(rateLimitProps));
+        } catch (RuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
 }
@@ -1,20 +1,29 @@
 package com.siddharthgawas.apigateway.ratelimiter;
 
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
 import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
-import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 
 /**
@@ -22,11 +31,49 @@ import java.util.function.Function;
  * <p>
  * This filter checks if the rate limit for a request has been exceeded and
  * responds with an appropriate HTTP status code if the limit is reached.
+ * Limits apply per key within the rate limit scope of the request's route, which is
+ * the route template unless the route configures a rate limit group. When a
+ * {@link RateLimitPolicyTable} is set, each request carries the rule of its route and the key's
+ * tier; otherwise the strategy's default limit applies.
+ * <p>
+ * In async mode the check is made with {@link RateLimitStrategy#checkQuotaAsync(RateLimitProps)}
+ * inside a Servlet async cycle, so the container thread is released while the backing store
+ * answers. Allowed requests are then re-dispatched; this filter skips async dispatches, so the
+ * rest of the chain runs exactly once.
+ * <p>
+ * When the strategy reports the state of the bucket, responses carry {@code RateLimit-Limit},
+ * {@code RateLimit-Remaining} and {@code RateLimit-Reset} headers, and rejections carry
+ * {@code Retry-After}, so clients can back off instead of retrying in a tight loop. The values
+ * come from the same call that decided the request.
+ * <p>
+ * The time taken by each decision and its outcome are recorded in {@link GatewayMetrics}.
+ * <p>
+ * The key of a request is the {@link RateLimitPrincipal} the authentication filter published as
+ * the {@link RateLimitPrincipal#ATTRIBUTE} request attribute, or else the key extractor's result
+ * interned through a {@link RateLimitPropsCache}. Either way the props of each key and route are
+ * reused, and header values below {@value #CACHED_HEADER_VALUES} come from a table, so a synchronous
+ * check of a known key allocates nothing in this filter.
  */
+@Slf4j
 public class RateLimiterFilter extends OncePerRequestFilter {
 
-    private final SecurityContextRepository securityContextRepository =
-            new RequestAttributeSecurityContextRepository();
+    public static final String RATE_LIMIT_LIMIT_HEADER = "RateLimit-Limit";
+
+    public static final String RATE_LIMIT_REMAINING_HEADER = "RateLimit-Remaining";
+
+    public static final String RATE_LIMIT_RESET_HEADER = "RateLimit-Reset";
+
+    public static final int DEFAULT_CACHED_KEYS = 65_536;
+
+    private static final int CACHED_HEADER_VALUES = 1024;
+
+    private static final String[] HEADER_VALUES = new String[CACHED_HEADER_VALUES];
+
+    static {
+        for (int i = 0; i < CACHED_HEADER_VALUES; i++) {
+            HEADER_VALUES[i] = Integer.toString(i);
+        }
+    }
 
     private final RateLimitStrategy rateLimitStrategy;
 
@@ -34,6 +81,31 @@ public class RateLimiterFilter extends OncePerRequestFilter {
 
     private final Function<HttpServletRequest, String> keyExtractor;
 
+    /**
+     * Whether rate limit checks are made asynchronously using Servlet async.
+     */
+    @Setter
+    private boolean asyncEnabled = false;
+
+    /**
+     * Metrics the rate limit decisions are recorded in.
+     */
+    @Setter
+    private GatewayMetrics metrics = GatewayMetrics.NOOP;
+
+    /**
+     * Table the rule of each request is resolved from, or null to apply the strategy's default limit.
+     */
+    @Setter
+    private RateLimitPolicyTable policyTable;
+
+    /**
+     * Cache the props of each key and route are reused from.
+     */
+    @Setter
+    private RateLimitPropsCache propsCache = new RateLimitPropsCache(DEFAULT_CACHED_KEYS);
+
+    private volatile String alreadyFilteredAttributeName;
 
     /**
      * Constructs a RateLimiterFilter with the specified rate limit strategy and request matcher.
@@ -81,24 +153,178 @@ public class RateLimiterFilter extends OncePerRequestFilter {
     protected void doFilterInternal(final HttpServletRequest request,
                                     final HttpServletResponse response,
                                     final FilterChain filterChain) throws ServletException, IOException {
-        final var requestPath = request.getRequestURI();
-        final var key = keyExtractor.apply(request);
-        if (!StringUtils.hasLength(key)) {
+        final var principal = principalOf(request);
+        if (Objects.isNull(principal)) {
             if (!response.isCommitted()) {
                 response.setStatus(HttpStatus.UNAUTHORIZED.value());
                 response.getWriter().write("Unauthorized access. Please provide valid credentials.");
             }
             return;
         }
-        final var isQuotaExhausted = rateLimitStrategy.isQuotaExceeded(new RateLimitProps(key, requestPath));
-        if (isQuotaExhausted) {
-            if (!response.isCommitted()) {
-                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-                response.getWriter().write("Rate limit exceeded. Please try again later.");
-            }
-        } else {
+        final var route = RouteTable.routeOf(request);
+        final var rateLimitProps = principal.props(route,
+                Objects.isNull(route) ? RouteTable.CATCH_ALL_TEMPLATE : route.rateLimitScope(),
+                Objects.isNull(policyTable) ? null : policyTable.resolve(route, principal.getName()));
+        final var start = System.nanoTime();
+        if (asyncEnabled && request.isAsyncSupported() && DispatcherType.REQUEST.equals(request.getDispatcherType())) {
+            filterAsync(request, response, rateLimitProps, route, start);
+            return;
+        }
+        final RateLimitDecision decision;
+        try {
+            decision = rateLimitStrategy.checkQuota(rateLimitProps);
+        } catch (RuntimeException exception) {
+            recordDecision(route, GatewayMetrics.Outcome.ERROR, start);
+            throw exception;
+        }
+        recordDecision(route, decision.allowed() ? GatewayMetrics.Outcome.ALLOWED : GatewayMetrics.Outcome.REJECTED,
+                start);
+        writeRateLimitHeaders(response, decision);
+        if (decision.allowed()) {
             filterChain.doFilter(request, response);
+        } else {
+            writeTooManyRequests(response);
+        }
+    }
+
+    /**
+     * Returns the rate limit key of the request.
+     *
+     * @param request the HttpServletRequest to filter
+     * @return the principal published by the authentication filter, else the handle of the key extracted
+     * from the request, or null if the request has no key
+     */
+    private RateLimitPrincipal principalOf(final HttpServletRequest request) {
+        if (request.getAttribute(RateLimitPrincipal.ATTRIBUTE) instanceof RateLimitPrincipal principal) {
+            return principal;
+        }
+        final var key = keyExtractor.apply(request);
+        return StringUtils.hasLength(key) ? propsCache.principal(key) : null;
+    }
+
+    /**
+     * Starts an async cycle and completes it once the rate limit decision is available.
+     * <p>
+     * Rejected requests are answered directly; allowed requests are re-dispatched to the container
+     * so the rest of the filter chain runs on a container thread. A failed check is sent as an error
+     * with its exception, so the container renders the same error page as a synchronous check that
+     * throws.
+     *
+     * @param request        the HttpServletRequest to filter
+     * @param response       the HttpServletResponse to write the response to
+     * @param rateLimitProps the rate limit properties of the request
+     * @param route          the route of the request
+     * @param start          the time the decision started, from {@link System#nanoTime()}
+     */
+    private void filterAsync(final HttpServletRequest request,
+                             final HttpServletResponse response,
+                             final RateLimitProps rateLimitProps,
+                             final RouteDescriptor route,
+                             final long start) {
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        rateLimitStrategy.checkQuotaAsync(rateLimitProps).whenComplete((decision, failure) -> {
+            recordDecision(route, failure != null ? GatewayMetrics.Outcome.ERROR
+                    : decision.allowed() ? GatewayMetrics.Outcome.ALLOWED : GatewayMetrics.Outcome.REJECTED, start);
+            try {
+                if (failure != null) {
+                    final var cause = failure instanceof CompletionException && Objects.nonNull(failure.getCause())
+                            ? failure.getCause() : failure;
+                    log.error("Rate limit check failed: {}", cause.getMessage());
+                    if (!response.isCommitted()) {
+                        request.setAttribute(RequestDispatcher.ERROR_EXCEPTION, cause);
+                        response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+                    }
+                    asyncContext.complete();
+                } else if (decision.allowed()) {
+                    writeRateLimitHeaders(response, decision);
+                    asyncContext.dispatch();
+                } else {
+                    writeRateLimitHeaders(response, decision);
+                    writeTooManyRequests(response);
+                    asyncContext.complete();
+                }
+            } catch (IOException | RuntimeException exception) {
+                log.error("Failed to complete rate limited request: {}", exception.getMessage());
+                asyncContext.complete();
+            }
+        });
+    }
+
+    /**
+     * Records a rate limit decision in the metrics.
+     *
+     * @param route   the route of the request
+     * @param outcome the outcome of the decision
+     * @param start   the time the decision started, from {@link System#nanoTime()}
+     */
+    private void recordDecision(final RouteDescriptor route, final GatewayMetrics.Outcome outcome, final long start) {
+        metrics.recordFilter(GatewayMetrics.Filter.RATE_LIMITER, route, outcome, System.nanoTime() - start);
+    }
+
+    /**
+     * Adds the rate limit headers of the decision, if the strategy reported the state of the bucket.
+     * <p>
+     * Times are rounded up to whole seconds, so a client that waits for them is not rejected again
+     * for being a fraction of a second early.
+     *
+     * @param response the HttpServletResponse to add the headers to
+     * @param decision the rate limit decision
+     */
+    private void writeRateLimitHeaders(final HttpServletResponse response, final RateLimitDecision decision) {
+        if (response.isCommitted()) {
+            return;
+        }
+        if (decision.hasQuota()) {
+            response.setHeader(RATE_LIMIT_LIMIT_HEADER, headerValue(decision.limit()));
+            response.setHeader(RATE_LIMIT_REMAINING_HEADER, headerValue(Math.max(0, decision.remaining())));
+            response.setHeader(RATE_LIMIT_RESET_HEADER, headerValue(toSeconds(decision.resetMs())));
+        }
+        if (!decision.allowed() && decision.retryAfterMs() != RateLimitDecision.UNKNOWN) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, headerValue(Math.max(1, toSeconds(decision.retryAfterMs()))));
+        }
+    }
+
+    /**
+     * Returns the decimal representation of a non-negative number, from the table when it is small.
+     */
+    private static String headerValue(final long value) {
+        return value < CACHED_HEADER_VALUES ? HEADER_VALUES[(int) value] : Long.toString(value);
+    }
+
+    /**
+     * Converts milliseconds to whole seconds, rounding up.
+     */
+    private static long toSeconds(final long millis) {
+        return (Math.max(0, millis) + 999) / 1000;
+    }
+
+    /**
+     * Responds with a 429 Too Many Requests status, unless the response is already committed.
+     *
+     * @param response the HttpServletResponse to write the response to
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeTooManyRequests(final HttpServletResponse response) throws IOException {
+        if (!response.isCommitted()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.getWriter().write("Rate limit exceeded. Please try again later.");
+        }
+    }
+
+    /**
+     * Returns the name of the attribute marking a request as filtered, computed once rather than
+     * concatenated on every request.
+     *
+     * @return the attribute name
+     */
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        var name = alreadyFilteredAttributeName;
+        if (Objects.isNull(name)) {
+            name = super.getAlreadyFilteredAttributeName();
+            alreadyFilteredAttributeName = name;
         }
+        return name;
     }
 
     /**
@@ -0,0 +1,42 @@
+package com.siddharthgawas.apigateway.ratelimiter.dto;
+
+/**
+ * Represents the outcome of a rate limit check.
+ * <p>
+ * Strategies that learn the state of the bucket from the same call that decides the request also
+ * report the limit, the remaining quota and when it refills; others report only whether the request
+ * is allowed, with {@link #UNKNOWN} in the other fields.
+ *
+ * @param allowed      Whether the request is within its quota.
+ * @param limit        The maximum number of requests the bucket admits at once, or {@link #UNKNOWN}.
+ * @param remaining    The number of requests the bucket admits right now, or {@link #UNKNOWN}.
+ * @param resetMs      The time until the bucket is full again, in milliseconds, or {@link #UNKNOWN}.
+ * @param retryAfterMs The time until a rejected request would be allowed, in milliseconds, or {@link #UNKNOWN}.
+ */
+public record RateLimitDecision(boolean allowed, long limit, long remaining, long resetMs, long retryAfterMs) {
+
+    public static final long UNKNOWN = -1;
+
+    public static final RateLimitDecision ALLOWED = new RateLimitDecision(true, UNKNOWN, UNKNOWN, UNKNOWN, UNKNOWN);
+
+    public static final RateLimitDecision REJECTED = new RateLimitDecision(false, UNKNOWN, UNKNOWN, UNKNOWN, UNKNOWN);
+
+    /**
+     * Returns the decision for the given quota check result.
+     *
+     * @param isQuotaExceeded whether the quota is exceeded
+     * @return {@link #REJECTED} if the quota is exceeded, {@link #ALLOWED} otherwise
+     */
+    public static RateLimitDecision of(final boolean isQuotaExceeded) {
+        return isQuotaExceeded ? REJECTED : ALLOWED;
+    }
+
+    /**
+     * Returns whether the decision reports the state of the bucket.
+     *
+     * @return true if the limit, remaining quota and reset time are known
+     */
+    public boolean hasQuota() {
+        return limit != UNKNOWN;
+    }
+}
@@ -0,0 +1,18 @@
+package com.siddharthgawas.apigateway.ratelimiter.dto;
+
+import java.util.Map;
+
+/**
+ * Represents the rate limit policy file.
+ * <p>
+ * Policies are named by the {@code rateLimitPolicy} of a route and map a principal tier to a
+ * rule. The tier {@code *} applies to every tier the policy does not name.
+ *
+ * @param defaultTier    The tier of authenticated principals not listed in {@code principalTiers}.
+ * @param principalTiers The tier of each listed principal.
+ * @param policies       The rule of each tier, by policy name.
+ */
+public record RateLimitPolicyDocument(String defaultTier,
+                                      Map<String, String> principalTiers,
+                                      Map<String, Map<String, RateLimitRule>> policies) {
+}
@@ -1,19 +1,93 @@
 package com.siddharthgawas.apigateway.ratelimiter.dto;
 
-import lombok.AllArgsConstructor;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
+import lombok.AccessLevel;
 import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 /**
  * Represents the properties required for rate limiting.
  * <p>
- * This class encapsulates the key and request path used for rate limiting
- * in the API Gateway.
+ * This class encapsulates the key and the route scope used for rate limiting
+ * in the API Gateway. The route scope is a route template such as {@code /orders/**}
+ * or a configured rate limit group, never a raw request path, so the number of
+ * buckets is bounded by the number of keys times the number of routes.
+ * <p>
+ * The rule is the limit resolved for the route and the principal's tier; when it is null the
+ * strategy applies its default limit.
+ * <p>
+ * Instances are immutable, so the rate limiter filter reuses one per key and route across requests
+ * (see {@link com.siddharthgawas.apigateway.ratelimiter.RateLimitPrincipal}). The Redis bucket key is
+ * derived on first use and kept with the instance, so a reused instance hashes its key only once.
  */
-@Data
-@AllArgsConstructor
-@Builder
+@Getter
+@EqualsAndHashCode
+@ToString
 public class RateLimitProps {
-    private String key;
-    private String requestPath;
+    private final String key;
+    private final String route;
+    private final RateLimitRule rule;
+
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final byte[] encodedKey;
+
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile EncodedBucketKey encodedBucketKey;
+
+    @Builder
+    public RateLimitProps(final String key, final String route, final RateLimitRule rule) {
+        this(key, null, route, rule);
+    }
+
+    /**
+     * Constructs RateLimitProps for a key whose UTF-8 encoding is already known.
+     *
+     * @param key        the rate limit key
+     * @param encodedKey the UTF-8 encoding of the key, or null to encode it when the bucket key is derived
+     * @param route      the route scope
+     * @param rule       the rule, or null to apply the strategy's default limit
+     */
+    public RateLimitProps(final String key, final byte[] encodedKey, final String route, final RateLimitRule rule) {
+        this.key = key;
+        this.encodedKey = encodedKey;
+        this.route = route;
+        this.rule = rule;
+    }
+
+    public RateLimitProps(final String key, final String route) {
+        this(key, route, null);
+    }
+
+    /**
+     * Returns the bucket key of these properties under the given prefix, as sent to Redis.
+     * <p>
+     * The key is computed once per prefix array and cached, so strategies must pass the same
+     * constant prefix on every call and must not modify the returned array.
+     *
+     * @param prefix the key prefix of the strategy, as ASCII bytes
+     * @return the bucket key, as encoded by {@link RateLimitKeys#bucketKeyBytes}
+     */
+    public byte[] bucketKey(final byte[] prefix) {
+        final var cached = encodedBucketKey;
+        if (cached != null && cached.prefix() == prefix) {
+            return cached.bucketKey();
+        }
+        final var bucketKey = encodedKey != null
+                ? RateLimitKeys.bucketKeyBytes(prefix, encodedKey, route)
+                : RateLimitKeys.bucketKeyBytes(prefix, key, route);
+        encodedBucketKey = new EncodedBucketKey(prefix, bucketKey);
+        return bucketKey;
+    }
+
+    /**
+     * A bucket key together with the prefix it was encoded under.
+     */
+    private record EncodedBucketKey(byte[] prefix, byte[] bucketKey) {
+    }
 }
@@ -0,0 +1,50 @@
+package com.siddharthgawas.apigateway.ratelimiter.dto;
+
+/**
+ * Represents the limit applied to a single rate limit bucket.
+ * <p>
+ * The bucket refills at {@code limit} tokens per minute and holds up to {@code limit + burst}
+ * tokens, so a client that has been idle may send {@code burst} requests beyond its steady rate.
+ *
+ * @param limit The number of tokens refilled per minute.
+ * @param burst The number of tokens the bucket holds beyond one minute of refill.
+ */
+public record RateLimitRule(long limit, long burst) {
+
+    public RateLimitRule {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Rate limit must be positive: " + limit);
+        }
+        if (burst < 0) {
+            throw new IllegalArgumentException("Rate limit burst must not be negative: " + burst);
+        }
+    }
+
+    /**
+     * Returns a rule refilling the given number of tokens per minute without burst.
+     *
+     * @param limit the number of tokens refilled per minute
+     * @return the rule
+     */
+    public static RateLimitRule of(final long limit) {
+        return new RateLimitRule(limit, 0);
+    }
+
+    /**
+     * Returns the maximum number of tokens the bucket holds.
+     *
+     * @return the bucket capacity
+     */
+    public long capacity() {
+        return limit + burst;
+    }
+
+    /**
+     * Returns the number of tokens refilled per minute.
+     *
+     * @return the refill rate
+     */
+    public long refillPerMinute() {
+        return limit;
+    }
+}
@@ -0,0 +1,278 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import io.lettuce.core.cluster.SlotHash;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * BatchingRateLimitStrategy coalesces concurrent rate limit checks into multi-key Redis calls.
+ * <p>
+ * Checks are queued and drained by a single dispatcher thread. A batch is sent once it holds
+ * {@code maxBatchSize} checks or {@code maxDelayMicros} has passed since its first check, whichever
+ * comes first. While a batch is in flight the next one accumulates, so batches grow with load.
+ * Each caller waits on its own future, which is completed from the batch result.
+ * <p>
+ * A check that cannot be handed to a running dispatcher, because the strategy was closed or the
+ * dispatcher died, is failed rather than left waiting, and no caller waits longer than
+ * {@value #RESULT_TIMEOUT_MILLIS} ms for its batch.
+ */
+@Slf4j
+public class BatchingRateLimitStrategy implements RateLimitStrategy, AutoCloseable {
+
+    private static final int QUEUE_CAPACITY_PER_BATCH = 64;
+
+    static final long RESULT_TIMEOUT_MILLIS = 5_000;
+
+    private final TokenBucketRateLimitStrategy redisStrategy;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    private final BlockingQueue<PendingCheck> queue;
+
+    private final Thread dispatcher;
+
+    private volatile boolean running = true;
+
+    /**
+     * Whether batches are split by Redis Cluster hash slot. Must be set before the first check when
+     * Redis runs as a cluster, which rejects scripts whose keys span slots.
+     */
+    @Setter
+    private volatile boolean groupBySlot;
+
+    /**
+     * Constructs a BatchingRateLimitStrategy and starts its dispatcher thread.
+     *
+     * @param redisStrategy  the Redis token bucket the batches are checked against
+     * @param maxBatchSize   the maximum number of checks per Redis call
+     * @param maxDelayMicros the maximum time a check waits for its batch to fill
+     * @param threadFactory  the factory for the dispatcher thread
+     */
+    public BatchingRateLimitStrategy(final TokenBucketRateLimitStrategy redisStrategy,
+                                     final int maxBatchSize,
+                                     final long maxDelayMicros,
+                                     final ThreadFactory threadFactory) {
+        this.redisStrategy = redisStrategy;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        this.queue = new ArrayBlockingQueue<>(maxBatchSize * QUEUE_CAPACITY_PER_BATCH);
+        this.dispatcher = threadFactory.newThread(this::dispatch);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Checks if the quota is exceeded, waiting for the batch the check is part of.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return true if the quota is exceeded, false otherwise.
+     */
+    @Override
+    public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+        return !checkQuota(rateLimitProps).allowed();
+    }
+
+    /**
+     * Checks the quota, waiting for the batch the check is part of.
+     * <p>
+     * If the queue is full the check is sent to Redis on its own.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the decision.
+     */
+    @Override
+    public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+        final var check = new PendingCheck(TokenBucketRateLimitStrategy.encodedBucketKey(rateLimitProps),
+                rateLimitProps.getRule());
+        if (!running || !queue.offer(check)) {
+            return redisStrategy.checkQuota(rateLimitProps);
+        }
+        failIfStopped(check);
+        try {
+            return check.result.get(RESULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(exception.getCause());
+        } catch (TimeoutException exception) {
+            check.result.completeExceptionally(exception);
+            throw new IllegalStateException("Batched rate limit check timed out", exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batched rate limit check", exception);
+        }
+    }
+
+    /**
+     * Queues the check and returns a stage completed from the batch result, without blocking.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return a stage completed with the decision.
+     */
+    @Override
+    public CompletionStage<RateLimitDecision> checkQuotaAsync(final RateLimitProps rateLimitProps) {
+        final var check = new PendingCheck(TokenBucketRateLimitStrategy.encodedBucketKey(rateLimitProps),
+                rateLimitProps.getRule());
+        if (!running || !queue.offer(check)) {
+            return redisStrategy.checkQuotaAsync(rateLimitProps);
+        }
+        failIfStopped(check);
+        return check.result.orTimeout(RESULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fails a queued check if the dispatcher stopped after the caller found it running, since the
+     * dispatcher may have drained the queue before the check was added.
+     */
+    private void failIfStopped(final PendingCheck check) {
+        if (!running) {
+            queue.remove(check);
+            check.result.completeExceptionally(new IllegalStateException("Rate limit batching stopped"));
+        }
+    }
+
+    /**
+     * Stops the dispatcher thread. Checks still queued are failed.
+     */
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    /**
+     * Dispatcher loop: drains the queue into batches and completes each check from the batch result.
+     * However the loop ends, the strategy stops taking checks and the checks left are failed.
+     */
+    private void dispatch() {
+        final List<PendingCheck> batch = new ArrayList<>(maxBatchSize);
+        final List<byte[]> keys = new ArrayList<>(maxBatchSize);
+        final List<RateLimitRule> rules = new ArrayList<>(maxBatchSize);
+        try {
+            while (running) {
+                try {
+                    collect(batch);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (groupBySlot) {
+                    sendBySlot(batch, keys, rules);
+                } else {
+                    send(batch, keys, rules);
+                }
+                batch.clear();
+            }
+        } finally {
+            if (running) {
+                log.error("Rate limit batch dispatcher stopped unexpectedly; checking directly from now on");
+            }
+            running = false;
+            final var failure = new IllegalStateException("Rate limit batching stopped");
+            batch.forEach(check -> check.result.completeExceptionally(failure));
+            PendingCheck check;
+            while ((check = queue.poll()) != null) {
+                check.result.completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Sends the batch as one call per cluster hash slot, since a script may only touch keys of one slot.
+     * The sort is stable, so checks of the same bucket keep their queue order.
+     */
+    private void sendBySlot(final List<PendingCheck> batch, final List<byte[]> keys, final List<RateLimitRule> rules) {
+        batch.forEach(check -> check.slot = SlotHash.getSlot(check.bucketKey));
+        batch.sort(Comparator.comparingInt(check -> check.slot));
+        int from = 0;
+        while (from < batch.size()) {
+            int to = from + 1;
+            while (to < batch.size() && batch.get(to).slot == batch.get(from).slot) {
+                to++;
+            }
+            send(batch.subList(from, to), keys, rules);
+            from = to;
+        }
+    }
+
+    /**
+     * Checks the given checks in one Redis call and completes each from the result.
+     */
+    private void send(final List<PendingCheck> checks, final List<byte[]> keys, final List<RateLimitRule> rules) {
+        keys.clear();
+        rules.clear();
+        for (final var check : checks) {
+            keys.add(check.bucketKey);
+            rules.add(check.rule);
+        }
+        try {
+            final var decisions = redisStrategy.checkQuota(keys, rules);
+            for (int i = 0; i < decisions.length; i++) {
+                checks.get(i).result.complete(decisions[i]);
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Batched rate limit check failed: {}", exception.getMessage());
+            checks.forEach(check -> check.result.completeExceptionally(exception));
+        }
+    }
+
+    /**
+     * Blocks for the first check, then collects more until the batch is full or the delay has passed.
+     */
+    private void collect(final List<PendingCheck> batch) throws InterruptedException {
+        batch.add(queue.take());
+        final var deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            final var remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            final var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * A queued check and the future its caller waits on.
+     */
+    private static final class PendingCheck {
+
+        private final byte[] bucketKey;
+
+        private final RateLimitRule rule;
+
+        private final CompletableFuture<RateLimitDecision> result = new CompletableFuture<>();
+
+        private int slot;
+
+        private PendingCheck(final byte[] bucketKey, final RateLimitRule rule) {
+            this.bucketKey = bucketKey;
+            this.rule = rule;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * CircuitBreakerRateLimitStrategy keeps rate limiting available while Redis is slow or down.
+ * <p>
+ * Checks go to the Redis strategy while the circuit is closed. A check that fails, or that takes
+ * longer than {@code callTimeoutMillis}, counts as a failure; after {@code failureThreshold}
+ * consecutive failures the circuit opens and checks are decided by the local fallback for
+ * {@code openMillis}, without waiting on Redis. Then a single probe check is let through: if it
+ * succeeds the circuit closes, otherwise it stays open for another period.
+ * <p>
+ * A check that fails is answered by the fallback too, so a Redis outage never turns into errors for
+ * clients. Slow checks that succeed keep their Redis decision. Async checks are bounded by the call
+ * timeout as well and fall back when it passes.
+ */
+@Slf4j
+public class CircuitBreakerRateLimitStrategy implements RateLimitStrategy, AutoCloseable {
+
+    private static final int CLOSED = 0;
+
+    private static final int OPEN = 1;
+
+    private static final int HALF_OPEN = 2;
+
+    private final RateLimitStrategy redisStrategy;
+
+    private final RateLimitStrategy fallbackStrategy;
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private final long callTimeoutNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile long openUntilNanos;
+
+    /**
+     * Metrics the checks decided by the fallback are recorded in.
+     */
+    @Setter
+    private GatewayMetrics metrics = GatewayMetrics.NOOP;
+
+    /**
+     * Constructs a CircuitBreakerRateLimitStrategy.
+     *
+     * @param redisStrategy     the strategy checked while Redis is healthy
+     * @param fallbackStrategy  the in-process strategy checked while it is not
+     * @param failureThreshold  the number of consecutive failed or slow checks that opens the circuit
+     * @param openMillis        how long the circuit stays open before a probe check is let through
+     * @param callTimeoutMillis the time after which a check counts as failed
+     */
+    public CircuitBreakerRateLimitStrategy(final RateLimitStrategy redisStrategy,
+                                           final RateLimitStrategy fallbackStrategy,
+                                           final int failureThreshold,
+                                           final long openMillis,
+                                           final long callTimeoutMillis) {
+        this(redisStrategy, fallbackStrategy, failureThreshold, openMillis, callTimeoutMillis, System::nanoTime);
+    }
+
+    CircuitBreakerRateLimitStrategy(final RateLimitStrategy redisStrategy,
+                                    final RateLimitStrategy fallbackStrategy,
+                                    final int failureThreshold,
+                                    final long openMillis,
+                                    final long callTimeoutMillis,
+                                    final LongSupplier nanoClock) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive");
+        }
+        this.redisStrategy = redisStrategy;
+        this.fallbackStrategy = fallbackStrategy;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.callTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(callTimeoutMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Checks if the quota is exceeded, in Redis while the circuit is closed and locally otherwise.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return true if the quota is exceeded, false otherwise.
+     */
+    @Override
+    public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+        return !checkQuota(rateLimitProps).allowed();
+    }
+
+    /**
+     * Checks the quota in Redis while the circuit is closed and locally otherwise.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the decision.
+     */
+    @Override
+    public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+        if (!tryAcquirePermission()) {
+            return fallback(rateLimitProps);
+        }
+        final var start = nanoClock.getAsLong();
+        final RateLimitDecision decision;
+        try {
+            decision = redisStrategy.checkQuota(rateLimitProps);
+        } catch (RuntimeException exception) {
+            onFailure(exception.getMessage());
+            return fallback(rateLimitProps);
+        }
+        if (nanoClock.getAsLong() - start > callTimeoutNanos) {
+            onFailure("check took longer than the call timeout");
+        } else {
+            onSuccess();
+        }
+        return decision;
+    }
+
+    /**
+     * Checks the quota in Redis without blocking while the circuit is closed, and locally otherwise.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return a stage completed with the decision.
+     */
+    @Override
+    public CompletionStage<RateLimitDecision> checkQuotaAsync(final RateLimitProps rateLimitProps) {
+        if (!tryAcquirePermission()) {
+            return CompletableFuture.completedFuture(fallback(rateLimitProps));
+        }
+        final CompletableFuture<RateLimitDecision> check;
+        try {
+            check = redisStrategy.checkQuotaAsync(rateLimitProps).toCompletableFuture();
+        } catch (RuntimeException exception) {
+            onFailure(exception.getMessage());
+            return CompletableFuture.completedFuture(fallback(rateLimitProps));
+        }
+        return check.copy()
+                .orTimeout(callTimeoutNanos, TimeUnit.NANOSECONDS)
+                .handle((decision, failure) -> {
+                    if (failure == null) {
+                        onSuccess();
+                        return decision;
+                    }
+                    onFailure(failure.getMessage());
+                    return fallback(rateLimitProps);
+                });
+    }
+
+    /**
+     * Returns whether the circuit is open or a probe check is in flight.
+     *
+     * @return true if checks are decided locally, false if they go to Redis
+     */
+    public boolean isOpen() {
+        return state.get() != CLOSED;
+    }
+
+    /**
+     * Closes the Redis strategy if it holds resources.
+     */
+    @Override
+    public void close() throws Exception {
+        if (redisStrategy instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Returns whether a check may go to Redis, claiming the probe once the open period has passed.
+     */
+    private boolean tryAcquirePermission() {
+        final var current = state.get();
+        if (current == CLOSED) {
+            return true;
+        }
+        return current == OPEN && nanoClock.getAsLong() - openUntilNanos >= 0
+                && state.compareAndSet(OPEN, HALF_OPEN);
+    }
+
+    private void onSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (state.get() != CLOSED && state.getAndSet(CLOSED) != CLOSED) {
+            log.info("Redis rate limit checks recovered, closing circuit");
+        }
+    }
+
+    private void onFailure(final String reason) {
+        final var current = state.get();
+        if (current == HALF_OPEN || (current == CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold)) {
+            openUntilNanos = nanoClock.getAsLong() + openNanos;
+            if (state.compareAndSet(current, OPEN)) {
+                log.warn("Redis rate limit checks failing ({}), deciding locally for {} ms", reason,
+                        TimeUnit.NANOSECONDS.toMillis(openNanos));
+            }
+        }
+    }
+
+    private RateLimitDecision fallback(final RateLimitProps rateLimitProps) {
+        metrics.recordRateLimitFallback();
+        return fallbackStrategy.checkQuota(rateLimitProps);
+    }
+}
@@ -0,0 +1,194 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import lombok.Setter;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GcraRateLimitStrategy implements the generic cell rate algorithm for rate limiting.
+ * <p>
+ * Each key holds a single integer in Redis: the theoretical arrival time (TAT) of the next request,
+ * in microseconds of the Redis server clock. A request is allowed when the TAT it would push forward
+ * stays within the burst tolerance of now; allowed requests advance the TAT by one emission interval.
+ * The key expires when the TAT falls behind the clock, at which point the bucket would be full.
+ * <p>
+ * The emission interval is one minute divided by the rule's refill rate, and the tolerance lets
+ * {@link RateLimitRule#capacity()} requests through back to back, so limits behave like the token
+ * bucket with the same rule while the state is one plain string key instead of a hash. The
+ * remaining quota and retry time of a decision follow from the TAT, so they come from the same call.
+ * Blocking checks run as a {@link RateLimitScript} with the arguments of each rule encoded once.
+ */
+public class GcraRateLimitStrategy implements RateLimitStrategy {
+
+    private static final String LUA_SCRIPT = """
+            local emission = tonumber(ARGV[1])
+            local tolerance = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local tat = tonumber(redis.call('GET', KEYS[1]))
+            if not tat or tat < now then
+                tat = now
+            end
+            local nextTat = tat + emission
+            local window = tolerance + emission
+            if nextTat - now > window then
+                return {1, 0, math.ceil((tat - now) / 1000), math.ceil((nextTat - now - window) / 1000)}
+            end
+            redis.call('SET', KEYS[1], string.format('%d', nextTat), 'PX', math.ceil((nextTat - now) / 1000))
+            return {0, math.floor((window - (nextTat - now)) / emission), math.ceil((nextTat - now) / 1000), 0}
+            """;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REACTIVE_SCRIPT = RedisScript.of(LUA_SCRIPT, List.class);
+
+    private static final RateLimitScript SYNC_SCRIPT = new RateLimitScript(LUA_SCRIPT);
+
+    private static final byte[] KEY_PREFIX = RateLimitKeys.GCRA_PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+    private static final long MICROS_PER_MINUTE = 60_000_000L;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+    private final RateLimitRule defaultRule;
+
+    private final Map<RateLimitRule, byte[][]> encodedRules = new ConcurrentHashMap<>();
+
+    /**
+     * Metrics the Redis script calls are recorded in.
+     */
+    @Setter
+    private GatewayMetrics metrics = GatewayMetrics.NOOP;
+
+    public GcraRateLimitStrategy(final RedisTemplate<String, Object> redisTemplate, final Long maxTokenPerMinute) {
+        this(redisTemplate, null, maxTokenPerMinute);
+    }
+
+    public GcraRateLimitStrategy(final RedisTemplate<String, Object> redisTemplate,
+                                 final ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+                                 final Long maxTokenPerMinute) {
+        this.redisTemplate = redisTemplate;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.defaultRule = RateLimitRule.of(maxTokenPerMinute);
+    }
+
+    /**
+     * Checks if the quota is exceeded for the given rate limit properties.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return true if the quota is exceeded, false otherwise.
+     */
+    @Override
+    public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+        return !checkQuota(rateLimitProps).allowed();
+    }
+
+    /**
+     * Checks the quota and returns the decision with the state of the key.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the decision.
+     */
+    @Override
+    public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+        final var rule = ruleOf(rateLimitProps);
+        final var start = System.nanoTime();
+        final List<?> result;
+        try {
+            final var args = encodedRules.computeIfAbsent(rule, GcraRateLimitStrategy::encode);
+            result = SYNC_SCRIPT.execute(redisTemplate, 1, rateLimitProps.bucketKey(KEY_PREFIX), args[0],
+                    args[1]);
+        } catch (RuntimeException exception) {
+            metrics.recordRedisCall(GatewayMetrics.RedisOperation.SINGLE, true, System.nanoTime() - start);
+            throw exception;
+        }
+        metrics.recordRedisCall(GatewayMetrics.RedisOperation.SINGLE, false, System.nanoTime() - start);
+        return RateLimitScriptResults.decision(result, 0, rule.capacity());
+    }
+
+    /**
+     * Checks the quota through the reactive Redis client, without blocking the calling thread.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return a stage completed with the decision.
+     */
+    @Override
+    public CompletionStage<RateLimitDecision> checkQuotaAsync(final RateLimitProps rateLimitProps) {
+        if (Objects.isNull(reactiveRedisTemplate)) {
+            return RateLimitStrategy.super.checkQuotaAsync(rateLimitProps);
+        }
+        final var rule = ruleOf(rateLimitProps);
+        final var start = System.nanoTime();
+        return reactiveRedisTemplate.execute(REACTIVE_SCRIPT, List.of(bucketKey(rateLimitProps)),
+                        List.of(String.valueOf(emissionMicros(rule)), String.valueOf(toleranceMicros(rule))))
+                .collectList()
+                .doOnSuccess(result -> metrics.recordRedisCall(GatewayMetrics.RedisOperation.ASYNC, false,
+                        System.nanoTime() - start))
+                .doOnError(failure -> metrics.recordRedisCall(GatewayMetrics.RedisOperation.ASYNC, true,
+                        System.nanoTime() - start))
+                .map(result -> RateLimitScriptResults.decision(RateLimitScriptResults.flatten(result), 0,
+                        rule.capacity()))
+                .toFuture();
+    }
+
+    /**
+     * Returns the time between two requests at the rule's steady rate.
+     *
+     * @param rule the rate limit rule
+     * @return the emission interval in microseconds, at least one
+     */
+    static long emissionMicros(final RateLimitRule rule) {
+        return Math.max(1, MICROS_PER_MINUTE / rule.refillPerMinute());
+    }
+
+    /**
+     * Returns how far ahead of now the theoretical arrival time may be, so that a full bucket of
+     * requests is allowed back to back.
+     *
+     * @param rule the rate limit rule
+     * @return the burst tolerance in microseconds
+     */
+    static long toleranceMicros(final RateLimitRule rule) {
+        return emissionMicros(rule) * (rule.capacity() - 1);
+    }
+
+    /**
+     * Encodes the emission interval and tolerance of a rule as script arguments.
+     */
+    private static byte[][] encode(final RateLimitRule rule) {
+        return new byte[][]{RateLimitScript.encode(emissionMicros(rule)),
+                RateLimitScript.encode(toleranceMicros(rule))};
+    }
+
+    /**
+     * Returns the rule of the request, or the default rule if it carries none.
+     */
+    private RateLimitRule ruleOf(final RateLimitProps rateLimitProps) {
+        return Objects.requireNonNullElse(rateLimitProps.getRule(), defaultRule);
+    }
+
+    /**
+     * Returns the Redis key of the theoretical arrival time for the given rate limit properties.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the key, as encoded by {@link RateLimitKeys} under {@link RateLimitKeys#GCRA_PREFIX}.
+     */
+    static String bucketKey(final RateLimitProps rateLimitProps) {
+        return new String(rateLimitProps.bucketKey(KEY_PREFIX), StandardCharsets.US_ASCII);
+    }
+}
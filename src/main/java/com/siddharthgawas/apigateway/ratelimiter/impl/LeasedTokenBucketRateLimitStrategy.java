@@ -0,0 +1,200 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LeasedTokenBucketRateLimitStrategy decides most requests in-process from tokens leased out of the
+ * Redis token bucket.
+ * <p>
+ * Each key holds a local allowance that is consumed with a CAS on a single long. When the allowance
+ * drops to half a lease, a new lease of {@code leaseSize} tokens is taken from the Redis bucket in the
+ * background. While a lease is in flight a node may admit up to {@code maxOverdraft} requests beyond
+ * its allowance; the overdraft is repaid from the next lease, so it is the only over-admission this
+ * strategy adds across nodes. When the Redis bucket can no longer grant a full lease the key is near
+ * exhaustion, and requests fall back to the exact per-request check of
+ * {@link TokenBucketRateLimitStrategy} until a full lease is granted again.
+ */
+@Slf4j
+public class LeasedTokenBucketRateLimitStrategy implements RateLimitStrategy {
+
+    private static final long LEASE_RETRY_INTERVAL_MS = 1000;
+
+    private static final long IDLE_LEASE_TIMEOUT_MS = 60_000;
+
+    private final TokenBucketRateLimitStrategy redisStrategy;
+
+    private final long leaseSize;
+
+    private final long maxOverdraft;
+
+    private final Executor refillExecutor;
+
+    private final Map<String, LocalLease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a LeasedTokenBucketRateLimitStrategy.
+     *
+     * @param redisStrategy  the Redis token bucket leases are taken from and exact checks fall back to
+     * @param leaseSize      the number of tokens taken from Redis per lease
+     * @param maxOverdraft   the number of requests a node may admit beyond its allowance while a lease is in flight
+     * @param refillExecutor the executor on which leases are taken
+     */
+    public LeasedTokenBucketRateLimitStrategy(final TokenBucketRateLimitStrategy redisStrategy,
+                                              final long leaseSize,
+                                              final long maxOverdraft,
+                                              final Executor refillExecutor) {
+        this.redisStrategy = redisStrategy;
+        this.leaseSize = leaseSize;
+        this.maxOverdraft = maxOverdraft;
+        this.refillExecutor = refillExecutor;
+    }
+
+    /**
+     * Checks if the quota is exceeded, using the local allowance when possible.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return true if the quota is exceeded, false otherwise.
+     */
+    @Override
+    public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+        return !tryAdmitLocally(rateLimitProps) && redisStrategy.isQuotaExceeded(rateLimitProps);
+    }
+
+    /**
+     * Checks the quota using the local allowance when possible.
+     * <p>
+     * Requests admitted locally do not learn the state of the Redis bucket; requests decided by the
+     * exact check do.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the decision.
+     */
+    @Override
+    public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+        if (tryAdmitLocally(rateLimitProps)) {
+            return RateLimitDecision.ALLOWED;
+        }
+        return redisStrategy.checkQuota(rateLimitProps);
+    }
+
+    /**
+     * Checks the quota using the local allowance when possible, falling back to a non-blocking
+     * exact check otherwise.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return a stage completed with the decision.
+     */
+    @Override
+    public CompletionStage<RateLimitDecision> checkQuotaAsync(final RateLimitProps rateLimitProps) {
+        if (tryAdmitLocally(rateLimitProps)) {
+            return CompletableFuture.completedFuture(RateLimitDecision.ALLOWED);
+        }
+        return redisStrategy.checkQuotaAsync(rateLimitProps);
+    }
+
+    /**
+     * Removes leases that have not been used for a while.
+     * <p>
+     * Tokens left in an evicted lease are not returned to Redis; they are bounded by one lease per
+     * key and node.
+     */
+    public void evictIdleLeases() {
+        final var idleSince = System.currentTimeMillis() - IDLE_LEASE_TIMEOUT_MS;
+        leases.values().removeIf(lease -> lease.lastAccessMs < idleSince);
+    }
+
+    /**
+     * Admits the request from the local allowance if possible, scheduling a refill when it runs low.
+     *
+     * @return true if the request was admitted locally, false if it needs the exact Redis check
+     */
+    private boolean tryAdmitLocally(final RateLimitProps rateLimitProps) {
+        final var lease = leases.computeIfAbsent(TokenBucketRateLimitStrategy.bucketKey(rateLimitProps),
+                key -> new LocalLease());
+        final var now = System.currentTimeMillis();
+        lease.lastAccessMs = now;
+        final var exact = lease.exact;
+        if (lease.tryAcquire(exact ? 0 : maxOverdraft)) {
+            if (!exact && lease.available.get() <= leaseSize / 2) {
+                refill(lease, rateLimitProps, now);
+            }
+            return true;
+        }
+        if (!exact || now >= lease.nextLeaseAttemptMs) {
+            refill(lease, rateLimitProps, now);
+        }
+        return false;
+    }
+
+    /**
+     * Takes a new lease from Redis in the background, unless one is already in flight.
+     * <p>
+     * The lease also repays any overdraft, so the amount requested is {@code leaseSize} plus the
+     * current debt.
+     */
+    private void refill(final LocalLease lease, final RateLimitProps rateLimitProps, final long now) {
+        if (!lease.refillInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        lease.nextLeaseAttemptMs = now + LEASE_RETRY_INTERVAL_MS;
+        try {
+            refillExecutor.execute(() -> {
+                try {
+                    final var requested = leaseSize + Math.max(0, -lease.available.get());
+                    final var granted = redisStrategy.acquire(rateLimitProps, requested);
+                    lease.available.addAndGet(granted);
+                    lease.exact = granted < requested;
+                } catch (RuntimeException exception) {
+                    log.warn("Failed to lease tokens from Redis: {}", exception.getMessage());
+                    lease.exact = true;
+                } finally {
+                    lease.refillInFlight.set(false);
+                }
+            });
+        } catch (RuntimeException exception) {
+            log.warn("Failed to schedule lease refill: {}", exception.getMessage());
+            lease.refillInFlight.set(false);
+        }
+    }
+
+    /**
+     * Local allowance of a single key.
+     */
+    private static final class LocalLease {
+
+        private final AtomicLong available = new AtomicLong();
+
+        private final AtomicBoolean refillInFlight = new AtomicBoolean();
+
+        private volatile boolean exact = false;
+
+        private volatile long nextLeaseAttemptMs = 0;
+
+        private volatile long lastAccessMs = 0;
+
+        /**
+         * Takes one token from the allowance, allowing it to go down to {@code -overdraft}.
+         */
+        private boolean tryAcquire(final long overdraft) {
+            long current;
+            do {
+                current = available.get();
+                if (current <= -overdraft) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - 1));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * LocalTokenBucketRateLimitStrategy keeps token buckets in process memory, each sized to this node's
+ * share of the global quota.
+ * <p>
+ * It is the fallback used while Redis is unavailable. Every node of a gateway running
+ * {@code nodeCount} replicas refills and holds {@code 1 / nodeCount} of each rule, so with traffic
+ * spread evenly by the load balancer the cluster as a whole stays close to the global limit without
+ * coordinating. Limits are approximate: skewed traffic is rejected earlier on busy nodes, and a
+ * node's bucket starts full when it is first used.
+ */
+public class LocalTokenBucketRateLimitStrategy implements RateLimitStrategy {
+
+    private static final long IDLE_BUCKET_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final RateLimitRule defaultRule;
+
+    private final int nodeCount;
+
+    private final LongSupplier nanoClock;
+
+    private final Map<String, LocalBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a LocalTokenBucketRateLimitStrategy.
+     *
+     * @param maxTokenPerMinute the limit of requests carrying no rule
+     * @param nodeCount         the number of gateway nodes sharing each quota
+     */
+    public LocalTokenBucketRateLimitStrategy(final Long maxTokenPerMinute, final int nodeCount) {
+        this(maxTokenPerMinute, nodeCount, System::nanoTime);
+    }
+
+    LocalTokenBucketRateLimitStrategy(final Long maxTokenPerMinute, final int nodeCount, final LongSupplier nanoClock) {
+        if (nodeCount <= 0) {
+            throw new IllegalArgumentException("nodeCount must be positive");
+        }
+        this.defaultRule = RateLimitRule.of(maxTokenPerMinute);
+        this.nodeCount = nodeCount;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Checks if this node's share of the quota is exceeded.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return true if the quota is exceeded, false otherwise.
+     */
+    @Override
+    public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+        return !checkQuota(rateLimitProps).allowed();
+    }
+
+    /**
+     * Checks this node's share of the quota and returns the decision with the state of its bucket.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the decision.
+     */
+    @Override
+    public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+        final var rule = Objects.requireNonNullElse(rateLimitProps.getRule(), defaultRule);
+        final var capacity = Math.max(1, ceilDiv(rule.capacity(), nodeCount));
+        final var refillPerNano = rule.refillPerMinute() / (double) nodeCount / NANOS_PER_MINUTE;
+        final var bucket = buckets.computeIfAbsent(rateLimitProps.getKey() + '\0' + rateLimitProps.getRoute(),
+                key -> new LocalBucket(capacity, nanoClock.getAsLong()));
+        return bucket.take(capacity, refillPerNano, nanoClock.getAsLong());
+    }
+
+    /**
+     * Removes buckets that have not been used for a while; they would have refilled completely.
+     */
+    public void evictIdleBuckets() {
+        final var idleSince = nanoClock.getAsLong() - IDLE_BUCKET_TIMEOUT_NANOS;
+        buckets.values().removeIf(bucket -> bucket.lastAccessNanos - idleSince < 0);
+    }
+
+    /**
+     * Returns the number of buckets held.
+     *
+     * @return the bucket count
+     */
+    int size() {
+        return buckets.size();
+    }
+
+    private static long ceilDiv(final long value, final long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    /**
+     * Token bucket of a single key and route.
+     */
+    private static final class LocalBucket {
+
+        private double tokens;
+
+        private long lastRefillNanos;
+
+        private volatile long lastAccessNanos;
+
+        private LocalBucket(final long capacity, final long now) {
+            this.tokens = capacity;
+            this.lastRefillNanos = now;
+            this.lastAccessNanos = now;
+        }
+
+        private synchronized RateLimitDecision take(final long capacity, final double refillPerNano, final long now) {
+            lastAccessNanos = now;
+            tokens = Math.min(capacity, tokens + Math.max(0, now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+            if (tokens < 1) {
+                final var retryAfterMs = Math.max(1, toMillis((1 - tokens) / refillPerNano));
+                return new RateLimitDecision(false, capacity, 0, toMillis((capacity - tokens) / refillPerNano),
+                        retryAfterMs);
+            }
+            tokens -= 1;
+            return new RateLimitDecision(true, capacity, (long) tokens, toMillis((capacity - tokens) / refillPerNano),
+                    0);
+        }
+
+        private static long toMillis(final double nanos) {
+            return (long) Math.ceil(nanos / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A rate limit Lua script called with keys and arguments that are already encoded.
+ * <p>
+ * The script runs on the connection of a {@link RedisTemplate} rather than through its script
+ * executor, so nothing passes through the template's key and value serializers: bucket keys come
+ * from {@link com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys#bucketKeyBytes} and numbers are
+ * ASCII decimal bytes, which is what Lua's {@code tonumber} reads. Strategies encode the arguments of
+ * each rule once and reuse them, so a check encodes only its bucket key.
+ * <p>
+ * The script is invoked via EVALSHA, falling back to EVAL when it is not yet cached on the Redis
+ * server. Integer replies arrive as {@link Long}s.
+ */
+final class RateLimitScript {
+
+    private static final int CACHED_NUMBERS = 1024;
+
+    private static final byte[][] NUMBERS = new byte[CACHED_NUMBERS][];
+
+    static {
+        for (int i = 0; i < CACHED_NUMBERS; i++) {
+            NUMBERS[i] = Integer.toString(i).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final byte[] source;
+
+    private final byte[] sha1;
+
+    RateLimitScript(final String source) {
+        this.source = source.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = RedisScript.of(source).getSha1().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Runs the script.
+     *
+     * @param redisTemplate the template whose connection the script runs on
+     * @param numKeys       the number of keys at the start of {@code keysAndArgs}
+     * @param keysAndArgs   the keys followed by the arguments
+     * @return the reply of the script
+     */
+    List<?> execute(final RedisTemplate<?, ?> redisTemplate, final int numKeys, final byte[]... keysAndArgs) {
+        return redisTemplate.execute((RedisCallback<List<?>>) connection -> execute(connection, numKeys, keysAndArgs));
+    }
+
+    private List<?> execute(final RedisConnection connection, final int numKeys, final byte[][] keysAndArgs) {
+        try {
+            return connection.scriptingCommands().evalSha(sha1, ReturnType.MULTI, numKeys, keysAndArgs);
+        } catch (RuntimeException exception) {
+            if (!isNoScript(exception)) {
+                throw exception;
+            }
+            return connection.scriptingCommands().eval(source, ReturnType.MULTI, numKeys, keysAndArgs);
+        }
+    }
+
+    /**
+     * Encodes a number as a script argument.
+     *
+     * @param value the number
+     * @return its ASCII decimal representation; small numbers share a cached array that must not be modified
+     */
+    static byte[] encode(final long value) {
+        if (value >= 0 && value < CACHED_NUMBERS) {
+            return NUMBERS[(int) value];
+        }
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns whether Redis rejected an EVALSHA because the script is not cached.
+     */
+    private static boolean isNoScript(final Throwable exception) {
+        for (var cause = exception; Objects.nonNull(cause); cause = cause.getCause()) {
+            if (Objects.nonNull(cause.getMessage()) && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
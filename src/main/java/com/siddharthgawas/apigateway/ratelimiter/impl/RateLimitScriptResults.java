@@ -0,0 +1,64 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Decodes the results of the rate limit Lua scripts.
+ * <p>
+ * Every script answers a check with {@value #FIELDS} integers: whether the request is rejected (for the
+ * token bucket, the number of tokens it could not grant), the requests the bucket admits right now, the
+ * milliseconds until the bucket is full again and the milliseconds until a rejected request would be
+ * allowed. Multi-key scripts answer with one such group per key, back to back.
+ */
+final class RateLimitScriptResults {
+
+    static final int FIELDS = 4;
+
+    private RateLimitScriptResults() {
+    }
+
+    /**
+     * Returns the decision encoded at the given offset of a script result.
+     *
+     * @param result the script result
+     * @param offset the index of the decision's first field
+     * @param limit  the limit the script was called with
+     * @return the decision, {@link RateLimitDecision#REJECTED} if the script returned nothing
+     */
+    static RateLimitDecision decision(final List<?> result, final int offset, final long limit) {
+        if (Objects.isNull(result) || result.isEmpty()) {
+            return RateLimitDecision.REJECTED;
+        }
+        if (result.size() < offset + FIELDS) {
+            throw new IllegalStateException("Unexpected result from rate limit script");
+        }
+        final var allowed = longAt(result, offset) <= 0;
+        return new RateLimitDecision(allowed, limit, longAt(result, offset + 1), longAt(result, offset + 2),
+                allowed ? 0 : longAt(result, offset + 3));
+    }
+
+    /**
+     * Returns the integer at the given index of a script result.
+     *
+     * @param result the script result
+     * @param index  the index
+     * @return the integer
+     */
+    static long longAt(final List<?> result, final int index) {
+        return ((Number) result.get(index)).longValue();
+    }
+
+    /**
+     * Normalizes a script result collected from the reactive client, which emits a multi-bulk reply
+     * either as a single list or element by element.
+     *
+     * @param collected the collected emissions
+     * @return the script result
+     */
+    static List<?> flatten(final List<?> collected) {
+        return collected.size() == 1 && collected.get(0) instanceof List<?> result ? result : collected;
+    }
+}
@@ -0,0 +1,111 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * ShardedRateLimitStrategy spreads buckets across independent Redis nodes by consistent hashing.
+ * <p>
+ * Each shard is a complete strategy with its own Redis connection. Every shard owns
+ * {@value #VIRTUAL_NODES} points on a 64-bit hash ring, placed by the hash of its name, and a bucket
+ * belongs to the shard owning the first point at or after the hash of its key and route. A bucket
+ * therefore always lives on exactly one node, so limits stay exact, and adding a shard moves only
+ * the buckets that fall into its arcs. Throughput grows with the number of shards since no call
+ * spans more than one node.
+ */
+@Slf4j
+public class ShardedRateLimitStrategy implements RateLimitStrategy, AutoCloseable {
+
+    static final int VIRTUAL_NODES = 160;
+
+    private final List<RateLimitStrategy> shards;
+
+    private final long[] points;
+
+    private final int[] owners;
+
+    /**
+     * Constructs a ShardedRateLimitStrategy.
+     *
+     * @param shardNames the stable name of each shard, e.g. its Redis URI
+     * @param shards     the strategy of each shard, in the same order as the names
+     */
+    public ShardedRateLimitStrategy(final List<String> shardNames, final List<? extends RateLimitStrategy> shards) {
+        if (shardNames.isEmpty() || shardNames.size() != shards.size()) {
+            throw new IllegalArgumentException("Every shard needs exactly one name");
+        }
+        this.shards = List.copyOf(shards);
+        final var ring = new long[shardNames.size() * VIRTUAL_NODES][];
+        for (int shard = 0; shard < shardNames.size(); shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                ring[shard * VIRTUAL_NODES + node] = new long[]{
+                        RateLimitKeys.hash(shardNames.get(shard) + '#' + node), shard};
+            }
+        }
+        Arrays.sort(ring, (left, right) -> Long.compare(left[0], right[0]));
+        this.points = new long[ring.length];
+        this.owners = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = ring[i][0];
+            owners[i] = (int) ring[i][1];
+        }
+    }
+
+    @Override
+    public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+        return shardOf(rateLimitProps).isQuotaExceeded(rateLimitProps);
+    }
+
+    @Override
+    public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+        return shardOf(rateLimitProps).checkQuota(rateLimitProps);
+    }
+
+    @Override
+    public CompletionStage<RateLimitDecision> checkQuotaAsync(final RateLimitProps rateLimitProps) {
+        return shardOf(rateLimitProps).checkQuotaAsync(rateLimitProps);
+    }
+
+    /**
+     * Closes the shards that hold resources, such as batching dispatcher threads.
+     */
+    @Override
+    public void close() {
+        for (final var shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception exception) {
+                    log.warn("Failed to close rate limit shard: {}", exception.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the shard owning the bucket of the given key and route.
+     *
+     * @param key   the rate limit key
+     * @param route the route scope
+     * @return the shard index
+     */
+    int shardIndex(final String key, final String route) {
+        final var hash = RateLimitKeys.shardHash(key, route);
+        var index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    private RateLimitStrategy shardOf(final RateLimitProps rateLimitProps) {
+        return shards.get(shardIndex(rateLimitProps.getKey(), rateLimitProps.getRoute()));
+    }
+}
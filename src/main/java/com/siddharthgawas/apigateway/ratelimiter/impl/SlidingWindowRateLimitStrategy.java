@@ -0,0 +1,182 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import lombok.Setter;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SlidingWindowRateLimitStrategy implements a sliding window counter for rate limiting.
+ * <p>
+ * Each key holds a Redis hash with the index of the current one-minute window, the number of
+ * requests allowed in it and the number allowed in the previous window. A request is allowed while
+ * the previous count, weighted by the fraction of the previous window still inside the sliding
+ * minute, plus the current count stays below the rule's capacity. This avoids the doubled bursts a
+ * fixed window allows around its boundary, at the cost of assuming the previous window's requests
+ * were evenly spread. A rejected request is told when the previous window's weight will have decayed
+ * enough to admit it. Blocking checks run as a {@link RateLimitScript} with the capacity of each rule
+ * encoded once.
+ */
+public class SlidingWindowRateLimitStrategy implements RateLimitStrategy {
+
+    private static final String LUA_SCRIPT = """
+            local limit = tonumber(ARGV[1])
+            local windowMs = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local window = math.floor(now / windowMs)
+            local state = redis.call('HMGET', KEYS[1], 'w', 'c', 'p')
+            local storedWindow = tonumber(state[1])
+            local current = tonumber(state[2]) or 0
+            local previous = tonumber(state[3]) or 0
+            if storedWindow ~= window then
+                if storedWindow == window - 1 then
+                    previous = current
+                else
+                    previous = 0
+                end
+                current = 0
+            end
+            local elapsed = now - window * windowMs
+            local estimate = previous * (1 - elapsed / windowMs) + current
+            local windowEndMs = windowMs - elapsed
+            if estimate + 1 > limit then
+                local retryMs = windowEndMs
+                if current + 1 <= limit and previous > 0 then
+                    retryMs = math.ceil(windowMs * (1 - (limit - current - 1) / previous) - elapsed)
+                end
+                return {1, 0, windowEndMs + windowMs, math.max(1, retryMs)}
+            end
+            redis.call('HSET', KEYS[1], 'w', window, 'c', current + 1, 'p', previous)
+            redis.call('PEXPIRE', KEYS[1], 2 * windowMs)
+            return {0, math.floor(limit - estimate - 1), windowEndMs + windowMs, 0}
+            """;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REACTIVE_SCRIPT = RedisScript.of(LUA_SCRIPT, List.class);
+
+    private static final RateLimitScript SYNC_SCRIPT = new RateLimitScript(LUA_SCRIPT);
+
+    private static final byte[] KEY_PREFIX = RateLimitKeys.SLIDING_WINDOW_PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+    private static final long WINDOW_SIZE_MS = 60_000;
+
+    private static final byte[] ENCODED_WINDOW_SIZE = RateLimitScript.encode(WINDOW_SIZE_MS);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+    private final RateLimitRule defaultRule;
+
+    private final Map<RateLimitRule, byte[]> encodedCapacities = new ConcurrentHashMap<>();
+
+    /**
+     * Metrics the Redis script calls are recorded in.
+     */
+    @Setter
+    private GatewayMetrics metrics = GatewayMetrics.NOOP;
+
+    public SlidingWindowRateLimitStrategy(final RedisTemplate<String, Object> redisTemplate,
+                                          final Long maxTokenPerMinute) {
+        this(redisTemplate, null, maxTokenPerMinute);
+    }
+
+    public SlidingWindowRateLimitStrategy(final RedisTemplate<String, Object> redisTemplate,
+                                          final ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+                                          final Long maxTokenPerMinute) {
+        this.redisTemplate = redisTemplate;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.defaultRule = RateLimitRule.of(maxTokenPerMinute);
+    }
+
+    /**
+     * Checks if the quota is exceeded for the given rate limit properties.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return true if the quota is exceeded, false otherwise.
+     */
+    @Override
+    public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+        return !checkQuota(rateLimitProps).allowed();
+    }
+
+    /**
+     * Checks the quota and returns the decision with the state of the window.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the decision.
+     */
+    @Override
+    public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+        final var rule = ruleOf(rateLimitProps);
+        final var start = System.nanoTime();
+        final List<?> result;
+        try {
+            final var capacity = encodedCapacities.computeIfAbsent(rule,
+                    cached -> RateLimitScript.encode(cached.capacity()));
+            result = SYNC_SCRIPT.execute(redisTemplate, 1, rateLimitProps.bucketKey(KEY_PREFIX), capacity,
+                    ENCODED_WINDOW_SIZE);
+        } catch (RuntimeException exception) {
+            metrics.recordRedisCall(GatewayMetrics.RedisOperation.SINGLE, true, System.nanoTime() - start);
+            throw exception;
+        }
+        metrics.recordRedisCall(GatewayMetrics.RedisOperation.SINGLE, false, System.nanoTime() - start);
+        return RateLimitScriptResults.decision(result, 0, rule.capacity());
+    }
+
+    /**
+     * Checks the quota through the reactive Redis client, without blocking the calling thread.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return a stage completed with the decision.
+     */
+    @Override
+    public CompletionStage<RateLimitDecision> checkQuotaAsync(final RateLimitProps rateLimitProps) {
+        if (Objects.isNull(reactiveRedisTemplate)) {
+            return RateLimitStrategy.super.checkQuotaAsync(rateLimitProps);
+        }
+        final var rule = ruleOf(rateLimitProps);
+        final var start = System.nanoTime();
+        return reactiveRedisTemplate.execute(REACTIVE_SCRIPT, List.of(bucketKey(rateLimitProps)),
+                        List.of(String.valueOf(rule.capacity()), String.valueOf(WINDOW_SIZE_MS)))
+                .collectList()
+                .doOnSuccess(result -> metrics.recordRedisCall(GatewayMetrics.RedisOperation.ASYNC, false,
+                        System.nanoTime() - start))
+                .doOnError(failure -> metrics.recordRedisCall(GatewayMetrics.RedisOperation.ASYNC, true,
+                        System.nanoTime() - start))
+                .map(result -> RateLimitScriptResults.decision(RateLimitScriptResults.flatten(result), 0,
+                        rule.capacity()))
+                .toFuture();
+    }
+
+    /**
+     * Returns the rule of the request, or the default rule if it carries none.
+     */
+    private RateLimitRule ruleOf(final RateLimitProps rateLimitProps) {
+        return Objects.requireNonNullElse(rateLimitProps.getRule(), defaultRule);
+    }
+
+    /**
+     * Returns the Redis key of the window counters for the given rate limit properties.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the key, as encoded by {@link RateLimitKeys} under {@link RateLimitKeys#SLIDING_WINDOW_PREFIX}.
+     */
+    static String bucketKey(final RateLimitProps rateLimitProps) {
+        return new String(rateLimitProps.bucketKey(KEY_PREFIX), StandardCharsets.US_ASCII);
+    }
+}
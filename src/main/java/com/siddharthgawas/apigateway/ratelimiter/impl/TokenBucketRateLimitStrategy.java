@@ -1,70 +1,281 @@
 package com.siddharthgawas.apigateway.ratelimiter.impl;
 
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
 import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
 import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * TokenBucketRateLimitStrategy implements a token bucket algorithm for rate limiting.
  * <p>
- * This strategy uses Redis to manage the token count and refill time, allowing for
- * a specified number of requests per minute.
+ * Each bucket is a single Redis hash holding the remaining tokens and the time of the last
+ * refill. Tokens are refilled continuously, using the Redis server clock, at the rate and up to
+ * the capacity of the {@link RateLimitRule} carried by the request. Requests without a rule use
+ * {@code maxTokenPerMinute} for both.
+ * <p>
+ * The Lua script is run as a {@link RateLimitScript}, with the bucket key and the pre-encoded
+ * arguments of the rule as raw bytes, so a check does not go through Jackson or build strings. The
+ * script takes up to the requested number of
+ * tokens and returns the shortfall together with the tokens left, the time until the bucket is
+ * full and the time until the shortfall is refilled, so a decision carries everything needed for
+ * rate limit response headers without another round trip. The same script serves both single
+ * checks and the chunked leases taken by {@link LeasedTokenBucketRateLimitStrategy}. A multi-key
+ * variant checks many buckets in one call for {@link BatchingRateLimitStrategy}.
+ * <p>
+ * When a {@link ReactiveRedisTemplate} is supplied, {@link #checkQuotaAsync(RateLimitProps)} runs the
+ * same script through Lettuce's non-blocking API instead of parking the calling thread.
+ * <p>
+ * Every script call is timed and recorded in {@link GatewayMetrics}.
  */
 @Slf4j
 public class TokenBucketRateLimitStrategy implements RateLimitStrategy {
 
-    private static final String LUA_SCRIPT = """
-            local tokens = tonumber(redis.call('get', KEYS[1]))
-            local lastRefill = tonumber(redis.call('get', KEYS[2]))
-            local currentTime = tonumber(ARGV[1])
-            if not tokens or not lastRefill then
-                tokens = ARGV[2]
-                lastRefill = currentTime
-                redis.call('set', KEYS[1], tokens, 'EX', ARGV[3])
-                redis.call('set', KEYS[2], lastRefill, 'EX', ARGV[3])
+    private static final String TAKE_FUNCTION = """
+            local function take(key, capacity, refillPerMinute, requested, now)
+                local state = redis.call('HMGET', key, 'tokens', 'ts')
+                local tokens = tonumber(state[1])
+                local lastRefill = tonumber(state[2])
+                if not tokens or not lastRefill then
+                    tokens = capacity
+                else
+                    local elapsed = math.max(0, now - lastRefill)
+                    tokens = math.min(capacity, tokens + elapsed * refillPerMinute / 60000)
+                end
+                local granted = math.min(requested, math.floor(tokens))
+                tokens = tokens - granted
+                local shortfall = requested - granted
+                local resetMs = math.ceil((capacity - tokens) * 60000 / refillPerMinute)
+                redis.call('HSET', key, 'tokens', tokens, 'ts', now)
+                redis.call('PEXPIRE', key, math.max(1, math.ceil(capacity * 60000 / refillPerMinute)))
+                local retryMs = 0
+                if shortfall > 0 then
+                    retryMs = math.ceil((shortfall - tokens) * 60000 / refillPerMinute)
+                end
+                return {shortfall, math.floor(tokens), resetMs, retryMs}
             end
-            local isQuotaExceeded = tonumber(tokens) <= 0
-            if not isQuotaExceeded then
-                redis.call('decr', KEYS[1])
-                return 0
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            """;
+
+    private static final String LUA_SCRIPT = TAKE_FUNCTION + """
+            return take(KEYS[1], tonumber(ARGV[1]), tonumber(ARGV[2]), tonumber(ARGV[3]), now)
+            """;
+
+    private static final String BATCH_LUA_SCRIPT = TAKE_FUNCTION + """
+            local results = {}
+            for i, key in ipairs(KEYS) do
+                local result = take(key, tonumber(ARGV[2 * i - 1]), tonumber(ARGV[2 * i]), 1, now)
+                for j = 1, 4 do
+                    results[4 * (i - 1) + j] = result[j]
+                end
             end
-            return 1
+            return results
             """;
 
-    private static final int WINDOW_SIZE = 60; // seconds
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REACTIVE_SCRIPT = RedisScript.of(LUA_SCRIPT, List.class);
+
+    private static final RateLimitScript TAKE_SCRIPT = new RateLimitScript(LUA_SCRIPT);
+
+    private static final RateLimitScript BATCH_SCRIPT = new RateLimitScript(BATCH_LUA_SCRIPT);
+
+    private static final byte[] KEY_PREFIX = RateLimitKeys.PREFIX.getBytes(StandardCharsets.US_ASCII);
 
     private final RedisTemplate<String, Object> redisTemplate;
 
-    private final Long maxTokenPerMinute;
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+    private final RateLimitRule defaultRule;
+
+    private final Map<RateLimitRule, byte[][]> encodedRules = new ConcurrentHashMap<>();
+
+    /**
+     * Metrics the Redis script calls are recorded in.
+     */
+    @Setter
+    private GatewayMetrics metrics = GatewayMetrics.NOOP;
 
 
     public TokenBucketRateLimitStrategy(RedisTemplate<String, Object> redisTemplate, Long maxTokenPerMinute) {
+        this(redisTemplate, null, maxTokenPerMinute);
+    }
+
+    public TokenBucketRateLimitStrategy(RedisTemplate<String, Object> redisTemplate,
+                                        ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+                                        Long maxTokenPerMinute) {
         this.redisTemplate = redisTemplate;
-        this.maxTokenPerMinute = maxTokenPerMinute;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.defaultRule = RateLimitRule.of(maxTokenPerMinute);
     }
 
     /**
      * Checks if the quota is exceeded for the given rate limit properties.
      *
-     * @param rateLimitProps The properties containing the key and request path for rate limiting.
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
      * @return true if the quota is exceeded, false otherwise.
      */
     @Override
     public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
-        final String key = rateLimitProps.getKey() + ":" + rateLimitProps.getRequestPath();
-        final String tokenCountKey = key + ":tokens";
-        final String lastRefillKey = key + ":lastRefill";
-        final long currentTime = System.currentTimeMillis() / 1000; // Current time in seconds
-        Long result = redisTemplate.execute(new DefaultRedisScript<>(LUA_SCRIPT, Long.class),
-                List.of(tokenCountKey, lastRefillKey),
-                currentTime,
-                maxTokenPerMinute,
-                WINDOW_SIZE);
-        return result == 1L;
+        return !checkQuota(rateLimitProps).allowed();
+    }
+
+    /**
+     * Takes one token from the bucket and returns the decision with the state of the bucket.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the decision.
+     */
+    @Override
+    public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+        final var rule = ruleOf(rateLimitProps);
+        return RateLimitScriptResults.decision(take(rateLimitProps, rule, 1), 0, rule.capacity());
+    }
+
+    /**
+     * Checks the quota through the reactive Redis client, without blocking the calling thread.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return a stage completed with the decision.
+     */
+    @Override
+    public CompletionStage<RateLimitDecision> checkQuotaAsync(final RateLimitProps rateLimitProps) {
+        if (Objects.isNull(reactiveRedisTemplate)) {
+            return RateLimitStrategy.super.checkQuotaAsync(rateLimitProps);
+        }
+        final var rule = ruleOf(rateLimitProps);
+        final var start = System.nanoTime();
+        return reactiveRedisTemplate.execute(REACTIVE_SCRIPT, List.of(bucketKey(rateLimitProps)),
+                        List.of(String.valueOf(rule.capacity()), String.valueOf(rule.refillPerMinute()), "1"))
+                .collectList()
+                .doOnSuccess(result -> metrics.recordRedisCall(GatewayMetrics.RedisOperation.ASYNC, false,
+                        System.nanoTime() - start))
+                .doOnError(failure -> metrics.recordRedisCall(GatewayMetrics.RedisOperation.ASYNC, true,
+                        System.nanoTime() - start))
+                .map(result -> RateLimitScriptResults.decision(RateLimitScriptResults.flatten(result), 0,
+                        rule.capacity()))
+                .toFuture();
+    }
+
+    /**
+     * Takes up to the requested number of tokens from the bucket.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @param requested      The number of tokens to take.
+     * @return the number of tokens granted, between 0 and {@code requested}.
+     */
+    public long acquire(final RateLimitProps rateLimitProps, final long requested) {
+        final var result = take(rateLimitProps, ruleOf(rateLimitProps), requested);
+        return Objects.isNull(result) || result.isEmpty() ? 0 : requested - RateLimitScriptResults.longAt(result, 0);
+    }
+
+    /**
+     * Checks the quota of many buckets in a single script call.
+     * <p>
+     * Keys are processed in order, so a key that appears more than once takes one token per occurrence.
+     *
+     * @param bucketKeys The bucket keys to check, as returned by {@link #encodedBucketKey(RateLimitProps)}.
+     * @param rules      The rule of each key; a null rule applies the default limit.
+     * @return for each key, the decision.
+     */
+    public RateLimitDecision[] checkQuota(final List<byte[]> bucketKeys, final List<RateLimitRule> rules) {
+        final var count = bucketKeys.size();
+        final var resolvedRules = new RateLimitRule[count];
+        final var keysAndArgs = new byte[count * 3][];
+        for (int i = 0; i < count; i++) {
+            resolvedRules[i] = Objects.requireNonNullElse(rules.get(i), defaultRule);
+            final var args = encodedArgs(resolvedRules[i]);
+            keysAndArgs[i] = bucketKeys.get(i);
+            keysAndArgs[count + 2 * i] = args[0];
+            keysAndArgs[count + 2 * i + 1] = args[1];
+        }
+        final var start = System.nanoTime();
+        final List<?> results;
+        try {
+            results = BATCH_SCRIPT.execute(redisTemplate, count, keysAndArgs);
+        } catch (RuntimeException exception) {
+            metrics.recordRedisCall(GatewayMetrics.RedisOperation.BATCH, true, System.nanoTime() - start);
+            throw exception;
+        }
+        metrics.recordRedisCall(GatewayMetrics.RedisOperation.BATCH, false, System.nanoTime() - start);
+        if (Objects.isNull(results) || results.size() != bucketKeys.size() * RateLimitScriptResults.FIELDS) {
+            throw new IllegalStateException("Unexpected result from batched rate limit script");
+        }
+        final var decisions = new RateLimitDecision[bucketKeys.size()];
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = RateLimitScriptResults.decision(results, i * RateLimitScriptResults.FIELDS,
+                    resolvedRules[i].capacity());
+        }
+        return decisions;
+    }
+
+    /**
+     * Runs the take script for a single bucket.
+     */
+    private List<?> take(final RateLimitProps rateLimitProps, final RateLimitRule rule, final long requested) {
+        final var start = System.nanoTime();
+        final List<?> result;
+        try {
+            final var args = encodedArgs(rule);
+            result = TAKE_SCRIPT.execute(redisTemplate, 1, encodedBucketKey(rateLimitProps), args[0], args[1],
+                    RateLimitScript.encode(requested));
+        } catch (RuntimeException exception) {
+            metrics.recordRedisCall(GatewayMetrics.RedisOperation.SINGLE, true, System.nanoTime() - start);
+            throw exception;
+        }
+        metrics.recordRedisCall(GatewayMetrics.RedisOperation.SINGLE, false, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Returns the rule of the request, or the default rule if it carries none.
+     */
+    private RateLimitRule ruleOf(final RateLimitProps rateLimitProps) {
+        return Objects.requireNonNullElse(rateLimitProps.getRule(), defaultRule);
+    }
+
+    /**
+     * Returns the capacity and refill rate of a rule encoded as script arguments, encoding them once per rule.
+     */
+    private byte[][] encodedArgs(final RateLimitRule rule) {
+        return encodedRules.computeIfAbsent(rule, TokenBucketRateLimitStrategy::encode);
+    }
+
+    private static byte[][] encode(final RateLimitRule rule) {
+        return new byte[][]{RateLimitScript.encode(rule.capacity()), RateLimitScript.encode(rule.refillPerMinute())};
+    }
+
+    /**
+     * Returns the Redis key of the bucket for the given rate limit properties, as sent to Redis.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the bucket key, as encoded by {@link RateLimitKeys}.
+     */
+    static byte[] encodedBucketKey(final RateLimitProps rateLimitProps) {
+        return rateLimitProps.bucketKey(KEY_PREFIX);
+    }
+
+    /**
+     * Returns the Redis key of the bucket for the given rate limit properties.
+     *
+     * @param rateLimitProps The properties containing the key and route for rate limiting.
+     * @return the bucket key, as encoded by {@link RateLimitKeys}.
+     */
+    static String bucketKey(final RateLimitProps rateLimitProps) {
+        return new String(rateLimitProps.bucketKey(KEY_PREFIX), StandardCharsets.US_ASCII);
     }
 
 }
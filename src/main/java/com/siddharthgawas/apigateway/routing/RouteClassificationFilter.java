@@ -0,0 +1,45 @@
+package com.siddharthgawas.apigateway.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filter classifying each request against the {@link RouteTable}.
+ * <p>
+ * The route is stored in the {@link RouteTable#ROUTE_ATTRIBUTE} request attribute, so the
+ * authentication and rate limiter filters, authorization and the proxy share a single match.
+ * The filter also runs on error and async dispatches, since an error dispatch targets a
+ * different path than the original request.
+ */
+public class RouteClassificationFilter extends OncePerRequestFilter {
+
+    private final RouteTable routeTable;
+
+    public RouteClassificationFilter(final RouteTable routeTable) {
+        this.routeTable = routeTable;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request,
+                                    final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        request.setAttribute(RouteTable.ROUTE_ATTRIBUTE,
+                routeTable.classify(RouteTable.pathWithinApplication(request)));
+        filterChain.doFilter(request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+}
@@ -0,0 +1,47 @@
+package com.siddharthgawas.apigateway.routing;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * Request matcher selecting requests by whether their route requires authentication.
+ * <p>
+ * The route is read from the request attribute set by {@link RouteClassificationFilter}, so
+ * matching does not walk any path patterns.
+ */
+public class RouteRequestMatcher implements RequestMatcher {
+
+    private final RouteTable routeTable;
+
+    private final boolean authenticationRequired;
+
+    private RouteRequestMatcher(final RouteTable routeTable, final boolean authenticationRequired) {
+        this.routeTable = routeTable;
+        this.authenticationRequired = authenticationRequired;
+    }
+
+    /**
+     * Returns a matcher for requests to routes requiring authentication.
+     *
+     * @param routeTable the route table
+     * @return the matcher
+     */
+    public static RouteRequestMatcher authenticated(final RouteTable routeTable) {
+        return new RouteRequestMatcher(routeTable, true);
+    }
+
+    /**
+     * Returns a matcher for requests to routes reachable without authentication.
+     *
+     * @param routeTable the route table
+     * @return the matcher
+     */
+    public static RouteRequestMatcher anonymous(final RouteTable routeTable) {
+        return new RouteRequestMatcher(routeTable, false);
+    }
+
+    @Override
+    public boolean matches(final HttpServletRequest request) {
+        return routeTable.resolve(request).authenticationRequired() == authenticationRequired;
+    }
+}
@@ -0,0 +1,142 @@
+package com.siddharthgawas.apigateway.routing;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.controller.AuthenticationController;
+import com.siddharthgawas.apigateway.controller.JwksController;
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Table of the gateway's routes, compiled into a {@link RouteTrie}.
+ * <p>
+ * The table holds the gateway's own endpoints, which are reachable without a token, a catch-all
+ * route requiring authentication, and the proxied routes from {@code application.routes}. A
+ * proxied route {@code /orders} becomes the template {@code /orders/**}, and replaces a built-in
+ * route with the same template.
+ * <p>
+ * {@link RouteClassificationFilter} classifies each request once and stores the result in the
+ * {@link #ROUTE_ATTRIBUTE} request attribute, which later filters read through {@link #resolve(HttpServletRequest)}.
+ */
+@Component
+public class RouteTable {
+
+    /**
+     * Request attribute holding the {@link RouteDescriptor} of the request.
+     */
+    public static final String ROUTE_ATTRIBUTE = RouteTable.class.getName() + ".ROUTE";
+
+    public static final String DEFAULT_RATE_LIMIT_POLICY = "default";
+
+    public static final String CATCH_ALL_TEMPLATE = "/**";
+
+    private static final List<String> ANONYMOUS_TEMPLATES = List.of(
+            AuthenticationController.TOKEN_ENDPOINT,
+            AuthenticationController.TOKEN_REFRESH_ENDPOINT,
+            JwksController.JWKS_ENDPOINT,
+            "/error");
+
+    private final List<RouteDescriptor> descriptors;
+
+    private final RouteTrie trie;
+
+    @Autowired
+    public RouteTable(final ApplicationProperties applicationProperties) {
+        this(Objects.requireNonNullElse(applicationProperties.getRoutes(), Collections.emptyList()));
+    }
+
+    public RouteTable(final List<ApplicationProperties.Route> routes) {
+        final Map<String, RouteSpec> specs = new LinkedHashMap<>();
+        ANONYMOUS_TEMPLATES.forEach(template -> specs.put(template,
+                new RouteSpec(false, DEFAULT_RATE_LIMIT_POLICY, null, null)));
+        specs.put(CATCH_ALL_TEMPLATE, new RouteSpec(true, DEFAULT_RATE_LIMIT_POLICY, null, null));
+        for (final var route : routes) {
+            final var upstream = UpstreamPool.of(route);
+            specs.put(upstream.pathPrefix() + CATCH_ALL_TEMPLATE, new RouteSpec(
+                    !Boolean.FALSE.equals(route.getAuthenticationRequired()),
+                    Objects.requireNonNullElse(route.getRateLimitPolicy(), DEFAULT_RATE_LIMIT_POLICY),
+                    route.getRateLimitGroup(),
+                    upstream));
+        }
+        final List<RouteDescriptor> compiled = new ArrayList<>(specs.size());
+        specs.forEach((template, spec) -> compiled.add(new RouteDescriptor(compiled.size(), template,
+                spec.authenticationRequired(), spec.rateLimitPolicy(),
+                Objects.requireNonNullElse(spec.rateLimitGroup(), template), spec.upstream())));
+        this.descriptors = List.copyOf(compiled);
+        this.trie = RouteTrie.compile(descriptors);
+    }
+
+    /**
+     * Returns all routes, ordered by id.
+     *
+     * @return the routes
+     */
+    public List<RouteDescriptor> descriptors() {
+        return descriptors;
+    }
+
+    /**
+     * Classifies a request path.
+     *
+     * @param path the request path within the application
+     * @return the matching route, the catch-all route if no other route matches
+     */
+    public RouteDescriptor classify(final String path) {
+        return trie.match(path);
+    }
+
+    /**
+     * Returns the route of the request, as classified by {@link RouteClassificationFilter}, classifying
+     * the request now if the filter did not run.
+     *
+     * @param request the request
+     * @return the route of the request
+     */
+    public RouteDescriptor resolve(final HttpServletRequest request) {
+        if (request.getAttribute(ROUTE_ATTRIBUTE) instanceof RouteDescriptor descriptor) {
+            return descriptor;
+        }
+        return classify(pathWithinApplication(request));
+    }
+
+    /**
+     * Returns the route of the request stored by {@link RouteClassificationFilter}.
+     *
+     * @param request the request
+     * @return the route of the request, or null if it was not classified
+     */
+    public static RouteDescriptor routeOf(final HttpServletRequest request) {
+        return request.getAttribute(ROUTE_ATTRIBUTE) instanceof RouteDescriptor descriptor ? descriptor : null;
+    }
+
+    /**
+     * Returns the request path without the context path.
+     *
+     * @param request the request
+     * @return the path within the application
+     */
+    public static String pathWithinApplication(final HttpServletRequest request) {
+        final var uri = request.getRequestURI();
+        final var contextPath = request.getContextPath();
+        if (Objects.isNull(uri)) {
+            return "/";
+        }
+        return Objects.isNull(contextPath) || contextPath.isEmpty() || !uri.startsWith(contextPath)
+                ? uri
+                : uri.substring(contextPath.length());
+    }
+
+    private record RouteSpec(boolean authenticationRequired,
+                             String rateLimitPolicy,
+                             String rateLimitGroup,
+                             UpstreamPool upstream) {
+    }
+}
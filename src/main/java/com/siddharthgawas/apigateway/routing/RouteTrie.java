@@ -0,0 +1,177 @@
+package com.siddharthgawas.apigateway.routing;
+
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Path trie matching request paths against route templates.
+ * <p>
+ * Templates are split into segments, each either a literal ({@code orders}), a variable matching
+ * any single segment ({@code {id}}) or a trailing {@code **} matching any remaining segments,
+ * including none. A path is matched segment by segment, preferring literals over variables over
+ * {@code **}, so matching costs time proportional to the length of the path rather than the
+ * number of routes. Literal children are kept in an open-addressing table probed with the hash
+ * of the segment's characters, so a lookup does not allocate.
+ * <p>
+ * Like Spring MVC, which does not match a trailing slash, a path matches a literal or variable
+ * segment only exactly: an empty segment, from a trailing or repeated slash, matches no literal or
+ * variable and falls through to the nearest {@code **}. So {@code /token/} is not {@code /token}.
+ */
+public final class RouteTrie {
+
+    private final Node root;
+
+    private RouteTrie(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Compiles a trie from route descriptors. When two descriptors share a template, the later one wins.
+     *
+     * @param descriptors the route descriptors
+     * @return the trie
+     */
+    public static RouteTrie compile(final List<RouteDescriptor> descriptors) {
+        final var root = new Node();
+        for (final var descriptor : descriptors) {
+            insert(root, descriptor);
+        }
+        root.freeze();
+        return new RouteTrie(root);
+    }
+
+    private static void insert(final Node root, final RouteDescriptor descriptor) {
+        var node = root;
+        final var segments = descriptor.template().split("/");
+        for (int i = 0; i < segments.length; i++) {
+            final var segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals("**")) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("** must be the last segment of " + descriptor.template());
+                }
+                node.catchAll = descriptor;
+                return;
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (node.variable == null) {
+                    node.variable = new Node();
+                }
+                node = node.variable;
+            } else {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        node.exact = descriptor;
+    }
+
+    /**
+     * Returns the route matching the given path.
+     *
+     * @param path the request path
+     * @return the matching route, or null if none matches
+     */
+    public RouteDescriptor match(final String path) {
+        return match(root, path, 0);
+    }
+
+    private static RouteDescriptor match(final Node node, final String path, final int position) {
+        if (position >= path.length()) {
+            return node.exact != null ? node.exact : node.catchAll;
+        }
+        final var start = path.charAt(position) == '/' ? position + 1 : position;
+        var end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        if (start == end) {
+            return node.catchAll;
+        }
+        final var literal = node.literal(path, start, end);
+        if (literal != null) {
+            final var descriptor = match(literal, path, end);
+            if (descriptor != null) {
+                return descriptor;
+            }
+        }
+        if (node.variable != null) {
+            final var descriptor = match(node.variable, path, end);
+            if (descriptor != null) {
+                return descriptor;
+            }
+        }
+        return node.catchAll;
+    }
+
+    /**
+     * A trie node. Literal children are collected in a map while the trie is built and moved into
+     * an open-addressing table when it is frozen.
+     */
+    private static final class Node {
+
+        private Map<String, Node> children = new LinkedHashMap<>();
+
+        private String[] keys = new String[0];
+
+        private Node[] values = new Node[0];
+
+        private int mask;
+
+        private Node variable;
+
+        private RouteDescriptor exact;
+
+        private RouteDescriptor catchAll;
+
+        private void freeze() {
+            if (!children.isEmpty()) {
+                var capacity = Integer.highestOneBit(children.size() * 2 - 1) << 1;
+                keys = new String[capacity];
+                values = new Node[capacity];
+                mask = capacity - 1;
+                children.forEach((key, child) -> {
+                    var slot = spread(key.hashCode()) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = key;
+                    values[slot] = child;
+                    child.freeze();
+                });
+            }
+            children = null;
+            if (variable != null) {
+                variable.freeze();
+            }
+        }
+
+        private Node literal(final String path, final int start, final int end) {
+            if (keys.length == 0) {
+                return null;
+            }
+            var hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+            final var length = end - start;
+            var slot = spread(hash) & mask;
+            String key;
+            while ((key = keys[slot]) != null) {
+                if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int spread(final int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.siddharthgawas.apigateway.routing;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Upstreams of a proxied route, picked round-robin.
+ */
+public class UpstreamPool {
+
+    private final String pathPrefix;
+
+    private final List<String> upstreams;
+
+    private final boolean stripPrefix;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Creates a pool.
+     *
+     * @param pathPrefix  the path prefix of the route
+     * @param upstreams   the upstream base URIs
+     * @param stripPrefix whether the prefix is removed from the forwarded path
+     */
+    public UpstreamPool(final String pathPrefix, final List<String> upstreams, final boolean stripPrefix) {
+        if (Objects.isNull(upstreams) || upstreams.isEmpty()) {
+            throw new IllegalArgumentException("Route " + pathPrefix + " has no upstreams");
+        }
+        this.pathPrefix = trimTrailingSlashes(Objects.requireNonNullElse(pathPrefix, ""));
+        this.upstreams = upstreams.stream().map(UpstreamPool::trimTrailingSlashes).toList();
+        this.stripPrefix = stripPrefix;
+    }
+
+    /**
+     * Creates the pool of a configured route.
+     *
+     * @param route the configured route
+     * @return the pool
+     */
+    public static UpstreamPool of(final ApplicationProperties.Route route) {
+        return new UpstreamPool(route.getPathPrefix(), route.getUpstreams(), Boolean.TRUE.equals(route.getStripPrefix()));
+    }
+
+    /**
+     * Returns the path prefix of the route, without trailing slash and empty for the root.
+     *
+     * @return the path prefix
+     */
+    public String pathPrefix() {
+        return pathPrefix;
+    }
+
+    /**
+     * Returns the base URI of the upstream the next request goes to.
+     *
+     * @return the upstream base URI, without trailing slash
+     */
+    public String nextUpstream() {
+        return upstreams.get(Math.floorMod(next.getAndIncrement(), upstreams.size()));
+    }
+
+    /**
+     * Returns the path a request is forwarded with.
+     *
+     * @param path the request path
+     * @return the path, with the route prefix removed if the route strips it
+     */
+    public String forwardedPath(final String path) {
+        if (!stripPrefix || !path.startsWith(pathPrefix)) {
+            return path;
+        }
+        final var stripped = path.substring(pathPrefix.length());
+        return stripped.isEmpty() ? "/" : stripped;
+    }
+
+    static String trimTrailingSlashes(final String value) {
+        var end = value.length();
+        while (end > 0 && value.charAt(end - 1) == '/') {
+            end--;
+        }
+        return value.substring(0, end);
+    }
+}
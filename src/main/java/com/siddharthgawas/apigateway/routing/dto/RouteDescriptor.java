@@ -0,0 +1,25 @@
+package com.siddharthgawas.apigateway.routing.dto;
+
+import com.siddharthgawas.apigateway.routing.UpstreamPool;
+
+/**
+ * Classification of a request, resolved once per request by the route table.
+ * <p>
+ * This record carries everything the filters and the proxy need to know about the route a
+ * request matched, so none of them has to match the request path again.
+ *
+ * @param id                     Index of the route in the route table, from 0.
+ * @param template               Route template, e.g. {@code /orders/**}, used in metrics and rate limit keys.
+ * @param authenticationRequired Whether requests must carry a valid access token.
+ * @param rateLimitPolicy        Name of the rate limit policy applied to requests.
+ * @param rateLimitScope         Scope rate limit buckets are kept per, the template unless the route
+ *                               configures a rate limit group shared with other routes.
+ * @param upstream               Upstreams requests are forwarded to, or null if the gateway handles them itself.
+ */
+public record RouteDescriptor(int id,
+                              String template,
+                              boolean authenticationRequired,
+                              String rateLimitPolicy,
+                              String rateLimitScope,
+                              UpstreamPool upstream) {
+}
@@ -0,0 +1,119 @@
+package com.siddharthgawas.apigateway.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of strings, used to answer "definitely not revoked" for access tokens in-process.
+ * <p>
+ * The filter never reports a false negative: {@link #mightContain(String)} is true for every value
+ * that was added. It reports a false positive for roughly the false positive rate it was sized for
+ * while it holds no more than its expected number of values, and more often beyond that.
+ * <p>
+ * Values are hashed once into a 64-bit hash whose halves derive all probe positions (Kirsch and
+ * Mitzenmacher double hashing). Bits are set with CAS, so values can be added while other threads
+ * query the filter. Values cannot be removed; filters are rebuilt instead.
+ */
+public final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private static final long MAX_BITS = 1L << 31;
+
+    private final AtomicLongArray words;
+
+    private final long numBits;
+
+    private final int numHashes;
+
+    private BloomFilter(final long numBits, final int numHashes) {
+        this.words = new AtomicLongArray((int) ((numBits + 63) / 64));
+        this.numBits = (long) words.length() * 64;
+        this.numHashes = numHashes;
+    }
+
+    /**
+     * Creates a filter sized for a number of values and a false positive rate.
+     *
+     * @param expectedValues    the number of values the filter is sized for
+     * @param falsePositiveRate the false positive rate at that number of values, between 0 and 1
+     * @return an empty filter
+     */
+    public static BloomFilter create(final int expectedValues, final double falsePositiveRate) {
+        if (expectedValues < 1) {
+            throw new IllegalArgumentException("expectedValues must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        final var numBits = Math.min(MAX_BITS,
+                Math.max(64, (long) Math.ceil(-expectedValues * Math.log(falsePositiveRate) / (LN2 * LN2))));
+        final var numHashes = Math.max(1, (int) Math.round((double) numBits / expectedValues * LN2));
+        return new BloomFilter(numBits, numHashes);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     */
+    public void add(final String value) {
+        final var hash = hash(value);
+        final var h1 = (int) hash;
+        final var h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            final var bit = index(h1 + i * h2);
+            final var word = (int) (bit >>> 6);
+            final var mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Returns whether a value might have been added.
+     *
+     * @param value the value
+     * @return false if the value was certainly not added
+     */
+    public boolean mightContain(final String value) {
+        final var hash = hash(value);
+        final var h1 = (int) hash;
+        final var h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            final var bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Maps a combined hash to a bit position.
+     */
+    private long index(final int combinedHash) {
+        return (combinedHash & 0x7fffffffL) % numBits;
+    }
+
+    /**
+     * Hashes a value with 64-bit FNV-1a over its characters, finished with the MurmurHash3 mixer.
+     */
+    private static long hash(final String value) {
+        var hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
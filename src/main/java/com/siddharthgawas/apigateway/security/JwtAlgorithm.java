@@ -0,0 +1,35 @@
+package com.siddharthgawas.apigateway.security;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Algorithms tokens can be signed with, selected by {@code application.jwtAlgorithm}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum JwtAlgorithm {
+    /**
+     * HMAC with SHA-512. The key is secret, so only the gateway can verify tokens.
+     */
+    HS512("HS512", "HmacSHA512"),
+    /**
+     * ECDSA on the P-256 curve with SHA-256. The public key is published in the JWKS.
+     */
+    ES256("ES256", "SHA256withECDSAinP1363Format"),
+    /**
+     * EdDSA on Ed25519. The public key is published in the JWKS.
+     */
+    EDDSA("EdDSA", "Ed25519");
+
+    /**
+     * Name of the algorithm in the {@code alg} header and JWK parameter.
+     */
+    private final String jwsName;
+
+    /**
+     * Name of the JCA {@code Mac} or {@code Signature} producing the JWS signature. ECDSA
+     * signatures use the IEEE P1363 format, the fixed-length {@code R || S} a JWS carries.
+     */
+    private final String jcaName;
+}
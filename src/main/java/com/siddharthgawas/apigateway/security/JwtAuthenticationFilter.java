@@ -1,11 +1,17 @@
 package com.siddharthgawas.apigateway.security;
 
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitPrincipal;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import com.siddharthgawas.apigateway.security.dto.JWTAuthentication;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.AuthenticationManager;
+import lombok.Setter;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.security.web.authentication.AbstractAuthenticationProcessingFilter;
@@ -19,6 +25,10 @@ import java.io.IOException;
  * JwtAuthenticationFilter is responsible for processing JWT authentication requests.
  * It extends AbstractAuthenticationProcessingFilter to handle the authentication logic
  * and save the security context after successful authentication.
+ * Every authentication attempt is timed and recorded in {@link GatewayMetrics}.
+ * The rate limit handle of an authenticated user is published as the
+ * {@link RateLimitPrincipal#ATTRIBUTE} request attribute, so the rate limiter does not have to
+ * load the security context again.
  */
 public class JwtAuthenticationFilter extends AbstractAuthenticationProcessingFilter {
 
@@ -27,15 +37,49 @@ public class JwtAuthenticationFilter extends AbstractAuthenticationProcessingFil
     private final SecurityContextRepository securityContextRepository =
             new RequestAttributeSecurityContextRepository();
 
+    /**
+     * Metrics the authentication decisions are recorded in.
+     */
+    @Setter
+    private GatewayMetrics metrics = GatewayMetrics.NOOP;
 
     public JwtAuthenticationFilter(RequestMatcher requiresAuthenticationRequestMatcher,
                                       AuthenticationManager authenticationManager) {
         super(requiresAuthenticationRequestMatcher, authenticationManager);
     }
 
+    /**
+     * Authenticates the request and records how long the decision took and its outcome.
+     *
+     * @param request  the HTTP request
+     * @param response the HTTP response
+     * @return the authenticated user token
+     * @throws AuthenticationException if authentication fails
+     * @throws IOException             if an I/O error occurs
+     * @throws ServletException        if a servlet error occurs
+     */
+    @Override
+    public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response)
+            throws AuthenticationException, IOException, ServletException {
+        final var route = RouteTable.routeOf(request);
+        final var start = System.nanoTime();
+        var outcome = GatewayMetrics.Outcome.ERROR;
+        try {
+            final var authentication = super.attemptAuthentication(request, response);
+            outcome = authentication != null ? GatewayMetrics.Outcome.ALLOWED : GatewayMetrics.Outcome.REJECTED;
+            return authentication;
+        } catch (AuthenticationException e) {
+            outcome = GatewayMetrics.Outcome.REJECTED;
+            throw e;
+        } finally {
+            metrics.recordFilter(GatewayMetrics.Filter.JWT_AUTHENTICATION, route, outcome, System.nanoTime() - start);
+        }
+    }
+
     /**
      * Attempts to authenticate the request using the provided authentication manager.
-     * If successful, it saves the security context and continues the filter chain.
+     * If successful, it saves the security context, publishes the user's rate limit handle and
+     * continues the filter chain.
      *
      * @param request  the HTTP request
      * @param response the HTTP response
@@ -50,6 +94,10 @@ public class JwtAuthenticationFilter extends AbstractAuthenticationProcessingFil
         final var securityContext = securityContextHolderStrategy.createEmptyContext();
         securityContext.setAuthentication(authResult);
         securityContextRepository.saveContext(securityContext, request, response);
+        if (authResult instanceof JWTAuthentication jwtAuthentication
+                && jwtAuthentication.getRateLimitPrincipal() != null) {
+            request.setAttribute(RateLimitPrincipal.ATTRIBUTE, jwtAuthentication.getRateLimitPrincipal());
+        }
         chain.doFilter(request, response);
     }
 }
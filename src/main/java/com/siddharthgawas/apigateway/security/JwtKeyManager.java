@@ -0,0 +1,273 @@
+package com.siddharthgawas.apigateway.security;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Loads the signing keys of a {@link JwtKeySet} so that every gateway replica holds the same keys.
+ * <p>
+ * Keys come from one of two sources. Without a key store, the HS512 key is derived from
+ * {@code application.secret} with HMAC-SHA512, which yields the same key on every JVM. With a key
+ * store, every private key and secret key entry of the file is loaded; the entry named by the
+ * signing alias signs new tokens and the others only verify them. The signing alias may be omitted
+ * when the key store holds a single key. Secret keys must be at least 512 bits long, as HS512
+ * verification requires.
+ * <p>
+ * {@link #reload()} reloads the key store when the file has changed. Keys that disappear from the
+ * file keep verifying tokens for the overlap window, which should cover the lifetime of the tokens
+ * they signed, and are retired by {@link #retireExpired()} afterwards. A rotation therefore takes
+ * two steps on every replica: add the new key and make it the signing key, then remove the old key
+ * whenever convenient. A key store that fails to load on startup fails startup; one that fails to
+ * reload leaves the current keys in place.
+ */
+@Slf4j
+public class JwtKeyManager {
+
+    private static final String HS512_DERIVATION_LABEL = "api-gateway jwt HS512 signing key";
+
+    private static final int HS512_MIN_KEY_BYTES = 64;
+
+    @Getter
+    private final JwtKeySet keySet;
+
+    private final Path keyStoreFile;
+
+    private final char[] keyStorePassword;
+
+    private final String signingAlias;
+
+    private final long overlapMs;
+
+    private final LongSupplier clock;
+
+    private final Map<String, Long> retireAtMs = new HashMap<>();
+
+    private volatile FileTime loadedModifiedTime;
+
+    /**
+     * Constructs a JwtKeyManager signing with a key given in configuration.
+     *
+     * @param configuredKey the signing key
+     */
+    public JwtKeyManager(final JwtSigningKey configuredKey) {
+        this.keySet = new JwtKeySet(List.of(configuredKey));
+        this.keyStoreFile = null;
+        this.keyStorePassword = null;
+        this.signingAlias = null;
+        this.overlapMs = 0;
+        this.clock = System::currentTimeMillis;
+    }
+
+    /**
+     * Constructs a JwtKeyManager loading its keys from a key store file.
+     *
+     * @param keyStoreFile     the PKCS12 or JKS key store
+     * @param keyStorePassword the password of the key store and of its entries
+     * @param signingAlias     the alias of the signing key, or null if the key store holds one key
+     * @param overlapMs        how long keys removed from the key store keep verifying tokens
+     * @param clock            the clock in milliseconds
+     * @throws IllegalStateException if the key store cannot be loaded
+     */
+    public JwtKeyManager(final Path keyStoreFile,
+                         final char[] keyStorePassword,
+                         final String signingAlias,
+                         final long overlapMs,
+                         final LongSupplier clock) {
+        this.keyStoreFile = keyStoreFile;
+        this.keyStorePassword = keyStorePassword;
+        this.signingAlias = signingAlias;
+        this.overlapMs = overlapMs;
+        this.clock = clock;
+        try {
+            this.loadedModifiedTime = Files.getLastModifiedTime(keyStoreFile);
+            final var keys = load();
+            this.keySet = new JwtKeySet(ordered(keys));
+        } catch (IOException | GeneralSecurityException | RuntimeException exception) {
+            throw new IllegalStateException("Failed to load JWT keys from " + keyStoreFile, exception);
+        }
+        log.info("Loaded {} JWT keys from {}, signing with {}", keySet.keys().size(), keyStoreFile,
+                keySet.signingKey().getKeyId());
+    }
+
+    /**
+     * Returns the key configured by {@code application.jwtAlgorithm}, for use without a key store.
+     * <p>
+     * HS512 keys are derived from {@code application.secret}; ES256 and EdDSA key pairs are
+     * generated, so they differ between replicas.
+     *
+     * @param applicationProperties the application properties
+     * @return the signing key
+     */
+    public static JwtSigningKey configuredKey(final ApplicationProperties applicationProperties) {
+        final var algorithm = Objects.requireNonNullElse(applicationProperties.getJwtAlgorithm(), JwtAlgorithm.HS512);
+        if (algorithm == JwtAlgorithm.HS512) {
+            return deriveHmacKey(applicationProperties.getSecret());
+        }
+        log.warn("Generated a {} key on startup; configure application.jwtKeyStoreFile to share keys between replicas",
+                algorithm.getJwsName());
+        return JwtSigningKey.generate(algorithm);
+    }
+
+    /**
+     * Derives the HS512 signing key of a secret.
+     * <p>
+     * The derivation is deterministic, so every replica configured with the same secret signs and
+     * verifies with the same key.
+     *
+     * @param secret the configured secret
+     * @return the signing key
+     */
+    public static JwtSigningKey deriveHmacKey(final String secret) {
+        if (Objects.isNull(secret) || secret.isEmpty()) {
+            throw new IllegalArgumentException("application.secret is required to derive the HS512 key");
+        }
+        try {
+            final var mac = Mac.getInstance("HmacSHA512");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+            final var keyBytes = mac.doFinal(HS512_DERIVATION_LABEL.getBytes(StandardCharsets.US_ASCII));
+            return JwtSigningKey.hmac(new SecretKeySpec(keyBytes, "HmacSHA512"));
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("HmacSHA512 is not available", exception);
+        }
+    }
+
+    /**
+     * Reloads the key store if it has changed since it was last loaded.
+     *
+     * @return true if the keys were replaced, false otherwise
+     */
+    public synchronized boolean reload() {
+        if (Objects.isNull(keyStoreFile)) {
+            return false;
+        }
+        try {
+            final var modifiedTime = Files.getLastModifiedTime(keyStoreFile);
+            if (modifiedTime.equals(loadedModifiedTime)) {
+                return false;
+            }
+            apply(load());
+            loadedModifiedTime = modifiedTime;
+            log.info("Reloaded JWT keys from {}, signing with {}", keyStoreFile, keySet.signingKey().getKeyId());
+            return true;
+        } catch (IOException | GeneralSecurityException | RuntimeException exception) {
+            log.warn("Failed to reload JWT keys from {}: {}", keyStoreFile, exception.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the keys, keeping keys that were removed verifying until their overlap window ends.
+     *
+     * @param keys the keys by alias
+     */
+    public synchronized void apply(final Map<String, JwtSigningKey> keys) {
+        final var now = clock.getAsLong();
+        final var active = new ArrayList<>(ordered(keys));
+        final var activeIds = active.stream().map(JwtSigningKey::getKeyId).toList();
+        activeIds.forEach(retireAtMs::remove);
+        for (final var previous : keySet.keys()) {
+            if (!activeIds.contains(previous.getKeyId())) {
+                final long retireAt = retireAtMs.computeIfAbsent(previous.getKeyId(), keyId -> now + overlapMs);
+                if (retireAt > now) {
+                    active.add(previous);
+                } else {
+                    retireAtMs.remove(previous.getKeyId());
+                }
+            }
+        }
+        keySet.replace(active);
+    }
+
+    /**
+     * Retires the keys whose overlap window has ended.
+     *
+     * @return the number of keys retired
+     */
+    public synchronized int retireExpired() {
+        final var now = clock.getAsLong();
+        final var expired = retireAtMs.entrySet().stream()
+                .filter(entry -> entry.getValue() <= now)
+                .map(Map.Entry::getKey)
+                .toList();
+        expired.forEach(keyId -> {
+            retireAtMs.remove(keyId);
+            keySet.retire(keyId);
+        });
+        return expired.size();
+    }
+
+    /**
+     * Loads the keys of the key store by alias.
+     */
+    private Map<String, JwtSigningKey> load() throws IOException, GeneralSecurityException {
+        final var keyStore = KeyStore.getInstance(keyStoreFile.toFile(), keyStorePassword);
+        final Map<String, JwtSigningKey> keys = new LinkedHashMap<>();
+        for (final var alias : Collections.list(keyStore.aliases())) {
+            if (!keyStore.isKeyEntry(alias)) {
+                continue;
+            }
+            final var key = keyStore.getKey(alias, keyStorePassword);
+            if (key instanceof SecretKey secretKey) {
+                final var encoded = secretKey.getEncoded();
+                if (Objects.isNull(encoded) || encoded.length < HS512_MIN_KEY_BYTES) {
+                    throw new IllegalArgumentException("Secret key " + alias + " is shorter than the "
+                            + HS512_MIN_KEY_BYTES * 8 + " bits HS512 requires");
+                }
+                keys.put(alias, JwtSigningKey.hmac(new SecretKeySpec(encoded, "HmacSHA512")));
+            } else if (key instanceof PrivateKey privateKey) {
+                final var certificate = keyStore.getCertificate(alias);
+                if (Objects.isNull(certificate)) {
+                    throw new IllegalArgumentException("Key " + alias + " has no certificate");
+                }
+                keys.put(alias, JwtSigningKey.of(new KeyPair(certificate.getPublicKey(), privateKey)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Orders keys with the signing key first.
+     */
+    private List<JwtSigningKey> ordered(final Map<String, JwtSigningKey> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("The key store holds no keys");
+        }
+        final JwtSigningKey signingKey;
+        if (Objects.nonNull(signingAlias)) {
+            signingKey = keys.get(signingAlias);
+            if (Objects.isNull(signingKey)) {
+                throw new IllegalArgumentException("The key store holds no key " + signingAlias);
+            }
+        } else if (keys.size() == 1) {
+            signingKey = keys.values().iterator().next();
+        } else {
+            throw new IllegalArgumentException("A signing alias is required when the key store holds several keys");
+        }
+        final Map<String, JwtSigningKey> byId = new LinkedHashMap<>();
+        byId.put(signingKey.getKeyId(), signingKey);
+        keys.values().forEach(key -> byId.putIfAbsent(key.getKeyId(), key));
+        return List.copyOf(byId.values());
+    }
+}
@@ -0,0 +1,163 @@
+package com.siddharthgawas.apigateway.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The keys tokens are signed and verified with.
+ * <p>
+ * The first key signs new tokens; every key verifies the tokens carrying its key ID, so tokens
+ * signed before a {@link #rotate(JwtSigningKey)} stay valid until their key is
+ * {@link #retire(String) retired}. Tokens without a key ID are verified with the signing key.
+ * <p>
+ * The JWKS document of the public keys is serialized whenever the keys change, so serving it
+ * copies no more than a byte array. Tokens are verified by one parser built up front, which finds
+ * the key of each token in the current keys, so changing the keys never rebuilds it.
+ * <p>
+ * Where the keys come from is up to {@link JwtKeyManager}.
+ */
+public class JwtKeySet extends LocatorAdapter<Key> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final JwtParser parser = Jwts.parser().keyLocator(this).build();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs a JwtKeySet.
+     *
+     * @param keys the keys, the first of which signs new tokens
+     */
+    public JwtKeySet(final List<JwtSigningKey> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one signing key is required");
+        }
+        this.snapshot = Snapshot.of(keys);
+    }
+
+    /**
+     * Returns the key new tokens are signed with.
+     *
+     * @return the signing key
+     */
+    public JwtSigningKey signingKey() {
+        return snapshot.keys().get(0);
+    }
+
+    /**
+     * Returns the active keys, the signing key first.
+     *
+     * @return the keys
+     */
+    public List<JwtSigningKey> keys() {
+        return snapshot.keys();
+    }
+
+    /**
+     * Returns the parser verifying tokens signed with any of the keys.
+     * <p>
+     * The parser is immutable and shared by all threads.
+     *
+     * @return the parser
+     */
+    public JwtParser parser() {
+        return parser;
+    }
+
+    /**
+     * Returns the JWKS document of the public keys, serialized as JSON.
+     * <p>
+     * The same array is returned on every call and must not be modified.
+     *
+     * @return the JWKS document
+     */
+    public byte[] jwks() {
+        return snapshot.jwks();
+    }
+
+    /**
+     * Makes a key the signing key, keeping the previous keys for verification.
+     *
+     * @param key the new signing key
+     */
+    public synchronized void rotate(final JwtSigningKey key) {
+        final List<JwtSigningKey> keys = new ArrayList<>();
+        keys.add(key);
+        snapshot.keys().stream().filter(existing -> !existing.getKeyId().equals(key.getKeyId())).forEach(keys::add);
+        snapshot = Snapshot.of(keys);
+    }
+
+    /**
+     * Replaces the keys.
+     *
+     * @param keys the keys, the first of which signs new tokens
+     */
+    public synchronized void replace(final List<JwtSigningKey> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one signing key is required");
+        }
+        snapshot = Snapshot.of(keys);
+    }
+
+    /**
+     * Stops accepting tokens signed with a key. The signing key cannot be retired.
+     *
+     * @param keyId the ID of the key
+     * @return true if the key was retired, false if it is the signing key or not active
+     */
+    public synchronized boolean retire(final String keyId) {
+        final var current = snapshot;
+        if (current.keys().get(0).getKeyId().equals(keyId) || !current.byId().containsKey(keyId)) {
+            return false;
+        }
+        snapshot = Snapshot.of(current.keys().stream().filter(key -> !key.getKeyId().equals(keyId)).toList());
+        return true;
+    }
+
+    /**
+     * Returns the verification key of a token, found by its key ID.
+     *
+     * @param header the header of the token
+     * @return the verification key, or null if the key ID is unknown
+     */
+    @Override
+    protected Key locate(final ProtectedHeader header) {
+        final var current = snapshot;
+        final var keyId = header.getKeyId();
+        final var key = Objects.isNull(keyId) ? current.keys().get(0) : current.byId().get(keyId);
+        return Objects.isNull(key) ? null : key.getVerificationKey();
+    }
+
+    /**
+     * An immutable view of the active keys.
+     */
+    private record Snapshot(List<JwtSigningKey> keys, Map<String, JwtSigningKey> byId, byte[] jwks) {
+
+        static Snapshot of(final List<JwtSigningKey> keys) {
+            final Map<String, JwtSigningKey> byId = new LinkedHashMap<>();
+            keys.forEach(key -> byId.put(key.getKeyId(), key));
+            final var publicJwks = keys.stream()
+                    .filter(JwtSigningKey::isPublished)
+                    .map(JwtSigningKey::getPublicJwk)
+                    .toList();
+            try {
+                return new Snapshot(List.copyOf(keys), Map.copyOf(byId),
+                        OBJECT_MAPPER.writeValueAsBytes(Map.of("keys", publicJwks)));
+            } catch (JsonProcessingException exception) {
+                throw new IllegalStateException("Cannot serialize JWKS", exception);
+            }
+        }
+    }
+}
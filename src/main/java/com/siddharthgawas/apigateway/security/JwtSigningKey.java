@@ -0,0 +1,205 @@
+package com.siddharthgawas.apigateway.security;
+
+import lombok.Getter;
+
+import javax.crypto.SecretKey;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A key tokens are signed with, identified by a key ID carried in the {@code kid} header.
+ * <p>
+ * The key ID is the RFC 7638 thumbprint of the key, so every gateway instance holding the same key
+ * derives the same ID without coordination. Thumbprints of HMAC keys are a SHA-256 digest of the key
+ * and reveal nothing about it.
+ * <p>
+ * Asymmetric keys also carry their public JWK, which is published so upstreams can verify tokens
+ * themselves. HMAC keys have no public JWK.
+ */
+@Getter
+public final class JwtSigningKey {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private static final int ED25519_KEY_BYTES = 32;
+
+    private static final int P256_COORDINATE_BYTES = 32;
+
+    private static final ECParameterSpec P256 = p256();
+
+    private final String keyId;
+
+    private final JwtAlgorithm algorithm;
+
+    private final Key signingKey;
+
+    private final Key verificationKey;
+
+    private final Map<String, Object> publicJwk;
+
+    private JwtSigningKey(final JwtAlgorithm algorithm, final Key signingKey, final Key verificationKey,
+                          final Map<String, String> requiredMembers) {
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+        this.keyId = thumbprint(requiredMembers);
+        if (verificationKey instanceof PublicKey) {
+            final Map<String, Object> jwk = new LinkedHashMap<>(requiredMembers);
+            jwk.put("kid", keyId);
+            jwk.put("alg", algorithm.getJwsName());
+            jwk.put("use", "sig");
+            this.publicJwk = Collections.unmodifiableMap(jwk);
+        } else {
+            this.publicJwk = null;
+        }
+    }
+
+    /**
+     * Returns the signing key of an HMAC secret.
+     *
+     * @param secretKey a key of at least 512 bits
+     * @return the signing key
+     */
+    public static JwtSigningKey hmac(final SecretKey secretKey) {
+        final Map<String, String> members = new LinkedHashMap<>();
+        members.put("k", BASE64_URL.encodeToString(secretKey.getEncoded()));
+        members.put("kty", "oct");
+        return new JwtSigningKey(JwtAlgorithm.HS512, secretKey, secretKey, members);
+    }
+
+    /**
+     * Returns the signing key of an Ed25519 or P-256 key pair.
+     *
+     * @param keyPair the key pair
+     * @return the signing key
+     * @throws IllegalArgumentException if the key pair is of another type or on another curve
+     */
+    public static JwtSigningKey of(final KeyPair keyPair) {
+        final Map<String, String> members = new LinkedHashMap<>();
+        if (keyPair.getPublic() instanceof EdECPublicKey edKey && "Ed25519".equals(edKey.getParams().getName())) {
+            final var encoded = edKey.getEncoded();
+            // The X.509 encoding of an Ed25519 key ends with the 32-byte raw public key
+            members.put("crv", "Ed25519");
+            members.put("kty", "OKP");
+            members.put("x", BASE64_URL.encodeToString(
+                    Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_BYTES, encoded.length)));
+            return new JwtSigningKey(JwtAlgorithm.EDDSA, keyPair.getPrivate(), edKey, members);
+        }
+        if (keyPair.getPublic() instanceof ECPublicKey ecKey && isP256(ecKey.getParams())) {
+            members.put("crv", "P-256");
+            members.put("kty", "EC");
+            members.put("x", BASE64_URL.encodeToString(coordinate(ecKey.getW().getAffineX())));
+            members.put("y", BASE64_URL.encodeToString(coordinate(ecKey.getW().getAffineY())));
+            return new JwtSigningKey(JwtAlgorithm.ES256, keyPair.getPrivate(), ecKey, members);
+        }
+        throw new IllegalArgumentException("Unsupported signing key type " + keyPair.getPublic().getAlgorithm());
+    }
+
+    /**
+     * Generates a new key pair for an asymmetric algorithm.
+     *
+     * @param algorithm {@link JwtAlgorithm#ES256} or {@link JwtAlgorithm#EDDSA}
+     * @return the signing key
+     */
+    public static JwtSigningKey generate(final JwtAlgorithm algorithm) {
+        try {
+            final KeyPairGenerator generator;
+            if (algorithm == JwtAlgorithm.EDDSA) {
+                generator = KeyPairGenerator.getInstance("Ed25519");
+            } else if (algorithm == JwtAlgorithm.ES256) {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                throw new IllegalArgumentException(algorithm + " keys are not generated as key pairs");
+            }
+            return of(generator.generateKeyPair());
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("Cannot generate " + algorithm + " key", exception);
+        }
+    }
+
+    /**
+     * Returns whether tokens signed with this key can be verified with its public JWK.
+     *
+     * @return true for asymmetric keys
+     */
+    public boolean isPublished() {
+        return Objects.nonNull(publicJwk);
+    }
+
+    /**
+     * Returns whether curve parameters are those of P-256, comparing the curve, generator, order
+     * and cofactor, since other 256-bit curves such as secp256k1 share its field size.
+     */
+    private static boolean isP256(final ECParameterSpec params) {
+        return P256.getCurve().equals(params.getCurve())
+                && P256.getGenerator().equals(params.getGenerator())
+                && P256.getOrder().equals(params.getOrder())
+                && P256.getCofactor() == params.getCofactor();
+    }
+
+    /**
+     * Returns the parameters of P-256 (secp256r1).
+     */
+    private static ECParameterSpec p256() {
+        try {
+            final var parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec("secp256r1"));
+            return parameters.getParameterSpec(ECParameterSpec.class);
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("P-256 is not available", exception);
+        }
+    }
+
+    /**
+     * Encodes a P-256 coordinate as 32 unsigned big-endian bytes.
+     */
+    private static byte[] coordinate(final BigInteger value) {
+        final var bytes = value.toByteArray();
+        if (bytes.length == P256_COORDINATE_BYTES) {
+            return bytes;
+        }
+        final var fixed = new byte[P256_COORDINATE_BYTES];
+        final var length = Math.min(bytes.length, P256_COORDINATE_BYTES);
+        System.arraycopy(bytes, bytes.length - length, fixed, P256_COORDINATE_BYTES - length, length);
+        return fixed;
+    }
+
+    /**
+     * Returns the RFC 7638 thumbprint of a JWK given its required members in lexicographic order.
+     */
+    private static String thumbprint(final Map<String, String> requiredMembers) {
+        final var json = new StringBuilder("{");
+        requiredMembers.forEach((name, value) -> {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(name).append("\":\"").append(value).append('"');
+        });
+        json.append('}');
+        try {
+            return BASE64_URL.encodeToString(MessageDigest.getInstance("SHA-256")
+                    .digest(json.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.siddharthgawas.apigateway.security;
+
+import lombok.Getter;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Mints tokens signed with one key and carrying one issuer.
+ * <p>
+ * Everything that is the same for every token is encoded once: the header segment, and the start
+ * of the payload holding the issuer claim. The start of the payload is padded with JSON whitespace
+ * to a multiple of three bytes, so its base64url encoding ends on a whole group and the per-token
+ * claims ({@code sub}, {@code iat}, {@code exp} and {@code jti}) can be encoded on their own and
+ * appended to it. Minting a token then encodes a few dozen bytes and signs them. Refresh tokens also
+ * carry the {@link #FAMILY_ID_CLAIM} claim.
+ * <p>
+ * HMAC signatures use a clone of a {@link Mac} initialized once; signature providers are resolved
+ * once. Templates are immutable and thread-safe.
+ */
+public final class JwtTokenTemplate {
+
+    /**
+     * Claim holding the refresh token family of a refresh token.
+     */
+    public static final String FAMILY_ID_CLAIM = "fid";
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    @Getter
+    private final JwtSigningKey signingKey;
+
+    private final byte[] prefix;
+
+    private final Mac macPrototype;
+
+    private final Provider signatureProvider;
+
+    /**
+     * Constructs a JwtTokenTemplate.
+     *
+     * @param signingKey the key tokens are signed with
+     * @param issuer     the {@code iss} claim, or null to omit it
+     */
+    public JwtTokenTemplate(final JwtSigningKey signingKey, final String issuer) {
+        this.signingKey = signingKey;
+        final var header = new StringBuilder("{\"kid\":");
+        appendJsonString(header, signingKey.getKeyId());
+        header.append(",\"alg\":");
+        appendJsonString(header, signingKey.getAlgorithm().getJwsName());
+        header.append('}');
+        final var claims = new StringBuilder("{");
+        if (Objects.nonNull(issuer)) {
+            claims.append("\"iss\":");
+            appendJsonString(claims, issuer);
+            claims.append(',');
+        }
+        final var claimBytes = claims.toString().getBytes(StandardCharsets.UTF_8);
+        final var padded = Arrays.copyOf(claimBytes, (claimBytes.length + 2) / 3 * 3);
+        Arrays.fill(padded, claimBytes.length, padded.length, (byte) ' ');
+        this.prefix = (BASE64_URL.encodeToString(header.toString().getBytes(StandardCharsets.UTF_8)) + '.'
+                + BASE64_URL.encodeToString(padded)).getBytes(StandardCharsets.US_ASCII);
+        try {
+            if (signingKey.getAlgorithm() == JwtAlgorithm.HS512) {
+                this.macPrototype = Mac.getInstance(signingKey.getAlgorithm().getJcaName());
+                this.macPrototype.init(signingKey.getSigningKey());
+                this.signatureProvider = null;
+            } else {
+                this.macPrototype = null;
+                this.signatureProvider = Signature.getInstance(signingKey.getAlgorithm().getJcaName()).getProvider();
+            }
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("Cannot sign with " + signingKey.getAlgorithm().getJwsName(), exception);
+        }
+    }
+
+    /**
+     * Mints a signed token.
+     *
+     * @param subject     the {@code sub} claim
+     * @param issuedAtMs  the issue time in milliseconds, written in seconds
+     * @param expiresAtMs the expiration time in milliseconds, written in seconds
+     * @param tokenId     the {@code jti} claim
+     * @return the compact serialization of the token
+     */
+    public String mint(final String subject, final long issuedAtMs, final long expiresAtMs, final String tokenId) {
+        return mint(subject, issuedAtMs, expiresAtMs, tokenId, null);
+    }
+
+    /**
+     * Mints a signed token belonging to a refresh token family.
+     *
+     * @param subject     the {@code sub} claim
+     * @param issuedAtMs  the issue time in milliseconds, written in seconds
+     * @param expiresAtMs the expiration time in milliseconds, written in seconds
+     * @param tokenId     the {@code jti} claim
+     * @param familyId    the {@link #FAMILY_ID_CLAIM} claim, or null to omit it
+     * @return the compact serialization of the token
+     */
+    public String mint(final String subject, final long issuedAtMs, final long expiresAtMs, final String tokenId,
+                       final String familyId) {
+        final var claims = new StringBuilder(96 + subject.length() + tokenId.length()).append("\"sub\":");
+        appendJsonString(claims, subject);
+        claims.append(",\"iat\":").append(issuedAtMs / 1000)
+                .append(",\"exp\":").append(expiresAtMs / 1000)
+                .append(",\"jti\":");
+        appendJsonString(claims, tokenId);
+        if (Objects.nonNull(familyId)) {
+            claims.append(",\"" + FAMILY_ID_CLAIM + "\":");
+            appendJsonString(claims, familyId);
+        }
+        claims.append('}');
+        final var encodedClaims = BASE64_URL.encode(claims.toString().getBytes(StandardCharsets.UTF_8));
+
+        final var signingInputLength = prefix.length + encodedClaims.length;
+        final var signingInput = Arrays.copyOf(prefix, signingInputLength);
+        System.arraycopy(encodedClaims, 0, signingInput, prefix.length, encodedClaims.length);
+        final var signature = BASE64_URL.encode(sign(signingInput));
+
+        final var token = Arrays.copyOf(signingInput, signingInputLength + 1 + signature.length);
+        token[signingInputLength] = '.';
+        System.arraycopy(signature, 0, token, signingInputLength + 1, signature.length);
+        return new String(token, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Signs the JWS signing input.
+     */
+    private byte[] sign(final byte[] signingInput) {
+        try {
+            if (Objects.nonNull(macPrototype)) {
+                return newMac().doFinal(signingInput);
+            }
+            final var signature = Signature.getInstance(signingKey.getAlgorithm().getJcaName(), signatureProvider);
+            signature.initSign((PrivateKey) signingKey.getSigningKey());
+            signature.update(signingInput);
+            return signature.sign();
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("Cannot sign with " + signingKey.getAlgorithm().getJwsName(), exception);
+        }
+    }
+
+    /**
+     * Returns an initialized Mac, cloning the prototype when the provider supports it.
+     */
+    private Mac newMac() throws GeneralSecurityException {
+        try {
+            return (Mac) macPrototype.clone();
+        } catch (CloneNotSupportedException exception) {
+            final var mac = Mac.getInstance(macPrototype.getAlgorithm(), macPrototype.getProvider());
+            mac.init(signingKey.getSigningKey());
+            return mac;
+        }
+    }
+
+    /**
+     * Appends a JSON string literal, escaping quotes, backslashes and control characters.
+     */
+    private static void appendJsonString(final StringBuilder json, final String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
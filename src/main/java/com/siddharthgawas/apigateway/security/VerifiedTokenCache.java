@@ -0,0 +1,120 @@
+package com.siddharthgawas.apigateway.security;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.security.dto.VerifiedClaims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * VerifiedTokenCache is a bounded cache of verified JWT claims keyed by the SHA-256 digest of the token.
+ * <p>
+ * Repeated requests carrying the same access token are answered from this cache, skipping signature
+ * verification and claims decoding. Entries are evicted once the token's expiry has passed, so a
+ * cached verification is never served for an expired token.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final long SWEEP_INTERVAL_MS = 1000;
+
+    private final Map<TokenDigest, VerifiedClaims> entries = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+
+    private volatile long nextSweepAtMs = 0;
+
+    @Autowired
+    public VerifiedTokenCache(final ApplicationProperties applicationProperties) {
+        this(Math.toIntExact(applicationProperties.getJwtVerificationCacheSize()));
+    }
+
+    public VerifiedTokenCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached claims for the given token, verifying and caching it on a miss.
+     * <p>
+     * Tokens the verifier rejects (null result) are never cached.
+     *
+     * @param token    the compact JWT token
+     * @param verifier function that verifies the token and returns its claims, or null if invalid
+     * @return the verified claims, or null if the token is invalid or expired
+     */
+    public VerifiedClaims computeIfAbsent(final String token, final Function<String, VerifiedClaims> verifier) {
+        final var digest = TokenDigest.of(token);
+        final var now = System.currentTimeMillis();
+        final var cached = entries.get(digest);
+        if (Objects.nonNull(cached)) {
+            if (cached.expiresAtMs() > now) {
+                return cached;
+            }
+            entries.remove(digest, cached);
+            return null;
+        }
+        final var claims = verifier.apply(token);
+        if (Objects.nonNull(claims) && claims.expiresAtMs() > now && maxEntries > 0) {
+            makeRoom(now);
+            entries.put(digest, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Returns the number of entries currently held by the cache.
+     *
+     * @return the number of cached entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Ensures there is room for one more entry.
+     * <p>
+     * Expired entries are swept at most once per {@link #SWEEP_INTERVAL_MS}; if the cache is still
+     * full, an arbitrary entry is evicted so the cache never exceeds its bound.
+     *
+     * @param now the current time in epoch milliseconds
+     */
+    private void makeRoom(final long now) {
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        if (now >= nextSweepAtMs) {
+            nextSweepAtMs = now + SWEEP_INTERVAL_MS;
+            entries.values().removeIf(claims -> claims.expiresAtMs() <= now);
+        }
+        final var iterator = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * SHA-256 digest of a token, held as four longs so it can be used as a compact map key.
+     */
+    private record TokenDigest(long w0, long w1, long w2, long w3) {
+
+        static TokenDigest of(final String token) {
+            final MessageDigest messageDigest;
+            try {
+                messageDigest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException exception) {
+                throw new IllegalStateException("SHA-256 is not available", exception);
+            }
+            final var digest = ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+            return new TokenDigest(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.siddharthgawas.apigateway.security.dto;
 
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitPrincipal;
+import lombok.Getter;
 import lombok.Setter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -11,6 +13,8 @@ import java.util.List;
  * JWTAuthentication represents an authentication token that contains a JWT token.
  * It extends AbstractAuthenticationToken to provide the necessary methods for
  * authentication in Spring Security.
+ * Once authenticated it also carries the rate limit handle of the user, which the
+ * authentication filter publishes to the rate limiter.
  */
 public class JWTAuthentication extends AbstractAuthenticationToken {
 
@@ -19,6 +23,10 @@ public class JWTAuthentication extends AbstractAuthenticationToken {
     @Setter
     private UserDetails userDetails = null;
 
+    @Getter
+    @Setter
+    private transient RateLimitPrincipal rateLimitPrincipal = null;
+
     public JWTAuthentication(String token) {
         super(List.of(new SimpleGrantedAuthority("ROLE_USER")));
         this.token = token;
@@ -0,0 +1,26 @@
+package com.siddharthgawas.apigateway.security.dto;
+
+/**
+ * Represents the claims of a JWT token whose signature and expiry have been verified.
+ * <p>
+ * This record carries only the claims the gateway needs on the request path, so a
+ * verified token can be cached and reused without decoding it again.
+ *
+ * @param subject     The subject (username) of the token.
+ * @param tokenId     The unique identifier (jti) of the token.
+ * @param expiresAtMs The expiry of the token in epoch milliseconds, or 0 if the token has no expiry.
+ * @param familyId    The refresh token family of the token, or null if it is not a refresh token.
+ */
+public record VerifiedClaims(String subject, String tokenId, long expiresAtMs, String familyId) {
+
+    /**
+     * Constructs the claims of a token that is not a refresh token.
+     *
+     * @param subject     The subject (username) of the token.
+     * @param tokenId     The unique identifier (jti) of the token.
+     * @param expiresAtMs The expiry of the token in epoch milliseconds, or 0 if the token has no expiry.
+     */
+    public VerifiedClaims(final String subject, final String tokenId, final long expiresAtMs) {
+        this(subject, tokenId, expiresAtMs, null);
+    }
+}
@@ -6,11 +6,13 @@ import com.siddharthgawas.apigateway.security.dto.TokenDetails;
  * Service interface for handling authentication operations.
  * <p>
  * This interface defines methods for user authentication and token management,
- * including generating access tokens and refreshing them.
+ * including generating access tokens, refreshing them and revoking them.
  */
 public interface AuthenticationService {
 
     TokenDetails authenticate(String username, String password);
 
     TokenDetails refreshAccessToken(String refreshToken);
+
+    void revoke(String accessToken, String refreshToken);
 }
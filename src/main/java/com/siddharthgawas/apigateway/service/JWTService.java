@@ -1,5 +1,6 @@
 package com.siddharthgawas.apigateway.service;
 
+import com.siddharthgawas.apigateway.security.dto.VerifiedClaims;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -13,7 +14,25 @@ public interface JWTService {
 
     String generateRefreshToken(final UserDetails userDetails);
 
+    /**
+     * Generates a refresh token belonging to a refresh token family.
+     *
+     * @param userDetails the user the token is issued to
+     * @param familyId    the family of the token, carried in its {@code fid} claim
+     * @param tokenId     the {@code jti} of the token, as recorded for the family
+     * @return the refresh token
+     */
+    String generateRefreshToken(final UserDetails userDetails, final String familyId, final String tokenId);
+
     Boolean validateToken(String token);
 
     User getUserFromToken(String token);
+
+    /**
+     * Parses the token and verifies its signature and expiry in a single pass.
+     *
+     * @param token the compact JWT token
+     * @return the verified claims, or null if the token is invalid
+     */
+    VerifiedClaims verifyToken(String token);
 }
@@ -0,0 +1,27 @@
+package com.siddharthgawas.apigateway.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Service interface for forwarding requests to upstream services.
+ * <p>
+ * This interface defines the reverse proxy operation of the gateway: requests are matched
+ * against the configured route table and streamed to one of the route's upstreams.
+ */
+public interface ProxyService {
+
+    /**
+     * Forwards the request to an upstream of the matching route and streams the upstream response back.
+     *
+     * @param request           the incoming request
+     * @param response          the response to write the upstream response to
+     * @param authenticatedUser the name of the authenticated user, or null for unauthenticated requests
+     * @return true if the request matched a route and a response was written, false if no route matched
+     * @throws IOException if reading the request or writing the response fails
+     */
+    boolean forward(HttpServletRequest request, HttpServletResponse response, String authenticatedUser)
+            throws IOException;
+}
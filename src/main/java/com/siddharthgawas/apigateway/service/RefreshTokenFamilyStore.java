@@ -0,0 +1,54 @@
+package com.siddharthgawas.apigateway.service;
+
+/**
+ * RefreshTokenFamilyStore tracks the refresh tokens issued from each sign-in.
+ * <p>
+ * Every sign-in opens a family, and every refresh rotates it: the presented refresh token must be
+ * the latest one of its family and is replaced by the next. Presenting an earlier token means it
+ * was copied, so the whole family is revoked and both the thief and the user have to sign in again.
+ */
+public interface RefreshTokenFamilyStore {
+
+    /**
+     * Outcome of presenting a refresh token.
+     */
+    enum Rotation {
+        /**
+         * The token was the latest of its family and has been replaced.
+         */
+        ROTATED,
+        /**
+         * The token had already been used, or its family was revoked; the family is revoked.
+         */
+        REUSED,
+        /**
+         * The family does not exist or has expired.
+         */
+        UNKNOWN
+    }
+
+    /**
+     * Opens a family with its first refresh token.
+     *
+     * @param familyId the family
+     * @param tokenId  the {@code jti} of the first refresh token
+     */
+    void open(String familyId, String tokenId);
+
+    /**
+     * Replaces the latest refresh token of a family, if it is the presented one.
+     *
+     * @param familyId         the family of the presented token
+     * @param presentedTokenId the {@code jti} of the presented token
+     * @param nextTokenId      the {@code jti} of the token replacing it
+     * @return the outcome
+     */
+    Rotation rotate(String familyId, String presentedTokenId, String nextTokenId);
+
+    /**
+     * Revokes a family, so none of its refresh tokens are accepted.
+     *
+     * @param familyId the family
+     */
+    void revoke(String familyId);
+}
@@ -0,0 +1,26 @@
+package com.siddharthgawas.apigateway.service;
+
+/**
+ * TokenRevocationService keeps the access tokens revoked before their expiry.
+ * <p>
+ * Tokens are identified by their {@code jti}. A revoked token stays revoked until it expires, after
+ * which it is rejected anyway.
+ */
+public interface TokenRevocationService {
+
+    /**
+     * Revokes a token.
+     *
+     * @param tokenId     the {@code jti} of the token
+     * @param expiresAtMs the expiry of the token in epoch milliseconds
+     */
+    void revoke(String tokenId, long expiresAtMs);
+
+    /**
+     * Returns whether a token was revoked.
+     *
+     * @param tokenId the {@code jti} of the token
+     * @return true if the token was revoked
+     */
+    boolean isRevoked(String tokenId);
+}
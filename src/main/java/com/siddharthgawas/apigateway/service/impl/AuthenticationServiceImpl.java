@@ -1,13 +1,18 @@
 package com.siddharthgawas.apigateway.service.impl;
 
+import com.siddharthgawas.apigateway.security.JwtIdGenerator;
 import com.siddharthgawas.apigateway.security.dto.TokenDetails;
 import com.siddharthgawas.apigateway.service.AuthenticationService;
 import com.siddharthgawas.apigateway.service.JWTService;
+import com.siddharthgawas.apigateway.service.RefreshTokenFamilyStore;
+import com.siddharthgawas.apigateway.service.TokenRevocationService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -17,7 +22,13 @@ import java.util.Objects;
 /**
  * AuthenticationServiceImpl is responsible for handling user authentication and token generation.
  * It implements the AuthenticationService interface to provide custom authentication logic.
+ * <p>
+ * Every sign-in opens a refresh token family in the {@link RefreshTokenFamilyStore}, and every
+ * refresh rotates it, so each refresh token is accepted once. A refresh token presented twice
+ * revokes its family. Signing out revokes the access token in the {@link TokenRevocationService}
+ * and the family of the refresh token.
  */
+@Slf4j
 @Service
 public class AuthenticationServiceImpl implements AuthenticationService {
 
@@ -27,9 +38,19 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     private final JWTService jwtService;
 
+    private final RefreshTokenFamilyStore refreshTokenFamilyStore;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    private final JwtIdGenerator idGenerator = new JwtIdGenerator();
+
     @Autowired
-    public AuthenticationServiceImpl(final PasswordEncoder passwordEncoder, final JWTService jwtService) {
+    public AuthenticationServiceImpl(final PasswordEncoder passwordEncoder, final JWTService jwtService,
+                                     final RefreshTokenFamilyStore refreshTokenFamilyStore,
+                                     final TokenRevocationService tokenRevocationService) {
         this.jwtService = jwtService;
+        this.refreshTokenFamilyStore = refreshTokenFamilyStore;
+        this.tokenRevocationService = tokenRevocationService;
         this.users = new HashMap<>();
         this.users.put("johndoe", new User("johndoe", passwordEncoder.encode("johndoe"),
                 Collections.emptyList()));
@@ -55,30 +76,69 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         if (Objects.isNull(user) || !this.passwordEncoder.matches(password, user.getPassword())) {
             throw new AccessDeniedException("Invalid username or password");
         }
+        final var familyId = idGenerator.next();
+        final var tokenId = idGenerator.next();
+        this.refreshTokenFamilyStore.open(familyId, tokenId);
         var accessToken = this.jwtService.generateAccessToken(user);
-        var refreshToken = this.jwtService.generateRefreshToken(user);
+        var refreshToken = this.jwtService.generateRefreshToken(user, familyId, tokenId);
         return new TokenDetails(accessToken, refreshToken);
     }
 
     /**
      * Refreshes the access token using the provided refresh token.
-     * Validates the refresh token and generates a new access token if valid.
+     * Verifies the refresh token, rotates its family and generates a new access token and refresh token.
      *
      * @param refreshToken the refresh token to validate and use for generating a new access token
      * @return TokenDetails containing the new access token and a new refresh token
-     * @throws AccessDeniedException if the refresh token is invalid or no user is found
+     * @throws AccessDeniedException if the refresh token is invalid, already used or no user is found
      */
     @Override
     public TokenDetails refreshAccessToken(final String refreshToken) {
-        var isValid = this.jwtService.validateToken(refreshToken);
-        if (!isValid) {
+        final var claims = this.jwtService.verifyToken(refreshToken);
+        if (Objects.isNull(claims) || Objects.isNull(claims.familyId()) || Objects.isNull(claims.tokenId())) {
             throw new AccessDeniedException("Invalid refresh token");
         }
-        var user = this.jwtService.getUserFromToken(refreshToken);
-        if (Objects.isNull(user)) {
+        if (!StringUtils.hasLength(claims.subject())) {
             throw new AccessDeniedException("No user found for the provided refresh token");
         }
+        final var nextTokenId = idGenerator.next();
+        switch (this.refreshTokenFamilyStore.rotate(claims.familyId(), claims.tokenId(), nextTokenId)) {
+            case ROTATED -> {
+            }
+            case REUSED -> {
+                log.warn("Refresh token reused for {}, revoked family {}", claims.subject(), claims.familyId());
+                throw new AccessDeniedException("Refresh token has already been used");
+            }
+            default -> throw new AccessDeniedException("Invalid refresh token");
+        }
+        final var user = new User(claims.subject(), "", Collections.emptyList());
         var accessToken = this.jwtService.generateAccessToken(user);
-        return new TokenDetails(accessToken, this.jwtService.generateRefreshToken(user));
+        return new TokenDetails(accessToken,
+                this.jwtService.generateRefreshToken(user, claims.familyId(), nextTokenId));
+    }
+
+    /**
+     * Revokes an access token until it expires, and the family of a refresh token of the same user.
+     * An invalid refresh token, or one of another user, is ignored.
+     *
+     * @param accessToken  the access token to revoke
+     * @param refreshToken the refresh token whose family to revoke, or null
+     * @throws AccessDeniedException if the access token is invalid or a refresh token
+     */
+    @Override
+    public void revoke(final String accessToken, final String refreshToken) {
+        final var claims = this.jwtService.verifyToken(accessToken);
+        if (Objects.isNull(claims) || Objects.isNull(claims.tokenId()) || Objects.nonNull(claims.familyId())) {
+            throw new AccessDeniedException("Invalid access token");
+        }
+        this.tokenRevocationService.revoke(claims.tokenId(), claims.expiresAtMs());
+        if (!StringUtils.hasLength(refreshToken)) {
+            return;
+        }
+        final var refreshClaims = this.jwtService.verifyToken(refreshToken);
+        if (Objects.nonNull(refreshClaims) && Objects.nonNull(refreshClaims.familyId())
+                && Objects.equals(refreshClaims.subject(), claims.subject())) {
+            this.refreshTokenFamilyStore.revoke(refreshClaims.familyId());
+        }
     }
 }
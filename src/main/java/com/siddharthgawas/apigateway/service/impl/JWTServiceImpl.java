@@ -1,82 +1,111 @@
 package com.siddharthgawas.apigateway.service.impl;
 
 import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.security.JwtIdGenerator;
+import com.siddharthgawas.apigateway.security.JwtKeyManager;
+import com.siddharthgawas.apigateway.security.JwtKeySet;
+import com.siddharthgawas.apigateway.security.JwtTokenTemplate;
+import com.siddharthgawas.apigateway.security.dto.VerifiedClaims;
 import com.siddharthgawas.apigateway.service.JWTService;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
-import java.security.SecureRandom;
 import java.util.Collections;
-import java.util.Date;
-import java.util.UUID;
+import java.util.List;
+import java.util.Objects;
 
+/**
+ * JWTServiceImpl mints and verifies tokens with the keys of a {@link JwtKeySet}.
+ * <p>
+ * Tokens are signed with the current signing key and carry its key ID in the {@code kid} header;
+ * verification looks the key up by that ID, so tokens signed with any active key are accepted.
+ * Tokens are verified by the parser the key set builds once and shares between threads, and minted
+ * from a {@link JwtTokenTemplate} of the signing key that encodes the constant header and issuer
+ * once. Token IDs come from a {@link JwtIdGenerator} rather than {@code UUID.randomUUID()}.
+ */
 @Service
 @Log4j2
 public class JWTServiceImpl implements JWTService {
 
     private final ApplicationProperties applicationProperties;
 
-    private final SecretKey secretKey;
+    private final JwtKeySet keySet;
+
+    private final JwtIdGenerator idGenerator = new JwtIdGenerator();
+
+    private volatile JwtTokenTemplate template;
 
     public JWTServiceImpl(final ApplicationProperties applicationProperties) {
+        this(applicationProperties, new JwtKeySet(List.of(JwtKeyManager.configuredKey(applicationProperties))));
+    }
+
+    @Autowired
+    public JWTServiceImpl(final ApplicationProperties applicationProperties, final JwtKeySet keySet) {
         this.applicationProperties = applicationProperties;
-        this.secretKey = Jwts.SIG.HS512.key()
-                .random(new SecureRandom(applicationProperties.getSecret().getBytes(StandardCharsets.UTF_8)))
-                .build();
+        this.keySet = keySet;
     }
 
     @Override
     public String generateAccessToken(UserDetails userDetails) {
-        final var currentDate = new Date();
-        final var expirationDate = new Date(currentDate.getTime() + applicationProperties.getJwtAccessTokenExpirationMs());
-        return Jwts.builder().subject(userDetails.getUsername())
-                .issuedAt(currentDate)
-                .id(UUID.randomUUID().toString())
-                .issuer(applicationProperties.getJwtIssuer())
-                .expiration(expirationDate)
-                .signWith(this.secretKey)
-                .compact();
+        final var issuedAtMs = System.currentTimeMillis();
+        return template().mint(userDetails.getUsername(), issuedAtMs,
+                issuedAtMs + applicationProperties.getJwtAccessTokenExpirationMs(), idGenerator.next());
     }
 
     @Override
     public String generateRefreshToken(UserDetails userDetails) {
-        final var currentDate = new Date();
-        final var expirationDate = new Date(currentDate.getTime() + applicationProperties.getJwtRefreshTokenExpirationMs());
-        return Jwts.builder().subject(userDetails.getUsername())
-                .issuedAt(currentDate)
-                .id(UUID.randomUUID().toString())
-                .issuer(applicationProperties.getJwtIssuer())
-                .expiration(expirationDate)
-                .signWith(this.secretKey)
-                .compact();
+        final var issuedAtMs = System.currentTimeMillis();
+        return template().mint(userDetails.getUsername(), issuedAtMs,
+                issuedAtMs + applicationProperties.getJwtRefreshTokenExpirationMs(), idGenerator.next());
     }
 
+    @Override
+    public String generateRefreshToken(UserDetails userDetails, String familyId, String tokenId) {
+        final var issuedAtMs = System.currentTimeMillis();
+        return template().mint(userDetails.getUsername(), issuedAtMs,
+                issuedAtMs + applicationProperties.getJwtRefreshTokenExpirationMs(), tokenId, familyId);
+    }
+
+    /**
+     * Returns the template of the current signing key, rebuilding it after a rotation.
+     */
+    private JwtTokenTemplate template() {
+        final var signingKey = keySet.signingKey();
+        var current = template;
+        if (Objects.isNull(current) || current.getSigningKey() != signingKey) {
+            current = new JwtTokenTemplate(signingKey, applicationProperties.getJwtIssuer());
+            template = current;
+        }
+        return current;
+    }
 
     @Override
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parser().verifyWith(secretKey).build()
-                    .parse(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException exception) {
-            log.error("JWT token is invalid: {}", exception.getMessage());
-            return false;
-        }
+        return Objects.nonNull(verifyToken(token));
     }
 
     @Override
     public User getUserFromToken(String token) {
+        final var claims = verifyToken(token);
+        if (Objects.isNull(claims) || !StringUtils.hasLength(claims.subject())) {
+            return null;
+        }
+        return new User(claims.subject(), "", Collections.emptyList());
+    }
+
+    @Override
+    public VerifiedClaims verifyToken(String token) {
         try {
-            var claims = Jwts.parser().verifyWith(secretKey).build()
-                    .parseSignedClaims(token).getPayload();
-            String username = claims.getSubject();
-            return new User(username, "", Collections.emptyList());
+            var claims = keySet.parser().parseSignedClaims(token).getPayload();
+            var expiration = claims.getExpiration();
+            return new VerifiedClaims(claims.getSubject(), claims.getId(),
+                    Objects.nonNull(expiration) ? expiration.getTime() : 0L,
+                    claims.get(JwtTokenTemplate.FAMILY_ID_CLAIM, String.class));
         } catch (JwtException | IllegalArgumentException exception) {
             log.error("JWT token is invalid: {}", exception.getMessage());
             return null;
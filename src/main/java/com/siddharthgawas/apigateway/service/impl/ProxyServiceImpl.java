@@ -0,0 +1,195 @@
+package com.siddharthgawas.apigateway.service.impl;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import com.siddharthgawas.apigateway.routing.UpstreamPool;
+import com.siddharthgawas.apigateway.service.ProxyService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Reverse proxy forwarding requests to upstreams using the JDK HTTP client.
+ * <p>
+ * Requests are forwarded when their route in the {@link RouteTable} has upstreams, and are spread
+ * over those upstreams round-robin. Request and response bodies are streamed, never buffered whole. Hop-by-hop headers
+ * are dropped, {@code X-Forwarded-*} headers are added, and the caller's bearer token is replaced
+ * by the {@value #AUTHENTICATED_USER_HEADER} header carrying the authenticated user.
+ */
+@Service
+@Slf4j
+public class ProxyServiceImpl implements ProxyService {
+
+    public static final String AUTHENTICATED_USER_HEADER = "X-Authenticated-User";
+
+    private static final long DEFAULT_RESPONSE_TIMEOUT_MS = 30_000;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+            "proxy-authorization", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade",
+            "http2-settings");
+
+    /**
+     * Request headers that are not copied to the upstream request, in lower case. Besides hop-by-hop
+     * headers these are headers set by the HTTP client itself and headers set by the gateway.
+     */
+    private static final Set<String> REQUEST_HEADERS_NOT_FORWARDED = Set.of("host", "content-length", "expect",
+            "authorization", "x-authenticated-user", "x-forwarded-for", "x-forwarded-host", "x-forwarded-proto");
+
+    private final HttpClient httpClient;
+
+    private final RouteTable routeTable;
+
+    private final Duration responseTimeout;
+
+    @Autowired
+    public ProxyServiceImpl(final HttpClient proxyHttpClient,
+                            final RouteTable routeTable,
+                            final ApplicationProperties applicationProperties) {
+        this.httpClient = proxyHttpClient;
+        this.routeTable = routeTable;
+        this.responseTimeout = Duration.ofMillis(Objects.requireNonNullElse(
+                applicationProperties.getProxyResponseTimeoutMs(), DEFAULT_RESPONSE_TIMEOUT_MS));
+    }
+
+    @Override
+    public boolean forward(final HttpServletRequest request, final HttpServletResponse response,
+                           final String authenticatedUser) throws IOException {
+        final var upstream = routeTable.resolve(request).upstream();
+        if (Objects.isNull(upstream)) {
+            return false;
+        }
+        final var upstreamRequest = buildUpstreamRequest(request, upstream, authenticatedUser);
+        final HttpResponse<InputStream> upstreamResponse;
+        try {
+            upstreamResponse = httpClient.send(upstreamRequest, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (HttpTimeoutException e) {
+            log.warn("Upstream {} timed out: {}", upstreamRequest.uri(), e.getMessage());
+            writeError(response, HttpStatus.GATEWAY_TIMEOUT);
+            return true;
+        } catch (IOException e) {
+            log.warn("Upstream {} failed: {}", upstreamRequest.uri(), e.getMessage());
+            writeError(response, HttpStatus.BAD_GATEWAY);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeError(response, HttpStatus.BAD_GATEWAY);
+            return true;
+        }
+        copyResponse(upstreamResponse, response);
+        return true;
+    }
+
+    private HttpRequest buildUpstreamRequest(final HttpServletRequest request,
+                                             final UpstreamPool upstream,
+                                             final String authenticatedUser) {
+        final var query = request.getQueryString();
+        final var uri = URI.create(upstream.nextUpstream() + upstream.forwardedPath(RouteTable.pathWithinApplication(request))
+                + (Objects.isNull(query) ? "" : "?" + query));
+        final var builder = HttpRequest.newBuilder(uri)
+                .timeout(responseTimeout)
+                .method(request.getMethod(), bodyPublisher(request));
+        final var headerNames = request.getHeaderNames();
+        while (headerNames.hasMoreElements()) {
+            final var name = headerNames.nextElement();
+            final var lowerCaseName = name.toLowerCase(Locale.ROOT);
+            if (HOP_BY_HOP_HEADERS.contains(lowerCaseName) || REQUEST_HEADERS_NOT_FORWARDED.contains(lowerCaseName)) {
+                continue;
+            }
+            final var values = request.getHeaders(name);
+            while (values.hasMoreElements()) {
+                builder.header(name, values.nextElement());
+            }
+        }
+        final var forwardedFor = request.getHeader("X-Forwarded-For");
+        builder.header("X-Forwarded-For", StringUtils.hasLength(forwardedFor)
+                ? forwardedFor + ", " + request.getRemoteAddr()
+                : request.getRemoteAddr());
+        builder.header("X-Forwarded-Proto", request.getScheme());
+        if (StringUtils.hasLength(request.getHeader("Host"))) {
+            builder.header("X-Forwarded-Host", request.getHeader("Host"));
+        }
+        if (StringUtils.hasLength(authenticatedUser)) {
+            builder.header(AUTHENTICATED_USER_HEADER, authenticatedUser);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Streams the request body to the upstream, with a fixed length when the client sent one.
+     *
+     * @param request the incoming request
+     * @return the body publisher
+     */
+    private static HttpRequest.BodyPublisher bodyPublisher(final HttpServletRequest request) {
+        final var contentLength = request.getContentLengthLong();
+        if (contentLength == 0 || (contentLength < 0 && Objects.isNull(request.getHeader("Transfer-Encoding")))) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        final var publisher = HttpRequest.BodyPublishers.ofInputStream(() -> {
+            try {
+                return request.getInputStream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return contentLength > 0 ? HttpRequest.BodyPublishers.fromPublisher(publisher, contentLength) : publisher;
+    }
+
+    /**
+     * Copies status, end-to-end headers and body of the upstream response to the response.
+     * <p>
+     * The body is flushed whenever the upstream has no more data ready, so streamed responses
+     * reach the client as they are produced.
+     *
+     * @param upstreamResponse the upstream response
+     * @param response         the response to write to
+     * @throws IOException if reading the upstream response or writing the response fails
+     */
+    private static void copyResponse(final HttpResponse<InputStream> upstreamResponse,
+                                     final HttpServletResponse response) throws IOException {
+        response.setStatus(upstreamResponse.statusCode());
+        upstreamResponse.headers().map().forEach((name, values) -> {
+            if (name.startsWith(":") || HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                return;
+            }
+            values.forEach(value -> response.addHeader(name, value));
+        });
+        try (var body = upstreamResponse.body()) {
+            final var outputStream = response.getOutputStream();
+            final var buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                if (body.available() == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+    }
+
+    private static void writeError(final HttpServletResponse response, final HttpStatus status) throws IOException {
+        if (!response.isCommitted()) {
+            response.setStatus(status.value());
+            response.getWriter().write(status.getReasonPhrase());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.siddharthgawas.apigateway.service.impl;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.service.RefreshTokenFamilyStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * RedisRefreshTokenFamilyStore keeps refresh token families in Redis.
+ * <p>
+ * A family is a single hash holding the {@code jti} of its latest refresh token and its state, so
+ * every operation is one Lua script call touching one key, and a refresh costs one round trip. The
+ * family ID is hash-tagged in the key, which keeps Redis Cluster happy.
+ * <p>
+ * A family expires {@code application.jwtRefreshTokenExpirationMs} after its latest rotation,
+ * together with the latest refresh token. Revoked families are kept until then, so the remaining
+ * tokens of a revoked family keep being reported as reused.
+ */
+@Service
+public class RedisRefreshTokenFamilyStore implements RefreshTokenFamilyStore {
+
+    public static final String KEY_PREFIX = "rtf:";
+
+    private static final RedisScript<Long> OPEN_SCRIPT = RedisScript.of("""
+            redis.call('HSET', KEYS[1], 'jti', ARGV[1], 'state', 'active')
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> ROTATE_SCRIPT = RedisScript.of("""
+            local family = redis.call('HMGET', KEYS[1], 'jti', 'state')
+            if not family[1] then
+                return 0
+            end
+            if family[2] ~= 'active' or family[1] ~= ARGV[1] then
+                redis.call('HSET', KEYS[1], 'state', 'revoked')
+                return -1
+            end
+            redis.call('HSET', KEYS[1], 'jti', ARGV[2])
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> REVOKE_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                redis.call('HSET', KEYS[1], 'state', 'revoked')
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String ttlMs;
+
+    /**
+     * Constructs a RedisRefreshTokenFamilyStore.
+     *
+     * @param redisTemplate         the template the scripts run on
+     * @param applicationProperties the application properties holding the refresh token lifetime
+     */
+    @Autowired
+    public RedisRefreshTokenFamilyStore(final StringRedisTemplate redisTemplate,
+                                        final ApplicationProperties applicationProperties) {
+        this.redisTemplate = redisTemplate;
+        this.ttlMs = String.valueOf(applicationProperties.getJwtRefreshTokenExpirationMs());
+    }
+
+    @Override
+    public void open(final String familyId, final String tokenId) {
+        redisTemplate.execute(OPEN_SCRIPT, List.of(familyKey(familyId)), tokenId, ttlMs);
+    }
+
+    @Override
+    public Rotation rotate(final String familyId, final String presentedTokenId, final String nextTokenId) {
+        final var result = redisTemplate.execute(ROTATE_SCRIPT, List.of(familyKey(familyId)),
+                presentedTokenId, nextTokenId, ttlMs);
+        if (Objects.isNull(result) || result == 0) {
+            return Rotation.UNKNOWN;
+        }
+        return result > 0 ? Rotation.ROTATED : Rotation.REUSED;
+    }
+
+    @Override
+    public void revoke(final String familyId) {
+        redisTemplate.execute(REVOKE_SCRIPT, List.of(familyKey(familyId)));
+    }
+
+    /**
+     * Returns the key of a family, hash-tagged by the family ID.
+     *
+     * @param familyId the family
+     * @return the key
+     */
+    static String familyKey(final String familyId) {
+        return KEY_PREFIX + "{" + familyId + "}";
+    }
+}
@@ -0,0 +1,215 @@
+package com.siddharthgawas.apigateway.service.impl;
+
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.security.BloomFilter;
+import com.siddharthgawas.apigateway.service.TokenRevocationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * RedisTokenRevocationService keeps revoked access tokens in Redis behind a local Bloom filter.
+ * <p>
+ * A revoked token is a key {@code rvk:<jti>} expiring with the token, indexed in the sorted set
+ * {@link #INDEX_KEY} by expiry and announced on the channel {@link #CHANNEL}. Every node holds a
+ * {@link BloomFilter} of the revoked tokens, so the common case of a token that was never revoked is
+ * answered in-process. Only tokens the filter reports go to Redis, and tokens confirmed revoked are
+ * remembered until they expire.
+ * <p>
+ * The filter is rebuilt from the index by {@link #refresh()}, which also drops expired tokens from
+ * it, and tokens announced on the channel are added to it as they arrive. When Redis cannot be
+ * reached, tokens the filter reports are rejected.
+ * <p>
+ * Until the first refresh succeeds there is no filter, and every token is checked in Redis. If Redis
+ * cannot be reached then, tokens are rejected, since none can be shown not to be revoked. Only when
+ * fail-open is enabled are they accepted and counted in {@link GatewayMetrics} instead, with further
+ * checks skipping Redis until the next refresh, so a cold start during a Redis outage neither rejects
+ * all traffic nor makes every request wait for a timeout, at the cost of accepting revoked tokens.
+ */
+@Slf4j
+public class RedisTokenRevocationService implements TokenRevocationService, MessageListener {
+
+    public static final String KEY_PREFIX = "rvk:";
+
+    public static final String INDEX_KEY = KEY_PREFIX + "index";
+
+    public static final String CHANNEL = KEY_PREFIX + "events";
+
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final int capacity;
+
+    private final boolean failOpen;
+
+    private final GatewayMetrics metrics;
+
+    private final LongSupplier clock;
+
+    private final Map<String, Long> confirmed = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    private volatile Queue<String> arrivedDuringRefresh;
+
+    private volatile boolean uncheckedUntilRefresh;
+
+    /**
+     * Constructs a RedisTokenRevocationService.
+     *
+     * @param redisTemplate the template revoked tokens are kept with
+     * @param capacity      the number of revoked tokens the filter is sized for at least
+     * @param failOpen      whether tokens are accepted unchecked while revoked tokens are not loaded
+     *                      and Redis cannot be reached
+     * @param metrics       the metrics unchecked tokens are counted in
+     * @param clock         the clock in milliseconds
+     */
+    public RedisTokenRevocationService(final StringRedisTemplate redisTemplate,
+                                       final int capacity,
+                                       final boolean failOpen,
+                                       final GatewayMetrics metrics,
+                                       final LongSupplier clock) {
+        this.redisTemplate = redisTemplate;
+        this.capacity = capacity;
+        this.failOpen = failOpen;
+        this.metrics = metrics;
+        this.clock = clock;
+    }
+
+    /**
+     * Revokes a token in Redis and announces it to every node, including this one.
+     *
+     * @param tokenId     the {@code jti} of the token
+     * @param expiresAtMs the expiry of the token in epoch milliseconds
+     */
+    @Override
+    public void revoke(final String tokenId, final long expiresAtMs) {
+        final var now = clock.getAsLong();
+        if (expiresAtMs <= now) {
+            return;
+        }
+        redisTemplate.opsForValue().set(KEY_PREFIX + tokenId, "1", Duration.ofMillis(expiresAtMs - now));
+        redisTemplate.opsForZSet().add(INDEX_KEY, tokenId, expiresAtMs);
+        confirmed.put(tokenId, expiresAtMs);
+        add(tokenId);
+        redisTemplate.convertAndSend(CHANNEL, tokenId);
+    }
+
+    /**
+     * Returns whether a token was revoked, asking Redis only when the filter reports the token.
+     *
+     * @param tokenId the {@code jti} of the token
+     * @return true if the token was revoked or Redis could not check it, unless fail-open accepted it
+     */
+    @Override
+    public boolean isRevoked(final String tokenId) {
+        final var current = filter;
+        if (Objects.nonNull(current) && !current.mightContain(tokenId)) {
+            return false;
+        }
+        if (Objects.isNull(current) && uncheckedUntilRefresh) {
+            metrics.recordRevocationUnchecked();
+            return false;
+        }
+        final var now = clock.getAsLong();
+        final var expiresAtMs = confirmed.get(tokenId);
+        if (Objects.nonNull(expiresAtMs) && expiresAtMs > now) {
+            return true;
+        }
+        try {
+            final var ttlMs = redisTemplate.getExpire(KEY_PREFIX + tokenId, TimeUnit.MILLISECONDS);
+            if (Objects.isNull(ttlMs) || ttlMs == -2) {
+                return false;
+            }
+            confirmed.put(tokenId, ttlMs > 0 ? now + ttlMs : Long.MAX_VALUE);
+            return true;
+        } catch (RuntimeException exception) {
+            if (Objects.isNull(current) && failOpen) {
+                log.warn("Revoked tokens are not loaded and Redis is unavailable, accepting tokens unchecked: {}",
+                        exception.getMessage());
+                uncheckedUntilRefresh = true;
+                metrics.recordRevocationUnchecked();
+                return false;
+            }
+            log.warn("Failed to check token revocation of {}: {}", tokenId, exception.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the index of revoked tokens, dropping expired tokens.
+     * <p>
+     * The filter is sized for twice the revoked tokens, and no less than the configured capacity.
+     * Tokens announced while the index is read are added to the new filter. A refresh that fails
+     * keeps the current filter.
+     *
+     * @return true if the filter was rebuilt, false otherwise
+     */
+    public synchronized boolean refresh() {
+        uncheckedUntilRefresh = false;
+        final var now = clock.getAsLong();
+        final var arrived = new ConcurrentLinkedQueue<String>();
+        arrivedDuringRefresh = arrived;
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(INDEX_KEY, Double.NEGATIVE_INFINITY, now);
+            final var tokenIds = redisTemplate.opsForZSet().range(INDEX_KEY, 0, -1);
+            final var revoked = Objects.isNull(tokenIds) ? 0 : tokenIds.size();
+            final var next = BloomFilter.create((int) Math.min(Integer.MAX_VALUE,
+                    Math.max((long) capacity, 2L * revoked)), FALSE_POSITIVE_RATE);
+            if (Objects.nonNull(tokenIds)) {
+                tokenIds.forEach(next::add);
+            }
+            filter = next;
+            arrivedDuringRefresh = null;
+            arrived.forEach(next::add);
+            confirmed.values().removeIf(expiresAtMs -> expiresAtMs <= now);
+            log.debug("Loaded {} revoked tokens", revoked);
+            return true;
+        } catch (RuntimeException exception) {
+            arrivedDuringRefresh = null;
+            log.warn("Failed to load revoked tokens: {}", exception.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Adds a token announced on the channel to the filter.
+     *
+     * @param message the message holding the {@code jti}
+     * @param pattern the pattern the channel matched, if any
+     */
+    @Override
+    public void onMessage(final Message message, final byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds a token to the filter, and to the filter being rebuilt if a refresh is running.
+     */
+    private void add(final String tokenId) {
+        final var arrived = arrivedDuringRefresh;
+        if (Objects.nonNull(arrived)) {
+            arrived.add(tokenId);
+        }
+        var current = filter;
+        while (Objects.nonNull(current)) {
+            current.add(tokenId);
+            if (current == filter) {
+                break;
+            }
+            current = filter;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class AuthenticationControllerTest {
@@ -75,5 +76,20 @@ class AuthenticationControllerTest {
         assertThat(response.getHeaders().getFirst(HttpHeaders.SET_COOKIE)).contains("");
         assertThat(response.getBody()).isEqualTo(tokenDetails);
     }
-}
 
+    @Test
+    void revokeToken_shouldRevokeBearerTokenAndClearCookie() {
+        ResponseEntity<Void> response = authenticationController.revokeToken("Bearer access", null, "refresh");
+
+        verify(authenticationService).revoke("access", "refresh");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.SET_COOKIE)).contains("refreshToken=", "Max-Age=0");
+    }
+
+    @Test
+    void revokeToken_shouldUseRefreshTokenOfRequestBody_whenCookieAbsent() {
+        authenticationController.revokeToken("Bearer access", new TokenRefreshRequest("refresh"), null);
+
+        verify(authenticationService).revoke("access", "refresh");
+    }
+}
@@ -1,24 +1,43 @@
 package com.siddharthgawas.apigateway.controller;
 
 import com.siddharthgawas.apigateway.dto.APIResponse;
+import com.siddharthgawas.apigateway.service.ProxyService;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.security.Principal;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
 
 class CatchAllControllerTest {
+    private ProxyService proxyService;
+    private CatchAllController controller;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        proxyService = mock(ProxyService.class);
+        controller = new CatchAllController(proxyService);
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+    }
 
     @Test
-    void handleAll_shouldReturnSuccessResponse() {
-        CatchAllController controller = new CatchAllController();
-        HttpServletRequest request = mock(HttpServletRequest.class);
+    void handleAll_shouldReturnSuccessResponse() throws IOException {
+        when(proxyService.forward(any(), any(), isNull())).thenReturn(false);
 
-        ResponseEntity<?> response = controller.handleAll(request);
+        ResponseEntity<?> response = controller.handleAll(request, this.response);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isInstanceOf(APIResponse.class);
@@ -26,5 +45,17 @@ class CatchAllControllerTest {
         Assertions.assertNotNull(apiResponse);
         assertThat(apiResponse.message()).isEqualTo("Successfully reached the API Gateway");
     }
-}
 
+    @Test
+    void handleAll_shouldForwardWithAuthenticatedUser_whenRouteMatches() throws IOException {
+        Principal principal = mock(Principal.class);
+        when(principal.getName()).thenReturn("johndoe");
+        when(request.getUserPrincipal()).thenReturn(principal);
+        when(proxyService.forward(request, response, "johndoe")).thenReturn(true);
+
+        ResponseEntity<?> result = controller.handleAll(request, response);
+
+        assertThat(result).isNull();
+        verify(proxyService).forward(request, response, "johndoe");
+    }
+}
@@ -0,0 +1,30 @@
+package com.siddharthgawas.apigateway.controller;
+
+import com.siddharthgawas.apigateway.security.JwtAlgorithm;
+import com.siddharthgawas.apigateway.security.JwtKeySet;
+import com.siddharthgawas.apigateway.security.JwtSigningKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwksControllerTest {
+
+    @Test
+    void jwks_shouldReturnCachedDocumentOfKeySet() {
+        JwtKeySet keySet = new JwtKeySet(List.of(JwtSigningKey.generate(JwtAlgorithm.EDDSA)));
+        JwksController controller = new JwksController(keySet);
+
+        ResponseEntity<byte[]> response = controller.jwks();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL)).contains("public");
+        assertThat(response.getBody()).isSameAs(keySet.jwks());
+    }
+}
@@ -0,0 +1,97 @@
+package com.siddharthgawas.apigateway.metrics;
+
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GatewayMetricsTest {
+    private SimpleMeterRegistry meterRegistry;
+    private RouteTable routeTable;
+    private GatewayMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        routeTable = new RouteTable(List.of());
+        metrics = new GatewayMetrics(meterRegistry, routeTable);
+    }
+
+    @Test
+    void constructor_shouldRegisterEveryTagCombinationUpFront() {
+        assertThat(meterRegistry.find("gateway.filter").timers())
+                .hasSize(GatewayMetrics.Filter.values().length * (routeTable.descriptors().size() + 1)
+                        * GatewayMetrics.Outcome.values().length);
+        assertThat(meterRegistry.find("gateway.jwt.verification").timers())
+                .hasSize(GatewayMetrics.Outcome.values().length);
+        assertThat(meterRegistry.find("gateway.ratelimit.redis").timers())
+                .hasSize(GatewayMetrics.RedisOperation.values().length * 2);
+    }
+
+    @Test
+    void recordFilter_shouldRecordIntoTimerTaggedByFilterRouteAndOutcome() {
+        metrics.recordFilter(GatewayMetrics.Filter.RATE_LIMITER, routeTable.classify("/api/users/42"),
+                GatewayMetrics.Outcome.REJECTED, TimeUnit.MILLISECONDS.toNanos(2));
+
+        final var timer = meterRegistry.get("gateway.filter")
+                .tag("filter", "rate_limiter")
+                .tag("route", "/**")
+                .tag("outcome", "rejected")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2.0);
+        assertThat(meterRegistry.get("gateway.filter").tag("outcome", "allowed").timers())
+                .allMatch(allowed -> allowed.count() == 0);
+    }
+
+    @Test
+    void recordTokenVerification_shouldRecordIntoTimerTaggedByOutcome() {
+        metrics.recordTokenVerification(GatewayMetrics.Outcome.ALLOWED, 1000);
+
+        assertThat(meterRegistry.get("gateway.jwt.verification").tag("outcome", "allowed").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void recordRedisCall_shouldRecordIntoTimerTaggedByOperationAndOutcome() {
+        metrics.recordRedisCall(GatewayMetrics.RedisOperation.BATCH, true, 1000);
+
+        assertThat(meterRegistry.get("gateway.ratelimit.redis")
+                .tag("operation", "batch")
+                .tag("outcome", "error")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void recordRateLimitFallback_shouldIncrementFallbackCounter() {
+        metrics.recordRateLimitFallback();
+        metrics.recordRateLimitFallback();
+
+        assertThat(meterRegistry.get("gateway.ratelimit.fallback").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void recordRevocationUnchecked_shouldCountUncheckedTokens() {
+        metrics.recordRevocationUnchecked();
+
+        assertThat(meterRegistry.get("gateway.jwt.revocation.unchecked").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void recordFilter_shouldRecordAsUnclassified_whenRouteMissing() {
+        metrics.recordFilter(GatewayMetrics.Filter.JWT_AUTHENTICATION, null, GatewayMetrics.Outcome.ALLOWED, 1000);
+
+        assertThat(meterRegistry.get("gateway.filter")
+                .tag("filter", "jwt_authentication")
+                .tag("route", GatewayMetrics.UNCLASSIFIED_ROUTE)
+                .tag("outcome", "allowed")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+}
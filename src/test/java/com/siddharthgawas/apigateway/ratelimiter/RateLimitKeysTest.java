@@ -0,0 +1,71 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitKeysTest {
+
+    @Test
+    void bucketKey_shouldHaveFixedLength_whenKeyIsLong() {
+        assertThat(RateLimitKeys.bucketKey("u", "/**")).hasSize(27).startsWith(RateLimitKeys.PREFIX);
+        assertThat(RateLimitKeys.bucketKey("u".repeat(1000), "/orders/{id}/items/**")).hasSize(27);
+    }
+
+    @Test
+    void bucketKey_shouldBeStable_whenCalledRepeatedly() {
+        assertThat(RateLimitKeys.bucketKey("johndoe", "/orders/**"))
+                .isEqualTo(RateLimitKeys.bucketKey("johndoe", "/orders/**"));
+    }
+
+    @Test
+    void bucketKey_shouldDiffer_whenSeparatorMovesBetweenKeyAndRoute() {
+        assertThat(RateLimitKeys.bucketKey("a:b", "/x")).isNotEqualTo(RateLimitKeys.bucketKey("a", "b:/x"));
+        assertThat(RateLimitKeys.bucketKey("johndoe", "/orders/**"))
+                .isNotEqualTo(RateLimitKeys.bucketKey("janedoe", "/orders/**"));
+    }
+
+    @Test
+    void bucketKey_shouldUsePrefixOfStrategy_whenPrefixIsGiven() {
+        String tokenBucketKey = RateLimitKeys.bucketKey("johndoe", "/orders/**");
+        String gcraKey = RateLimitKeys.bucketKey(RateLimitKeys.GCRA_PREFIX, "johndoe", "/orders/**");
+        assertThat(gcraKey).startsWith(RateLimitKeys.GCRA_PREFIX)
+                .endsWith(tokenBucketKey.substring(RateLimitKeys.PREFIX.length()));
+    }
+
+    @Test
+    void bucketKey_shouldMapToSlotOfDigest_whenPrefixDiffers() {
+        String tokenBucketKey = RateLimitKeys.bucketKey("johndoe", "/orders/**");
+        String slidingWindowKey = RateLimitKeys.bucketKey(RateLimitKeys.SLIDING_WINDOW_PREFIX, "johndoe", "/orders/**");
+        assertThat(tokenBucketKey).matches("rl:\\{[A-Za-z0-9_-]{22}}");
+        assertThat(SlotHash.getSlot(tokenBucketKey)).isEqualTo(SlotHash.getSlot(slidingWindowKey));
+    }
+
+    @Test
+    void bucketKeyBytes_shouldEncodeBase64UrlDigest_asBucketKeyDoes() throws Exception {
+        var digest = MessageDigest.getInstance("SHA-256")
+                .digest("johndoe\0/orders/**".getBytes(StandardCharsets.UTF_8));
+        var expected = RateLimitKeys.PREFIX + '{'
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + '}';
+
+        var bytes = RateLimitKeys.bucketKeyBytes(RateLimitKeys.PREFIX.getBytes(StandardCharsets.US_ASCII),
+                "johndoe", "/orders/**");
+
+        assertThat(new String(bytes, StandardCharsets.US_ASCII)).isEqualTo(expected);
+        assertThat(RateLimitKeys.bucketKey("johndoe", "/orders/**")).isEqualTo(expected);
+    }
+
+    @Test
+    void shardHash_shouldBeStable_andDifferAcrossKeys() {
+        assertThat(RateLimitKeys.shardHash("johndoe", "/orders/**"))
+                .isEqualTo(RateLimitKeys.shardHash("johndoe", "/orders/**"))
+                .isNotEqualTo(RateLimitKeys.shardHash("janedoe", "/orders/**"))
+                .isNotEqualTo(RateLimitKeys.shardHash("johndoe", "/catalog/**"));
+    }
+}
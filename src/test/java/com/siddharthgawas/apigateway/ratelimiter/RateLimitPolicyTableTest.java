@@ -0,0 +1,104 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitPolicyDocument;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitPolicyTableTest {
+    private static final RateLimitRule DEFAULT_RULE = RateLimitRule.of(100);
+
+    private RouteTable routeTable;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties.Route reports = new ApplicationProperties.Route();
+        reports.setPathPrefix("/reports");
+        reports.setUpstreams(List.of("http://localhost:9001"));
+        reports.setRateLimitPolicy("reports");
+        ApplicationProperties.Route catalog = new ApplicationProperties.Route();
+        catalog.setPathPrefix("/catalog");
+        catalog.setUpstreams(List.of("http://localhost:9002"));
+        catalog.setAuthenticationRequired(false);
+        routeTable = new RouteTable(List.of(reports, catalog));
+    }
+
+    @Test
+    void resolve_shouldReturnDefaultRule_whenNoPolicyIsLoaded() {
+        RateLimitPolicyTable table = new RateLimitPolicyTable(routeTable.descriptors(), DEFAULT_RULE, null,
+                new ObjectMapper());
+        assertThat(table.resolve(routeTable.classify("/reports/1"), "user1")).isEqualTo(DEFAULT_RULE);
+        assertThat(table.resolve(null, "user1")).isEqualTo(DEFAULT_RULE);
+    }
+
+    @Test
+    void resolve_shouldReturnRuleOfRoutePolicyAndTier() {
+        RateLimitPolicyTable table = new RateLimitPolicyTable(routeTable.descriptors(), DEFAULT_RULE, null,
+                new ObjectMapper());
+        table.apply(new RateLimitPolicyDocument("standard", Map.of("vip", "premium"), Map.of(
+                "default", Map.of(
+                        "anonymous", RateLimitRule.of(20),
+                        "standard", new RateLimitRule(100, 20),
+                        "premium", new RateLimitRule(1000, 200)),
+                "reports", Map.of(
+                        "premium", RateLimitRule.of(50),
+                        "*", RateLimitRule.of(5)))));
+
+        assertThat(table.resolve(routeTable.classify("/reports/1"), "vip")).isEqualTo(RateLimitRule.of(50));
+        assertThat(table.resolve(routeTable.classify("/reports/1"), "user1")).isEqualTo(RateLimitRule.of(5));
+        assertThat(table.resolve(routeTable.classify("/orders/1"), "vip")).isEqualTo(new RateLimitRule(1000, 200));
+        assertThat(table.resolve(routeTable.classify("/orders/1"), "user1")).isEqualTo(new RateLimitRule(100, 20));
+        assertThat(table.resolve(routeTable.classify("/catalog/1"), "10.0.0.1")).isEqualTo(RateLimitRule.of(20));
+    }
+
+    @Test
+    void resolve_shouldFallBackToDefaultRule_whenTierIsNotCovered() {
+        RateLimitPolicyTable table = new RateLimitPolicyTable(routeTable.descriptors(), DEFAULT_RULE, null,
+                new ObjectMapper());
+        table.apply(new RateLimitPolicyDocument(null, Map.of("vip", "gold"),
+                Map.of("reports", Map.of("standard", RateLimitRule.of(5)))));
+
+        assertThat(table.resolve(routeTable.classify("/reports/1"), "vip")).isEqualTo(DEFAULT_RULE);
+        assertThat(table.resolve(routeTable.classify("/reports/1"), "user1")).isEqualTo(RateLimitRule.of(5));
+    }
+
+    @Test
+    void reload_shouldSwapInChangedFile_andKeepTableWhenFileIsInvalid() throws Exception {
+        Path policyFile = tempDir.resolve("policies.json");
+        Files.writeString(policyFile, """
+                {"policies": {"default": {"*": {"limit": 10, "burst": 5}}}}
+                """);
+        RateLimitPolicyTable table = new RateLimitPolicyTable(routeTable.descriptors(), DEFAULT_RULE, policyFile,
+                new ObjectMapper());
+
+        assertThat(table.reload()).isTrue();
+        assertThat(table.resolve(routeTable.classify("/orders/1"), "user1")).isEqualTo(new RateLimitRule(10, 5));
+        assertThat(table.reload()).isFalse();
+
+        Files.writeString(policyFile, "{\"policies\": {\"default\": {\"*\": {\"limit\": 0}}}}");
+        Files.setLastModifiedTime(policyFile, FileTime.from(Instant.now().plusSeconds(10)));
+        assertThat(table.reload()).isFalse();
+        assertThat(table.resolve(routeTable.classify("/orders/1"), "user1")).isEqualTo(new RateLimitRule(10, 5));
+
+        Files.writeString(policyFile, "{\"policies\": {\"default\": {\"*\": {\"limit\": 30}}}}");
+        Files.setLastModifiedTime(policyFile, FileTime.from(Instant.now().plusSeconds(20)));
+        assertThat(table.reload()).isTrue();
+        assertThat(table.resolve(routeTable.classify("/orders/1"), "user1")).isEqualTo(RateLimitRule.of(30));
+    }
+}
@@ -0,0 +1,98 @@
+package com.siddharthgawas.apigateway.ratelimiter;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitPropsCacheTest {
+    private static final RateLimitRule RULE = RateLimitRule.of(100);
+
+    private static final byte[] PREFIX = RateLimitKeys.PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+    private final RouteTable routeTable = new RouteTable(List.of());
+
+    private final RouteDescriptor route = routeTable.classify("/orders/42");
+
+    @Test
+    void get_shouldReturnSameProps_whenKeyRouteAndRuleAreUnchanged() {
+        RateLimitPropsCache cache = new RateLimitPropsCache(10);
+
+        RateLimitProps first = cache.get("user1", route, route.rateLimitScope(), RULE);
+        RateLimitProps second = cache.get(new String("user1"), route, route.rateLimitScope(), RULE);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first).isEqualTo(new RateLimitProps("user1", route.rateLimitScope(), RULE));
+    }
+
+    @Test
+    void get_shouldReplaceProps_whenRuleChanges() {
+        RateLimitPropsCache cache = new RateLimitPropsCache(10);
+        RateLimitProps first = cache.get("user1", route, route.rateLimitScope(), RULE);
+
+        RateLimitRule reloaded = new RateLimitRule(500, 50);
+        RateLimitProps second = cache.get("user1", route, route.rateLimitScope(), reloaded);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getRule()).isSameAs(reloaded);
+        assertThat(cache.get("user1", route, route.rateLimitScope(), reloaded)).isSameAs(second);
+    }
+
+    @Test
+    void get_shouldKeepPropsPerRoute() {
+        RateLimitPropsCache cache = new RateLimitPropsCache(10);
+
+        RateLimitProps classified = cache.get("user1", route, route.rateLimitScope(), null);
+        RateLimitProps unclassified = cache.get("user1", null, RouteTable.CATCH_ALL_TEMPLATE, null);
+
+        assertThat(unclassified).isNotSameAs(classified);
+        assertThat(cache.get("user1", route, route.rateLimitScope(), null)).isSameAs(classified);
+        assertThat(cache.get("user1", null, RouteTable.CATCH_ALL_TEMPLATE, null)).isSameAs(unclassified);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void principal_shouldReturnSameHandle_forEqualKeys() {
+        RateLimitPropsCache cache = new RateLimitPropsCache(10);
+
+        RateLimitPrincipal principal = cache.principal("user1");
+
+        assertThat(cache.principal(new String("user1"))).isSameAs(principal);
+        assertThat(principal.props(route, route.rateLimitScope(), RULE))
+                .isSameAs(cache.get("user1", route, route.rateLimitScope(), RULE));
+    }
+
+    @Test
+    void get_shouldClear_whenFull() {
+        RateLimitPropsCache cache = new RateLimitPropsCache(2);
+        cache.get("user1", route, route.rateLimitScope(), null);
+        cache.get("user2", route, route.rateLimitScope(), null);
+
+        cache.get("user3", route, route.rateLimitScope(), null);
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void bucketKey_shouldBeComputedOnce_whenPropsAreReused() {
+        RateLimitProps props = new RateLimitPropsCache(10).get("user1", route, route.rateLimitScope(), null);
+
+        byte[] bucketKey = props.bucketKey(PREFIX);
+
+        assertThat(props.bucketKey(PREFIX)).isSameAs(bucketKey);
+        assertThat(new String(bucketKey, StandardCharsets.US_ASCII))
+                .isEqualTo(RateLimitKeys.bucketKey("user1", route.rateLimitScope()));
+    }
+
+    @Test
+    void constructor_shouldReject_whenMaxKeysIsNotPositive() {
+        assertThatThrownBy(() -> new RateLimitPropsCache(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
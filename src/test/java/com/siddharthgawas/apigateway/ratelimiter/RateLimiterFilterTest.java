@@ -1,19 +1,35 @@
 package com.siddharthgawas.apigateway.ratelimiter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitPolicyDocument;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class RateLimiterFilterTest {
@@ -51,7 +67,7 @@ class RateLimiterFilterTest {
     void doFilterInternal_shouldReturnTooManyRequests_whenQuotaExceeded() throws ServletException, IOException {
         when(keyExtractor.apply(any())).thenReturn("user1");
         when(request.getRequestURI()).thenReturn("/api/test");
-        when(rateLimitStrategy.isQuotaExceeded(any())).thenReturn(true);
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(RateLimitDecision.REJECTED);
         when(response.isCommitted()).thenReturn(false);
         when(response.getWriter()).thenReturn(mock(java.io.PrintWriter.class));
         filter.doFilterInternal(request, response, filterChain);
@@ -64,7 +80,7 @@ class RateLimiterFilterTest {
     void doFilterInternal_shouldProceed_whenQuotaNotExceeded() throws ServletException, IOException {
         when(keyExtractor.apply(any())).thenReturn("user2");
         when(request.getRequestURI()).thenReturn("/api/test");
-        when(rateLimitStrategy.isQuotaExceeded(any())).thenReturn(false);
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(RateLimitDecision.ALLOWED);
         filter.doFilterInternal(request, response, filterChain);
         verify(filterChain).doFilter(request, response);
     }
@@ -93,5 +109,185 @@ class RateLimiterFilterTest {
         when(pathMatcher.matches(request)).thenReturn(false);
         assertThat(customFilter.shouldNotFilter(request)).isTrue();
     }
-}
 
+    @Test
+    void doFilterInternal_shouldDispatchAsync_whenAsyncEnabledAndQuotaNotExceeded() throws ServletException, IOException {
+        AsyncContext asyncContext = mockAsyncRequest("user1");
+        when(rateLimitStrategy.checkQuotaAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(RateLimitDecision.ALLOWED));
+        filter.setAsyncEnabled(true);
+        filter.doFilterInternal(request, response, filterChain);
+        verify(asyncContext).dispatch();
+        verify(rateLimitStrategy, never()).checkQuota(any());
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    void doFilterInternal_shouldCompleteWithTooManyRequests_whenAsyncEnabledAndQuotaExceeded() throws ServletException, IOException {
+        AsyncContext asyncContext = mockAsyncRequest("user1");
+        when(rateLimitStrategy.checkQuotaAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(RateLimitDecision.REJECTED));
+        when(response.getWriter()).thenReturn(mock(java.io.PrintWriter.class));
+        filter.setAsyncEnabled(true);
+        filter.doFilterInternal(request, response, filterChain);
+        verify(response).setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        verify(asyncContext).complete();
+        verify(asyncContext, never()).dispatch();
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    void doFilterInternal_shouldSendServerErrorWithException_whenAsyncCheckFails() throws ServletException, IOException {
+        AsyncContext asyncContext = mockAsyncRequest("user1");
+        IllegalStateException failure = new IllegalStateException("redis down");
+        when(rateLimitStrategy.checkQuotaAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new CompletionException(failure)));
+        filter.setAsyncEnabled(true);
+        filter.doFilterInternal(request, response, filterChain);
+        verify(request).setAttribute(RequestDispatcher.ERROR_EXCEPTION, failure);
+        verify(response).sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        verify(response, never()).setStatus(anyInt());
+        verify(asyncContext).complete();
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    void doFilterInternal_shouldCheckSynchronously_whenAsyncNotSupported() throws ServletException, IOException {
+        when(keyExtractor.apply(any())).thenReturn("user1");
+        when(request.getRequestURI()).thenReturn("/api/test");
+        when(request.isAsyncSupported()).thenReturn(false);
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(RateLimitDecision.ALLOWED);
+        filter.setAsyncEnabled(true);
+        filter.doFilterInternal(request, response, filterChain);
+        verify(request, never()).startAsync(any(), any());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_shouldRecordDecisionByRouteTemplate_whenQuotaExceeded() throws ServletException, IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RouteTable routeTable = new RouteTable(java.util.List.of());
+        filter.setMetrics(new GatewayMetrics(meterRegistry, routeTable));
+        when(keyExtractor.apply(any())).thenReturn("user1");
+        when(request.getRequestURI()).thenReturn("/api/users/42");
+        when(request.getAttribute(RouteTable.ROUTE_ATTRIBUTE)).thenReturn(routeTable.classify("/api/users/42"));
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(RateLimitDecision.REJECTED);
+        when(response.getWriter()).thenReturn(mock(java.io.PrintWriter.class));
+        filter.doFilterInternal(request, response, filterChain);
+        assertThat(meterRegistry.get("gateway.filter")
+                .tag("filter", "rate_limiter")
+                .tag("route", "/**")
+                .tag("outcome", "rejected")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void doFilterInternal_shouldLimitByRouteTemplate_whenRequestWasClassified() throws ServletException, IOException {
+        RouteTable routeTable = new RouteTable(java.util.List.of());
+        when(keyExtractor.apply(any())).thenReturn("user1");
+        when(request.getRequestURI()).thenReturn("/orders/42");
+        when(request.getAttribute(RouteTable.ROUTE_ATTRIBUTE)).thenReturn(routeTable.classify("/orders/42"));
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(RateLimitDecision.ALLOWED);
+        filter.doFilterInternal(request, response, filterChain);
+        verify(rateLimitStrategy).checkQuota(new RateLimitProps("user1", RouteTable.CATCH_ALL_TEMPLATE));
+    }
+
+    @Test
+    void doFilterInternal_shouldPassRuleOfRouteAndTier_whenPolicyTableIsSet() throws ServletException, IOException {
+        RouteTable routeTable = new RouteTable(java.util.List.of());
+        RateLimitPolicyTable policyTable = new RateLimitPolicyTable(routeTable.descriptors(), RateLimitRule.of(100),
+                null, new ObjectMapper());
+        policyTable.apply(new RateLimitPolicyDocument(null, Map.of("user1", "premium"),
+                Map.of("default", Map.of("premium", new RateLimitRule(1000, 200)))));
+        filter.setPolicyTable(policyTable);
+        when(keyExtractor.apply(any())).thenReturn("user1");
+        when(request.getRequestURI()).thenReturn("/orders/42");
+        when(request.getAttribute(RouteTable.ROUTE_ATTRIBUTE)).thenReturn(routeTable.classify("/orders/42"));
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(RateLimitDecision.ALLOWED);
+        filter.doFilterInternal(request, response, filterChain);
+        verify(rateLimitStrategy).checkQuota(new RateLimitProps("user1", RouteTable.CATCH_ALL_TEMPLATE,
+                new RateLimitRule(1000, 200)));
+    }
+
+    @Test
+    void doFilterInternal_shouldAddRetryAfterAndRateLimitHeaders_whenQuotaExceeded() throws ServletException, IOException {
+        when(keyExtractor.apply(any())).thenReturn("user1");
+        when(request.getRequestURI()).thenReturn("/api/test");
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(new RateLimitDecision(false, 100, 0, 59_001, 600));
+        when(response.getWriter()).thenReturn(mock(java.io.PrintWriter.class));
+        filter.doFilterInternal(request, response, filterChain);
+        verify(response).setHeader(RateLimiterFilter.RATE_LIMIT_LIMIT_HEADER, "100");
+        verify(response).setHeader(RateLimiterFilter.RATE_LIMIT_REMAINING_HEADER, "0");
+        verify(response).setHeader(RateLimiterFilter.RATE_LIMIT_RESET_HEADER, "60");
+        verify(response).setHeader(org.springframework.http.HttpHeaders.RETRY_AFTER, "1");
+        verify(response).setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    void doFilterInternal_shouldAddRemainingQuotaWithoutRetryAfter_whenAllowed() throws ServletException, IOException {
+        when(keyExtractor.apply(any())).thenReturn("user1");
+        when(request.getRequestURI()).thenReturn("/api/test");
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(new RateLimitDecision(true, 100, 42, 35_000, 0));
+        filter.doFilterInternal(request, response, filterChain);
+        verify(response).setHeader(RateLimiterFilter.RATE_LIMIT_REMAINING_HEADER, "42");
+        verify(response).setHeader(RateLimiterFilter.RATE_LIMIT_RESET_HEADER, "35");
+        verify(response, never()).setHeader(eq(org.springframework.http.HttpHeaders.RETRY_AFTER), any());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_shouldOmitHeaders_whenStrategyDoesNotReportQuota() throws ServletException, IOException {
+        when(keyExtractor.apply(any())).thenReturn("user1");
+        when(request.getRequestURI()).thenReturn("/api/test");
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(RateLimitDecision.ALLOWED);
+        filter.doFilterInternal(request, response, filterChain);
+        verify(response, never()).setHeader(any(), any());
+    }
+
+    @Test
+    void doFilterInternal_shouldReuseProps_whenSameKeyRepeats() throws ServletException, IOException {
+        when(keyExtractor.apply(any())).thenReturn("user1", new String("user1"));
+        when(request.getRequestURI()).thenReturn("/api/test");
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(RateLimitDecision.ALLOWED);
+        filter.doFilterInternal(request, response, filterChain);
+        filter.doFilterInternal(request, response, filterChain);
+        ArgumentCaptor<RateLimitProps> props = ArgumentCaptor.forClass(RateLimitProps.class);
+        verify(rateLimitStrategy, times(2)).checkQuota(props.capture());
+        assertThat(props.getAllValues().get(1)).isSameAs(props.getAllValues().get(0));
+    }
+
+    @Test
+    void doFilterInternal_shouldWriteLargeHeaderValues_whenBeyondCachedValues() throws ServletException, IOException {
+        when(keyExtractor.apply(any())).thenReturn("user1");
+        when(request.getRequestURI()).thenReturn("/api/test");
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(new RateLimitDecision(true, 50_000, 1023, 0, 0));
+        filter.doFilterInternal(request, response, filterChain);
+        verify(response).setHeader(RateLimiterFilter.RATE_LIMIT_LIMIT_HEADER, "50000");
+        verify(response).setHeader(RateLimiterFilter.RATE_LIMIT_REMAINING_HEADER, "1023");
+        verify(response).setHeader(RateLimiterFilter.RATE_LIMIT_RESET_HEADER, "0");
+    }
+
+    @Test
+    void doFilterInternal_shouldUsePublishedPrincipal_insteadOfKeyExtractor() throws ServletException, IOException {
+        RateLimitPrincipal principal = new RateLimitPrincipal("user1");
+        when(request.getAttribute(RateLimitPrincipal.ATTRIBUTE)).thenReturn(principal);
+        when(request.getRequestURI()).thenReturn("/api/test");
+        when(rateLimitStrategy.checkQuota(any())).thenReturn(RateLimitDecision.ALLOWED);
+        filter.doFilterInternal(request, response, filterChain);
+        verifyNoInteractions(keyExtractor);
+        verify(rateLimitStrategy).checkQuota(principal.props(null, RouteTable.CATCH_ALL_TEMPLATE, null));
+        verify(filterChain).doFilter(request, response);
+    }
+
+    private AsyncContext mockAsyncRequest(String key) {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(keyExtractor.apply(any())).thenReturn(key);
+        when(request.getRequestURI()).thenReturn("/api/test");
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        when(response.isCommitted()).thenReturn(false);
+        return asyncContext;
+    }
+}
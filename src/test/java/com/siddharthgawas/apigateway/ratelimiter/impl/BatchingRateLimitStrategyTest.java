@@ -0,0 +1,224 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class BatchingRateLimitStrategyTest {
+    private TokenBucketRateLimitStrategy redisStrategy;
+    private BatchingRateLimitStrategy strategy;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        redisStrategy = mock(TokenBucketRateLimitStrategy.class);
+        callers = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (strategy != null) {
+            strategy.close();
+        }
+    }
+
+    @Test
+    void isQuotaExceeded_shouldCompleteEachCallerFromBatchResult() {
+        when(redisStrategy.checkQuota(anyList(), anyList())).thenAnswer(invocation -> {
+            List<byte[]> keys = invocation.getArgument(0);
+            byte[] blocked = RateLimitKeys.bucketKey("blocked", "/api").getBytes(StandardCharsets.US_ASCII);
+            RateLimitDecision[] decisions = new RateLimitDecision[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                decisions[i] = RateLimitDecision.of(java.util.Arrays.equals(keys.get(i), blocked));
+            }
+            return decisions;
+        });
+        strategy = new BatchingRateLimitStrategy(redisStrategy, 16, 1000, Thread::new);
+
+        assertThat(strategy.isQuotaExceeded(new RateLimitProps("allowed", "/api"))).isFalse();
+        assertThat(strategy.isQuotaExceeded(new RateLimitProps("blocked", "/api"))).isTrue();
+    }
+
+    @Test
+    void isQuotaExceeded_shouldCoalesceConcurrentChecks() throws Exception {
+        var firstBatchStarted = new CountDownLatch(1);
+        var releaseFirstBatch = new CountDownLatch(1);
+        when(redisStrategy.checkQuota(anyList(), anyList())).thenAnswer(invocation -> {
+            List<byte[]> keys = invocation.getArgument(0);
+            firstBatchStarted.countDown();
+            releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            RateLimitDecision[] decisions = new RateLimitDecision[keys.size()];
+            java.util.Arrays.fill(decisions, RateLimitDecision.ALLOWED);
+            return decisions;
+        });
+        strategy = new BatchingRateLimitStrategy(redisStrategy, 16, 1000, Thread::new);
+
+        var first = CompletableFuture.supplyAsync(() -> strategy.isQuotaExceeded(new RateLimitProps("user0", "/api")),
+                callers);
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        // These checks queue up while the first batch is in flight and are sent together
+        var rest = new CompletableFuture<?>[4];
+        for (int i = 0; i < rest.length; i++) {
+            var key = "user" + (i + 1);
+            rest[i] = CompletableFuture.supplyAsync(() -> strategy.isQuotaExceeded(new RateLimitProps(key, "/api")),
+                    callers);
+        }
+        Thread.sleep(100);
+        releaseFirstBatch.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isFalse();
+        CompletableFuture.allOf(rest).get(5, TimeUnit.SECONDS);
+        verify(redisStrategy, times(2)).checkQuota(anyList(), anyList());
+    }
+
+    @Test
+    void isQuotaExceeded_shouldSplitBatchBySlot_whenGroupBySlotIsSet() throws Exception {
+        var firstBatchStarted = new CountDownLatch(1);
+        var releaseFirstBatch = new CountDownLatch(1);
+        var sentKeys = new java.util.concurrent.CopyOnWriteArrayList<List<byte[]>>();
+        when(redisStrategy.checkQuota(anyList(), anyList())).thenAnswer(invocation -> {
+            List<byte[]> keys = invocation.getArgument(0);
+            sentKeys.add(List.copyOf(keys));
+            firstBatchStarted.countDown();
+            releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            RateLimitDecision[] decisions = new RateLimitDecision[keys.size()];
+            java.util.Arrays.fill(decisions, RateLimitDecision.ALLOWED);
+            return decisions;
+        });
+        strategy = new BatchingRateLimitStrategy(redisStrategy, 16, 1000, Thread::new);
+        strategy.setGroupBySlot(true);
+
+        var first = CompletableFuture.supplyAsync(() -> strategy.isQuotaExceeded(new RateLimitProps("user0", "/api")),
+                callers);
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        var rest = new CompletableFuture<?>[6];
+        for (int i = 0; i < rest.length; i++) {
+            var key = "user" + (i + 1);
+            rest[i] = CompletableFuture.supplyAsync(() -> strategy.isQuotaExceeded(new RateLimitProps(key, "/api")),
+                    callers);
+        }
+        Thread.sleep(100);
+        releaseFirstBatch.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isFalse();
+        CompletableFuture.allOf(rest).get(5, TimeUnit.SECONDS);
+        assertThat(sentKeys).allSatisfy(keys -> assertThat(keys.stream().mapToInt(SlotHash::getSlot).distinct())
+                .hasSize(1));
+        assertThat(sentKeys.stream().mapToInt(List::size).sum()).isEqualTo(7);
+    }
+
+    @Test
+    void isQuotaExceeded_shouldPassRuleOfEachCheck() {
+        RateLimitRule rule = new RateLimitRule(5, 2);
+        when(redisStrategy.checkQuota(anyList(), anyList())).thenAnswer(invocation -> {
+            List<RateLimitRule> rules = invocation.getArgument(1);
+            RateLimitDecision[] decisions = new RateLimitDecision[rules.size()];
+            for (int i = 0; i < rules.size(); i++) {
+                decisions[i] = RateLimitDecision.of(rule.equals(rules.get(i)));
+            }
+            return decisions;
+        });
+        strategy = new BatchingRateLimitStrategy(redisStrategy, 16, 1000, Thread::new);
+
+        assertThat(strategy.isQuotaExceeded(new RateLimitProps("user1", "/api", rule))).isTrue();
+        assertThat(strategy.isQuotaExceeded(new RateLimitProps("user1", "/api"))).isFalse();
+    }
+
+    @Test
+    void checkQuota_shouldReturnDecisionOfBatchResult() {
+        RateLimitDecision decision = new RateLimitDecision(false, 10, 0, 60_000, 6_000);
+        when(redisStrategy.checkQuota(anyList(), anyList())).thenReturn(new RateLimitDecision[]{decision});
+        strategy = new BatchingRateLimitStrategy(redisStrategy, 16, 1000, Thread::new);
+
+        assertThat(strategy.checkQuota(new RateLimitProps("user1", "/api"))).isEqualTo(decision);
+    }
+
+    @Test
+    void isQuotaExceeded_shouldPropagateRedisFailure() {
+        when(redisStrategy.checkQuota(anyList(), anyList())).thenThrow(new IllegalStateException("redis down"));
+        strategy = new BatchingRateLimitStrategy(redisStrategy, 16, 1000, Thread::new);
+
+        assertThatThrownBy(() -> strategy.isQuotaExceeded(new RateLimitProps("user1", "/api")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("redis down");
+    }
+
+    @Test
+    void isQuotaExceeded_shouldCheckDirectly_afterClose() {
+        RateLimitProps props = new RateLimitProps("user1", "/api");
+        when(redisStrategy.checkQuota(props)).thenReturn(RateLimitDecision.REJECTED);
+        strategy = new BatchingRateLimitStrategy(redisStrategy, 16, 1000, Thread::new);
+        strategy.close();
+
+        assertThat(strategy.isQuotaExceeded(props)).isTrue();
+    }
+
+    @Test
+    void isQuotaExceeded_shouldNeverStrandCaller_whenCloseRacesWithChecks() throws Exception {
+        when(redisStrategy.checkQuota(anyList(), anyList())).thenAnswer(invocation -> {
+            List<byte[]> keys = invocation.getArgument(0);
+            RateLimitDecision[] decisions = new RateLimitDecision[keys.size()];
+            java.util.Arrays.fill(decisions, RateLimitDecision.ALLOWED);
+            return decisions;
+        });
+        when(redisStrategy.checkQuota(any(RateLimitProps.class))).thenReturn(RateLimitDecision.ALLOWED);
+        for (int round = 0; round < 20; round++) {
+            var roundStrategy = new BatchingRateLimitStrategy(redisStrategy, 4, 100, Thread::new);
+            var start = new CountDownLatch(1);
+            var checks = new CompletableFuture<?>[8];
+            for (int i = 0; i < checks.length; i++) {
+                var key = "user" + i;
+                checks[i] = CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                        for (int j = 0; j < 50; j++) {
+                            try {
+                                roundStrategy.isQuotaExceeded(new RateLimitProps(key, "/api"));
+                            } catch (IllegalStateException exception) {
+                                assertThat(exception).hasMessageContaining("Rate limit batching stopped");
+                            }
+                        }
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, callers);
+            }
+            start.countDown();
+            roundStrategy.close();
+
+            CompletableFuture.allOf(checks).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void isQuotaExceeded_shouldFailChecksAndCheckDirectly_whenDispatcherDies() {
+        RateLimitProps props = new RateLimitProps("user1", "/api");
+        when(redisStrategy.checkQuota(anyList(), anyList())).thenThrow(new AssertionError("dispatcher bug"));
+        when(redisStrategy.checkQuota(props)).thenReturn(RateLimitDecision.REJECTED);
+        strategy = new BatchingRateLimitStrategy(redisStrategy, 16, 1000, Thread::new);
+
+        assertThatThrownBy(() -> strategy.isQuotaExceeded(props))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Rate limit batching stopped");
+        assertThat(strategy.isQuotaExceeded(props)).isTrue();
+    }
+}
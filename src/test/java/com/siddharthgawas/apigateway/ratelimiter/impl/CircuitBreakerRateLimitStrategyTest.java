@@ -0,0 +1,189 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerRateLimitStrategyTest {
+
+    private static final RateLimitDecision REDIS_DECISION = new RateLimitDecision(true, 10, 9, 6_000, 0);
+
+    /**
+     * Stand-in for the Redis strategy that can be made slow or disconnected. Latency advances the
+     * test clock instead of sleeping.
+     */
+    private final class StandInRedis implements RateLimitStrategy {
+        private volatile boolean disconnected;
+        private volatile long latencyMillis;
+        private volatile CompletableFuture<RateLimitDecision> pendingAsync;
+        private int calls;
+
+        @Override
+        public Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+            return !checkQuota(rateLimitProps).allowed();
+        }
+
+        @Override
+        public RateLimitDecision checkQuota(final RateLimitProps rateLimitProps) {
+            calls++;
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            if (disconnected) {
+                throw new RedisConnectionFailureException("Unable to connect to Redis");
+            }
+            return REDIS_DECISION;
+        }
+
+        @Override
+        public CompletionStage<RateLimitDecision> checkQuotaAsync(final RateLimitProps rateLimitProps) {
+            calls++;
+            if (pendingAsync != null) {
+                return pendingAsync;
+            }
+            return RateLimitStrategy.super.checkQuotaAsync(rateLimitProps);
+        }
+    }
+
+    private final AtomicLong clock = new AtomicLong();
+    private final RateLimitProps props = new RateLimitProps("user1", "/api/test");
+    private StandInRedis redis;
+    private LocalTokenBucketRateLimitStrategy local;
+    private CircuitBreakerRateLimitStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        redis = new StandInRedis();
+        local = new LocalTokenBucketRateLimitStrategy(4L, 2, clock::get);
+        strategy = new CircuitBreakerRateLimitStrategy(redis, local, 3, 1000, 100, clock::get);
+    }
+
+    @Test
+    void checkQuota_shouldUseRedis_whenHealthy() {
+        assertThat(strategy.checkQuota(props)).isEqualTo(REDIS_DECISION);
+        assertThat(strategy.isOpen()).isFalse();
+    }
+
+    @Test
+    void checkQuota_shouldFallBackLocally_whenRedisDisconnects() {
+        redis.disconnected = true;
+
+        var decision = strategy.checkQuota(props);
+
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.limit()).isEqualTo(2);
+        assertThat(strategy.isOpen()).isFalse();
+    }
+
+    @Test
+    void checkQuota_shouldOpenCircuit_afterConsecutiveFailures() {
+        redis.disconnected = true;
+        for (int i = 0; i < 3; i++) {
+            strategy.checkQuota(props);
+        }
+
+        assertThat(strategy.isOpen()).isTrue();
+        strategy.checkQuota(props);
+        assertThat(redis.calls).isEqualTo(3);
+    }
+
+    @Test
+    void checkQuota_shouldEnforceNodeShare_whileOpen() {
+        redis.disconnected = true;
+        for (int i = 0; i < 3; i++) {
+            strategy.checkQuota(props);
+        }
+
+        // Quota 4 split across 2 nodes; the three failed checks already took the two local tokens
+        var decision = strategy.checkQuota(props);
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.retryAfterMs()).isPositive();
+    }
+
+    @Test
+    void checkQuota_shouldCountSlowChecksAsFailures_butKeepTheirDecision() {
+        redis.latencyMillis = 500;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(strategy.checkQuota(props)).isEqualTo(REDIS_DECISION);
+        }
+
+        assertThat(strategy.isOpen()).isTrue();
+    }
+
+    @Test
+    void checkQuota_shouldResetFailureCount_afterSuccess() {
+        redis.disconnected = true;
+        strategy.checkQuota(props);
+        strategy.checkQuota(props);
+        redis.disconnected = false;
+        strategy.checkQuota(props);
+        redis.disconnected = true;
+        strategy.checkQuota(props);
+        strategy.checkQuota(props);
+
+        assertThat(strategy.isOpen()).isFalse();
+    }
+
+    @Test
+    void checkQuota_shouldCloseCircuit_whenProbeSucceeds() {
+        redis.disconnected = true;
+        for (int i = 0; i < 3; i++) {
+            strategy.checkQuota(props);
+        }
+        redis.disconnected = false;
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        strategy.checkQuota(props);
+        assertThat(redis.calls).isEqualTo(3);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(strategy.checkQuota(props)).isEqualTo(REDIS_DECISION);
+
+        assertThat(strategy.isOpen()).isFalse();
+        assertThat(strategy.checkQuota(props)).isEqualTo(REDIS_DECISION);
+    }
+
+    @Test
+    void checkQuota_shouldReopenCircuit_whenProbeFails() {
+        redis.disconnected = true;
+        for (int i = 0; i < 3; i++) {
+            strategy.checkQuota(props);
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        strategy.checkQuota(props);
+        strategy.checkQuota(props);
+
+        assertThat(strategy.isOpen()).isTrue();
+        assertThat(redis.calls).isEqualTo(4);
+    }
+
+    @Test
+    void checkQuotaAsync_shouldFallBackLocally_whenRedisDoesNotAnswerInTime() throws Exception {
+        strategy = new CircuitBreakerRateLimitStrategy(redis, local, 1, 1000, 20);
+        redis.pendingAsync = new CompletableFuture<>();
+
+        var decision = strategy.checkQuotaAsync(props).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.limit()).isEqualTo(2);
+        assertThat(strategy.isOpen()).isTrue();
+        assertThat(redis.pendingAsync.isDone()).isFalse();
+    }
+
+    @Test
+    void checkQuotaAsync_shouldUseRedis_whenHealthy() throws Exception {
+        var decision = strategy.checkQuotaAsync(props).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(decision).isEqualTo(REDIS_DECISION);
+        assertThat(strategy.isOpen()).isFalse();
+    }
+}
@@ -0,0 +1,83 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.configuration.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded Redis server the rate limit scripts run against, with a string template to read and
+ * rewrite the state the scripts keep.
+ * <p>
+ * The scripts read the Redis server clock, which a test cannot move, so tests move the state back
+ * in time instead.
+ */
+final class EmbeddedRedisScripts implements AutoCloseable {
+
+    private final RedisServer redisServer;
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    final RedisTemplate<String, Object> redisTemplate;
+
+    final StringRedisTemplate stringRedisTemplate;
+
+    private EmbeddedRedisScripts(final int port) throws IOException {
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = RedisConfiguration.redisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    /**
+     * Starts an embedded Redis server on a free port and connects to it.
+     */
+    static EmbeddedRedisScripts start() throws IOException {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        return new EmbeddedRedisScripts(port);
+    }
+
+    /**
+     * Deletes every key.
+     */
+    void flush() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the time of the Redis server clock the scripts read.
+     */
+    long nowMs() {
+        return redisTemplate.execute((RedisCallback<Long>) connection -> connection.serverCommands().time());
+    }
+
+    /**
+     * Returns the time to live of a key in milliseconds.
+     */
+    long ttlMs(final String key) {
+        return stringRedisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+}
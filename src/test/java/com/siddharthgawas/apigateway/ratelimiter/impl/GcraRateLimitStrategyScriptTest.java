@@ -0,0 +1,180 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimiterFilter;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Lua script of {@link GcraRateLimitStrategy} against an embedded Redis server.
+ * <p>
+ * The default rule allows 6 requests per minute: one every 10 seconds, and 6 back to back.
+ */
+class GcraRateLimitStrategyScriptTest {
+    private static EmbeddedRedisScripts redis;
+
+    private final RateLimitProps props = new RateLimitProps("user1", "/api/test");
+    private final String key = GcraRateLimitStrategy.bucketKey(props);
+    private GcraRateLimitStrategy strategy;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = EmbeddedRedisScripts.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (redis != null) {
+            redis.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+        strategy = new GcraRateLimitStrategy(redis.redisTemplate, 6L);
+    }
+
+    @Test
+    void checkQuota_shouldAllowBurstWithinToleranceThenReject() {
+        for (int remaining = 5; remaining >= 0; remaining--) {
+            RateLimitDecision decision = strategy.checkQuota(props);
+            assertThat(decision.allowed()).isTrue();
+            assertThat(decision.limit()).isEqualTo(6);
+            assertThat(decision.remaining()).isEqualTo(remaining);
+        }
+
+        RateLimitDecision rejected = strategy.checkQuota(props);
+
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.remaining()).isZero();
+        // The TAT is 60s ahead; a request is admitted once it is back within the 50s tolerance
+        assertThat(rejected.retryAfterMs()).isBetween(9_000L, 10_000L);
+        assertThat(rejected.resetMs()).isBetween(59_000L, 60_000L);
+    }
+
+    @Test
+    void checkQuota_shouldAdvanceTatByOneEmissionInterval_whenAllowed() {
+        long before = redis.nowMs();
+
+        RateLimitDecision decision = strategy.checkQuota(props);
+
+        long tatMs = tatMicros() / 1_000;
+        assertThat(tatMs).isBetween(before + 10_000, redis.nowMs() + 10_000);
+        assertThat(decision.resetMs()).isBetween(9_000L, 10_000L);
+        assertThat(redis.ttlMs(key)).isBetween(9_000L, 10_000L);
+    }
+
+    @Test
+    void checkQuota_shouldNotMoveTat_whenRejected() {
+        for (int i = 0; i < 6; i++) {
+            strategy.checkQuota(props);
+        }
+        long tat = tatMicros();
+
+        assertThat(strategy.checkQuota(props).allowed()).isFalse();
+
+        assertThat(tatMicros()).isEqualTo(tat);
+        assertThat(redis.ttlMs(key)).isBetween(59_000L, 60_000L);
+    }
+
+    @Test
+    void checkQuota_shouldAdmitRequestsAgain_whenClockMoves() {
+        exhaust();
+
+        moveClock(25_000);
+
+        // The TAT is now 35s ahead: two more requests fit within the 60s window, the third is 5s early
+        RateLimitDecision first = strategy.checkQuota(props);
+        assertThat(first.allowed()).isTrue();
+        assertThat(first.remaining()).isEqualTo(1);
+        RateLimitDecision second = strategy.checkQuota(props);
+        assertThat(second.allowed()).isTrue();
+        assertThat(second.remaining()).isZero();
+        RateLimitDecision third = strategy.checkQuota(props);
+        assertThat(third.allowed()).isFalse();
+        assertThat(third.retryAfterMs()).isBetween(4_000L, 5_000L);
+    }
+
+    @Test
+    void checkQuota_shouldRestartFromNow_whenTatFellBehindClock() {
+        exhaust();
+
+        moveClock(600_000);
+
+        for (int remaining = 5; remaining >= 0; remaining--) {
+            assertThat(strategy.checkQuota(props).remaining()).isEqualTo(remaining);
+        }
+        assertThat(strategy.checkQuota(props).allowed()).isFalse();
+    }
+
+    @Test
+    void checkQuota_shouldUseRuleOfRequest_whenSet() {
+        RateLimitProps withRule = new RateLimitProps("user1", "/api/test", new RateLimitRule(6, 2));
+
+        // 6 per minute with a burst of 2: one request every 10s, and 8 back to back
+        for (int remaining = 7; remaining >= 0; remaining--) {
+            assertThat(strategy.checkQuota(withRule).remaining()).isEqualTo(remaining);
+        }
+        RateLimitDecision rejected = strategy.checkQuota(withRule);
+
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.limit()).isEqualTo(8);
+        assertThat(rejected.retryAfterMs()).isBetween(9_000L, 10_000L);
+        assertThat(rejected.resetMs()).isBetween(79_000L, 80_000L);
+    }
+
+    @Test
+    void rateLimiterFilter_shouldSendRetryAfterOfScript_whenBurstIsSpent() throws ServletException, IOException {
+        RateLimiterFilter filter = new RateLimiterFilter(strategy, request -> true);
+        for (int i = 0; i < 6; i++) {
+            assertThat(filter(filter).getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+
+        MockHttpServletResponse rejected = filter(filter);
+
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+        assertThat(rejected.getHeader(RateLimiterFilter.RATE_LIMIT_REMAINING_HEADER)).isEqualTo("0");
+        assertThat(rejected.getHeader(RateLimiterFilter.RATE_LIMIT_RESET_HEADER)).isEqualTo("60");
+    }
+
+    private void exhaust() {
+        for (int i = 0; i < 6; i++) {
+            assertThat(strategy.checkQuota(props).allowed()).isTrue();
+        }
+        assertThat(strategy.checkQuota(props).allowed()).isFalse();
+    }
+
+    /**
+     * Moves the theoretical arrival time back, as if the clock had moved forward.
+     */
+    private void moveClock(final long elapsedMs) {
+        redis.stringRedisTemplate.opsForValue().set(key, Long.toString(tatMicros() - elapsedMs * 1_000));
+    }
+
+    private long tatMicros() {
+        return Long.parseLong(redis.stringRedisTemplate.opsForValue().get(key));
+    }
+
+    private static MockHttpServletResponse filter(final RateLimiterFilter filter)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/test"), response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,79 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GcraRateLimitStrategyTest {
+    private StubRedisScripts redis;
+    private RedisTemplate<String, Object> redisTemplate;
+    private GcraRateLimitStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        redis = new StubRedisScripts();
+        redisTemplate = redis.redisTemplate;
+        strategy = new GcraRateLimitStrategy(redisTemplate, 10L);
+    }
+
+    @Test
+    void isQuotaExceeded_shouldReturnFalse_whenScriptAllows() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        assertThat(strategy.isQuotaExceeded(new RateLimitProps("user1", "/api/test"))).isFalse();
+    }
+
+    @Test
+    void isQuotaExceeded_shouldReturnTrue_whenScriptRejects() {
+        redis.returning(List.of(1L, 0L, 60_000L, 6_000L));
+        assertThat(strategy.isQuotaExceeded(new RateLimitProps("user1", "/api/test"))).isTrue();
+    }
+
+    @Test
+    void isQuotaExceeded_shouldPassEmissionIntervalAndToleranceOfDefaultRule() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        strategy.isQuotaExceeded(new RateLimitProps("user1", "/api/path"));
+        // 10 per minute: one request every 6s, and 10 back to back
+        assertThat(redis.numKeys).containsExactly(1);
+        assertThat(redis.lastCall()).containsExactly(
+                RateLimitKeys.bucketKey(RateLimitKeys.GCRA_PREFIX, "user1", "/api/path"), "6000000", "54000000");
+    }
+
+    @Test
+    void isQuotaExceeded_shouldUseRuleOfRequest_whenSet() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        strategy.isQuotaExceeded(new RateLimitProps("user1", "/api/path", new RateLimitRule(60, 4)));
+        assertThat(redis.lastCall()).endsWith("1000000", "4000000");
+    }
+
+    @Test
+    void emissionMicros_shouldNotDropToZero_whenRateIsVeryHigh() {
+        assertThat(GcraRateLimitStrategy.emissionMicros(RateLimitRule.of(1_000_000_000L))).isEqualTo(1L);
+    }
+
+    @Test
+    void checkQuotaAsync_shouldUseReactiveTemplate_whenAvailable() {
+        ReactiveRedisTemplate<String, String> reactiveRedisTemplate = mock(ReactiveRedisTemplate.class);
+        strategy = new GcraRateLimitStrategy(redisTemplate, reactiveRedisTemplate, 10L);
+        when(reactiveRedisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.just(1L, 0L, 60_000L, 6_000L));
+        var decision = strategy.checkQuotaAsync(new RateLimitProps("user2", "/api/path"))
+                .toCompletableFuture().join();
+        assertThat(decision).isEqualTo(new RateLimitDecision(false, 10, 0, 60_000, 6_000));
+        verify(reactiveRedisTemplate).execute(any(RedisScript.class), anyList(),
+                eq(List.of("6000000", "54000000")));
+        verifyNoInteractions(redisTemplate);
+    }
+}
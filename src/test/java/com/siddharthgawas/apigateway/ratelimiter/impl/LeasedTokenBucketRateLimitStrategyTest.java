@@ -0,0 +1,117 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LeasedTokenBucketRateLimitStrategyTest {
+    private TokenBucketRateLimitStrategy redisStrategy;
+    private List<Runnable> pendingRefills;
+    private final RateLimitProps props = new RateLimitProps("user1", "/api/test");
+
+    @BeforeEach
+    void setUp() {
+        redisStrategy = mock(TokenBucketRateLimitStrategy.class);
+        pendingRefills = new ArrayList<>();
+    }
+
+    private LeasedTokenBucketRateLimitStrategy strategy(long leaseSize, long maxOverdraft) {
+        return new LeasedTokenBucketRateLimitStrategy(redisStrategy, leaseSize, maxOverdraft, pendingRefills::add);
+    }
+
+    private void runPendingRefills() {
+        List<Runnable> refills = new ArrayList<>(pendingRefills);
+        pendingRefills.clear();
+        refills.forEach(Runnable::run);
+    }
+
+    @Test
+    void isQuotaExceeded_shouldUseExactPath_untilFirstLeaseArrives() {
+        var strategy = strategy(10, 0);
+        when(redisStrategy.isQuotaExceeded(props)).thenReturn(false);
+
+        assertThat(strategy.isQuotaExceeded(props)).isFalse();
+        verify(redisStrategy).isQuotaExceeded(props);
+        assertThat(pendingRefills).hasSize(1);
+    }
+
+    @Test
+    void isQuotaExceeded_shouldDecideLocally_whenLeaseAvailable() {
+        var strategy = strategy(10, 0);
+        when(redisStrategy.isQuotaExceeded(props)).thenReturn(false);
+        when(redisStrategy.acquire(props, 10)).thenReturn(10L);
+        strategy.isQuotaExceeded(props);
+        runPendingRefills();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(strategy.isQuotaExceeded(props)).isFalse();
+        }
+        verify(redisStrategy, times(1)).isQuotaExceeded(props);
+    }
+
+    @Test
+    void isQuotaExceeded_shouldAdmitOverdraft_whileLeaseInFlight() {
+        var strategy = strategy(10, 2);
+
+        assertThat(strategy.isQuotaExceeded(props)).isFalse();
+        assertThat(strategy.isQuotaExceeded(props)).isFalse();
+        verify(redisStrategy, never()).isQuotaExceeded(any());
+        assertThat(pendingRefills).hasSize(1);
+    }
+
+    @Test
+    void refill_shouldRepayOverdraft() {
+        var strategy = strategy(10, 2);
+        strategy.isQuotaExceeded(props);
+        strategy.isQuotaExceeded(props);
+        when(redisStrategy.acquire(eq(props), anyLong())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        runPendingRefills();
+
+        verify(redisStrategy).acquire(props, 12);
+    }
+
+    @Test
+    void isQuotaExceeded_shouldFallBackToExactPath_whenRedisCannotGrantFullLease() {
+        var strategy = strategy(10, 0);
+        when(redisStrategy.isQuotaExceeded(props)).thenReturn(false, true);
+        when(redisStrategy.acquire(props, 10)).thenReturn(1L);
+        strategy.isQuotaExceeded(props);
+        runPendingRefills();
+
+        // The single granted token is consumed locally, then requests go to Redis
+        assertThat(strategy.isQuotaExceeded(props)).isFalse();
+        assertThat(strategy.isQuotaExceeded(props)).isTrue();
+        verify(redisStrategy, times(2)).isQuotaExceeded(props);
+    }
+
+    @Test
+    void isQuotaExceeded_shouldFallBackToExactPath_whenLeaseFails() {
+        var strategy = strategy(10, 0);
+        when(redisStrategy.isQuotaExceeded(props)).thenReturn(false);
+        when(redisStrategy.acquire(props, 10)).thenThrow(new IllegalStateException("redis down"));
+        strategy.isQuotaExceeded(props);
+        runPendingRefills();
+
+        assertThat(strategy.isQuotaExceeded(props)).isFalse();
+        verify(redisStrategy, times(2)).isQuotaExceeded(props);
+    }
+
+    @Test
+    void evictIdleLeases_shouldKeepRecentlyUsedLeases() {
+        var strategy = strategy(10, 1);
+        strategy.isQuotaExceeded(props);
+        strategy.evictIdleLeases();
+
+        // The overdraft was consumed by the first request, so the lease is still tracked
+        when(redisStrategy.isQuotaExceeded(props)).thenReturn(true);
+        assertThat(strategy.isQuotaExceeded(props)).isTrue();
+    }
+}
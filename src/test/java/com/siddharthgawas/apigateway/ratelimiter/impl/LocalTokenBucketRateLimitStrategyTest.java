@@ -0,0 +1,90 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalTokenBucketRateLimitStrategyTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final RateLimitProps props = new RateLimitProps("user1", "/api/test");
+
+    @Test
+    void checkQuota_shouldAllowNodeShareOfQuota() {
+        var strategy = new LocalTokenBucketRateLimitStrategy(60L, 3, clock::get);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(strategy.checkQuota(props).allowed()).isTrue();
+        }
+        var rejected = strategy.checkQuota(props);
+
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.limit()).isEqualTo(20);
+        assertThat(rejected.remaining()).isZero();
+        assertThat(rejected.retryAfterMs()).isEqualTo(3000);
+    }
+
+    @Test
+    void checkQuota_shouldRefillAtNodeShareOfRate() {
+        var strategy = new LocalTokenBucketRateLimitStrategy(60L, 3, clock::get);
+        for (int i = 0; i < 20; i++) {
+            strategy.checkQuota(props);
+        }
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+
+        assertThat(strategy.checkQuota(props).allowed()).isTrue();
+        assertThat(strategy.checkQuota(props).allowed()).isFalse();
+    }
+
+    @Test
+    void checkQuota_shouldUseRuleOfRequest() {
+        var strategy = new LocalTokenBucketRateLimitStrategy(60L, 1, clock::get);
+        var withRule = new RateLimitProps("user1", "/api/test", new RateLimitRule(1, 1));
+
+        assertThat(strategy.checkQuota(withRule).allowed()).isTrue();
+        assertThat(strategy.checkQuota(withRule).allowed()).isTrue();
+        assertThat(strategy.checkQuota(withRule).allowed()).isFalse();
+    }
+
+    @Test
+    void checkQuota_shouldKeepAtLeastOneToken_whenShareRoundsDown() {
+        var strategy = new LocalTokenBucketRateLimitStrategy(1L, 4, clock::get);
+
+        assertThat(strategy.checkQuota(props).allowed()).isTrue();
+        assertThat(strategy.checkQuota(props).allowed()).isFalse();
+    }
+
+    @Test
+    void checkQuota_shouldKeepBucketsPerKeyAndRoute() {
+        var strategy = new LocalTokenBucketRateLimitStrategy(1L, 1, clock::get);
+
+        assertThat(strategy.checkQuota(props).allowed()).isTrue();
+        assertThat(strategy.checkQuota(new RateLimitProps("user2", "/api/test")).allowed()).isTrue();
+        assertThat(strategy.checkQuota(new RateLimitProps("user1", "/api/other")).allowed()).isTrue();
+        assertThat(strategy.checkQuota(props).allowed()).isFalse();
+    }
+
+    @Test
+    void evictIdleBuckets_shouldRemoveOnlyIdleBuckets() {
+        var strategy = new LocalTokenBucketRateLimitStrategy(10L, 1, clock::get);
+        strategy.checkQuota(props);
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(3));
+        strategy.checkQuota(new RateLimitProps("user2", "/api/test"));
+
+        strategy.evictIdleBuckets();
+
+        assertThat(strategy.size()).isEqualTo(1);
+    }
+
+    @Test
+    void constructor_shouldReject_whenNodeCountIsNotPositive() {
+        assertThatThrownBy(() -> new LocalTokenBucketRateLimitStrategy(10L, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,23 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitScriptTest {
+
+    @Test
+    void encode_shouldWriteAsciiDecimal() {
+        assertThat(new String(RateLimitScript.encode(0), StandardCharsets.US_ASCII)).isEqualTo("0");
+        assertThat(new String(RateLimitScript.encode(1023), StandardCharsets.US_ASCII)).isEqualTo("1023");
+        assertThat(new String(RateLimitScript.encode(60_000_000L), StandardCharsets.US_ASCII)).isEqualTo("60000000");
+        assertThat(new String(RateLimitScript.encode(-5), StandardCharsets.US_ASCII)).isEqualTo("-5");
+    }
+
+    @Test
+    void encode_shouldReuseArrays_whenNumberIsSmall() {
+        assertThat(RateLimitScript.encode(1)).isSameAs(RateLimitScript.encode(1));
+    }
+}
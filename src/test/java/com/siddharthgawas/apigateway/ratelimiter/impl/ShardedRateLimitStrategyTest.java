@@ -0,0 +1,126 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitStrategy;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ShardedRateLimitStrategyTest {
+
+    /**
+     * Stand-in for one Redis node: a fixed number of requests per bucket key, counted in memory.
+     */
+    private static final class InMemoryShard implements RateLimitStrategy {
+        private final long limit;
+        private final Map<String, Long> counts = new HashMap<>();
+
+        private InMemoryShard(final long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized Boolean isQuotaExceeded(final RateLimitProps rateLimitProps) {
+            final var key = RateLimitKeys.bucketKey(rateLimitProps.getKey(), rateLimitProps.getRoute());
+            return counts.merge(key, 1L, Long::sum) > limit;
+        }
+    }
+
+    private static List<String> names(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "redis://node-" + i + ":6379").toList();
+    }
+
+    private static List<InMemoryShard> shards(int count, long limit) {
+        return IntStream.range(0, count).mapToObj(i -> new InMemoryShard(limit)).toList();
+    }
+
+    @Test
+    void isQuotaExceeded_shouldEnforceLimitOfEachBucket_acrossShards() {
+        var shards = shards(4, 3);
+        var strategy = new ShardedRateLimitStrategy(names(4), shards);
+
+        for (int user = 0; user < 200; user++) {
+            var props = new RateLimitProps("user-" + user, "/api/orders/{id}");
+            assertThat(strategy.isQuotaExceeded(props)).isFalse();
+            assertThat(strategy.isQuotaExceeded(props)).isFalse();
+            assertThat(strategy.isQuotaExceeded(props)).isFalse();
+            assertThat(strategy.isQuotaExceeded(props)).isTrue();
+        }
+        // Every bucket lives on exactly one shard, so no shard saw another's keys
+        var seen = new ArrayList<String>();
+        shards.forEach(shard -> seen.addAll(shard.counts.keySet()));
+        assertThat(seen).hasSize(200).doesNotHaveDuplicates();
+        assertThat(shards).allSatisfy(shard -> assertThat(shard.counts).isNotEmpty());
+    }
+
+    @Test
+    void shardIndex_shouldSpreadKeysEvenly() {
+        var strategy = new ShardedRateLimitStrategy(names(4), shards(4, 1));
+        var perShard = new int[4];
+
+        for (int user = 0; user < 40_000; user++) {
+            perShard[strategy.shardIndex("user-" + user, "/api")]++;
+        }
+
+        for (int count : perShard) {
+            assertThat(count).isBetween(8_000, 12_000);
+        }
+    }
+
+    @Test
+    void shardIndex_shouldOnlyMoveKeysToNewShard_whenShardIsAdded() {
+        var before = new ShardedRateLimitStrategy(names(4), shards(4, 1));
+        var after = new ShardedRateLimitStrategy(names(5), shards(5, 1));
+        int moved = 0;
+
+        for (int user = 0; user < 40_000; user++) {
+            var oldShard = before.shardIndex("user-" + user, "/api");
+            var newShard = after.shardIndex("user-" + user, "/api");
+            if (oldShard != newShard) {
+                assertThat(newShard).isEqualTo(4);
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(6_000, 10_000);
+    }
+
+    @Test
+    void shardIndex_shouldDependOnRoute() {
+        var strategy = new ShardedRateLimitStrategy(names(8), shards(8, 1));
+
+        var shardsOfUser = IntStream.range(0, 64)
+                .map(route -> strategy.shardIndex("user-1", "/api/" + route))
+                .distinct()
+                .count();
+
+        assertThat(shardsOfUser).isGreaterThan(1);
+    }
+
+    @Test
+    void constructor_shouldReject_whenNamesDoNotMatchShards() {
+        assertThatThrownBy(() -> new ShardedRateLimitStrategy(names(2), shards(3, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ShardedRateLimitStrategy(List.of(), List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void close_shouldCloseClosableShards() {
+        var batching = mock(BatchingRateLimitStrategy.class);
+        var strategy = new ShardedRateLimitStrategy(names(2), List.of(batching, new InMemoryShard(1)));
+
+        strategy.close();
+
+        verify(batching).close();
+    }
+}
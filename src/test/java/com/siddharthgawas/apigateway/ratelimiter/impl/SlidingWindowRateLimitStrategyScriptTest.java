@@ -0,0 +1,164 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Lua script of {@link SlidingWindowRateLimitStrategy} against an embedded Redis server.
+ * <p>
+ * Windows are whole minutes of the Redis server clock. Each test starts at least a second away from
+ * a window boundary, so its requests fall in one window, and moves the clock by rewriting the stored
+ * window. The default rule allows 6 requests per sliding minute.
+ */
+class SlidingWindowRateLimitStrategyScriptTest {
+    private static final long WINDOW_MS = 60_000;
+
+    private static EmbeddedRedisScripts redis;
+
+    private final RateLimitProps props = new RateLimitProps("user1", "/api/test");
+    private final String key = SlidingWindowRateLimitStrategy.bucketKey(props);
+    private SlidingWindowRateLimitStrategy strategy;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = EmbeddedRedisScripts.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (redis != null) {
+            redis.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        redis.flush();
+        strategy = new SlidingWindowRateLimitStrategy(redis.redisTemplate, 6L);
+        awayFromWindowBoundary();
+    }
+
+    @Test
+    void checkQuota_shouldAllowLimitWithinWindowThenReject() {
+        for (int remaining = 5; remaining >= 0; remaining--) {
+            RateLimitDecision decision = strategy.checkQuota(props);
+            assertThat(decision.allowed()).isTrue();
+            assertThat(decision.limit()).isEqualTo(6);
+            assertThat(decision.remaining()).isEqualTo(remaining);
+        }
+        long windowEndMs = WINDOW_MS - redis.nowMs() % WINDOW_MS;
+
+        RateLimitDecision rejected = strategy.checkQuota(props);
+
+        // Nothing was counted in the previous window, so only the next window admits the request
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.remaining()).isZero();
+        assertThat(rejected.retryAfterMs()).isBetween(windowEndMs - 1_000, windowEndMs);
+        assertThat(rejected.resetMs()).isBetween(windowEndMs + WINDOW_MS - 1_000, windowEndMs + WINDOW_MS);
+    }
+
+    @Test
+    void checkQuota_shouldCountAllowedRequestsOnly() {
+        long window = redis.nowMs() / WINDOW_MS;
+        for (int i = 0; i < 8; i++) {
+            strategy.checkQuota(props);
+        }
+
+        assertThat(state()).containsEntry("w", Long.toString(window))
+                .containsEntry("c", "6")
+                .containsEntry("p", "0");
+        assertThat(redis.ttlMs(key)).isBetween(2 * WINDOW_MS - 1_000, 2 * WINDOW_MS);
+    }
+
+    @Test
+    void checkQuota_shouldWeighPreviousWindowByItsShareOfSlidingMinute() {
+        RateLimitProps withRule = new RateLimitProps("user1", "/api/test", RateLimitRule.of(600));
+        long before = redis.nowMs();
+        storeWindow(before / WINDOW_MS - 1, 600);
+
+        RateLimitDecision decision = strategy.checkQuota(withRule);
+
+        long after = redis.nowMs();
+        // A full previous window of 600 weighs 600 * (1 - elapsed / 60s): one request per 100ms elapsed
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.remaining()).isBetween(before % WINDOW_MS / 100 - 2, after % WINDOW_MS / 100);
+        assertThat(state()).containsEntry("c", "1").containsEntry("p", "600");
+    }
+
+    @Test
+    void checkQuota_shouldRetryOncePreviousWindowHasDecayed_whenPreviousWindowWasFull() {
+        long before = redis.nowMs();
+        storeWindow(before / WINDOW_MS - 1, 600);
+
+        RateLimitDecision rejected = strategy.checkQuota(props);
+
+        long after = redis.nowMs();
+        // 600 * (1 - t / 60s) + 1 <= 6 once t = 59.5s into the window
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.retryAfterMs()).isBetween(59_500 - after % WINDOW_MS, 59_501 - before % WINDOW_MS);
+    }
+
+    @Test
+    void checkQuota_shouldAdmitRequestsAgain_whenClockMovesTwoWindows() {
+        for (int i = 0; i < 6; i++) {
+            assertThat(strategy.checkQuota(props).allowed()).isTrue();
+        }
+        assertThat(strategy.checkQuota(props).allowed()).isFalse();
+
+        storeWindow(redis.nowMs() / WINDOW_MS - 2, 6);
+
+        // Requests of a window before the previous one no longer count
+        RateLimitDecision decision = strategy.checkQuota(props);
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.remaining()).isEqualTo(5);
+        assertThat(state()).containsEntry("c", "1").containsEntry("p", "0");
+    }
+
+    @Test
+    void checkQuota_shouldUseRuleOfRequest_whenSet() {
+        RateLimitProps withRule = new RateLimitProps("user1", "/api/test", new RateLimitRule(6, 2));
+
+        for (int remaining = 7; remaining >= 0; remaining--) {
+            assertThat(strategy.checkQuota(withRule).remaining()).isEqualTo(remaining);
+        }
+        RateLimitDecision rejected = strategy.checkQuota(withRule);
+
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.limit()).isEqualTo(8);
+    }
+
+    /**
+     * Stores the counters as if the given number of requests had been allowed in the given window.
+     */
+    private void storeWindow(final long window, final long count) {
+        redis.stringRedisTemplate.opsForHash().putAll(key,
+                Map.of("w", Long.toString(window), "c", Long.toString(count), "p", "0"));
+    }
+
+    private Map<String, String> state() {
+        return redis.stringRedisTemplate.<String, String>opsForHash().entries(key);
+    }
+
+    /**
+     * Waits until the Redis clock is between one second after the start and one second before the end
+     * of a window.
+     */
+    private static void awayFromWindowBoundary() throws InterruptedException {
+        long elapsed = redis.nowMs() % WINDOW_MS;
+        if (elapsed < 1_000) {
+            Thread.sleep(1_000 - elapsed);
+        } else if (elapsed > WINDOW_MS - 1_000) {
+            Thread.sleep(WINDOW_MS - elapsed + 1_000);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SlidingWindowRateLimitStrategyTest {
+    private StubRedisScripts redis;
+    private RedisTemplate<String, Object> redisTemplate;
+    private SlidingWindowRateLimitStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        redis = new StubRedisScripts();
+        redisTemplate = redis.redisTemplate;
+        strategy = new SlidingWindowRateLimitStrategy(redisTemplate, 10L);
+    }
+
+    @Test
+    void isQuotaExceeded_shouldReturnFalse_whenScriptAllows() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        assertThat(strategy.isQuotaExceeded(new RateLimitProps("user1", "/api/test"))).isFalse();
+    }
+
+    @Test
+    void isQuotaExceeded_shouldReturnTrue_whenScriptRejects() {
+        redis.returning(List.of(1L, 0L, 60_000L, 6_000L));
+        assertThat(strategy.isQuotaExceeded(new RateLimitProps("user1", "/api/test"))).isTrue();
+    }
+
+    @Test
+    void isQuotaExceeded_shouldPassCapacityOfRuleAndWindow() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        strategy.isQuotaExceeded(new RateLimitProps("user1", "/api/path", new RateLimitRule(50, 10)));
+        assertThat(redis.numKeys).containsExactly(1);
+        assertThat(redis.lastCall()).containsExactly(
+                RateLimitKeys.bucketKey(RateLimitKeys.SLIDING_WINDOW_PREFIX, "user1", "/api/path"), "60", "60000");
+    }
+
+    @Test
+    void checkQuota_shouldReturnDecisionWithCapacityAsLimit() {
+        redis.returning(List.of(1L, 0L, 75_000L, 2_500L));
+        RateLimitDecision decision = strategy.checkQuota(new RateLimitProps("user1", "/api/path"));
+        assertThat(decision).isEqualTo(new RateLimitDecision(false, 10, 0, 75_000, 2_500));
+    }
+
+    @Test
+    void checkQuotaAsync_shouldUseReactiveTemplate_whenAvailable() {
+        ReactiveRedisTemplate<String, String> reactiveRedisTemplate = mock(ReactiveRedisTemplate.class);
+        strategy = new SlidingWindowRateLimitStrategy(redisTemplate, reactiveRedisTemplate, 10L);
+        when(reactiveRedisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.just(0L, 9L, 6_000L, 0L));
+        var decision = strategy.checkQuotaAsync(new RateLimitProps("user2", "/api/path"))
+                .toCompletableFuture().join();
+        assertThat(decision.allowed()).isTrue();
+        verify(reactiveRedisTemplate).execute(any(RedisScript.class), anyList(), eq(List.of("10", "60000")));
+        verifyNoInteractions(redisTemplate);
+    }
+}
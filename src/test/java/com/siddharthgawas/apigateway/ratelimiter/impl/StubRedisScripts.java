@@ -0,0 +1,72 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Mocked RedisTemplate whose connection answers {@link RateLimitScript} calls, recording the keys and
+ * arguments of each call decoded as strings.
+ */
+final class StubRedisScripts {
+
+    final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+
+    final RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+
+    final List<Integer> numKeys = new ArrayList<>();
+
+    final List<List<String>> keysAndArgs = new ArrayList<>();
+
+    StubRedisScripts() {
+        final RedisConnection connection = mock(RedisConnection.class);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+    }
+
+    /**
+     * Answers every EVALSHA with the given reply.
+     */
+    StubRedisScripts returning(final List<?> reply) {
+        when(scriptingCommands.evalSha(any(byte[].class), eq(ReturnType.MULTI), anyInt(), any(byte[][].class)))
+                .thenAnswer(invocation -> {
+                    record(invocation);
+                    return reply;
+                });
+        return this;
+    }
+
+    /**
+     * Returns the keys and arguments of the last call.
+     */
+    List<String> lastCall() {
+        return keysAndArgs.get(keysAndArgs.size() - 1);
+    }
+
+    private void record(final InvocationOnMock invocation) {
+        final var arguments = invocation.getArguments();
+        numKeys.add((Integer) arguments[2]);
+        final List<String> call = new ArrayList<>();
+        for (int i = 3; i < arguments.length; i++) {
+            if (arguments[i] instanceof byte[][] all) {
+                for (final var bytes : all) {
+                    call.add(new String(bytes, StandardCharsets.US_ASCII));
+                }
+            } else {
+                call.add(new String((byte[]) arguments[i], StandardCharsets.US_ASCII));
+            }
+        }
+        keysAndArgs.add(call);
+    }
+}
@@ -0,0 +1,205 @@
+package com.siddharthgawas.apigateway.ratelimiter.impl;
+
+import com.siddharthgawas.apigateway.ratelimiter.RateLimiterFilter;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Lua scripts of {@link TokenBucketRateLimitStrategy} against an embedded Redis server.
+ * <p>
+ * The default rule refills 6 tokens per minute, one every 10 seconds, up to 6 tokens.
+ */
+class TokenBucketRateLimitStrategyScriptTest {
+    private static EmbeddedRedisScripts redis;
+
+    private final RateLimitProps props = new RateLimitProps("user1", "/api/test");
+    private final String bucketKey = TokenBucketRateLimitStrategy.bucketKey(props);
+    private TokenBucketRateLimitStrategy strategy;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = EmbeddedRedisScripts.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (redis != null) {
+            redis.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+        strategy = new TokenBucketRateLimitStrategy(redis.redisTemplate, 6L);
+    }
+
+    @Test
+    void checkQuota_shouldAllowFullBucketThenReject() {
+        for (int remaining = 5; remaining >= 0; remaining--) {
+            RateLimitDecision decision = strategy.checkQuota(props);
+            assertThat(decision.allowed()).isTrue();
+            assertThat(decision.limit()).isEqualTo(6);
+            assertThat(decision.remaining()).isEqualTo(remaining);
+        }
+
+        RateLimitDecision rejected = strategy.checkQuota(props);
+
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.remaining()).isZero();
+        // The next token is refilled 10s after the bucket ran dry, and the bucket is full after 60s
+        assertThat(rejected.retryAfterMs()).isBetween(9_000L, 10_000L);
+        assertThat(rejected.resetMs()).isBetween(59_000L, 60_000L);
+    }
+
+    @Test
+    void checkQuota_shouldReportTimeUntilFull_whenAllowed() {
+        RateLimitDecision decision = strategy.checkQuota(props);
+
+        assertThat(decision.resetMs()).isBetween(9_000L, 10_000L);
+        assertThat(decision.retryAfterMs()).isZero();
+    }
+
+    @Test
+    void checkQuota_shouldRefillContinuously_whenClockMoves() {
+        exhaust();
+
+        moveClock(25_000);
+
+        // 2.5 tokens were refilled: two requests are allowed and the third waits for the half token left
+        RateLimitDecision first = strategy.checkQuota(props);
+        assertThat(first.allowed()).isTrue();
+        assertThat(first.remaining()).isEqualTo(1);
+        RateLimitDecision second = strategy.checkQuota(props);
+        assertThat(second.allowed()).isTrue();
+        assertThat(second.remaining()).isZero();
+        RateLimitDecision third = strategy.checkQuota(props);
+        assertThat(third.allowed()).isFalse();
+        assertThat(third.retryAfterMs()).isBetween(4_000L, 5_000L);
+    }
+
+    @Test
+    void checkQuota_shouldRefillUpToCapacity_whenClockMovesPastFull() {
+        exhaust();
+
+        moveClock(600_000);
+
+        for (int remaining = 5; remaining >= 0; remaining--) {
+            assertThat(strategy.checkQuota(props).remaining()).isEqualTo(remaining);
+        }
+        assertThat(strategy.checkQuota(props).allowed()).isFalse();
+    }
+
+    @Test
+    void checkQuota_shouldKeepOneHashExpiringWhenBucketWouldBeFull() {
+        strategy.checkQuota(props);
+
+        assertThat(redis.stringRedisTemplate.<String, String>opsForHash().entries(bucketKey))
+                .containsOnlyKeys("tokens", "ts");
+        assertThat(Double.parseDouble(hashField("tokens"))).isBetween(5.0, 5.1);
+        assertThat(redis.ttlMs(bucketKey)).isBetween(59_000L, 60_000L);
+    }
+
+    @Test
+    void checkQuota_shouldUseRuleOfRequest_whenSet() {
+        RateLimitProps withRule = new RateLimitProps("user1", "/api/test", new RateLimitRule(60, 2));
+
+        RateLimitDecision decision = strategy.checkQuota(withRule);
+
+        // 60 per minute with a burst of 2: 62 tokens, one refilled every second
+        assertThat(decision.limit()).isEqualTo(62);
+        assertThat(decision.remaining()).isEqualTo(61);
+        assertThat(decision.resetMs()).isBetween(900L, 1_000L);
+        assertThat(redis.ttlMs(bucketKey)).isBetween(61_000L, 62_000L);
+    }
+
+    @Test
+    void acquire_shouldGrantTokensLeftInBucket_whenMoreAreRequested() {
+        assertThat(strategy.acquire(props, 4)).isEqualTo(4);
+        assertThat(strategy.acquire(props, 4)).isEqualTo(2);
+        assertThat(strategy.acquire(props, 4)).isZero();
+    }
+
+    @Test
+    void checkQuota_shouldTakeOneTokenPerKeyOccurrence_whenBatched() {
+        RateLimitProps other = new RateLimitProps("user2", "/api/test");
+        byte[] key = TokenBucketRateLimitStrategy.encodedBucketKey(props);
+        RateLimitRule rule = RateLimitRule.of(2);
+
+        RateLimitDecision[] decisions = strategy.checkQuota(
+                List.of(key, key, key, TokenBucketRateLimitStrategy.encodedBucketKey(other)),
+                Arrays.asList(rule, rule, rule, null));
+
+        assertThat(decisions[0].allowed()).isTrue();
+        assertThat(decisions[0].remaining()).isEqualTo(1);
+        assertThat(decisions[1].allowed()).isTrue();
+        assertThat(decisions[1].remaining()).isZero();
+        // 2 per minute: the next token is 30s away
+        assertThat(decisions[2].allowed()).isFalse();
+        assertThat(decisions[2].retryAfterMs()).isBetween(29_000L, 30_000L);
+        assertThat(decisions[3].allowed()).isTrue();
+        assertThat(decisions[3].limit()).isEqualTo(6);
+        assertThat(decisions[3].remaining()).isEqualTo(5);
+    }
+
+    @Test
+    void rateLimiterFilter_shouldSendRetryAfterOfScript_whenBucketIsEmpty() throws ServletException, IOException {
+        RateLimiterFilter filter = new RateLimiterFilter(strategy, request -> true);
+        for (int i = 0; i < 6; i++) {
+            MockHttpServletResponse allowed = filter(filter);
+            assertThat(allowed.getStatus()).isEqualTo(HttpStatus.OK.value());
+            assertThat(allowed.getHeader(RateLimiterFilter.RATE_LIMIT_REMAINING_HEADER)).isEqualTo(
+                    String.valueOf(5 - i));
+        }
+
+        MockHttpServletResponse rejected = filter(filter);
+
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+        assertThat(rejected.getHeader(RateLimiterFilter.RATE_LIMIT_LIMIT_HEADER)).isEqualTo("6");
+        assertThat(rejected.getHeader(RateLimiterFilter.RATE_LIMIT_RESET_HEADER)).isEqualTo("60");
+    }
+
+    private void exhaust() {
+        for (int i = 0; i < 6; i++) {
+            assertThat(strategy.checkQuota(props).allowed()).isTrue();
+        }
+        assertThat(strategy.checkQuota(props).allowed()).isFalse();
+    }
+
+    /**
+     * Moves the time of the last refill back, as if the clock had moved forward.
+     */
+    private void moveClock(final long elapsedMs) {
+        long lastRefill = (long) Double.parseDouble(hashField("ts"));
+        redis.stringRedisTemplate.opsForHash().put(bucketKey, "ts", Long.toString(lastRefill - elapsedMs));
+    }
+
+    private String hashField(final String field) {
+        return redis.stringRedisTemplate.<String, String>opsForHash().get(bucketKey, field);
+    }
+
+    private static MockHttpServletResponse filter(final RateLimiterFilter filter)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/test"), response, new MockFilterChain());
+        return response;
+    }
+}
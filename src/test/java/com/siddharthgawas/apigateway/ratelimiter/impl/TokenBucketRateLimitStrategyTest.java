@@ -1,12 +1,20 @@
 package com.siddharthgawas.apigateway.ratelimiter.impl;
 
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitKeys;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitDecision;
 import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitProps;
+import com.siddharthgawas.apigateway.ratelimiter.dto.RateLimitRule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -14,13 +22,15 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 class TokenBucketRateLimitStrategyTest {
+    private StubRedisScripts redis;
     private RedisTemplate<String, Object> redisTemplate;
     private TokenBucketRateLimitStrategy strategy;
     private final long maxTokenPerMinute = 10L;
 
     @BeforeEach
     void setUp() {
-        redisTemplate = mock(RedisTemplate.class);
+        redis = new StubRedisScripts();
+        redisTemplate = redis.redisTemplate;
         strategy = new TokenBucketRateLimitStrategy(redisTemplate, maxTokenPerMinute);
     }
 
@@ -30,8 +40,7 @@ class TokenBucketRateLimitStrategyTest {
                 "user1",
                 "/api/test"
         );
-        when(redisTemplate.execute(any(DefaultRedisScript.class), anyList(), any(), any(), any()))
-                .thenReturn(0L);
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
         boolean result = strategy.isQuotaExceeded(props);
         assertThat(result).isFalse();
     }
@@ -40,10 +49,9 @@ class TokenBucketRateLimitStrategyTest {
     void isQuotaExceeded_shouldReturnTrue_whenTokensNotAvailable() {
         RateLimitProps props = RateLimitProps.builder()
                 .key("user2")
-                .requestPath("/api/test")
+                .route("/api/test")
                 .build();
-        when(redisTemplate.execute(any(DefaultRedisScript.class), anyList(), any(), any(), any()))
-                .thenReturn(1L);
+        redis.returning(List.of(1L, 0L, 60_000L, 6_000L));
         boolean result = strategy.isQuotaExceeded(props);
         assertThat(result).isTrue();
     }
@@ -52,16 +60,109 @@ class TokenBucketRateLimitStrategyTest {
     void isQuotaExceeded_shouldPassCorrectKeysAndArgsToRedis() {
         RateLimitProps props = RateLimitProps.builder()
                 .key("user3")
-                .requestPath("/api/path")
+                .route("/api/path")
                 .build();
-        when(redisTemplate.execute(any(DefaultRedisScript.class), anyList(), any(), any(), any()))
-                .thenReturn(0L);
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
         strategy.isQuotaExceeded(props);
-        ArgumentCaptor<List> keysCaptor = ArgumentCaptor.forClass(List.class);
-        verify(redisTemplate).execute(any(DefaultRedisScript.class), keysCaptor.capture(), any(), any(), any());
-        List<String> keys = keysCaptor.getValue();
-        assertThat(keys.get(0)).contains("user3:/api/path:tokens");
-        assertThat(keys.get(1)).contains("user3:/api/path:lastRefill");
+        assertThat(redis.numKeys).containsExactly(1);
+        assertThat(redis.lastCall().get(0)).isEqualTo(RateLimitKeys.bucketKey("user3", "/api/path"));
     }
-}
 
+    @Test
+    void isQuotaExceeded_shouldReuseTheSameScriptAcrossCalls() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        strategy.isQuotaExceeded(new RateLimitProps("user4", "/api/a"));
+        strategy.isQuotaExceeded(new RateLimitProps("user4", "/api/b"));
+        ArgumentCaptor<byte[]> shaCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(redis.scriptingCommands, times(2)).evalSha(shaCaptor.capture(), eq(ReturnType.MULTI), eq(1),
+                any(byte[][].class));
+        assertThat(shaCaptor.getAllValues().get(0)).isEqualTo(shaCaptor.getAllValues().get(1)).hasSize(40);
+        verify(redis.scriptingCommands, never()).eval(any(byte[].class), any(), anyInt(), any(byte[][].class));
+    }
+
+    @Test
+    void isQuotaExceeded_shouldFallBackToEval_whenScriptIsNotCached() {
+        when(redis.scriptingCommands.evalSha(any(byte[].class), eq(ReturnType.MULTI), anyInt(), any(byte[][].class)))
+                .thenThrow(new RedisSystemException("NOSCRIPT No matching script", null));
+        when(redis.scriptingCommands.eval(any(byte[].class), eq(ReturnType.MULTI), anyInt(), any(byte[][].class)))
+                .thenReturn(List.of(1L, 0L, 60_000L, 6_000L));
+        assertThat(strategy.isQuotaExceeded(new RateLimitProps("user4", "/api/a"))).isTrue();
+    }
+
+    @Test
+    void isQuotaExceeded_shouldNotUseTemplateSerializers() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        strategy.isQuotaExceeded(new RateLimitProps("user4", "/api/a"));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        verify(redisTemplate, never()).getValueSerializer();
+    }
+
+    @Test
+    void isQuotaExceeded_shouldPassDefaultCapacityAndRefillToRedis_whenNoRule() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        strategy.isQuotaExceeded(new RateLimitProps("user5", "/api/path"));
+        assertThat(redis.lastCall()).endsWith("10", "10", "1");
+    }
+
+    @Test
+    void acquire_shouldReturnGrantedTokens_whenBucketHasFewerThanRequested() {
+        redis.returning(List.of(3L, 0L, 60_000L, 18_000L));
+        long granted = strategy.acquire(new RateLimitProps("user6", "/api/path"), 5);
+        assertThat(granted).isEqualTo(2L);
+        assertThat(redis.lastCall()).endsWith("10", "10", "5");
+    }
+
+    @Test
+    void isQuotaExceeded_shouldPassRuleCapacityAndRefillToRedis_whenRuleIsSet() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        strategy.isQuotaExceeded(new RateLimitProps("user9", "/api/path", new RateLimitRule(50, 25)));
+        assertThat(redis.lastCall()).endsWith("75", "50", "1");
+    }
+
+    @Test
+    void isQuotaExceeded_shouldCheckAllKeysInOneCall_whenBatched() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L, 1L, 0L, 60_000L, 10_000L, 0L, 8L, 12_000L, 0L));
+        List<RateLimitRule> rules = java.util.Arrays.asList(null, new RateLimitRule(5, 1), null);
+        RateLimitDecision[] decisions = strategy.checkQuota(List.of(ascii("a:/x"), ascii("b:/x"), ascii("a:/x")),
+                rules);
+        assertThat(decisions).containsExactly(
+                new RateLimitDecision(true, 10, 9, 6_000, 0),
+                new RateLimitDecision(false, 6, 0, 60_000, 10_000),
+                new RateLimitDecision(true, 10, 8, 12_000, 0));
+        assertThat(redis.numKeys).containsExactly(3);
+        assertThat(redis.lastCall()).containsExactly("a:/x", "b:/x", "a:/x", "10", "10", "6", "5", "10", "10");
+    }
+
+    @Test
+    void checkQuotaAsync_shouldUseReactiveTemplate_whenAvailable() {
+        ReactiveRedisTemplate<String, String> reactiveRedisTemplate = mock(ReactiveRedisTemplate.class);
+        strategy = new TokenBucketRateLimitStrategy(redisTemplate, reactiveRedisTemplate, maxTokenPerMinute);
+        when(reactiveRedisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.just(1L, 0L, 60_000L, 6_000L));
+        var decision = strategy.checkQuotaAsync(new RateLimitProps("user7", "/api/path"))
+                .toCompletableFuture().join();
+        assertThat(decision.allowed()).isFalse();
+        verify(reactiveRedisTemplate).execute(any(RedisScript.class), eq(List.of(RateLimitKeys.bucketKey("user7", "/api/path"))),
+                eq(List.of("10", "10", "1")));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void checkQuota_shouldReturnRemainingAndRetryAfterFromScript() {
+        redis.returning(List.of(1L, 0L, 54_000L, 3_500L));
+        RateLimitDecision decision = strategy.checkQuota(new RateLimitProps("user10", "/api/path"));
+        assertThat(decision).isEqualTo(new RateLimitDecision(false, maxTokenPerMinute, 0, 54_000, 3_500));
+    }
+
+    @Test
+    void checkQuotaAsync_shouldFallBackToBlockingCheck_whenNoReactiveTemplate() {
+        redis.returning(List.of(0L, 9L, 6_000L, 0L));
+        var decision = strategy.checkQuotaAsync(new RateLimitProps("user8", "/api/path"))
+                .toCompletableFuture().join();
+        assertThat(decision.allowed()).isTrue();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
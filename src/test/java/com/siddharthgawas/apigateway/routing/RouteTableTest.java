@@ -0,0 +1,93 @@
+package com.siddharthgawas.apigateway.routing;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteTableTest {
+    private RouteTable routeTable;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties.Route orders = new ApplicationProperties.Route();
+        orders.setPathPrefix("/orders/");
+        orders.setUpstreams(List.of("http://localhost:9001"));
+        orders.setRateLimitPolicy("orders");
+        ApplicationProperties.Route catalog = new ApplicationProperties.Route();
+        catalog.setPathPrefix("/catalog");
+        catalog.setUpstreams(List.of("http://localhost:9002"));
+        catalog.setAuthenticationRequired(false);
+        catalog.setRateLimitGroup("reads");
+        routeTable = new RouteTable(List.of(orders, catalog));
+    }
+
+    @Test
+    void classify_shouldReturnBuiltInRoutes_whenPathIsGatewayEndpoint() {
+        assertThat(routeTable.classify("/token").authenticationRequired()).isFalse();
+        assertThat(routeTable.classify("/token-refresh").authenticationRequired()).isFalse();
+        assertThat(routeTable.classify("/.well-known/jwks.json").authenticationRequired()).isFalse();
+        assertThat(routeTable.classify("/actuator/health").authenticationRequired()).isTrue();
+        assertThat(routeTable.classify("/actuator/prometheus").authenticationRequired()).isTrue();
+        assertThat(routeTable.classify("/token/").template()).isEqualTo(RouteTable.CATCH_ALL_TEMPLATE);
+        assertThat(routeTable.classify("/error/").authenticationRequired()).isTrue();
+        assertThat(routeTable.classify("/.well-known/jwks.json/").authenticationRequired()).isTrue();
+        RouteDescriptor fallback = routeTable.classify("/unknown/path");
+        assertThat(fallback.template()).isEqualTo(RouteTable.CATCH_ALL_TEMPLATE);
+        assertThat(fallback.authenticationRequired()).isTrue();
+        assertThat(fallback.upstream()).isNull();
+    }
+
+    @Test
+    void classify_shouldReturnConfiguredRoute_whenPathIsUnderItsPrefix() {
+        RouteDescriptor orders = routeTable.classify("/orders/42");
+        assertThat(orders.template()).isEqualTo("/orders/**");
+        assertThat(orders.rateLimitPolicy()).isEqualTo("orders");
+        assertThat(orders.rateLimitScope()).isEqualTo("/orders/**");
+        assertThat(routeTable.classify("/catalog/items").rateLimitScope()).isEqualTo("reads");
+        assertThat(orders.upstream()).isNotNull();
+        assertThat(routeTable.classify("/catalog").authenticationRequired()).isFalse();
+        assertThat(routeTable.classify("/catalog/items").rateLimitPolicy())
+                .isEqualTo(RouteTable.DEFAULT_RATE_LIMIT_POLICY);
+    }
+
+    @Test
+    void descriptors_shouldBeIndexedById() {
+        List<RouteDescriptor> descriptors = routeTable.descriptors();
+        for (int i = 0; i < descriptors.size(); i++) {
+            assertThat(descriptors.get(i).id()).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void classificationFilter_shouldStoreRouteForMatchers() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/catalog/items");
+        AtomicReference<RouteDescriptor> seen = new AtomicReference<>();
+        FilterChain chain = (servletRequest, servletResponse) ->
+                seen.set(RouteTable.routeOf(request));
+
+        new RouteClassificationFilter(routeTable).doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(seen.get().template()).isEqualTo("/catalog/**");
+        assertThat(RouteRequestMatcher.anonymous(routeTable).matches(request)).isTrue();
+        assertThat(RouteRequestMatcher.authenticated(routeTable).matches(request)).isFalse();
+    }
+
+    @Test
+    void resolve_shouldClassifyWithoutContextPath_whenRequestWasNotClassified() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/gateway/orders/1");
+        request.setContextPath("/gateway");
+
+        assertThat(routeTable.resolve(request).template()).isEqualTo("/orders/**");
+    }
+}
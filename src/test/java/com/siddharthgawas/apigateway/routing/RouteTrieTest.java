@@ -0,0 +1,101 @@
+package com.siddharthgawas.apigateway.routing;
+
+import com.siddharthgawas.apigateway.routing.dto.RouteDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteTrieTest {
+
+    private static RouteDescriptor route(int id, String template) {
+        return new RouteDescriptor(id, template, true, RouteTable.DEFAULT_RATE_LIMIT_POLICY, template, null);
+    }
+
+    private static String templateOf(RouteTrie trie, String path) {
+        RouteDescriptor descriptor = trie.match(path);
+        return descriptor == null ? null : descriptor.template();
+    }
+
+    @Test
+    void match_shouldPreferLiteralOverVariableOverCatchAll() {
+        RouteTrie trie = RouteTrie.compile(List.of(
+                route(0, "/**"),
+                route(1, "/orders/{id}"),
+                route(2, "/orders/recent"),
+                route(3, "/orders/{id}/items/**")));
+
+        assertThat(templateOf(trie, "/orders/recent")).isEqualTo("/orders/recent");
+        assertThat(templateOf(trie, "/orders/42")).isEqualTo("/orders/{id}");
+        assertThat(templateOf(trie, "/orders/42/items")).isEqualTo("/orders/{id}/items/**");
+        assertThat(templateOf(trie, "/orders/42/items/7/price")).isEqualTo("/orders/{id}/items/**");
+        assertThat(templateOf(trie, "/orders/42/payments")).isEqualTo("/**");
+        assertThat(templateOf(trie, "/")).isEqualTo("/**");
+    }
+
+    @Test
+    void match_shouldBacktrackToVariable_whenLiteralBranchDoesNotMatch() {
+        RouteTrie trie = RouteTrie.compile(List.of(
+                route(0, "/users/me"),
+                route(1, "/users/{id}/profile")));
+
+        assertThat(templateOf(trie, "/users/me/profile")).isEqualTo("/users/{id}/profile");
+        assertThat(templateOf(trie, "/users/me")).isEqualTo("/users/me");
+        assertThat(templateOf(trie, "/users")).isNull();
+    }
+
+    @Test
+    void match_shouldFallThroughToCatchAll_whenPathHasTrailingOrRepeatedSlash() {
+        RouteTrie trie = RouteTrie.compile(List.of(
+                route(0, "/**"),
+                route(1, "/token"),
+                route(2, "/orders/{id}"),
+                route(3, "/api/**")));
+
+        assertThat(templateOf(trie, "/token")).isEqualTo("/token");
+        assertThat(templateOf(trie, "/token/")).isEqualTo("/**");
+        assertThat(templateOf(trie, "//token")).isEqualTo("/**");
+        assertThat(templateOf(trie, "/orders/42/")).isEqualTo("/**");
+        assertThat(templateOf(trie, "/orders//")).isEqualTo("/**");
+        assertThat(templateOf(trie, "/api/")).isEqualTo("/api/**");
+        assertThat(templateOf(trie, "/api//x")).isEqualTo("/api/**");
+    }
+
+    @Test
+    void match_shouldReturnNull_whenTrailingSlashAndNoCatchAll() {
+        RouteTrie trie = RouteTrie.compile(List.of(route(0, "/token")));
+
+        assertThat(templateOf(trie, "/token/")).isNull();
+        assertThat(templateOf(trie, "/tokens")).isNull();
+    }
+
+    @Test
+    void match_shouldLetLaterRouteWin_whenTemplatesAreEqual() {
+        RouteTrie trie = RouteTrie.compile(List.of(route(0, "/api/**"), route(1, "/api/**")));
+
+        assertThat(trie.match("/api/x").id()).isEqualTo(1);
+    }
+
+    @Test
+    void match_shouldFindEveryRoute_whenManyRoutesShareALevel() {
+        List<RouteDescriptor> routes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            routes.add(route(i, "/service-" + i + "/**"));
+        }
+        RouteTrie trie = RouteTrie.compile(routes);
+
+        for (int i = 0; i < 500; i++) {
+            assertThat(trie.match("/service-" + i + "/resource").id()).isEqualTo(i);
+        }
+        assertThat(trie.match("/service-500/resource")).isNull();
+    }
+
+    @Test
+    void compile_shouldThrow_whenCatchAllIsNotLast() {
+        assertThatThrownBy(() -> RouteTrie.compile(List.of(route(0, "/api/**/items"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,44 @@
+package com.siddharthgawas.apigateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_shouldReturnTrueForEveryAddedValue() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.001);
+        IntStream.range(0, 10_000).forEach(i -> filter.add("jti-" + i));
+
+        assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("jti-" + i))).isTrue();
+    }
+
+    @Test
+    void mightContain_shouldRarelyReturnTrueForOtherValues_whenFilledToCapacity() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.001);
+        IntStream.range(0, 10_000).forEach(i -> filter.add("jti-" + i));
+
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("other-" + i)).count();
+
+        assertThat(falsePositives).isLessThan(500);
+    }
+
+    @Test
+    void mightContain_shouldReturnFalse_whenFilterEmpty() {
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+
+        assertThat(filter.mightContain("jti")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+    }
+
+    @Test
+    void create_shouldRejectInvalidSizing() {
+        assertThatThrownBy(() -> BloomFilter.create(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.create(100, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.create(100, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,35 +1,46 @@
 package com.siddharthgawas.apigateway.security;
 
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitPropsCache;
 import com.siddharthgawas.apigateway.security.dto.JWTAuthentication;
+import com.siddharthgawas.apigateway.security.dto.VerifiedClaims;
 import com.siddharthgawas.apigateway.service.JWTService;
+import com.siddharthgawas.apigateway.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class JWTAuthenticationProviderTest {
     private JWTService jwtService;
+    private TokenRevocationService tokenRevocationService;
     private JWTAuthenticationProvider provider;
 
     @BeforeEach
     void setUp() {
         jwtService = mock(JWTService.class);
-        provider = new JWTAuthenticationProvider(jwtService);
+        tokenRevocationService = mock(TokenRevocationService.class);
+        provider = new JWTAuthenticationProvider(jwtService, new VerifiedTokenCache(100), GatewayMetrics.NOOP,
+                new RateLimitPropsCache(10), tokenRevocationService);
+    }
+
+    private static VerifiedClaims claims(String subject) {
+        return new VerifiedClaims(subject, "jti", System.currentTimeMillis() + 60_000);
     }
 
     @Test
     void authenticate_shouldReturnAuthenticatedJWTAuthentication_whenTokenValidAndUserFound() {
         String token = "valid-token";
-        User userDetails = new User("user", "pass", java.util.Collections.emptyList());
         JWTAuthentication authentication = new JWTAuthentication(token);
-        when(jwtService.validateToken(token)).thenReturn(true);
-        when(jwtService.getUserFromToken(token)).thenReturn(userDetails);
+        when(jwtService.verifyToken(token)).thenReturn(claims("user"));
 
         JWTAuthentication result = (JWTAuthentication) provider.authenticate(authentication);
         assertThat(result.isAuthenticated()).isTrue();
@@ -37,11 +48,26 @@ class JWTAuthenticationProviderTest {
         assertThat(result.getName()).isEqualTo("user");
     }
 
+    @Test
+    void authenticate_shouldAttachInternedRateLimitPrincipal_whenTokenValid() {
+        RateLimitPropsCache rateLimitPropsCache = new RateLimitPropsCache(10);
+        provider = new JWTAuthenticationProvider(jwtService, new VerifiedTokenCache(100), GatewayMetrics.NOOP,
+                rateLimitPropsCache, tokenRevocationService);
+        when(jwtService.verifyToken(anyString())).thenReturn(claims("user"));
+
+        JWTAuthentication first = (JWTAuthentication) provider.authenticate(new JWTAuthentication("token-1"));
+        JWTAuthentication second = (JWTAuthentication) provider.authenticate(new JWTAuthentication("token-2"));
+
+        assertThat(first.getRateLimitPrincipal().getName()).isEqualTo("user");
+        assertThat(second.getRateLimitPrincipal()).isSameAs(first.getRateLimitPrincipal());
+        assertThat(rateLimitPropsCache.principal("user")).isSameAs(first.getRateLimitPrincipal());
+    }
+
     @Test
     void authenticate_shouldThrowException_whenTokenInvalid() {
         String token = "invalid-token";
         JWTAuthentication authentication = new JWTAuthentication(token);
-        when(jwtService.validateToken(token)).thenReturn(false);
+        when(jwtService.verifyToken(token)).thenReturn(null);
 
         assertThatThrownBy(() -> provider.authenticate(authentication))
                 .isInstanceOf(AuthenticationServiceException.class)
@@ -52,17 +78,73 @@ class JWTAuthenticationProviderTest {
     void authenticate_shouldThrowException_whenUserNotFound() {
         String token = "valid-token";
         JWTAuthentication authentication = new JWTAuthentication(token);
-        when(jwtService.validateToken(token)).thenReturn(true);
-        when(jwtService.getUserFromToken(token)).thenReturn(null);
+        when(jwtService.verifyToken(token)).thenReturn(claims(null));
 
         assertThatThrownBy(() -> provider.authenticate(authentication))
                 .isInstanceOf(AuthenticationServiceException.class)
                 .hasMessageContaining("No user found for the provided access token");
     }
 
+    @Test
+    void authenticate_shouldVerifyTokenOnce_whenSameTokenPresentedRepeatedly() {
+        String token = "valid-token";
+        when(jwtService.verifyToken(token)).thenReturn(claims("user"));
+
+        provider.authenticate(new JWTAuthentication(token));
+        JWTAuthentication result = (JWTAuthentication) provider.authenticate(new JWTAuthentication(token));
+
+        assertThat(result.getName()).isEqualTo("user");
+        verify(jwtService, times(1)).verifyToken(token);
+        verify(jwtService, never()).validateToken(anyString());
+        verify(jwtService, never()).getUserFromToken(anyString());
+    }
+
+    @Test
+    void authenticate_shouldThrowException_whenTokenRevoked() {
+        when(jwtService.verifyToken("valid-token")).thenReturn(claims("user"));
+
+        provider.authenticate(new JWTAuthentication("valid-token"));
+        when(tokenRevocationService.isRevoked("jti")).thenReturn(true);
+
+        assertThatThrownBy(() -> provider.authenticate(new JWTAuthentication("valid-token")))
+                .isInstanceOf(AuthenticationServiceException.class)
+                .hasMessageContaining("Access token has been revoked");
+        verify(jwtService, times(1)).verifyToken("valid-token");
+    }
+
+    @Test
+    void authenticate_shouldThrowException_whenTokenIsRefreshToken() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        provider = new JWTAuthenticationProvider(jwtService, new VerifiedTokenCache(100),
+                new GatewayMetrics(meterRegistry, List.of()), new RateLimitPropsCache(10), tokenRevocationService);
+        when(jwtService.verifyToken("refresh-token")).thenReturn(
+                new VerifiedClaims("user", "jti", System.currentTimeMillis() + 60_000, "family-1"));
+        JWTAuthentication authentication = new JWTAuthentication("refresh-token");
+
+        assertThatThrownBy(() -> provider.authenticate(authentication))
+                .isInstanceOf(AuthenticationServiceException.class)
+                .hasMessageContaining("Refresh tokens are not accepted as access tokens");
+        assertThat(authentication.isAuthenticated()).isFalse();
+        assertThat(meterRegistry.get("gateway.jwt.verification").tag("outcome", "rejected").timer().count())
+                .isEqualTo(1);
+        verifyNoInteractions(tokenRevocationService);
+    }
+
+    @Test
+    void authenticate_shouldRecordRejectedVerification_whenTokenInvalid() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        provider = new JWTAuthenticationProvider(jwtService, new VerifiedTokenCache(100),
+                new GatewayMetrics(meterRegistry, List.of()), new RateLimitPropsCache(10), tokenRevocationService);
+        when(jwtService.verifyToken("invalid-token")).thenReturn(null);
+
+        assertThatThrownBy(() -> provider.authenticate(new JWTAuthentication("invalid-token")))
+                .isInstanceOf(AuthenticationServiceException.class);
+        assertThat(meterRegistry.get("gateway.jwt.verification").tag("outcome", "rejected").timer().count())
+                .isEqualTo(1);
+    }
+
     @Test
     void authenticate_shouldReturnInput_whenNotJWTAuthentication() {
-        AuthenticationProvider provider = new JWTAuthenticationProvider(jwtService);
         org.springframework.security.authentication.UsernamePasswordAuthenticationToken otherAuth =
                 new org.springframework.security.authentication.UsernamePasswordAuthenticationToken("user", "pass");
         assertThat(provider.authenticate(otherAuth)).isSameAs(otherAuth);
@@ -1,5 +1,7 @@
 package com.siddharthgawas.apigateway.security;
 
+import com.siddharthgawas.apigateway.ratelimiter.RateLimitPrincipal;
+import com.siddharthgawas.apigateway.security.dto.JWTAuthentication;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -47,6 +49,27 @@ class JwtAuthenticationFilterTest {
         // SecurityContext is saved via repository, but we can check that no exception is thrown
     }
 
+    @Test
+    void successfulAuthentication_shouldPublishRateLimitPrincipal_whenAuthenticatedByJwt()
+            throws IOException, ServletException {
+        JWTAuthentication jwtAuthentication = new JWTAuthentication("token");
+        RateLimitPrincipal principal = new RateLimitPrincipal("user1");
+        jwtAuthentication.setRateLimitPrincipal(principal);
+
+        filter.successfulAuthentication(request, response, filterChain, jwtAuthentication);
+
+        verify(request).setAttribute(RateLimitPrincipal.ATTRIBUTE, principal);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void successfulAuthentication_shouldNotPublishRateLimitPrincipal_whenAuthenticationHasNone()
+            throws IOException, ServletException {
+        filter.successfulAuthentication(request, response, filterChain, authentication);
+
+        verify(request, never()).setAttribute(eq(RateLimitPrincipal.ATTRIBUTE), any());
+    }
+
     @Test
     void constructor_setsRequestMatcherAndAuthenticationManager() {
         assertThat(filter).isNotNull();
@@ -0,0 +1,26 @@
+package com.siddharthgawas.apigateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtIdGeneratorTest {
+
+    @Test
+    void next_shouldNeverRepeat() {
+        JwtIdGenerator generator = new JwtIdGenerator();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.next());
+        }
+        assertThat(ids).hasSize(10_000);
+    }
+
+    @Test
+    void next_shouldDiffer_betweenGenerators() {
+        assertThat(new JwtIdGenerator().next()).isNotEqualTo(new JwtIdGenerator().next());
+    }
+}
@@ -0,0 +1,151 @@
+package com.siddharthgawas.apigateway.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeyManagerTest {
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    void deriveHmacKey_shouldReturnSameKey_whenSecretIsSame() {
+        JwtSigningKey first = JwtKeyManager.deriveHmacKey("secretKey");
+        JwtSigningKey second = JwtKeyManager.deriveHmacKey("secretKey");
+
+        assertThat(first.getKeyId()).isEqualTo(second.getKeyId());
+        assertThat(first.getSigningKey().getEncoded()).hasSize(64).isEqualTo(second.getSigningKey().getEncoded());
+        assertThat(JwtKeyManager.deriveHmacKey("otherSecret").getKeyId()).isNotEqualTo(first.getKeyId());
+    }
+
+    @Test
+    void constructor_shouldSignWithAliasedKey_andVerifyWithAllKeys() throws Exception {
+        Path keyStoreFile = writeKeyStore(tempDir.resolve("keys.p12"), "old", "new");
+
+        JwtKeyManager keyManager = new JwtKeyManager(keyStoreFile, PASSWORD, "new", 60_000, clock::get);
+
+        assertThat(keyManager.getKeySet().signingKey().getKeyId()).isEqualTo(keyIdOf("new"));
+        assertThat(keyManager.getKeySet().keys()).extracting(JwtSigningKey::getKeyId)
+                .containsExactly(keyIdOf("new"), keyIdOf("old"));
+    }
+
+    @Test
+    void constructor_shouldFail_whenSigningAliasIsMissing() throws Exception {
+        Path keyStoreFile = writeKeyStore(tempDir.resolve("keys.p12"), "old", "new");
+
+        assertThatThrownBy(() -> new JwtKeyManager(keyStoreFile, PASSWORD, null, 60_000, clock::get))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new JwtKeyManager(keyStoreFile, PASSWORD, "unknown", 60_000, clock::get))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void reload_shouldKeepRemovedKey_untilOverlapEnds() throws Exception {
+        Path keyStoreFile = writeKeyStore(tempDir.resolve("keys.p12"), "old");
+        JwtKeyManager keyManager = new JwtKeyManager(keyStoreFile, PASSWORD, null, 60_000, clock::get);
+
+        writeKeyStore(keyStoreFile, "new");
+        Files.setLastModifiedTime(keyStoreFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        assertThat(keyManager.reload()).isTrue();
+        assertThat(keyManager.getKeySet().signingKey().getKeyId()).isEqualTo(keyIdOf("new"));
+        assertThat(keyManager.getKeySet().keys()).extracting(JwtSigningKey::getKeyId)
+                .containsExactly(keyIdOf("new"), keyIdOf("old"));
+
+        clock.addAndGet(59_999);
+        assertThat(keyManager.retireExpired()).isZero();
+        clock.addAndGet(1);
+        assertThat(keyManager.retireExpired()).isEqualTo(1);
+        assertThat(keyManager.getKeySet().keys()).extracting(JwtSigningKey::getKeyId)
+                .containsExactly(keyIdOf("new"));
+    }
+
+    @Test
+    void reload_shouldKeepKeys_whenKeyStoreIsUnreadable() throws Exception {
+        Path keyStoreFile = writeKeyStore(tempDir.resolve("keys.p12"), "old");
+        JwtKeyManager keyManager = new JwtKeyManager(keyStoreFile, PASSWORD, null, 60_000, clock::get);
+
+        Files.writeString(keyStoreFile, "not a key store");
+        Files.setLastModifiedTime(keyStoreFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        assertThat(keyManager.reload()).isFalse();
+        assertThat(keyManager.getKeySet().signingKey().getKeyId()).isEqualTo(keyIdOf("old"));
+    }
+
+    @Test
+    void constructor_shouldFail_whenSecretKeyIsShorterThan512Bits() throws Exception {
+        Path keyStoreFile = writeKeyStore(tempDir.resolve("keys.p12"), 32, "short");
+
+        assertThatThrownBy(() -> new JwtKeyManager(keyStoreFile, PASSWORD, null, 60_000, clock::get))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseInstanceOf(IllegalArgumentException.class)
+                .rootCause().hasMessageContaining("short").hasMessageContaining("512 bits");
+    }
+
+    @Test
+    void reload_shouldKeepKeys_whenSecretKeyIsShorterThan512Bits() throws Exception {
+        Path keyStoreFile = writeKeyStore(tempDir.resolve("keys.p12"), "old");
+        JwtKeyManager keyManager = new JwtKeyManager(keyStoreFile, PASSWORD, null, 60_000, clock::get);
+
+        writeKeyStore(keyStoreFile, 32, "short");
+        Files.setLastModifiedTime(keyStoreFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        assertThat(keyManager.reload()).isFalse();
+        assertThat(keyManager.getKeySet().keys()).extracting(JwtSigningKey::getKeyId)
+                .containsExactly(keyIdOf("old"));
+    }
+
+    @Test
+    void reload_shouldDoNothing_whenKeysAreConfigured() {
+        JwtKeyManager keyManager = new JwtKeyManager(JwtKeyManager.deriveHmacKey("secretKey"));
+
+        assertThat(keyManager.reload()).isFalse();
+        assertThat(keyManager.retireExpired()).isZero();
+    }
+
+    private static Path writeKeyStore(final Path file, final String... aliases) throws Exception {
+        return writeKeyStore(file, 64, aliases);
+    }
+
+    private static Path writeKeyStore(final Path file, final int keyBytes, final String... aliases) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        for (String alias : aliases) {
+            keyStore.setEntry(alias, new KeyStore.SecretKeyEntry(secretOf(alias, keyBytes)),
+                    new KeyStore.PasswordProtection(PASSWORD));
+        }
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            keyStore.store(outputStream, PASSWORD);
+        }
+        return file;
+    }
+
+    private static SecretKeySpec secretOf(final String alias) {
+        return secretOf(alias, 64);
+    }
+
+    private static SecretKeySpec secretOf(final String alias, final int keyBytes) {
+        byte[] secret = new byte[keyBytes];
+        Arrays.fill(secret, (byte) alias.hashCode());
+        return new SecretKeySpec(secret, "HmacSHA512");
+    }
+
+    private static String keyIdOf(final String alias) {
+        return JwtSigningKey.hmac(secretOf(alias)).getKeyId();
+    }
+}
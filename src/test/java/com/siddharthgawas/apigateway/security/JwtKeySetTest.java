@@ -0,0 +1,76 @@
+package com.siddharthgawas.apigateway.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeySetTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void jwks_shouldListPublicKeysOnly() throws Exception {
+        JwtSigningKey ed25519 = JwtSigningKey.generate(JwtAlgorithm.EDDSA);
+        JwtSigningKey hmac = JwtSigningKey.hmac(Jwts.SIG.HS512.key().build());
+        JwtKeySet keySet = new JwtKeySet(List.of(ed25519, hmac));
+
+        JsonNode keys = objectMapper.readTree(keySet.jwks()).get("keys");
+
+        assertThat(keys).hasSize(1);
+        assertThat(keys.get(0).get("kid").asText()).isEqualTo(ed25519.getKeyId());
+    }
+
+    @Test
+    void rotate_shouldSignWithNewKey_andKeepPreviousKeyForVerification() throws Exception {
+        JwtSigningKey first = JwtSigningKey.generate(JwtAlgorithm.EDDSA);
+        JwtSigningKey second = JwtSigningKey.generate(JwtAlgorithm.ES256);
+        JwtKeySet keySet = new JwtKeySet(List.of(first));
+
+        keySet.rotate(second);
+
+        assertThat(keySet.signingKey()).isSameAs(second);
+        assertThat(keySet.keys()).containsExactly(second, first);
+        assertThat(objectMapper.readTree(keySet.jwks()).get("keys")).hasSize(2);
+    }
+
+    @Test
+    void retire_shouldDropKey_butNeverTheSigningKey() throws Exception {
+        JwtSigningKey first = JwtSigningKey.generate(JwtAlgorithm.EDDSA);
+        JwtSigningKey second = JwtSigningKey.generate(JwtAlgorithm.EDDSA);
+        JwtKeySet keySet = new JwtKeySet(List.of(first));
+        keySet.rotate(second);
+
+        assertThat(keySet.retire(second.getKeyId())).isFalse();
+        assertThat(keySet.retire(first.getKeyId())).isTrue();
+
+        assertThat(keySet.keys()).containsExactly(second);
+        assertThat(objectMapper.readTree(keySet.jwks()).get("keys")).hasSize(1);
+    }
+
+    @Test
+    void constructor_shouldReject_whenNoKeyIsGiven() {
+        assertThatThrownBy(() -> new JwtKeySet(List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parser_shouldVerifyTokensOfKeysReplacedAfterItWasBuilt() {
+        JwtKeySet keySet = new JwtKeySet(List.of(JwtSigningKey.generate(JwtAlgorithm.EDDSA)));
+        JwtParser parser = keySet.parser();
+        JwtSigningKey replacement = JwtSigningKey.generate(JwtAlgorithm.ES256);
+
+        keySet.replace(List.of(replacement));
+        String token = Jwts.builder().header().keyId(replacement.getKeyId()).and()
+                .subject("tester")
+                .signWith(replacement.getSigningKey())
+                .compact();
+
+        assertThat(keySet.parser()).isSameAs(parser);
+        assertThat(parser.parseSignedClaims(token).getPayload().getSubject()).isEqualTo("tester");
+    }
+}
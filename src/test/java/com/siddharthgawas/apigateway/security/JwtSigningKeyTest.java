@@ -0,0 +1,126 @@
+package com.siddharthgawas.apigateway.security;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyFactory;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.EllipticCurve;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtSigningKeyTest {
+
+    // Ed25519 key of RFC 8037, Appendix A
+    private static final String RFC_8037_D = "nWGxne_9WmC6hEr0kuwsxERJxWl7MmkZcDusAxyuf2A";
+    private static final String RFC_8037_X = "11qYAYKxCrfVS_7TyWQHOg7hcvPapiMlrwIaaPcHURo";
+
+    @Test
+    void of_shouldUseRfc7638Thumbprint_asKeyIdOfEd25519Key() throws Exception {
+        JwtSigningKey key = JwtSigningKey.of(rfc8037KeyPair());
+
+        assertThat(key.getAlgorithm()).isEqualTo(JwtAlgorithm.EDDSA);
+        assertThat(key.getKeyId()).isEqualTo("kPrK_qmxVWaYVA9wwBF6Iuo3vVzz7TxHCTwXBygrS4k");
+        assertThat(key.getPublicJwk())
+                .containsEntry("kty", "OKP")
+                .containsEntry("crv", "Ed25519")
+                .containsEntry("x", RFC_8037_X)
+                .containsEntry("kid", key.getKeyId())
+                .containsEntry("alg", "EdDSA")
+                .containsEntry("use", "sig")
+                .doesNotContainKey("d");
+    }
+
+    @Test
+    void generate_shouldPublishP256Coordinates_forEs256() {
+        JwtSigningKey key = JwtSigningKey.generate(JwtAlgorithm.ES256);
+
+        assertThat(key.getAlgorithm()).isEqualTo(JwtAlgorithm.ES256);
+        assertThat(key.isPublished()).isTrue();
+        assertThat(key.getPublicJwk()).containsEntry("kty", "EC").containsEntry("crv", "P-256");
+        assertThat(Base64.getUrlDecoder().decode((String) key.getPublicJwk().get("x"))).hasSize(32);
+        assertThat(Base64.getUrlDecoder().decode((String) key.getPublicJwk().get("y"))).hasSize(32);
+    }
+
+    @Test
+    void of_shouldReject_whenEcKeyIsNotOnP256() {
+        BigInteger p = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16);
+        ECPoint generator = new ECPoint(
+                new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+                new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+        ECParameterSpec secp256k1 = new ECParameterSpec(
+                new EllipticCurve(new ECFieldFp(p), BigInteger.ZERO, BigInteger.valueOf(7)), generator,
+                new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16), 1);
+        ECPublicKey publicKey = new ECPublicKey() {
+            @Override
+            public ECPoint getW() {
+                return generator;
+            }
+
+            @Override
+            public ECParameterSpec getParams() {
+                return secp256k1;
+            }
+
+            @Override
+            public String getAlgorithm() {
+                return "EC";
+            }
+
+            @Override
+            public String getFormat() {
+                return "X.509";
+            }
+
+            @Override
+            public byte[] getEncoded() {
+                return new byte[0];
+            }
+        };
+
+        assertThatThrownBy(() -> JwtSigningKey.of(new KeyPair(publicKey, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void hmac_shouldNotPublishKey() {
+        JwtSigningKey key = JwtSigningKey.hmac(Jwts.SIG.HS512.key().build());
+
+        assertThat(key.getAlgorithm()).isEqualTo(JwtAlgorithm.HS512);
+        assertThat(key.isPublished()).isFalse();
+        assertThat(key.getKeyId()).hasSize(43);
+    }
+
+    @Test
+    void generate_shouldReject_whenAlgorithmIsSymmetric() {
+        assertThatThrownBy(() -> JwtSigningKey.generate(JwtAlgorithm.HS512))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static KeyPair rfc8037KeyPair() throws Exception {
+        KeyFactory keyFactory = KeyFactory.getInstance("Ed25519");
+        byte[] publicKey = concat(HexFormat.of().parseHex("302a300506032b6570032100"),
+                Base64.getUrlDecoder().decode(RFC_8037_X));
+        byte[] privateKey = concat(HexFormat.of().parseHex("302e020100300506032b657004220420"),
+                Base64.getUrlDecoder().decode(RFC_8037_D));
+        return new KeyPair(keyFactory.generatePublic(new X509EncodedKeySpec(publicKey)),
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKey)));
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,61 @@
+package com.siddharthgawas.apigateway.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenTemplateTest {
+    private final long issuedAtMs = System.currentTimeMillis();
+
+    @Test
+    void mint_shouldProduceTokenVerifiedByJjwt_forEveryAlgorithm() {
+        List<JwtSigningKey> keys = List.of(JwtSigningKey.hmac(Jwts.SIG.HS512.key().build()),
+                JwtSigningKey.generate(JwtAlgorithm.ES256),
+                JwtSigningKey.generate(JwtAlgorithm.EDDSA));
+        for (JwtSigningKey key : keys) {
+            String token = new JwtTokenTemplate(key, "prod.api-gateway")
+                    .mint("tester", issuedAtMs, issuedAtMs + 600_000, "token-1");
+
+            Claims claims = parse(key, token);
+
+            assertThat(claims.getSubject()).isEqualTo("tester");
+            assertThat(claims.getIssuer()).isEqualTo("prod.api-gateway");
+            assertThat(claims.getId()).isEqualTo("token-1");
+            assertThat(claims.getIssuedAt().getTime()).isEqualTo(issuedAtMs / 1000 * 1000);
+            assertThat(claims.getExpiration().getTime()).isEqualTo((issuedAtMs + 600_000) / 1000 * 1000);
+        }
+    }
+
+    @Test
+    void mint_shouldEncodeIssuersOfAnyLength() {
+        JwtSigningKey key = JwtSigningKey.generate(JwtAlgorithm.EDDSA);
+        for (String issuer : new String[]{null, "a", "ab", "abc", "äbc"}) {
+            String token = new JwtTokenTemplate(key, issuer)
+                    .mint("tester", issuedAtMs, issuedAtMs + 600_000, "token-1");
+
+            Claims claims = parse(key, token);
+
+            assertThat(claims.getIssuer()).isEqualTo(issuer);
+            assertThat(claims.getSubject()).isEqualTo("tester");
+        }
+    }
+
+    @Test
+    void mint_shouldEscapeSubject() {
+        JwtSigningKey key = JwtSigningKey.generate(JwtAlgorithm.EDDSA);
+        String subject = "quote\" backslash\\ tab\t ünïcode";
+
+        String token = new JwtTokenTemplate(key, "issuer")
+                .mint(subject, issuedAtMs, issuedAtMs + 600_000, "token-1");
+
+        assertThat(parse(key, token).getSubject()).isEqualTo(subject);
+    }
+
+    private static Claims parse(final JwtSigningKey key, final String token) {
+        return new JwtKeySet(List.of(key)).parser().parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,62 @@
+package com.siddharthgawas.apigateway.security;
+
+import com.siddharthgawas.apigateway.security.dto.VerifiedClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+    private VerifiedTokenCache cache;
+    private Function<String, VerifiedClaims> verifier;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache(2);
+        verifier = mock(Function.class);
+    }
+
+    @Test
+    void computeIfAbsent_shouldVerifyOnlyOnce_whenTokenIsCached() {
+        VerifiedClaims claims = new VerifiedClaims("user", "jti", System.currentTimeMillis() + 60_000);
+        when(verifier.apply("token")).thenReturn(claims);
+
+        assertThat(cache.computeIfAbsent("token", verifier)).isEqualTo(claims);
+        assertThat(cache.computeIfAbsent("token", verifier)).isEqualTo(claims);
+        verify(verifier, times(1)).apply("token");
+    }
+
+    @Test
+    void computeIfAbsent_shouldNotCache_whenTokenIsInvalid() {
+        when(verifier.apply("token")).thenReturn(null);
+
+        assertThat(cache.computeIfAbsent("token", verifier)).isNull();
+        assertThat(cache.computeIfAbsent("token", verifier)).isNull();
+        verify(verifier, times(2)).apply("token");
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void computeIfAbsent_shouldNotCache_whenTokenAlreadyExpired() {
+        when(verifier.apply("token"))
+                .thenReturn(new VerifiedClaims("user", "jti", System.currentTimeMillis() - 1));
+
+        cache.computeIfAbsent("token", verifier);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void computeIfAbsent_shouldNeverExceedMaxEntries() {
+        when(verifier.apply(anyString()))
+                .thenAnswer(invocation -> new VerifiedClaims(invocation.getArgument(0), "jti",
+                        System.currentTimeMillis() + 60_000));
+
+        cache.computeIfAbsent("token-1", verifier);
+        cache.computeIfAbsent("token-2", verifier);
+        cache.computeIfAbsent("token-3", verifier);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+}
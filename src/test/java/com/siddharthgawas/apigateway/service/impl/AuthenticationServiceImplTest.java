@@ -1,10 +1,13 @@
 package com.siddharthgawas.apigateway.service.impl;
 
 import com.siddharthgawas.apigateway.security.dto.TokenDetails;
+import com.siddharthgawas.apigateway.security.dto.VerifiedClaims;
 import com.siddharthgawas.apigateway.service.JWTService;
+import com.siddharthgawas.apigateway.service.RefreshTokenFamilyStore;
+import com.siddharthgawas.apigateway.service.TokenRevocationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
+import org.mockito.ArgumentCaptor;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -16,19 +19,24 @@ import static org.mockito.Mockito.*;
 
 class AuthenticationServiceImplTest {
     private JWTService jwtService;
+    private RefreshTokenFamilyStore refreshTokenFamilyStore;
+    private TokenRevocationService tokenRevocationService;
     private AuthenticationServiceImpl authenticationService;
 
     @BeforeEach
     void setUp() {
         PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
         jwtService = mock(JWTService.class);
+        refreshTokenFamilyStore = mock(RefreshTokenFamilyStore.class);
+        tokenRevocationService = mock(TokenRevocationService.class);
         when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
         when(passwordEncoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
             String raw = invocation.getArgument(0);
             String encoded = invocation.getArgument(1);
             return raw.equals(encoded);
         });
-        authenticationService = new AuthenticationServiceImpl(passwordEncoder, jwtService);
+        authenticationService = new AuthenticationServiceImpl(passwordEncoder, jwtService, refreshTokenFamilyStore,
+                tokenRevocationService);
     }
 
     @Test
@@ -39,7 +47,7 @@ class AuthenticationServiceImplTest {
         String accessToken = "access-token";
         String refreshToken = "refresh-token";
         when(jwtService.generateAccessToken(any(User.class))).thenReturn(accessToken);
-        when(jwtService.generateRefreshToken(any(User.class))).thenReturn(refreshToken);
+        when(jwtService.generateRefreshToken(any(User.class), anyString(), anyString())).thenReturn(refreshToken);
 
         TokenDetails result = authenticationService.authenticate(username, password);
 
@@ -47,6 +55,18 @@ class AuthenticationServiceImplTest {
         assertThat(result.refreshToken()).isEqualTo(refreshToken);
     }
 
+    @Test
+    void authenticate_shouldOpenFamilyOfRefreshToken() {
+        ArgumentCaptor<String> familyId = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> tokenId = ArgumentCaptor.forClass(String.class);
+
+        authenticationService.authenticate("johndoe", "johndoe");
+
+        verify(refreshTokenFamilyStore).open(familyId.capture(), tokenId.capture());
+        verify(jwtService).generateRefreshToken(any(User.class), eq(familyId.getValue()), eq(tokenId.getValue()));
+        assertThat(familyId.getValue()).isNotEqualTo(tokenId.getValue());
+    }
+
     @Test
     void authenticate_shouldThrowAccessDeniedException_whenUserNotFound() {
         assertThatThrownBy(() -> authenticationService.authenticate("nouser", "pass"))
@@ -64,37 +84,118 @@ class AuthenticationServiceImplTest {
     @Test
     void refreshAccessToken_shouldReturnTokenDetails_whenRefreshTokenValid() {
         String refreshToken = "refresh-token";
-        User user = new User("johndoe", "johndoe", Collections.emptyList());
         String accessToken = "access-token";
         String newRefreshToken = "new-refresh-token";
-        when(jwtService.validateToken(refreshToken)).thenReturn(true);
-        when(jwtService.getUserFromToken(refreshToken)).thenReturn(user);
-        when(jwtService.generateAccessToken(user)).thenReturn(accessToken);
-        when(jwtService.generateRefreshToken(user)).thenReturn(newRefreshToken);
+        when(jwtService.verifyToken(refreshToken)).thenReturn(new VerifiedClaims("johndoe", "jti-1", 0L, "family-1"));
+        when(refreshTokenFamilyStore.rotate(eq("family-1"), eq("jti-1"), anyString()))
+                .thenReturn(RefreshTokenFamilyStore.Rotation.ROTATED);
+        when(jwtService.generateAccessToken(any(User.class))).thenReturn(accessToken);
+        when(jwtService.generateRefreshToken(any(User.class), eq("family-1"), anyString())).thenReturn(newRefreshToken);
 
         TokenDetails result = authenticationService.refreshAccessToken(refreshToken);
 
         assertThat(result.accessToken()).isEqualTo(accessToken);
         assertThat(result.refreshToken()).isEqualTo(newRefreshToken);
+        ArgumentCaptor<String> nextTokenId = ArgumentCaptor.forClass(String.class);
+        verify(refreshTokenFamilyStore).rotate(eq("family-1"), eq("jti-1"), nextTokenId.capture());
+        verify(jwtService).generateRefreshToken(any(User.class), eq("family-1"), eq(nextTokenId.getValue()));
     }
 
     @Test
     void refreshAccessToken_shouldThrowAccessDeniedException_whenTokenInvalid() {
         String refreshToken = "invalid-token";
-        when(jwtService.validateToken(refreshToken)).thenReturn(false);
+        when(jwtService.verifyToken(refreshToken)).thenReturn(null);
         assertThatThrownBy(() -> authenticationService.refreshAccessToken(refreshToken))
                 .isInstanceOf(AccessDeniedException.class)
                 .hasMessageContaining("Invalid refresh token");
     }
 
+    @Test
+    void refreshAccessToken_shouldThrowAccessDeniedException_whenTokenHasNoFamily() {
+        String accessToken = "access-token";
+        when(jwtService.verifyToken(accessToken)).thenReturn(new VerifiedClaims("johndoe", "jti-1", 0L));
+        assertThatThrownBy(() -> authenticationService.refreshAccessToken(accessToken))
+                .isInstanceOf(AccessDeniedException.class)
+                .hasMessageContaining("Invalid refresh token");
+        verifyNoInteractions(refreshTokenFamilyStore);
+    }
+
     @Test
     void refreshAccessToken_shouldThrowAccessDeniedException_whenUserNull() {
         String refreshToken = "refresh-token";
-        when(jwtService.validateToken(refreshToken)).thenReturn(true);
-        when(jwtService.getUserFromToken(refreshToken)).thenReturn(null);
+        when(jwtService.verifyToken(refreshToken)).thenReturn(new VerifiedClaims(null, "jti-1", 0L, "family-1"));
         assertThatThrownBy(() -> authenticationService.refreshAccessToken(refreshToken))
                 .isInstanceOf(AccessDeniedException.class)
                 .hasMessageContaining("No user found for the provided refresh token");
     }
-}
 
+    @Test
+    void refreshAccessToken_shouldThrowAccessDeniedException_whenTokenWasReused() {
+        String refreshToken = "refresh-token";
+        when(jwtService.verifyToken(refreshToken)).thenReturn(new VerifiedClaims("johndoe", "jti-1", 0L, "family-1"));
+        when(refreshTokenFamilyStore.rotate(eq("family-1"), eq("jti-1"), anyString()))
+                .thenReturn(RefreshTokenFamilyStore.Rotation.REUSED);
+
+        assertThatThrownBy(() -> authenticationService.refreshAccessToken(refreshToken))
+                .isInstanceOf(AccessDeniedException.class)
+                .hasMessageContaining("already been used");
+        verify(jwtService, never()).generateAccessToken(any());
+    }
+
+    @Test
+    void refreshAccessToken_shouldThrowAccessDeniedException_whenFamilyIsUnknown() {
+        String refreshToken = "refresh-token";
+        when(jwtService.verifyToken(refreshToken)).thenReturn(new VerifiedClaims("johndoe", "jti-1", 0L, "family-1"));
+        when(refreshTokenFamilyStore.rotate(eq("family-1"), eq("jti-1"), anyString()))
+                .thenReturn(RefreshTokenFamilyStore.Rotation.UNKNOWN);
+
+        assertThatThrownBy(() -> authenticationService.refreshAccessToken(refreshToken))
+                .isInstanceOf(AccessDeniedException.class)
+                .hasMessageContaining("Invalid refresh token");
+    }
+
+    @Test
+    void revoke_shouldRevokeAccessTokenAndRefreshTokenFamily_whenTokensValid() {
+        when(jwtService.verifyToken("access-token")).thenReturn(new VerifiedClaims("johndoe", "jti-1", 1_000L));
+        when(jwtService.verifyToken("refresh-token"))
+                .thenReturn(new VerifiedClaims("johndoe", "jti-2", 2_000L, "family-1"));
+
+        authenticationService.revoke("access-token", "refresh-token");
+
+        verify(tokenRevocationService).revoke("jti-1", 1_000L);
+        verify(refreshTokenFamilyStore).revoke("family-1");
+    }
+
+    @Test
+    void revoke_shouldNotRevokeFamily_whenRefreshTokenOfAnotherUser() {
+        when(jwtService.verifyToken("access-token")).thenReturn(new VerifiedClaims("johndoe", "jti-1", 1_000L));
+        when(jwtService.verifyToken("refresh-token"))
+                .thenReturn(new VerifiedClaims("janedoe", "jti-2", 2_000L, "family-1"));
+
+        authenticationService.revoke("access-token", "refresh-token");
+
+        verify(tokenRevocationService).revoke("jti-1", 1_000L);
+        verify(refreshTokenFamilyStore, never()).revoke(anyString());
+    }
+
+    @Test
+    void revoke_shouldThrowAccessDenied_whenAccessTokenInvalid() {
+        when(jwtService.verifyToken("access-token")).thenReturn(null);
+
+        assertThatThrownBy(() -> authenticationService.revoke("access-token", null))
+                .isInstanceOf(AccessDeniedException.class)
+                .hasMessageContaining("Invalid access token");
+        verifyNoInteractions(tokenRevocationService);
+    }
+
+    @Test
+    void revoke_shouldThrowAccessDenied_whenAccessTokenIsRefreshToken() {
+        when(jwtService.verifyToken("refresh-token"))
+                .thenReturn(new VerifiedClaims("johndoe", "jti-2", 2_000L, "family-1"));
+
+        assertThatThrownBy(() -> authenticationService.revoke("refresh-token", null))
+                .isInstanceOf(AccessDeniedException.class)
+                .hasMessageContaining("Invalid access token");
+        verifyNoInteractions(tokenRevocationService);
+    }
+}
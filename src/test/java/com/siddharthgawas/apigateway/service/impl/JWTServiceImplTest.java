@@ -1,6 +1,10 @@
 package com.siddharthgawas.apigateway.service.impl;
 
 import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.security.JwtAlgorithm;
+import com.siddharthgawas.apigateway.security.JwtKeySet;
+import com.siddharthgawas.apigateway.security.JwtSigningKey;
+import com.siddharthgawas.apigateway.security.dto.VerifiedClaims;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,16 +13,20 @@ import org.mockito.Mockito;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 
 class JWTServiceImplTest {
+    private ApplicationProperties applicationProperties;
     private JWTServiceImpl jwtService;
 
     @BeforeEach
     void setUp() {
-        ApplicationProperties applicationProperties = Mockito.mock(ApplicationProperties.class);
+        applicationProperties = Mockito.mock(ApplicationProperties.class);
         String secret = "test-secret-key-1234567890";
         Mockito.when(applicationProperties.getSecret()).thenReturn(secret);
         // 15 minutes
@@ -61,10 +69,103 @@ class JWTServiceImplTest {
         assertThat(isValid).isFalse();
     }
 
+    @Test
+    void verifyToken_shouldReturnClaims_whenTokenValid() {
+        UserDetails user = new User("tester", "password", Collections.emptyList());
+        String token = jwtService.generateAccessToken(user);
+        VerifiedClaims claims = jwtService.verifyToken(token);
+        assertThat(claims).isNotNull();
+        assertThat(claims.subject()).isEqualTo("tester");
+        assertThat(claims.tokenId()).isNotBlank();
+        assertThat(claims.expiresAtMs()).isGreaterThan(System.currentTimeMillis());
+    }
+
+    @Test
+    void verifyToken_shouldReturnNullForMalformedToken() {
+        assertThat(jwtService.verifyToken("not.a.jwt.token")).isNull();
+    }
+
     @Test
     void getUserFromToken_shouldReturnNullForMalformedToken() {
         String malformedToken = "not.a.jwt.token";
         User user = jwtService.getUserFromToken(malformedToken);
         assertThat(user).isNull();
     }
+
+    @Test
+    void verifyToken_shouldAcceptTokenOfAsymmetricKey() {
+        for (JwtAlgorithm algorithm : List.of(JwtAlgorithm.ES256, JwtAlgorithm.EDDSA)) {
+            JwtSigningKey signingKey = JwtSigningKey.generate(algorithm);
+            JWTServiceImpl service = new JWTServiceImpl(applicationProperties, new JwtKeySet(List.of(signingKey)));
+            String token = service.generateAccessToken(new User("tester", "password", Collections.emptyList()));
+
+            String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                    StandardCharsets.UTF_8);
+            assertThat(header).contains("\"kid\":\"" + signingKey.getKeyId() + "\"")
+                    .contains("\"alg\":\"" + algorithm.getJwsName() + "\"");
+            assertThat(service.verifyToken(token).subject()).isEqualTo("tester");
+        }
+    }
+
+    @Test
+    void verifyToken_shouldAcceptTokenOfPreviousKey_untilItIsRetired() {
+        JwtSigningKey previous = JwtSigningKey.generate(JwtAlgorithm.EDDSA);
+        JwtKeySet keySet = new JwtKeySet(List.of(previous));
+        JWTServiceImpl service = new JWTServiceImpl(applicationProperties, keySet);
+        String token = service.generateAccessToken(new User("tester", "password", Collections.emptyList()));
+
+        keySet.rotate(JwtSigningKey.generate(JwtAlgorithm.ES256));
+        assertThat(service.verifyToken(token)).isNotNull();
+
+        keySet.retire(previous.getKeyId());
+        assertThat(service.verifyToken(token)).isNull();
+    }
+
+    @Test
+    void verifyToken_shouldReturnNull_whenKeyIdIsUnknown() {
+        String token = new JWTServiceImpl(applicationProperties,
+                new JwtKeySet(List.of(JwtSigningKey.generate(JwtAlgorithm.EDDSA))))
+                .generateAccessToken(new User("tester", "password", Collections.emptyList()));
+
+        assertThat(jwtService.verifyToken(token)).isNull();
+    }
+
+    @Test
+    void generateAccessToken_shouldSignWithNewKey_afterRotation() {
+        JwtKeySet keySet = new JwtKeySet(List.of(JwtSigningKey.generate(JwtAlgorithm.EDDSA)));
+        JWTServiceImpl service = new JWTServiceImpl(applicationProperties, keySet);
+        UserDetails user = new User("tester", "password", Collections.emptyList());
+        service.generateAccessToken(user);
+        JwtSigningKey rotated = JwtSigningKey.generate(JwtAlgorithm.ES256);
+
+        keySet.rotate(rotated);
+        String token = service.generateAccessToken(user);
+
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        assertThat(header).contains(rotated.getKeyId());
+        assertThat(service.verifyToken(token).subject()).isEqualTo("tester");
+    }
+
+    @Test
+    void generateAccessToken_shouldUseDistinctTokenIds() {
+        UserDetails user = new User("tester", "password", Collections.emptyList());
+
+        VerifiedClaims first = jwtService.verifyToken(jwtService.generateAccessToken(user));
+        VerifiedClaims second = jwtService.verifyToken(jwtService.generateRefreshToken(user));
+
+        assertThat(first.tokenId()).isNotEqualTo(second.tokenId());
+        assertThat(second.expiresAtMs()).isGreaterThan(first.expiresAtMs());
+    }
+
+    @Test
+    void verifyToken_shouldReturnFamily_ofRefreshTokenInFamily() {
+        UserDetails user = new User("tester", "password", Collections.emptyList());
+
+        VerifiedClaims claims = jwtService.verifyToken(jwtService.generateRefreshToken(user, "family-1", "jti-1"));
+
+        assertThat(claims.familyId()).isEqualTo("family-1");
+        assertThat(claims.tokenId()).isEqualTo("jti-1");
+        assertThat(jwtService.verifyToken(jwtService.generateAccessToken(user)).familyId()).isNull();
+    }
 }
@@ -0,0 +1,167 @@
+package com.siddharthgawas.apigateway.service.impl;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.routing.RouteTable;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProxyServiceImplTest {
+    private final List<HttpServer> upstreams = new ArrayList<>();
+    private final AtomicReference<RecordedRequest> lastRequest = new AtomicReference<>();
+    private HttpClient httpClient;
+
+    private record RecordedRequest(String upstream, String method, String uri, Headers headers, String body) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstreams.forEach(upstream -> upstream.stop(0));
+        httpClient.close();
+    }
+
+    private String startUpstream(String name) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            lastRequest.set(new RecordedRequest(name, exchange.getRequestMethod(),
+                    exchange.getRequestURI().toString(), exchange.getRequestHeaders(), body));
+            byte[] responseBody = ("from " + name).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("X-Upstream", name);
+            exchange.getResponseHeaders().add("Keep-Alive", "timeout=5");
+            exchange.sendResponseHeaders(201, responseBody.length);
+            exchange.getResponseBody().write(responseBody);
+            exchange.close();
+        });
+        server.start();
+        upstreams.add(server);
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private ProxyServiceImpl proxyService(ApplicationProperties.Route... routes) {
+        return new ProxyServiceImpl(httpClient, new RouteTable(List.of(routes)), new ApplicationProperties());
+    }
+
+    private static ApplicationProperties.Route route(String pathPrefix, boolean stripPrefix, String... upstreams) {
+        ApplicationProperties.Route route = new ApplicationProperties.Route();
+        route.setPathPrefix(pathPrefix);
+        route.setStripPrefix(stripPrefix);
+        route.setUpstreams(List.of(upstreams));
+        return route;
+    }
+
+    @Test
+    void forward_shouldStreamRequestAndResponse_whenRouteMatches() throws IOException {
+        ProxyServiceImpl proxyService = proxyService(route("/api/orders", false, startUpstream("orders")));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders/42");
+        request.setQueryString("expand=items");
+        request.addHeader("Content-Type", "application/json");
+        request.setContent("{\"quantity\":1}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean forwarded = proxyService.forward(request, response, "johndoe");
+
+        assertThat(forwarded).isTrue();
+        RecordedRequest recorded = lastRequest.get();
+        assertThat(recorded.method()).isEqualTo("POST");
+        assertThat(recorded.uri()).isEqualTo("/api/orders/42?expand=items");
+        assertThat(recorded.body()).isEqualTo("{\"quantity\":1}");
+        assertThat(recorded.headers().getFirst("Content-Type")).isEqualTo("application/json");
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(response.getHeader("X-Upstream")).isEqualTo("orders");
+        assertThat(response.getContentAsString()).isEqualTo("from orders");
+    }
+
+    @Test
+    void forward_shouldRewriteHeaders_whenForwarding() throws IOException {
+        ProxyServiceImpl proxyService = proxyService(route("/api", false, startUpstream("api")));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/profile");
+        request.addHeader("Authorization", "Bearer token");
+        request.addHeader(ProxyServiceImpl.AUTHENTICATED_USER_HEADER, "spoofed");
+        request.addHeader("X-Forwarded-For", "10.0.0.1");
+        request.addHeader("Connection", "keep-alive");
+        request.addHeader("Accept", "application/json");
+        request.setRemoteAddr("10.0.0.2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        proxyService.forward(request, response, "johndoe");
+
+        Headers headers = lastRequest.get().headers();
+        assertThat(headers.getFirst(ProxyServiceImpl.AUTHENTICATED_USER_HEADER)).isEqualTo("johndoe");
+        assertThat(headers.get(ProxyServiceImpl.AUTHENTICATED_USER_HEADER)).hasSize(1);
+        assertThat(headers.containsKey("Authorization")).isFalse();
+        assertThat(headers.getFirst("X-Forwarded-For")).isEqualTo("10.0.0.1, 10.0.0.2");
+        assertThat(headers.getFirst("X-Forwarded-Proto")).isEqualTo("http");
+        assertThat(headers.getFirst("Accept")).isEqualTo("application/json");
+        assertThat(response.getHeader("Keep-Alive")).isNull();
+    }
+
+    @Test
+    void forward_shouldUseLongestPrefixAndStripIt_whenConfigured() throws IOException {
+        ProxyServiceImpl proxyService = proxyService(
+                route("/api", false, startUpstream("api")),
+                route("/api/users/", true, startUpstream("users")));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        proxyService.forward(new MockHttpServletRequest("GET", "/api/users/42"), response, null);
+
+        assertThat(lastRequest.get().upstream()).isEqualTo("users");
+        assertThat(lastRequest.get().uri()).isEqualTo("/42");
+        assertThat(lastRequest.get().headers().containsKey(ProxyServiceImpl.AUTHENTICATED_USER_HEADER)).isFalse();
+    }
+
+    @Test
+    void forward_shouldSpreadRequestsRoundRobin_whenRouteHasManyUpstreams() throws IOException {
+        ProxyServiceImpl proxyService = proxyService(route("/", false, startUpstream("a"), startUpstream("b")));
+        List<String> reached = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            proxyService.forward(new MockHttpServletRequest("GET", "/items"), new MockHttpServletResponse(), null);
+            reached.add(lastRequest.get().upstream());
+        }
+
+        assertThat(reached).containsExactly("a", "b", "a", "b");
+    }
+
+    @Test
+    void forward_shouldReturnFalse_whenNoRouteMatches() throws IOException {
+        ProxyServiceImpl proxyService = proxyService(route("/api", false, startUpstream("api")));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(proxyService.forward(new MockHttpServletRequest("GET", "/apiary"), response, null)).isFalse();
+        assertThat(lastRequest.get()).isNull();
+    }
+
+    @Test
+    void forward_shouldRespondBadGateway_whenUpstreamUnreachable() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        ProxyServiceImpl proxyService = proxyService(route("/api", false, "http://localhost:" + closedPort));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(proxyService.forward(new MockHttpServletRequest("GET", "/api/x"), response, null)).isTrue();
+        assertThat(response.getStatus()).isEqualTo(502);
+    }
+}
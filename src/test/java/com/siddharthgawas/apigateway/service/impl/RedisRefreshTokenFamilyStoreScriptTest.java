@@ -0,0 +1,143 @@
+package com.siddharthgawas.apigateway.service.impl;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.service.RefreshTokenFamilyStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Lua scripts of {@link RedisRefreshTokenFamilyStore} against an embedded Redis server.
+ */
+class RedisRefreshTokenFamilyStoreScriptTest {
+    private static final long TTL_MS = 1_200_000L;
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private RedisRefreshTokenFamilyStore store;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setJwtRefreshTokenExpirationMs(TTL_MS);
+        store = new RedisRefreshTokenFamilyStore(redisTemplate, applicationProperties);
+    }
+
+    @Test
+    void open_shouldStoreActiveFamilyWithRefreshTokenLifetime() {
+        store.open("family-1", "jti-1");
+
+        assertThat(redisTemplate.<String, String>opsForHash().entries("rtf:{family-1}"))
+                .containsEntry("jti", "jti-1")
+                .containsEntry("state", "active");
+        assertThat(ttlMs("family-1")).isBetween(TTL_MS - 5_000, TTL_MS);
+    }
+
+    @Test
+    void rotate_shouldAcceptLatestTokenOnce() {
+        store.open("family-1", "jti-1");
+
+        assertThat(store.rotate("family-1", "jti-1", "jti-2")).isEqualTo(RefreshTokenFamilyStore.Rotation.ROTATED);
+        assertThat(store.rotate("family-1", "jti-2", "jti-3")).isEqualTo(RefreshTokenFamilyStore.Rotation.ROTATED);
+        assertThat(redisTemplate.opsForHash().get("rtf:{family-1}", "jti")).isEqualTo("jti-3");
+    }
+
+    @Test
+    void rotate_shouldReportReuseAndRevokeFamily_whenTokenReplayed() {
+        store.open("family-1", "jti-1");
+        store.rotate("family-1", "jti-1", "jti-2");
+
+        assertThat(store.rotate("family-1", "jti-1", "jti-3")).isEqualTo(RefreshTokenFamilyStore.Rotation.REUSED);
+        assertThat(redisTemplate.opsForHash().get("rtf:{family-1}", "state")).isEqualTo("revoked");
+        // The latest token of the family is refused too, so a stolen token cannot outlive the replay
+        assertThat(store.rotate("family-1", "jti-2", "jti-4")).isEqualTo(RefreshTokenFamilyStore.Rotation.REUSED);
+        assertThat(redisTemplate.opsForHash().get("rtf:{family-1}", "jti")).isEqualTo("jti-2");
+    }
+
+    @Test
+    void rotate_shouldReturnUnknown_whenFamilyDoesNotExist() {
+        assertThat(store.rotate("missing", "jti-1", "jti-2")).isEqualTo(RefreshTokenFamilyStore.Rotation.UNKNOWN);
+        assertThat(redisTemplate.hasKey("rtf:{missing}")).isFalse();
+    }
+
+    @Test
+    void rotate_shouldResetExpiry() {
+        store.open("family-1", "jti-1");
+        redisTemplate.expire("rtf:{family-1}", 1, TimeUnit.SECONDS);
+
+        store.rotate("family-1", "jti-1", "jti-2");
+
+        assertThat(ttlMs("family-1")).isBetween(TTL_MS - 5_000, TTL_MS);
+    }
+
+    @Test
+    void rotate_shouldNotResetExpiry_whenTokenReplayed() {
+        store.open("family-1", "jti-1");
+        store.rotate("family-1", "jti-1", "jti-2");
+        redisTemplate.expire("rtf:{family-1}", 10, TimeUnit.SECONDS);
+
+        store.rotate("family-1", "jti-1", "jti-3");
+
+        assertThat(ttlMs("family-1")).isLessThanOrEqualTo(10_000);
+    }
+
+    @Test
+    void revoke_shouldRefuseLatestToken() {
+        store.open("family-1", "jti-1");
+
+        store.revoke("family-1");
+
+        assertThat(store.rotate("family-1", "jti-1", "jti-2")).isEqualTo(RefreshTokenFamilyStore.Rotation.REUSED);
+    }
+
+    @Test
+    void revoke_shouldNotCreateFamily_whenFamilyDoesNotExist() {
+        store.revoke("missing");
+
+        assertThat(redisTemplate.hasKey("rtf:{missing}")).isFalse();
+    }
+
+    private static long ttlMs(final String familyId) {
+        return redisTemplate.getExpire("rtf:{" + familyId + "}", TimeUnit.MILLISECONDS);
+    }
+}
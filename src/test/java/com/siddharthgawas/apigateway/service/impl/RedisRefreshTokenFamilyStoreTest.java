@@ -0,0 +1,55 @@
+package com.siddharthgawas.apigateway.service.impl;
+
+import com.siddharthgawas.apigateway.configuration.ApplicationProperties;
+import com.siddharthgawas.apigateway.service.RefreshTokenFamilyStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RedisRefreshTokenFamilyStoreTest {
+    private StringRedisTemplate redisTemplate;
+    private RedisRefreshTokenFamilyStore store;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setJwtRefreshTokenExpirationMs(1_200_000L);
+        store = new RedisRefreshTokenFamilyStore(redisTemplate, applicationProperties);
+    }
+
+    @Test
+    void open_shouldStoreFirstTokenWithRefreshTokenLifetime() {
+        store.open("family-1", "jti-1");
+
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(List.of("rtf:{family-1}")),
+                eq("jti-1"), eq("1200000"));
+    }
+
+    @Test
+    void rotate_shouldMapScriptResults() {
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(List.of("rtf:{family-1}")),
+                eq("jti-1"), eq("jti-2"), eq("1200000")))
+                .thenReturn(1L, -1L, 0L, null);
+
+        assertThat(store.rotate("family-1", "jti-1", "jti-2")).isEqualTo(RefreshTokenFamilyStore.Rotation.ROTATED);
+        assertThat(store.rotate("family-1", "jti-1", "jti-2")).isEqualTo(RefreshTokenFamilyStore.Rotation.REUSED);
+        assertThat(store.rotate("family-1", "jti-1", "jti-2")).isEqualTo(RefreshTokenFamilyStore.Rotation.UNKNOWN);
+        assertThat(store.rotate("family-1", "jti-1", "jti-2")).isEqualTo(RefreshTokenFamilyStore.Rotation.UNKNOWN);
+    }
+
+    @Test
+    void revoke_shouldRunScriptOnFamilyKey() {
+        store.revoke("family-1");
+
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(List.of("rtf:{family-1}")));
+    }
+}
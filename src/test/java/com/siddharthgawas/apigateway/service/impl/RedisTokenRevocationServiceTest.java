@@ -0,0 +1,171 @@
+package com.siddharthgawas.apigateway.service.impl;
+
+import com.siddharthgawas.apigateway.metrics.GatewayMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RedisTokenRevocationServiceTest {
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private ZSetOperations<String, String> zSetOperations;
+    private AtomicLong clock;
+    private SimpleMeterRegistry meterRegistry;
+    private RedisTokenRevocationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        zSetOperations = mock(ZSetOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.getExpire(anyString(), eq(TimeUnit.MILLISECONDS))).thenReturn(-2L);
+        clock = new AtomicLong(1_000_000L);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new RedisTokenRevocationService(redisTemplate, 1_000, false,
+                new GatewayMetrics(meterRegistry, List.of()), clock::get);
+    }
+
+    @Test
+    void revoke_shouldStoreTokenUntilExpiryAndAnnounceIt() {
+        service.revoke("jti-1", 1_060_000L);
+
+        verify(valueOperations).set("rvk:jti-1", "1", Duration.ofMillis(60_000L));
+        verify(zSetOperations).add(RedisTokenRevocationService.INDEX_KEY, "jti-1", 1_060_000L);
+        verify(redisTemplate).convertAndSend(RedisTokenRevocationService.CHANNEL, "jti-1");
+    }
+
+    @Test
+    void revoke_shouldIgnoreExpiredToken() {
+        service.revoke("jti-1", 1_000_000L);
+
+        verifyNoInteractions(valueOperations, zSetOperations);
+    }
+
+    @Test
+    void isRevoked_shouldNotQueryRedis_whenFilterMisses() {
+        when(zSetOperations.range(RedisTokenRevocationService.INDEX_KEY, 0, -1)).thenReturn(Set.of("jti-1"));
+        assertThat(service.refresh()).isTrue();
+
+        assertThat(service.isRevoked("jti-2")).isFalse();
+        verify(redisTemplate, never()).getExpire(anyString(), any(TimeUnit.class));
+    }
+
+    @Test
+    void isRevoked_shouldConfirmFilterHitInRedisOnce() {
+        when(zSetOperations.range(RedisTokenRevocationService.INDEX_KEY, 0, -1)).thenReturn(Set.of("jti-1"));
+        when(redisTemplate.getExpire("rvk:jti-1", TimeUnit.MILLISECONDS)).thenReturn(60_000L);
+        service.refresh();
+
+        assertThat(service.isRevoked("jti-1")).isTrue();
+        assertThat(service.isRevoked("jti-1")).isTrue();
+        verify(redisTemplate, times(1)).getExpire("rvk:jti-1", TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void isRevoked_shouldReturnFalse_whenFilterHitExpiredInRedis() {
+        when(zSetOperations.range(RedisTokenRevocationService.INDEX_KEY, 0, -1)).thenReturn(Set.of("jti-1"));
+        service.refresh();
+
+        assertThat(service.isRevoked("jti-1")).isFalse();
+    }
+
+    @Test
+    void isRevoked_shouldReturnTrue_whenFilterHitCannotBeConfirmed() {
+        when(zSetOperations.range(RedisTokenRevocationService.INDEX_KEY, 0, -1)).thenReturn(Set.of("jti-1"));
+        when(redisTemplate.getExpire("rvk:jti-1", TimeUnit.MILLISECONDS))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        service.refresh();
+
+        assertThat(service.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    void isRevoked_shouldQueryRedis_whenFilterNotLoaded() {
+        assertThat(service.isRevoked("jti-1")).isFalse();
+
+        verify(redisTemplate).getExpire("rvk:jti-1", TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void isRevoked_shouldRejectTokens_whenFilterNotLoadedAndRedisDown() {
+        when(redisTemplate.getExpire(anyString(), eq(TimeUnit.MILLISECONDS)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(zSetOperations.removeRangeByScore(anyString(), anyDouble(), anyDouble()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        assertThat(service.refresh()).isFalse();
+
+        assertThat(service.isRevoked("jti-1")).isTrue();
+        assertThat(service.isRevoked("jti-2")).isTrue();
+
+        verify(redisTemplate, times(2)).getExpire(anyString(), eq(TimeUnit.MILLISECONDS));
+        assertThat(meterRegistry.get("gateway.jwt.revocation.unchecked").counter().count()).isZero();
+    }
+
+    @Test
+    void isRevoked_shouldAcceptAndCountTokens_whenFailOpenAndFilterNotLoadedAndRedisDown() {
+        service = new RedisTokenRevocationService(redisTemplate, 1_000, true,
+                new GatewayMetrics(meterRegistry, List.of()), clock::get);
+        when(redisTemplate.getExpire(anyString(), eq(TimeUnit.MILLISECONDS)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(zSetOperations.removeRangeByScore(anyString(), anyDouble(), anyDouble()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        assertThat(service.refresh()).isFalse();
+
+        assertThat(service.isRevoked("jti-1")).isFalse();
+        assertThat(service.isRevoked("jti-2")).isFalse();
+
+        // Only the first token waits for Redis until the next refresh
+        verify(redisTemplate, times(1)).getExpire(anyString(), eq(TimeUnit.MILLISECONDS));
+        assertThat(meterRegistry.get("gateway.jwt.revocation.unchecked").counter().count()).isEqualTo(2.0);
+
+        service.refresh();
+        assertThat(service.isRevoked("jti-3")).isFalse();
+        verify(redisTemplate, times(2)).getExpire(anyString(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void onMessage_shouldAddAnnouncedTokenToFilter() {
+        when(zSetOperations.range(RedisTokenRevocationService.INDEX_KEY, 0, -1)).thenReturn(Set.of());
+        when(redisTemplate.getExpire("rvk:jti-1", TimeUnit.MILLISECONDS)).thenReturn(60_000L);
+        service.refresh();
+
+        service.onMessage(new DefaultMessage(RedisTokenRevocationService.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "jti-1".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(service.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    void refresh_shouldDropExpiredTokensAndKeepFilter_whenRedisFails() {
+        when(zSetOperations.range(RedisTokenRevocationService.INDEX_KEY, 0, -1)).thenReturn(Set.of());
+        service.refresh();
+        when(zSetOperations.range(RedisTokenRevocationService.INDEX_KEY, 0, -1))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(service.refresh()).isFalse();
+        assertThat(service.isRevoked("jti-1")).isFalse();
+        verify(zSetOperations, times(2)).removeRangeByScore(RedisTokenRevocationService.INDEX_KEY,
+                Double.NEGATIVE_INFINITY, 1_000_000L);
+        verify(redisTemplate, never()).getExpire(anyString(), any(TimeUnit.class));
+    }
+}